@@ -1,7 +1,11 @@
 package com.backend;
 
+import com.backend.controller.ClusterController;
 import com.backend.controller.CrawlController;
+import com.backend.controller.MetricsController;
+import com.backend.service.ClusterNode;
 import com.backend.service.ICrawlService;
+import com.backend.util.MetricsRegistry;
 import spark.Spark;
 
 import java.util.logging.Logger;
@@ -10,19 +14,40 @@ public class AppServer {
     private static final Logger LOGGER = Logger.getLogger(AppServer.class.getName());
     private final ICrawlService crawlService;
     private final int port;
+    private final ClusterNode cluster;
+    private final String clusterSecret;
 
     public AppServer(ICrawlService crawlService, int port) {
+        this(crawlService, port, null, null);
+    }
+
+    /**
+     * Constructs a new {@code AppServer} that also serves the routes of {@code cluster}, unless it is
+     * {@code null}, to the nodes presenting {@code clusterSecret}.
+     */
+    public AppServer(ICrawlService crawlService, int port, ClusterNode cluster, String clusterSecret) {
+        if (cluster != null && (clusterSecret == null || clusterSecret.isEmpty())) {
+            throw new IllegalArgumentException("A cluster node needs the cluster secret");
+        }
         this.crawlService = crawlService;
         this.port = port;
+        this.cluster = cluster;
+        this.clusterSecret = clusterSecret;
     }
 
     public void start() {
         Spark.port(port);
 
         CrawlController.initializeRoutes(crawlService);
+        MetricsController.initializeRoutes(MetricsRegistry.global());
+        if (cluster != null) {
+            ClusterController.initializeRoutes(cluster, clusterSecret);
+        }
 
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             LOGGER.info("Shutting down the application...");
+            // Open streams are ended first, so their clients are not left waiting while crawls wind down.
+            CrawlController.shutdown();
             crawlService.shutdown();
             Spark.stop();
             LOGGER.info("Shutdown complete.");
@@ -1,7 +1,16 @@
 package com.backend;
 
 import com.backend.service.*;
+import com.backend.util.AsyncHttpFetcher;
+import com.backend.util.MetricsRegistry;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
 import java.util.concurrent.*;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class Main {
@@ -9,6 +18,14 @@ public class Main {
 
     public static void main(String[] args) {
         String baseUrl = System.getenv("BASE_URL");
+        String indexDirectory = System.getenv("INDEX_DIR");
+        String frontierDirectory = System.getenv("FRONTIER_DIR");
+        String resultsDirectory = System.getenv("RESULTS_DIR");
+        String revalidationDirectory = System.getenv("REVALIDATION_DIR");
+        String checkpointDirectory = System.getenv("CHECKPOINT_DIR");
+        String clusterNodes = System.getenv("CLUSTER_NODES");
+        String clusterSelf = System.getenv("CLUSTER_SELF");
+        String clusterSecret = System.getenv("CLUSTER_SECRET");
         int port = Integer.parseInt(System.getenv().getOrDefault("PORT", "4567"));
 
         if (baseUrl == null || baseUrl.isEmpty()) {
@@ -19,16 +36,127 @@ public class Main {
         final int maxResults = 100;
         final int maxRetries = 3;
         final int timeout = 5000;
-        final int maxQueueSize = 50000;
+        final boolean spillFrontier = frontierDirectory != null && !frontierDirectory.isEmpty();
+        // With a spilling frontier and fingerprint visited sets a crawl can queue millions of URLs.
+        final int maxQueueSize = spillFrontier ? 5_000_000 : 50000;
+        final int frontierMemoryCapacity = 10000;
+        final int fetchParallelism = 8;
+        final boolean coalesceSearches = true;
+        final boolean seedFromSitemaps = true;
+        // A best-first frontier is held in memory, so a spilled frontier stays first-in, first-out.
+        final CrawlConfig.FrontierOrder frontierOrder = spillFrontier ? CrawlConfig.FrontierOrder.FIFO : CrawlConfig.FrontierOrder.BEST_FIRST;
+        final boolean skipNearDuplicates = true;
+        final CrawlConfig.VisitedSetMode visitedSetMode = CrawlConfig.VisitedSetMode.FINGERPRINT;
         final int circuitBreakerThreshold = 5;
+        final long circuitBreakerOpenMillis = TimeUnit.MINUTES.toMillis(1);
+        final long circuitBreakerWindowMillis = TimeUnit.MINUTES.toMillis(1);
+        final int circuitBreakerHalfOpenProbes = 2;
+        final int circuitBreakerMaxHosts = 10000;
+        final int maxConnectionsPerHost = 16;
+        final double hostRequestsPerSecond = 20;
+        final int hostBurst = 10;
+        final int hostInitialConcurrency = 4;
+        final int hostMinConcurrency = 1;
+        final int pageCacheMaxEntries = 20000;
+        final long pageCacheMaxBytes = 256L * 1024 * 1024;
+        final long pageCacheTtlMillis = TimeUnit.MINUTES.toMillis(10);
+        final int indexSegmentDocs = 1000;
+        final long indexMaxAgeMillis = TimeUnit.HOURS.toMillis(24);
+        final long completedSearchTtlMillis = TimeUnit.HOURS.toMillis(1);
+        final int maxCompletedSearches = 1000;
+        final int clusterTimeout = 5000;
+        final long checkpointCommitIntervalMillis = 200;
 
-        CrawlConfig config = new CrawlConfig(baseUrl, maxResults, maxRetries, timeout, maxQueueSize);
+        CrawlConfig config = new CrawlConfig(baseUrl, maxResults, maxRetries, timeout, maxQueueSize, fetchParallelism, coalesceSearches,
+                visitedSetMode, spillFrontier ? Paths.get(frontierDirectory) : null, frontierMemoryCapacity, seedFromSitemaps,
+                frontierOrder, skipNearDuplicates);
 
         ExecutorService executorService = Executors.newCachedThreadPool();
-        ICircuitBreaker circuitBreaker = new CircuitBreaker(circuitBreakerThreshold, TimeUnit.MINUTES.toMillis(10));
-        ICrawlService crawlService = new CrawlService(executorService, config, circuitBreaker);
+        CircuitBreaker circuitBreaker = new CircuitBreaker(circuitBreakerThreshold, circuitBreakerOpenMillis, circuitBreakerWindowMillis,
+                circuitBreakerHalfOpenProbes, circuitBreakerMaxHosts);
+        circuitBreaker.registerMetrics(MetricsRegistry.global());
+        FetchScheduler fetchScheduler = new FetchScheduler(hostRequestsPerSecond, hostBurst, hostInitialConcurrency,
+                hostMinConcurrency, maxConnectionsPerHost);
+        CrawlService.Dependencies fetchDependencies = new ScheduledDependencies(fetchScheduler,
+                new HttpClientDependencies(new AsyncHttpFetcher(maxConnectionsPerHost, timeout)));
+        if (revalidationDirectory != null && !revalidationDirectory.isEmpty()) {
+            try {
+                RevalidatingDependencies revalidatingDependencies =
+                        new RevalidatingDependencies(new RevalidationStore(Paths.get(revalidationDirectory)), fetchDependencies);
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> LOGGER.info("Revalidation: " + revalidatingDependencies)));
+                fetchDependencies = revalidatingDependencies;
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "Failed to open the revalidation store in " + revalidationDirectory, e);
+                System.exit(1);
+            }
+        }
+        PageCache pageCache = new PageCache(pageCacheMaxEntries, pageCacheMaxBytes, pageCacheTtlMillis, PageCache.StorageMode.COMPRESSED);
+        pageCache.registerMetrics(MetricsRegistry.global());
+        CrawlService.Dependencies dependencies = new CachingDependencies(pageCache, fetchDependencies);
+
+        if (indexDirectory != null && !indexDirectory.isEmpty()) {
+            try {
+                PageIndex pageIndex = new PageIndex(Paths.get(indexDirectory), indexSegmentDocs, indexMaxAgeMillis);
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    try {
+                        pageIndex.close();
+                    } catch (IOException e) {
+                        LOGGER.log(Level.WARNING, "Failed to flush the page index", e);
+                    }
+                }));
+                dependencies = new IndexingDependencies(pageIndex, dependencies);
+                LOGGER.info("Page index enabled: " + pageIndex);
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "Failed to open the page index in " + indexDirectory, e);
+                System.exit(1);
+            }
+        }
+
+        SearchResultStore resultStore = null;
+        if (resultsDirectory != null && !resultsDirectory.isEmpty()) {
+            try {
+                resultStore = new SearchResultStore(Paths.get(resultsDirectory));
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "Failed to open the search result store in " + resultsDirectory, e);
+                System.exit(1);
+            }
+        }
+        SearchRetention retention = new SearchRetention(completedSearchTtlMillis, maxCompletedSearches, resultStore);
+
+        ClusterNode cluster = null;
+        if (clusterNodes != null && !clusterNodes.isEmpty()) {
+            List<String> nodes = Arrays.stream(clusterNodes.split(",")).map(String::trim).filter(node -> !node.isEmpty())
+                    .collect(Collectors.toList());
+            String self = clusterSelf != null && !clusterSelf.isEmpty() ? clusterSelf : "http://localhost:" + port;
+            if (clusterSecret == null || clusterSecret.isEmpty()) {
+                LOGGER.severe("CLUSTER_SECRET environment variable is not set.");
+                System.exit(1);
+            }
+            try {
+                cluster = new ClusterNode(self, nodes, new HttpClusterTransport(clusterTimeout, clusterSecret));
+            } catch (IllegalArgumentException e) {
+                LOGGER.log(Level.SEVERE, "Invalid cluster configuration", e);
+                System.exit(1);
+            }
+            cluster.registerMetrics(MetricsRegistry.global());
+            LOGGER.info("Cluster mode enabled as " + self + " with nodes " + nodes);
+        }
+
+        SearchCheckpointLog checkpoints = null;
+        if (checkpointDirectory != null && !checkpointDirectory.isEmpty()) {
+            try {
+                checkpoints = new SearchCheckpointLog(Paths.get(checkpointDirectory), checkpointCommitIntervalMillis);
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "Failed to open the checkpoint log in " + checkpointDirectory, e);
+                System.exit(1);
+            }
+        }
+
+        CrawlService crawlService = new CrawlService(executorService, config, circuitBreaker, dependencies, retention, cluster, checkpoints);
+        crawlService.registerMetrics(MetricsRegistry.global());
+        crawlService.resumeSearches();
 
-        AppServer server = new AppServer(crawlService, port);
+        AppServer server = new AppServer(crawlService, port, cluster, clusterSecret);
         server.start();
     }
 }
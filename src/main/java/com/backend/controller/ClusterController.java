@@ -0,0 +1,109 @@
+package com.backend.controller;
+
+import com.backend.service.ClusterNode;
+import com.backend.service.HttpClusterTransport;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonSyntaxException;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static spark.Spark.before;
+import static spark.Spark.delete;
+import static spark.Spark.get;
+import static spark.Spark.halt;
+import static spark.Spark.post;
+
+/**
+ * Serves the routes through which the nodes of a crawler cluster exchange links, results and the
+ * state of their shards of each search. See {@link HttpClusterTransport} for the sending side.
+ * Requests without the secret shared by the cluster are refused before they reach a route.
+ */
+public class ClusterController {
+    private static final Logger LOGGER = Logger.getLogger(ClusterController.class.getName());
+    private static final Gson gson = new Gson();
+    private static ClusterNode cluster;
+    private static byte[] secret;
+
+    public static void initializeRoutes(ClusterNode cluster, String secret) {
+        ClusterController.cluster = cluster;
+        ClusterController.secret = secret.getBytes(StandardCharsets.UTF_8);
+        before("/cluster/*", (req, res) -> {
+            if (!isAuthorized(req.headers(HttpClusterTransport.SECRET_HEADER))) {
+                LOGGER.log(Level.WARNING, "Refused cluster request from {0} without the cluster secret", req.ip());
+                res.type("application/json");
+                halt(401, errorResponse("Missing or invalid cluster secret"));
+            }
+        });
+        post("/cluster/links", handleLinksRequest);
+        post("/cluster/results", handleResultsRequest);
+        get("/cluster/searches/:id", handleStatusRequest);
+        delete("/cluster/searches/:id", handleStopRequest);
+    }
+
+    public static Route handleLinksRequest = (Request req, Response res) -> {
+        ClusterNode.Batch batch = parseBatch(req.body());
+        if (batch == null || batch.getKeyword() == null || batch.getOrigin() == null) {
+            return badRequest(res);
+        }
+        cluster.receiveLinks(batch);
+        return ok(res);
+    };
+
+    public static Route handleResultsRequest = (Request req, Response res) -> {
+        ClusterNode.Batch batch = parseBatch(req.body());
+        if (batch == null) {
+            return badRequest(res);
+        }
+        cluster.receiveResults(batch);
+        return ok(res);
+    };
+
+    public static Route handleStatusRequest = (Request req, Response res) -> {
+        res.type("application/json");
+        return gson.toJson(cluster.getStatus(req.params(":id")));
+    };
+
+    public static Route handleStopRequest = (Request req, Response res) -> {
+        cluster.stop(req.params(":id"));
+        return ok(res);
+    };
+
+    private static boolean isAuthorized(String presented) {
+        // Compared in constant time, so the secret cannot be guessed from response times.
+        return presented != null && MessageDigest.isEqual(secret, presented.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ClusterNode.Batch parseBatch(String body) {
+        try {
+            ClusterNode.Batch batch = gson.fromJson(body, ClusterNode.Batch.class);
+            return batch == null || batch.getSearchId() == null ? null : batch;
+        } catch (JsonSyntaxException e) {
+            LOGGER.log(Level.WARNING, "Failed to parse cluster batch", e);
+            return null;
+        }
+    }
+
+    private static String ok(Response res) {
+        res.type("application/json");
+        return "{}";
+    }
+
+    private static String badRequest(Response res) {
+        res.status(400);
+        res.type("application/json");
+        return errorResponse("Invalid cluster batch");
+    }
+
+    private static String errorResponse(String message) {
+        JsonObject errorResponse = new JsonObject();
+        errorResponse.addProperty("error", message);
+        return gson.toJson(errorResponse);
+    }
+}
@@ -10,6 +10,8 @@ import spark.Request;
 import spark.Response;
 import spark.Route;
 
+import javax.servlet.AsyncContext;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -21,13 +23,30 @@ public class CrawlController {
     private static final Logger LOGGER = Logger.getLogger(CrawlController.class.getName());
     private static ICrawlService crawlService;
     private static final Gson gson = new Gson();
+    private static final int STREAM_WRITER_THREADS = 2;
+    private static final long STREAM_HEARTBEAT_MILLIS = TimeUnit.SECONDS.toMillis(15);
+    private static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+    private static SearchEventStream eventStream;
 
     public static void initializeRoutes(ICrawlService crawlService) {
         CrawlController.crawlService = crawlService;
+        if (eventStream == null) {
+            eventStream = new SearchEventStream(STREAM_WRITER_THREADS, STREAM_HEARTBEAT_MILLIS);
+        }
         post("/crawl", handleCrawlRequest);
+        get("/crawl/:id/stream", handleStreamRequest);
         get("/crawl/:id", handleGetRequest);
     }
 
+    /**
+     * Ends every open result stream and stops the threads writing to them.
+     */
+    public static void shutdown() {
+        if (eventStream != null) {
+            eventStream.shutdown();
+        }
+    }
+
     public static Route handleCrawlRequest = (Request req, Response res) -> {
         CrawlRequest crawlRequest = extractKeywordFromBody(req.body());
         if (crawlRequest == null || crawlRequest.getKeyword() == null) {
@@ -65,11 +84,81 @@ public class CrawlController {
             return gson.toJson(createErrorResponse("Search not found"));
         }
 
-        LOGGER.log(Level.INFO, "Returning search result for ID: {0}", id);
+        String after = req.queryParams("after");
+        String limit = req.queryParams("limit");
+        if (after == null && limit == null) {
+            LOGGER.log(Level.INFO, "Returning search result for ID: {0}", id);
+            res.type("application/json");
+            return searchOperation.toString();
+        }
+
+        Integer afterOffset = parseNonNegative(after, 0);
+        Integer pageLimit = parseNonNegative(limit, Integer.MAX_VALUE);
+        if (afterOffset == null || pageLimit == null) {
+            LOGGER.log(Level.WARNING, "Invalid pagination parameters for ID: {0}", id);
+            res.status(400);
+            res.type("application/json");
+            return gson.toJson(createErrorResponse("Parameters after and limit must be non-negative integers"));
+        }
+
+        LOGGER.log(Level.INFO, "Returning search results after offset {0} for ID: {1}", new Object[]{afterOffset, id});
         res.type("application/json");
-        return searchOperation.toString();
+        return searchOperation.toJson(afterOffset, pageLimit);
     };
 
+    /**
+     * Streams the results of a search as they are found. The response is handed over to
+     * {@link SearchEventStream} and stays open until the search finishes or the client disconnects.
+     */
+    public static Route handleStreamRequest = (Request req, Response res) -> {
+        String id = req.params(":id");
+        ISearchOperation searchOperation = crawlService.getSearchOperation(id);
+
+        if (searchOperation == null) {
+            LOGGER.log(Level.WARNING, "Search not found for ID: {0}", id);
+            res.status(404);
+            res.type("application/json");
+            return gson.toJson(createErrorResponse("Search not found"));
+        }
+
+        String after = req.queryParams("after");
+        Integer offset = parseNonNegative(after != null ? after : req.headers(LAST_EVENT_ID_HEADER), 0);
+        if (offset == null) {
+            LOGGER.log(Level.WARNING, "Invalid stream offset for ID: {0}", id);
+            res.status(400);
+            res.type("application/json");
+            return gson.toJson(createErrorResponse("Parameter after must be a non-negative integer"));
+        }
+
+        String accept = req.headers("Accept");
+        boolean ndjson = "ndjson".equals(req.queryParams("format"))
+                || (accept != null && accept.contains(SearchEventStream.Format.NDJSON.getContentType()));
+        SearchEventStream.Format format = ndjson ? SearchEventStream.Format.NDJSON : SearchEventStream.Format.SSE;
+
+        res.status(200);
+        res.type(format.getContentType() + "; charset=utf-8");
+        res.header("Cache-Control", "no-cache");
+        res.header("X-Accel-Buffering", "no");
+        // Committing the headers here keeps Spark from writing and closing the response body when the
+        // route returns; the stream is completed by SearchEventStream instead.
+        res.raw().flushBuffer();
+        AsyncContext asyncContext = req.raw().startAsync();
+        eventStream.subscribe(searchOperation, asyncContext, offset, format);
+        return "";
+    };
+
+    private static Integer parseNonNegative(String value, int defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value);
+            return parsed < 0 ? null : parsed;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
     private static CrawlRequest extractKeywordFromBody(String body) {
         try {
             return gson.fromJson(body, CrawlRequest.class);
@@ -0,0 +1,25 @@
+package com.backend.controller;
+
+import com.backend.util.MetricsRegistry;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+import static spark.Spark.get;
+
+/**
+ * Serves the crawler's metrics in the Prometheus text exposition format at {@code GET /metrics}.
+ */
+public class MetricsController {
+    private static MetricsRegistry registry;
+
+    public static void initializeRoutes(MetricsRegistry registry) {
+        MetricsController.registry = registry;
+        get("/metrics", handleMetricsRequest);
+    }
+
+    public static Route handleMetricsRequest = (Request req, Response res) -> {
+        res.type(MetricsRegistry.CONTENT_TYPE);
+        return registry.scrape();
+    };
+}
@@ -0,0 +1,340 @@
+package com.backend.controller;
+
+import com.backend.model.ISearchOperation;
+import com.backend.model.SearchStatus;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Pushes the results of search operations to long-lived HTTP responses as Server-Sent Events or
+ * newline-delimited JSON. Each stream is an asynchronous servlet response that is written to only
+ * when its search records a new result or changes status, so streams do not hold a thread while
+ * they wait. All streams share a small pool that writes pending events and periodic heartbeats.
+ * Responses are written without blocking: a stream whose client does not keep up waits for the
+ * container to report it writable again, and is dropped if that takes longer than the write timeout,
+ * so one slow client never holds up the writers of the others.
+ *
+ * <p>Every result is an event whose id is the offset following it, so a client can resume from the
+ * last id it received. The stream ends with a status event once the search is no longer active.
+ */
+public class SearchEventStream {
+    private static final Logger LOGGER = Logger.getLogger(SearchEventStream.class.getName());
+    private static final Gson GSON = new Gson();
+    private static final int MAX_EVENTS_PER_WRITE = 256;
+    private static final long DEFAULT_WRITE_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    /**
+     * Wire format of a stream.
+     */
+    public enum Format {
+        /** {@code text/event-stream} events with {@code url} and {@code status} event types. */
+        SSE("text/event-stream"),
+        /** One JSON object per line with a {@code type} field. */
+        NDJSON("application/x-ndjson");
+
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+    }
+
+    private final ScheduledExecutorService writer;
+    private final long writeTimeoutNanos;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Constructs a new {@code SearchEventStream} that drops clients unable to take a write for 30
+     * seconds.
+     *
+     * @param writerThreads          the number of threads writing events to all streams.
+     * @param heartbeatIntervalMillis how often (in milliseconds) idle streams are written to, so closed
+     *                                connections are detected and proxies keep them open.
+     */
+    public SearchEventStream(int writerThreads, long heartbeatIntervalMillis) {
+        this(writerThreads, heartbeatIntervalMillis, DEFAULT_WRITE_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Constructs a new {@code SearchEventStream}.
+     *
+     * @param writerThreads          the number of threads writing events to all streams.
+     * @param heartbeatIntervalMillis how often (in milliseconds) idle streams are written to, so closed
+     *                                connections are detected and proxies keep them open.
+     * @param writeTimeoutMillis      how long (in milliseconds) a stream may wait for its client to take
+     *                                a pending write before it is closed. Checked at each heartbeat.
+     */
+    public SearchEventStream(int writerThreads, long heartbeatIntervalMillis, long writeTimeoutMillis) {
+        this.writer = Executors.newScheduledThreadPool(writerThreads, daemonThreads());
+        this.writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(writeTimeoutMillis);
+        writer.scheduleAtFixedRate(this::sendHeartbeats, heartbeatIntervalMillis, heartbeatIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts streaming the results of {@code searchOperation} from offset {@code after} to the
+     * response of {@code asyncContext}, whose headers have already been sent.
+     */
+    public void subscribe(ISearchOperation searchOperation, AsyncContext asyncContext, int after, Format format) throws IOException {
+        asyncContext.setTimeout(0);
+        Subscriber subscriber = new Subscriber(searchOperation, asyncContext, after, format);
+        asyncContext.addListener(subscriber);
+        subscribers.add(subscriber);
+        searchOperation.addChangeListener(subscriber);
+        // Switches the response to non-blocking writes before anything is written to it.
+        subscriber.out.setWriteListener(subscriber);
+        LOGGER.log(Level.INFO, "Streaming results of search ID: {0} from offset {1}", new Object[]{searchOperation.getId(), after});
+        // Results recorded before the listener was registered are picked up by this first write.
+        subscriber.run();
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    public void shutdown() {
+        writer.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.close();
+        }
+    }
+
+    private void sendHeartbeats() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            long stalledSince = subscriber.stalledSinceNanos;
+            if (stalledSince != 0 && now - stalledSince > writeTimeoutNanos) {
+                LOGGER.log(Level.INFO, "Dropping stream of search ID: {0}, its client stopped reading", subscriber.searchOperation.getId());
+                subscriber.close();
+                continue;
+            }
+            subscriber.heartbeatDue.set(true);
+            subscriber.run();
+        }
+    }
+
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "search-event-stream-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * One open stream. {@link #run()} is the change listener registered on the search; it only
+     * schedules a write, and at most one write per stream is in progress at a time. A write that
+     * finds the output not ready returns without clearing its pending count, so no other write is
+     * scheduled until {@link #onWritePossible()} resumes it.
+     */
+    private class Subscriber implements Runnable, AsyncListener, WriteListener {
+        private final ISearchOperation searchOperation;
+        private final AsyncContext asyncContext;
+        private final ServletOutputStream out;
+        private final Format format;
+        private final AtomicInteger pendingWrites = new AtomicInteger();
+        private final AtomicBoolean heartbeatDue = new AtomicBoolean();
+        private final AtomicBoolean awaitingReady = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile long stalledSinceNanos;
+        private int offset;
+        private boolean unflushed;
+        private boolean finished;
+
+        Subscriber(ISearchOperation searchOperation, AsyncContext asyncContext, int offset, Format format) throws IOException {
+            this.searchOperation = searchOperation;
+            this.asyncContext = asyncContext;
+            this.out = asyncContext.getResponse().getOutputStream();
+            this.offset = offset;
+            this.format = format;
+        }
+
+        @Override
+        public void run() {
+            if (pendingWrites.getAndIncrement() == 0 && !closed.get()) {
+                schedule();
+            }
+        }
+
+        private void schedule() {
+            try {
+                writer.execute(this::drain);
+            } catch (RuntimeException e) {
+                close();
+            }
+        }
+
+        private void drain() {
+            // Drains run one at a time, so every change counted so far is covered by this one.
+            int missed = pendingWrites.get();
+            try {
+                while (!closed.get()) {
+                    if (!awaitReady()) {
+                        return;
+                    }
+                    if (unflushed) {
+                        unflushed = false;
+                        out.flush();
+                    } else if (finished) {
+                        close();
+                    } else if (!writePending()) {
+                        missed = pendingWrites.addAndGet(-missed);
+                        if (missed == 0) {
+                            return;
+                        }
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                LOGGER.log(Level.FINE, "Stream of search ID: {0} closed by client", searchOperation.getId());
+                close();
+            }
+        }
+
+        /**
+         * Returns whether the output can be written to now. If it cannot, the container calls
+         * {@link #onWritePossible()} once it can, and the drain is resumed from there. Also returns
+         * {@code false} if that callback has already taken over the drain.
+         */
+        private boolean awaitReady() {
+            // Armed before asking, so a callback running as soon as the output turns ready finds it.
+            awaitingReady.set(true);
+            if (!out.isReady()) {
+                stalledSinceNanos = Math.max(System.nanoTime(), 1);
+                return false;
+            }
+            return awaitingReady.compareAndSet(true, false);
+        }
+
+        @Override
+        public void onWritePossible() {
+            if (awaitingReady.compareAndSet(true, false)) {
+                stalledSinceNanos = 0;
+                schedule();
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            LOGGER.log(Level.FINE, "Stream of search ID: {0} failed: {1}", new Object[]{searchOperation.getId(), t.getMessage()});
+            close();
+        }
+
+        /**
+         * Writes every result recorded since the last write, and the final status once the search is
+         * no longer active. Returns whether anything was written; it is flushed by the next step of
+         * the drain.
+         */
+        private boolean writePending() throws IOException {
+            // The status is read first, so a finished search has all of its results written below.
+            SearchStatus status = searchOperation.getStatus();
+            StringBuilder events = new StringBuilder();
+            List<String> urls;
+            do {
+                urls = searchOperation.getResults(offset, MAX_EVENTS_PER_WRITE);
+                for (String url : urls) {
+                    appendUrlEvent(events, url);
+                    offset++;
+                }
+            } while (urls.size() == MAX_EVENTS_PER_WRITE);
+
+            finished = status != SearchStatus.ACTIVE;
+            if (finished) {
+                appendStatusEvent(events, status);
+            }
+            if (heartbeatDue.getAndSet(false) && events.length() == 0) {
+                events.append(format == Format.SSE ? ": keep-alive\n\n" : "\n");
+            }
+            if (events.length() == 0) {
+                return false;
+            }
+            out.write(events.toString().getBytes(StandardCharsets.UTF_8));
+            unflushed = true;
+            return true;
+        }
+
+        private void appendUrlEvent(StringBuilder events, String url) {
+            JsonObject data = new JsonObject();
+            if (format == Format.NDJSON) {
+                data.addProperty("type", "url");
+            }
+            data.addProperty("offset", offset);
+            data.addProperty("url", url);
+            appendEvent(events, "url", offset + 1, data);
+        }
+
+        private void appendStatusEvent(StringBuilder events, SearchStatus status) {
+            JsonObject data = new JsonObject();
+            if (format == Format.NDJSON) {
+                data.addProperty("type", "status");
+            }
+            data.addProperty("status", status.name().toLowerCase());
+            data.addProperty("total", searchOperation.getResultCount());
+            appendEvent(events, "status", offset, data);
+        }
+
+        private void appendEvent(StringBuilder events, String type, int id, JsonObject data) {
+            if (format == Format.SSE) {
+                events.append("id: ").append(id).append('\n');
+                events.append("event: ").append(type).append('\n');
+                events.append("data: ").append(GSON.toJson(data)).append("\n\n");
+            } else {
+                events.append(GSON.toJson(data)).append('\n');
+            }
+        }
+
+        void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            searchOperation.removeChangeListener(this);
+            subscribers.remove(this);
+            try {
+                asyncContext.complete();
+            } catch (IllegalStateException e) {
+                LOGGER.log(Level.FINE, "Stream of search ID: {0} was already completed", searchOperation.getId());
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
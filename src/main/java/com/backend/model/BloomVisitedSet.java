@@ -0,0 +1,162 @@
+package com.backend.model;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * {@link IVisitedSet} backed by a scalable Bloom filter: a chain of Bloom filters where each new
+ * stage holds twice as many URLs as the previous one, with half its false-positive rate. No matter how
+ * many URLs are added, the chance that a URL never added is reported as present stays below the
+ * configured rate. Each stage needs {@code 1.44 * log2(1 / stageRate)} bits per URL, so memory grows
+ * by about 4 to 6 bytes per URL at the default rate of one in a million.
+ *
+ * <p>A false positive makes the crawl skip a page it has not seen; an added URL is never reported
+ * absent. Bits are set with compare-and-set, and additions of URLs that share a fingerprint stripe are
+ * serialized so that {@link #addIfAbsent} stays atomic.
+ */
+public class BloomVisitedSet implements IVisitedSet {
+    public static final double DEFAULT_FALSE_POSITIVE_RATE = 1e-6;
+
+    private static final int GROWTH_FACTOR = 2;
+    private static final double TIGHTENING_RATIO = 0.5;
+    private static final int LOCK_STRIPES = 64;
+
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final AtomicInteger size = new AtomicInteger();
+    private volatile Stage[] stages;
+
+    /**
+     * Constructs a new {@code BloomVisitedSet}.
+     *
+     * @param initialCapacity   the number of URLs the first stage holds before a larger one is added.
+     * @param falsePositiveRate the upper bound on the probability that a URL never added is reported present.
+     */
+    public BloomVisitedSet(int initialCapacity, double falsePositiveRate) {
+        if (initialCapacity < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Capacity must be positive and the false-positive rate between 0 and 1");
+        }
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        // The stage rates form a geometric series p0 * r^i whose sum is p0 / (1 - r).
+        this.stages = new Stage[]{new Stage(initialCapacity, falsePositiveRate * (1 - TIGHTENING_RATIO))};
+    }
+
+    @Override
+    public boolean addIfAbsent(CharSequence url) {
+        long fingerprint = FingerprintVisitedSet.fingerprint(url);
+        synchronized (locks[(int) (fingerprint >>> 58)]) {
+            if (mightContain(stages, fingerprint)) {
+                return false;
+            }
+            writableStage().add(fingerprint);
+            size.incrementAndGet();
+            return true;
+        }
+    }
+
+    @Override
+    public boolean contains(CharSequence url) {
+        return mightContain(stages, FingerprintVisitedSet.fingerprint(url));
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Returns the number of bytes held by the filter bits of all stages.
+     */
+    public long getMemoryBytes() {
+        long bytes = 0;
+        for (Stage stage : stages) {
+            bytes += (long) stage.bits.length() * Long.BYTES;
+        }
+        return bytes;
+    }
+
+    private static boolean mightContain(Stage[] stages, long fingerprint) {
+        for (Stage stage : stages) {
+            if (stage.mightContain(fingerprint)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Stage writableStage() {
+        Stage[] current = stages;
+        Stage last = current[current.length - 1];
+        if (last.count.get() < last.capacity) {
+            return last;
+        }
+        synchronized (this) {
+            current = stages;
+            last = current[current.length - 1];
+            if (last.count.get() >= last.capacity) {
+                Stage next = new Stage(last.capacity * GROWTH_FACTOR, last.falsePositiveRate * TIGHTENING_RATIO);
+                Stage[] grown = Arrays.copyOf(current, current.length + 1);
+                grown[current.length] = next;
+                stages = grown;
+                return next;
+            }
+            return last;
+        }
+    }
+
+    private static final class Stage {
+        final long capacity;
+        final double falsePositiveRate;
+        final AtomicLongArray bits;
+        final long bitCount;
+        final int hashCount;
+        final AtomicInteger count = new AtomicInteger();
+
+        Stage(long capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+            double ln2 = Math.log(2);
+            long optimalBits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (ln2 * ln2));
+            this.bits = new AtomicLongArray((int) ((optimalBits + Long.SIZE - 1) / Long.SIZE));
+            this.bitCount = (long) bits.length() * Long.SIZE;
+            this.hashCount = Math.max(1, (int) Math.round(Math.log(1 / falsePositiveRate) / ln2));
+        }
+
+        void add(long fingerprint) {
+            for (int i = 0; i < hashCount; i++) {
+                long bit = bitIndex(fingerprint, i);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long value;
+                do {
+                    value = bits.get(word);
+                } while ((value & mask) == 0 && !bits.compareAndSet(word, value, value | mask));
+            }
+            count.incrementAndGet();
+        }
+
+        boolean mightContain(long fingerprint) {
+            for (int i = 0; i < hashCount; i++) {
+                long bit = bitIndex(fingerprint, i);
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Derives the {@code i}-th probe by remixing the fingerprint with the probe number. Plain double
+         * hashing yields only about {@code bitCount^2} distinct probe sequences, which in the small early
+         * stages would make unrelated URLs share all of their probes far more often than the target rate.
+         */
+        private long bitIndex(long fingerprint, int i) {
+            long hash = fingerprint + i * 0x9e3779b97f4a7c15L;
+            hash = (hash ^ (hash >>> 32)) * 0xd6e8feb86659fd93L;
+            hash ^= hash >>> 32;
+            return Math.multiplyHigh(hash & Long.MAX_VALUE, bitCount << 1);
+        }
+    }
+}
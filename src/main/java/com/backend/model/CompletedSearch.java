@@ -0,0 +1,183 @@
+package com.backend.model;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable record of a search that is no longer active. It keeps only what is needed to serve the
+ * search over the API: its identity, final status and results, serialized once and trimmed to size.
+ * The visited set and other crawl state of the original operation are dropped.
+ *
+ * <p>Methods that would change the search throw {@link UnsupportedOperationException}.
+ */
+public final class CompletedSearch implements ISearchOperation {
+    private static final IVisitedSet NO_VISITED_URLS = new IVisitedSet() {
+        @Override
+        public boolean addIfAbsent(CharSequence url) {
+            throw new UnsupportedOperationException("The visited URLs of a completed search are not retained");
+        }
+
+        @Override
+        public boolean contains(CharSequence url) {
+            return false;
+        }
+
+        @Override
+        public int size() {
+            return 0;
+        }
+    };
+
+    private final String id;
+    private final String keyword;
+    private final SearchStatus status;
+    private final int retryCount;
+    private final ResultLog resultLog;
+
+    /**
+     * Constructs a new {@code CompletedSearch}.
+     *
+     * @param id         the ID of the search.
+     * @param keyword    the keyword searched for.
+     * @param status     the final status of the search; it must not be {@link SearchStatus#ACTIVE}.
+     * @param retryCount the number of retries the search used.
+     * @param urls       the result URLs in the order they were found.
+     */
+    public CompletedSearch(String id, String keyword, SearchStatus status, int retryCount, List<String> urls) {
+        this(id, keyword, status, retryCount, logOf(urls));
+    }
+
+    private CompletedSearch(String id, String keyword, SearchStatus status, int retryCount, ResultLog resultLog) {
+        if (status == SearchStatus.ACTIVE) {
+            throw new IllegalArgumentException("Search " + id + " is still active");
+        }
+        this.id = id;
+        this.keyword = keyword;
+        this.status = status;
+        this.retryCount = retryCount;
+        this.resultLog = resultLog;
+    }
+
+    /**
+     * Returns the completed form of {@code searchOperation}, which must no longer be active.
+     */
+    public static CompletedSearch of(ISearchOperation searchOperation) {
+        if (searchOperation instanceof CompletedSearch) {
+            return (CompletedSearch) searchOperation;
+        }
+        // The status is read before the results, so no result recorded before completion is missed.
+        SearchStatus status = searchOperation.getStatus();
+        ResultLog results = searchOperation instanceof SearchOperation
+                ? ((SearchOperation) searchOperation).compactResults()
+                : logOf(searchOperation.getResults(0, Integer.MAX_VALUE));
+        return new CompletedSearch(searchOperation.getId(), searchOperation.getKeyword(), status, searchOperation.getRetryCount(), results);
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public String getKeyword() {
+        return keyword;
+    }
+
+    @Override
+    public IVisitedSet getVisitedUrls() {
+        return NO_VISITED_URLS;
+    }
+
+    @Override
+    public void addVisitedUrl(String url) {
+        throw completed();
+    }
+
+    @Override
+    public boolean tryAddVisitedUrl(String url, int maxVisited) {
+        throw completed();
+    }
+
+    @Override
+    public Set<String> getUrls() {
+        return Set.copyOf(getResults(0, Integer.MAX_VALUE));
+    }
+
+    @Override
+    public void addUrls(List<String> urls) {
+        throw completed();
+    }
+
+    @Override
+    public boolean tryAddUrl(String url, int maxResults) {
+        throw completed();
+    }
+
+    @Override
+    public SearchStatus getStatus() {
+        return status;
+    }
+
+    @Override
+    public void setStatus(SearchStatus status) {
+        throw completed();
+    }
+
+    @Override
+    public List<String> getResults(int after, int limit) {
+        return resultLog.get(after, limit);
+    }
+
+    @Override
+    public int getResultCount() {
+        return resultLog.size();
+    }
+
+    /**
+     * Does nothing, since a completed search never changes.
+     */
+    @Override
+    public void addChangeListener(Runnable listener) {
+    }
+
+    @Override
+    public void removeChangeListener(Runnable listener) {
+    }
+
+    @Override
+    public int getRetryCount() {
+        return retryCount;
+    }
+
+    @Override
+    public void incrementRetryCount() {
+        throw completed();
+    }
+
+    @Override
+    public boolean tryIncrementRetryCount(int maxRetries) {
+        throw completed();
+    }
+
+    @Override
+    public String toJson(int after, int limit) {
+        return SearchOperation.toJson(id, status, resultLog, after, limit);
+    }
+
+    @Override
+    public String toString() {
+        return SearchOperation.toJson(id, status, resultLog);
+    }
+
+    private UnsupportedOperationException completed() {
+        return new UnsupportedOperationException("Search " + id + " is completed");
+    }
+
+    private static ResultLog logOf(List<String> urls) {
+        ResultLog resultLog = new ResultLog();
+        for (String url : urls) {
+            resultLog.append(url);
+        }
+        return resultLog.compact();
+    }
+}
@@ -0,0 +1,27 @@
+package com.backend.model;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link IVisitedSet} holding every URL as a string. It is exact, but costs well over 100 bytes of
+ * heap per URL.
+ */
+public class ExactVisitedSet implements IVisitedSet {
+    private final Set<String> urls = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public boolean addIfAbsent(CharSequence url) {
+        return urls.add(url.toString());
+    }
+
+    @Override
+    public boolean contains(CharSequence url) {
+        return urls.contains(url.toString());
+    }
+
+    @Override
+    public int size() {
+        return urls.size();
+    }
+}
@@ -6,12 +6,42 @@ import java.util.Set;
 public interface ISearchOperation {
     String getId();
     String getKeyword();
-    Set<String> getVisitedUrls();
+    IVisitedSet getVisitedUrls();
     void addVisitedUrl(String url);
+    boolean tryAddVisitedUrl(String url, int maxVisited);
     Set<String> getUrls();
     void addUrls(List<String> urls);
+    boolean tryAddUrl(String url, int maxResults);
     SearchStatus getStatus();
     void setStatus(SearchStatus status);
+
+    /**
+     * Returns at most {@code limit} result URLs starting at offset {@code after}, in the order they
+     * were found.
+     */
+    List<String> getResults(int after, int limit);
+
+    int getResultCount();
+
+    /**
+     * Registers a listener run on the updating thread whenever a result is added or the status
+     * changes. Listeners must return quickly and must not block.
+     */
+    void addChangeListener(Runnable listener);
+
+    void removeChangeListener(Runnable listener);
     int getRetryCount();
     void incrementRetryCount();
+
+    /**
+     * Increments the retry count unless it has already reached {@code maxRetries}. Returns whether it
+     * was incremented, so concurrent workers together never retry more than {@code maxRetries} times.
+     */
+    boolean tryIncrementRetryCount(int maxRetries);
+
+    /**
+     * Serializes the search with at most {@code limit} result URLs, starting at offset {@code after}
+     * in the order they were found, and the offset to resume from in a {@code next} field.
+     */
+    String toJson(int after, int limit);
 }
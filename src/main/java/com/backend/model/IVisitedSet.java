@@ -0,0 +1,21 @@
+package com.backend.model;
+
+/**
+ * Set of normalized URLs a crawl has already queued. Implementations trade exactness for memory:
+ * compact ones may report a URL that was never added as present (a false positive), which makes the
+ * crawl skip that page, but never report an added URL as absent.
+ */
+public interface IVisitedSet {
+    /**
+     * Adds {@code url} unless it is already present. The check and the insertion are atomic, so of
+     * several threads adding the same URL exactly one gets {@code true}.
+     */
+    boolean addIfAbsent(CharSequence url);
+
+    boolean contains(CharSequence url);
+
+    /**
+     * Returns the number of URLs added.
+     */
+    int size();
+}
@@ -0,0 +1,131 @@
+package com.backend.model;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Append-only JSON serialization of the result URLs of a search. Each URL is escaped once, when it is
+ * appended, into a shared character buffer, and an offset table records where every entry ends, so
+ * any range of results can be copied out without re-serializing the others.
+ *
+ * <p>Appends are serialized with a lock. Readers never lock: they read the published entry count
+ * first and then the buffers, which only ever grow into copies that include every published entry.
+ */
+final class ResultLog {
+    private static final int INITIAL_ENTRIES = 16;
+    private static final int INITIAL_CHARS = 1024;
+
+    private volatile char[] chars = new char[INITIAL_CHARS];
+    private volatile int[] ends = new int[INITIAL_ENTRIES];
+    private volatile String[] urls = new String[INITIAL_ENTRIES];
+    private volatile int size;
+    private int length;
+
+    synchronized void append(String url) {
+        int entry = size;
+        int separator = entry == 0 ? 0 : 1;
+        int required = length + separator + jsonLength(url);
+        if (required > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(required, chars.length * 2));
+        }
+        if (entry == ends.length) {
+            ends = Arrays.copyOf(ends, entry * 2);
+            urls = Arrays.copyOf(urls, entry * 2);
+        }
+
+        char[] target = chars;
+        if (separator == 1) {
+            target[length++] = ',';
+        }
+        length = writeJson(url, target, length);
+        ends[entry] = length;
+        urls[entry] = url;
+        size = entry + 1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns a copy of this log whose buffers are trimmed to the entries published so far, for
+     * results that will not grow any further.
+     */
+    ResultLog compact() {
+        ResultLog compacted = new ResultLog();
+        int published = size;
+        int[] entryEnds = ends;
+        int used = published == 0 ? 0 : entryEnds[published - 1];
+        compacted.chars = Arrays.copyOf(chars, used);
+        compacted.ends = Arrays.copyOf(entryEnds, published);
+        compacted.urls = Arrays.copyOf(urls, published);
+        compacted.length = used;
+        compacted.size = published;
+        return compacted;
+    }
+
+    /**
+     * Appends the entries {@code [from, from + limit)} that have been published so far to
+     * {@code out} as the elements of a JSON array, and returns the offset following the last entry
+     * written, which is where the next page starts.
+     */
+    int appendTo(StringBuilder out, int from, int limit) {
+        int published = size;
+        int[] entryEnds = ends;
+        char[] entryChars = chars;
+        int start = Math.min(from, published);
+        int end = (int) Math.min((long) start + limit, published);
+        if (start == end) {
+            return start;
+        }
+        // Entries are stored with a leading comma after the first one, which is skipped here.
+        int begin = start == 0 ? 0 : entryEnds[start - 1] + 1;
+        out.append(entryChars, begin, entryEnds[end - 1] - begin);
+        return end;
+    }
+
+    /**
+     * Returns the URLs of the entries {@code [from, from + limit)} that have been published so far.
+     */
+    List<String> get(int from, int limit) {
+        int published = size;
+        String[] entries = urls;
+        int start = Math.min(from, published);
+        int end = (int) Math.min((long) start + limit, published);
+        return List.of(Arrays.copyOfRange(entries, start, end));
+    }
+
+    private static int jsonLength(String value) {
+        int jsonLength = 2;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                jsonLength += 2;
+            } else if (c < 0x20) {
+                jsonLength += 6;
+            } else {
+                jsonLength++;
+            }
+        }
+        return jsonLength;
+    }
+
+    private static int writeJson(String value, char[] target, int position) {
+        target[position++] = '"';
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                target[position++] = '\\';
+                target[position++] = c;
+            } else if (c < 0x20) {
+                String escaped = String.format("\\u%04x", (int) c);
+                escaped.getChars(0, escaped.length(), target, position);
+                position += escaped.length();
+            } else {
+                target[position++] = c;
+            }
+        }
+        target[position++] = '"';
+        return position;
+    }
+}
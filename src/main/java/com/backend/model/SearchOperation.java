@@ -5,6 +5,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -13,21 +14,37 @@ public class SearchOperation implements ISearchOperation {
 
     private final String id;
     private final String keyword;
-    private final Set<String> visitedUrls;
+    private final IVisitedSet visitedUrls;
     private final Set<String> urls;
     private final AtomicReference<SearchStatus> status;
     private final AtomicInteger retryCount;
-
-    private volatile String cachedJson;
+    private final AtomicInteger visitedCount;
+    private final AtomicInteger resultCount;
+    private final ResultLog resultLog;
+    private final List<Runnable> changeListeners;
 
     public SearchOperation(String keyword) {
-        this.id = generateId();
+        this(keyword, new ExactVisitedSet());
+    }
+
+    public SearchOperation(String keyword, IVisitedSet visitedUrls) {
+        this(generateId(), keyword, visitedUrls);
+    }
+
+    /**
+     * Constructs a search operation with a known ID, such as one resumed from a checkpoint.
+     */
+    public SearchOperation(String id, String keyword, IVisitedSet visitedUrls) {
+        this.id = id;
         this.keyword = keyword;
-        this.visitedUrls = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        this.visitedUrls = visitedUrls;
         this.urls = Collections.newSetFromMap(new ConcurrentHashMap<>());
         this.status = new AtomicReference<>(SearchStatus.ACTIVE);
         this.retryCount = new AtomicInteger(0);
-        this.cachedJson = buildJson();
+        this.visitedCount = new AtomicInteger(0);
+        this.resultCount = new AtomicInteger(0);
+        this.resultLog = new ResultLog();
+        this.changeListeners = new CopyOnWriteArrayList<>();
     }
 
     @Override
@@ -41,13 +58,27 @@ public class SearchOperation implements ISearchOperation {
     }
 
     @Override
-    public Set<String> getVisitedUrls() {
+    public IVisitedSet getVisitedUrls() {
         return visitedUrls;
     }
 
     @Override
     public void addVisitedUrl(String url) {
-        visitedUrls.add(url);
+        if (visitedUrls.addIfAbsent(url)) {
+            visitedCount.incrementAndGet();
+        }
+    }
+
+    @Override
+    public boolean tryAddVisitedUrl(String url, int maxVisited) {
+        if (!reserve(visitedCount, maxVisited)) {
+            return false;
+        }
+        if (!visitedUrls.addIfAbsent(url)) {
+            visitedCount.decrementAndGet();
+            return false;
+        }
+        return true;
     }
 
     @Override
@@ -57,8 +88,27 @@ public class SearchOperation implements ISearchOperation {
 
     @Override
     public void addUrls(List<String> urls) {
-        this.urls.addAll(urls);
-        updateCachedJson();
+        for (String url : urls) {
+            if (this.urls.add(url)) {
+                resultCount.incrementAndGet();
+                resultLog.append(url);
+            }
+        }
+        notifyChangeListeners();
+    }
+
+    @Override
+    public boolean tryAddUrl(String url, int maxResults) {
+        if (!reserve(resultCount, maxResults)) {
+            return false;
+        }
+        if (!urls.add(url)) {
+            resultCount.decrementAndGet();
+            return false;
+        }
+        resultLog.append(url);
+        notifyChangeListeners();
+        return true;
     }
 
     @Override
@@ -69,7 +119,27 @@ public class SearchOperation implements ISearchOperation {
     @Override
     public void setStatus(SearchStatus status) {
         this.status.set(status);
-        updateCachedJson();
+        notifyChangeListeners();
+    }
+
+    @Override
+    public List<String> getResults(int after, int limit) {
+        return resultLog.get(after, limit);
+    }
+
+    @Override
+    public int getResultCount() {
+        return resultLog.size();
+    }
+
+    @Override
+    public void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+
+    @Override
+    public void removeChangeListener(Runnable listener) {
+        changeListeners.remove(listener);
     }
 
     @Override
@@ -83,36 +153,86 @@ public class SearchOperation implements ISearchOperation {
     }
 
     @Override
-    public String toString() {
-        return cachedJson;
+    public boolean tryIncrementRetryCount(int maxRetries) {
+        int current;
+        do {
+            current = retryCount.get();
+            if (current >= maxRetries) {
+                return false;
+            }
+        } while (!retryCount.compareAndSet(current, current + 1));
+        return true;
     }
 
-    private String generateId() {
-        return UUID.randomUUID().toString().substring(0, 8);
+    @Override
+    public String toJson(int after, int limit) {
+        // The status is read before the results, so a search reported as finished always comes with
+        // its complete list of URLs.
+        return toJson(id, status.get(), resultLog, after, limit);
     }
 
-    private void updateCachedJson() {
-        cachedJson = buildJson();
+    @Override
+    public String toString() {
+        return toJson(id, status.get(), resultLog);
     }
 
-    private String buildJson() {
-        StringBuilder sb = new StringBuilder();
-        sb.append("{");
-        sb.append("\"id\": \"").append(id).append("\",");
-        sb.append("\"status\": \"").append(status.get().name().toLowerCase()).append("\",");
-        sb.append("\"urls\": [");
+    /**
+     * Returns the results with only the data needed to serve them once the search has finished.
+     */
+    ResultLog compactResults() {
+        return resultLog.compact();
+    }
 
-        boolean first = true;
-        for (String url : urls) {
-            if (!first) {
-                sb.append(",");
-            }
-            sb.append("\"").append(url).append("\"");
-            first = false;
-        }
+    static String toJson(String id, SearchStatus status, ResultLog resultLog, int after, int limit) {
+        StringBuilder sb = new StringBuilder();
+        appendHeader(sb, id, status);
+        int next = resultLog.appendTo(sb, after, limit);
+        sb.append("],");
+        sb.append("\"next\": ").append(next);
+        sb.append("}");
+        return sb.toString();
+    }
 
+    static String toJson(String id, SearchStatus status, ResultLog resultLog) {
+        StringBuilder sb = new StringBuilder();
+        appendHeader(sb, id, status);
+        resultLog.appendTo(sb, 0, Integer.MAX_VALUE);
         sb.append("]");
         sb.append("}");
         return sb.toString();
     }
-}
\ No newline at end of file
+
+    private void notifyChangeListeners() {
+        for (Runnable listener : changeListeners) {
+            listener.run();
+        }
+    }
+
+    private static String generateId() {
+        return UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * Claims one slot below {@code limit}, so concurrent crawl workers can never overshoot it.
+     */
+    private static boolean reserve(AtomicInteger counter, int limit) {
+        int current;
+        do {
+            current = counter.get();
+            if (current >= limit) {
+                return false;
+            }
+        } while (!counter.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /**
+     * Writes everything up to the opening bracket of the URL array.
+     */
+    private static void appendHeader(StringBuilder sb, String id, SearchStatus status) {
+        sb.append("{");
+        sb.append("\"id\": \"").append(id).append("\",");
+        sb.append("\"status\": \"").append(status.name().toLowerCase()).append("\",");
+        sb.append("\"urls\": [");
+    }
+}
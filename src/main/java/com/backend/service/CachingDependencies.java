@@ -0,0 +1,67 @@
+package com.backend.service;
+
+import com.backend.util.BodyReader;
+import com.backend.util.BodyScanner;
+import com.backend.util.FetchResult;
+import com.backend.util.HttpUtil;
+import com.backend.util.UrlCanonicalizer;
+import com.backend.util.UrlUtil;
+
+import java.io.IOException;
+import java.net.URL;
+
+/**
+ * {@link CrawlService.Dependencies} that serves page bodies through a shared {@link PageCache}, so
+ * concurrent searches over the same site fetch each normalized URL at most once per cache lifetime.
+ * Pages are cached under their canonical form with the whole query, since URLs that differ only in
+ * their query may serve different bodies even when a crawl counts them as one page.
+ */
+public class CachingDependencies extends CrawlService.Dependencies {
+    private final PageCache pageCache;
+    private final CrawlService.Dependencies delegate;
+
+    public CachingDependencies(PageCache pageCache) {
+        this(pageCache, new CrawlService.Dependencies());
+    }
+
+    public CachingDependencies(PageCache pageCache, CrawlService.Dependencies delegate) {
+        this.pageCache = pageCache;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String getBodyTextFromUrl(URL url, int timeout) throws IOException {
+        return pageCache.get(cacheKey(url), () -> delegate.getBodyTextFromUrl(url, timeout));
+    }
+
+    /**
+     * Scans the cached body, streaming it from the delegate on a miss. A page is only cached once it
+     * has been scanned to the end, so a scanner that stops early also stops the download.
+     */
+    @Override
+    public void scanBodyFromUrl(URL url, int timeout, BodyScanner scanner) throws IOException {
+        if (!delegate.supportsBodyScanning()) {
+            HttpUtil.scanString(getBodyTextFromUrl(url, timeout), scanner);
+            return;
+        }
+        pageCache.scan(cacheKey(url), sink -> delegate.scanBodyFromUrl(url, timeout, sink), scanner);
+    }
+
+    @Override
+    public FetchResult fetchIfModified(URL url, int timeout, String etag, String lastModified) throws IOException {
+        return delegate.fetchIfModified(url, timeout, etag, lastModified);
+    }
+
+    @Override
+    public void readBodyFromUrl(URL url, int timeout, BodyReader reader) throws IOException {
+        delegate.readBodyFromUrl(url, timeout, reader);
+    }
+
+    public PageCache getPageCache() {
+        return pageCache;
+    }
+
+    private static String cacheKey(URL url) {
+        return UrlUtil.normalizeUrl(url, UrlCanonicalizer.KEEP_QUERY);
+    }
+}
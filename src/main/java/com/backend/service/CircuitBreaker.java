@@ -1,60 +1,285 @@
 package com.backend.service;
 
+import com.backend.util.MetricsRegistry;
+
 import java.net.URL;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+/**
+ * Per-host circuit breaker. Failures are counted per host in a lock-free sliding window, so a dead
+ * origin is short-circuited for every URL and every search after {@code threshold} failures.
+ *
+ * <p>A host's circuit is closed while fewer than {@code threshold} failures fall within the window.
+ * It then opens and all of the host's URLs are skipped for {@code openMillis}. After that it becomes
+ * half-open and lets a limited number of probe requests through: if they all succeed the circuit
+ * closes, and if any fails it opens again. Only hosts with recent failures are tracked, and at most
+ * {@code maxHosts} of them, so memory stays bounded however many URLs fail.
+ */
 public class CircuitBreaker implements ICircuitBreaker {
     private static final Logger LOGGER = Logger.getLogger(CircuitBreaker.class.getName());
-    private final ConcurrentHashMap<String, FailureRecord> failureCountMap = new ConcurrentHashMap<>();
+
+    public static final long DEFAULT_WINDOW_MILLIS = 60_000;
+    public static final int DEFAULT_HALF_OPEN_PROBES = 2;
+    public static final int DEFAULT_MAX_HOSTS = 10_000;
+
+    private static final LongAdder OPENED = MetricsRegistry.global()
+            .counter("crawler_circuit_breaker_opened_total", "Times a host's circuit opened.");
+    private static final LongAdder SKIPPED = MetricsRegistry.global()
+            .counter("crawler_circuit_breaker_skipped_total", "URLs skipped because their host's circuit was open.");
+
+    private static final int CLOSED = 0;
+    private static final int OPEN = 1;
+    private static final int HALF_OPEN = 2;
+
+    private final ConcurrentHashMap<String, HostCircuit> circuits = new ConcurrentHashMap<>();
     private final int threshold;
-    private final long timeoutMillis;
+    private final long openMillis;
+    private final long windowMillis;
+    private final int halfOpenProbes;
+    private final int maxHosts;
 
+    /**
+     * Constructs a new {@code CircuitBreaker} with the default window, probe count and host limit.
+     *
+     * @param threshold     the number of failures within the window that opens a host's circuit.
+     * @param timeoutMillis how long (in milliseconds) an open circuit skips the host before probing it.
+     */
     public CircuitBreaker(int threshold, long timeoutMillis) {
+        this(threshold, timeoutMillis, DEFAULT_WINDOW_MILLIS, DEFAULT_HALF_OPEN_PROBES, DEFAULT_MAX_HOSTS);
+    }
+
+    /**
+     * Constructs a new {@code CircuitBreaker}.
+     *
+     * @param threshold      the number of failures within the window that opens a host's circuit.
+     * @param openMillis     how long (in milliseconds) an open circuit skips the host before probing it.
+     * @param windowMillis   the length (in milliseconds) of the sliding window failures are counted in.
+     * @param halfOpenProbes the number of requests let through, and required to succeed, while half-open.
+     * @param maxHosts       the maximum number of hosts tracked at once.
+     */
+    public CircuitBreaker(int threshold, long openMillis, long windowMillis, int halfOpenProbes, int maxHosts) {
+        if (threshold < 1 || halfOpenProbes < 1 || maxHosts < 1 || openMillis < 0 || windowMillis < 1) {
+            throw new IllegalArgumentException("Invalid circuit breaker settings");
+        }
         this.threshold = threshold;
-        this.timeoutMillis = timeoutMillis;
+        this.openMillis = openMillis;
+        this.windowMillis = windowMillis;
+        this.halfOpenProbes = halfOpenProbes;
+        this.maxHosts = maxHosts;
     }
 
     @Override
     public boolean shouldSkip(URL url, String operationId) {
-        String urlKey = url.toString();
-        FailureRecord record = failureCountMap.get(urlKey);
+        HostCircuit circuit = circuits.get(url.getHost());
+        if (circuit == null) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        switch (circuit.state.get()) {
+            case OPEN:
+                long elapsedTime = now - circuit.openedAt;
+                if (elapsedTime < openMillis) {
+                    logCircuitBreakerActive(url, operationId, elapsedTime);
+                    SKIPPED.increment();
+                    return true;
+                }
+                if (circuit.state.compareAndSet(OPEN, HALF_OPEN)) {
+                    LOGGER.log(Level.INFO, "Circuit breaker half-open for host: {0}. Probing with up to {1} requests.",
+                            new Object[]{url.getHost(), halfOpenProbes});
+                }
+                // This caller competes for a probe permit like any other.
+                return skipUnlessProbe(circuit, now);
+            case HALF_OPEN:
+                return skipUnlessProbe(circuit, now);
+            default:
+                return false;
+        }
+    }
 
-        if (record != null) {
-            if (record.failureCount >= threshold) {
-                long elapsedTime = System.currentTimeMillis() - record.lastFailureTime;
+    @Override
+    public void recordFailure(URL url) {
+        String host = url.getHost();
+        HostCircuit circuit = circuitFor(host);
+        if (circuit == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        int state = circuit.state.get();
+        if (state == HALF_OPEN) {
+            open(circuit, HALF_OPEN, host, now);
+        } else if (state == CLOSED && circuit.failures.increment(now) >= threshold) {
+            open(circuit, CLOSED, host, now);
+        }
+        LOGGER.log(Level.FINE, "Recorded failure for URL: {0}.", url);
+    }
 
-                if (elapsedTime < timeoutMillis) {
-                    logCircuitBreakerActive(url, operationId, record.failureCount, elapsedTime);
-                    return true;
-                } else {
-                    failureCountMap.remove(urlKey);
+    /**
+     * Closes a half-open circuit once all of its probe requests have succeeded. Closed circuits are
+     * dropped, so only hosts that failed recently take up memory.
+     */
+    @Override
+    public void recordSuccess(URL url) {
+        String host = url.getHost();
+        HostCircuit circuit = circuits.get(host);
+        if (circuit != null && circuit.state.get() == HALF_OPEN
+                && circuit.probeSuccesses.incrementAndGet() >= halfOpenProbes
+                && circuit.state.compareAndSet(HALF_OPEN, CLOSED)) {
+            circuits.remove(host, circuit);
+            LOGGER.log(Level.INFO, "Circuit breaker closed for host: {0}.", host);
+        }
+    }
+
+    private boolean skipUnlessProbe(HostCircuit circuit, long now) {
+        if (tryProbe(circuit, now)) {
+            return false;
+        }
+        SKIPPED.increment();
+        return true;
+    }
+
+    /**
+     * Takes one of the probe permits of a half-open circuit. A circuit whose probes were all taken but
+     * never reported back within {@code openMillis} is opened again, so it is probed afresh later
+     * instead of staying half-open forever.
+     */
+    private boolean tryProbe(HostCircuit circuit, long now) {
+        if (circuit.probesStarted.getAndIncrement() < halfOpenProbes) {
+            return true;
+        }
+        if (now - circuit.openedAt >= 2 * openMillis) {
+            open(circuit, HALF_OPEN, null, now);
+        }
+        return false;
+    }
+
+    /**
+     * Opens {@code circuit} if it is still in {@code expectedState}. The opening time is set first, so
+     * no caller sees the circuit open with a stale one; the probe counters are only reset by the caller
+     * that wins the transition, so a losing caller cannot wipe the counts of probes already under way.
+     */
+    private void open(HostCircuit circuit, int expectedState, String host, long now) {
+        circuit.openedAt = now;
+        if (circuit.state.compareAndSet(expectedState, OPEN)) {
+            circuit.probesStarted.set(0);
+            circuit.probeSuccesses.set(0);
+            OPENED.increment();
+            if (host != null) {
+                LOGGER.log(Level.WARNING, "Circuit breaker opened for host: {0}.", host);
+            }
+        }
+    }
+
+    /**
+     * Returns the circuit of {@code host}, creating it if needed. When {@code maxHosts} hosts are
+     * already tracked, closed circuits are dropped first, idle ones before those with recent failures;
+     * if every tracked host is open, the new host is not tracked.
+     */
+    private HostCircuit circuitFor(String host) {
+        HostCircuit circuit = circuits.get(host);
+        if (circuit != null) {
+            return circuit;
+        }
+        if (circuits.size() >= maxHosts) {
+            long now = System.currentTimeMillis();
+            circuits.entrySet().removeIf(entry -> entry.getValue().state.get() == CLOSED && entry.getValue().failures.sum(now) == 0);
+            Iterator<Map.Entry<String, HostCircuit>> iterator = circuits.entrySet().iterator();
+            while (circuits.size() >= maxHosts && iterator.hasNext()) {
+                if (iterator.next().getValue().state.get() == CLOSED) {
+                    iterator.remove();
                 }
             }
+            if (circuits.size() >= maxHosts) {
+                return null;
+            }
         }
+        return circuits.computeIfAbsent(host, ignored -> new HostCircuit(windowMillis));
+    }
 
-        return false;
+    /**
+     * Registers the state of every tracked host in {@code registry}: {@code 1} for open and {@code 2}
+     * for half-open circuits, and {@code 0} for closed ones that have failed recently.
+     */
+    public void registerMetrics(MetricsRegistry registry) {
+        registry.gauge("crawler_circuit_breaker_tracked_hosts", "Hosts with recent failures tracked by the circuit breaker.", circuits::size);
+        registry.collector("crawler_circuit_breaker_state", "Circuit state per tracked host: 0 closed, 1 open, 2 half-open.", "gauge",
+                (out, name) -> circuits.forEach((host, circuit) ->
+                        MetricsRegistry.sample(out, name, MetricsRegistry.label("host", host), circuit.state.get())));
     }
 
-    @Override
-    public void recordFailure(URL url) {
-        String urlKey = url.toString();
-        failureCountMap.merge(urlKey, new FailureRecord(1, System.currentTimeMillis()), (existing, newValue) -> new FailureRecord(existing.failureCount + 1, System.currentTimeMillis()));
-        LOGGER.log(Level.WARNING, "Incremented failure count for URL: {0}.", url);
+    private void logCircuitBreakerActive(URL url, String operationId, long elapsedTime) {
+        LOGGER.log(Level.FINE, "Circuit breaker active for host of URL: {0} for operation ID: {1}. Skipping URL. Time since circuit opened: {2}ms.", new Object[]{url, operationId, elapsedTime});
     }
 
-    private void logCircuitBreakerActive(URL url, String operationId, int failureCount, long elapsedTime) {
-        LOGGER.log(Level.WARNING, "Circuit breaker active for URL: {0} for operation ID: {1}. Skipping URL. Failure count: {2}. Time since last failure: {3}ms.", new Object[]{url, operationId, failureCount, elapsedTime});
+    private static final class HostCircuit {
+        final SlidingWindowCounter failures;
+        final AtomicInteger state = new AtomicInteger(CLOSED);
+        final AtomicInteger probesStarted = new AtomicInteger();
+        final AtomicInteger probeSuccesses = new AtomicInteger();
+        volatile long openedAt;
+
+        HostCircuit(long windowMillis) {
+            this.failures = new SlidingWindowCounter(windowMillis);
+        }
     }
 
-    private static class FailureRecord {
-        final int failureCount;
-        final long lastFailureTime;
+    /**
+     * Lock-free count of events over the last {@code windowMillis}, kept in a ring of time buckets.
+     * Each bucket packs the index of the time slot it belongs to with its count in a single long, so a
+     * stale bucket is reset and incremented with one compare-and-set.
+     */
+    static final class SlidingWindowCounter {
+        private static final int BUCKETS = 10;
+        private static final int COUNT_BITS = 20;
+        private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final long bucketMillis;
+
+        SlidingWindowCounter(long windowMillis) {
+            this.bucketMillis = Math.max(1, windowMillis / BUCKETS);
+        }
+
+        /**
+         * Counts one event at {@code now} and returns the number of events in the window.
+         */
+        int increment(long now) {
+            long slot = now / bucketMillis;
+            int index = (int) (slot % BUCKETS);
+            while (true) {
+                long bucket = buckets.get(index);
+                long next;
+                if (bucket >>> COUNT_BITS == slot) {
+                    next = (bucket & COUNT_MASK) == COUNT_MASK ? bucket : bucket + 1;
+                } else {
+                    next = (slot << COUNT_BITS) | 1;
+                }
+                if (buckets.compareAndSet(index, bucket, next)) {
+                    return sum(now);
+                }
+            }
+        }
 
-        FailureRecord(int failureCount, long lastFailureTime) {
-            this.failureCount = failureCount;
-            this.lastFailureTime = lastFailureTime;
+        /**
+         * Returns the number of events in the window ending at {@code now}.
+         */
+        int sum(long now) {
+            long slot = now / bucketMillis;
+            int sum = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                long bucket = buckets.get(i);
+                long bucketSlot = bucket >>> COUNT_BITS;
+                if (bucketSlot <= slot && bucketSlot > slot - BUCKETS) {
+                    sum += (int) (bucket & COUNT_MASK);
+                }
+            }
+            return sum;
         }
     }
 }
@@ -0,0 +1,608 @@
+package com.backend.service;
+
+import com.backend.util.ConsistentHashRing;
+import com.backend.util.MetricsRegistry;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * One node of a crawler cluster. The nodes split the frontier of every search between them by
+ * consistent hash of the normalized URL: each node only fetches the pages it owns, and links to pages
+ * owned by another node are sent to that node in batches. Pages matching the search are reported to
+ * the node the search was started on, its origin, which collects them in the search operation.
+ *
+ * <p>A search's state on one node is a {@link Shard}. Remote shards are created when the first links
+ * of a search reach a node and live until the origin stops them. The origin stops them once the search
+ * has its results, or once the whole cluster has run out of work: it periodically asks every node
+ * whether it is idle and how many URLs it has sent and received for the search, and the search is
+ * over when two consecutive rounds find every node idle and the same, balanced totals, since no
+ * message can then be in transit.
+ *
+ * <p>Links that cannot be delivered are crawled locally instead, so a node that is down when a search
+ * starts only costs the cluster its share of the throughput. A node that stops answering while a search
+ * runs takes the links it held with it, so the totals can no longer balance: once it has been
+ * unreachable for the peer timeout, the origin stops counting on it and ends the search when the
+ * nodes still up have been idle with unchanged totals for two rounds.
+ */
+public class ClusterNode {
+    private static final Logger LOGGER = Logger.getLogger(ClusterNode.class.getName());
+
+    public static final int DEFAULT_BATCH_SIZE = 256;
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 20;
+    public static final long DEFAULT_CHECK_INTERVAL_MILLIS = 200;
+    public static final long DEFAULT_ORPHAN_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    public static final long DEFAULT_PEER_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private static final int MAX_STOPPED_SEARCHES = 10_000;
+    private static final LongAdder LINKS_FORWARDED = MetricsRegistry.global()
+            .counter("crawler_cluster_links_forwarded_total", "Links sent to the cluster node owning them.");
+    private static final LongAdder RESULTS_FORWARDED = MetricsRegistry.global()
+            .counter("crawler_cluster_results_forwarded_total", "Matching pages reported to the node a search was started on.");
+    private static final LongAdder BATCHES_FAILED = MetricsRegistry.global()
+            .counter("crawler_cluster_batches_failed_total", "Batches that could not be delivered to another cluster node.");
+
+    private final String self;
+    private final ConsistentHashRing ring;
+    private final List<String> peers;
+    private final IClusterTransport transport;
+    private final int batchSize;
+    private final long orphanTimeoutMillis;
+    private final long peerTimeoutMillis;
+    private final ConcurrentHashMap<String, Long> unreachableSince = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Shard> shards = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> stoppedSearches = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > MAX_STOPPED_SEARCHES;
+        }
+    };
+    private final ScheduledExecutorService timer;
+    private final ExecutorService sender;
+    private volatile ShardHost host;
+
+    public ClusterNode(String self, List<String> nodes, IClusterTransport transport) {
+        this(self, nodes, transport, DEFAULT_BATCH_SIZE, DEFAULT_FLUSH_INTERVAL_MILLIS, DEFAULT_CHECK_INTERVAL_MILLIS,
+                DEFAULT_ORPHAN_TIMEOUT_MILLIS);
+    }
+
+    public ClusterNode(String self, List<String> nodes, IClusterTransport transport, int batchSize, long flushIntervalMillis,
+                       long checkIntervalMillis, long orphanTimeoutMillis) {
+        this(self, nodes, transport, batchSize, flushIntervalMillis, checkIntervalMillis, orphanTimeoutMillis,
+                DEFAULT_PEER_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Constructs a new {@code ClusterNode}.
+     *
+     * @param self                the address of this node, as the other nodes know it.
+     * @param nodes               the addresses of all nodes of the cluster, including this one.
+     * @param transport           the transport carrying messages to the other nodes.
+     * @param batchSize           the number of URLs sent to a node at once.
+     * @param flushIntervalMillis how long (in milliseconds) URLs wait for a batch to fill before it is sent anyway.
+     * @param checkIntervalMillis how often (in milliseconds) the origin of a search checks whether the cluster is done with it.
+     * @param orphanTimeoutMillis how long (in milliseconds) a remote shard keeps running without hearing from its origin.
+     * @param peerTimeoutMillis   how long (in milliseconds) a node may fail to answer the origin of a search before the
+     *                            search stops waiting for the links it held.
+     */
+    public ClusterNode(String self, List<String> nodes, IClusterTransport transport, int batchSize, long flushIntervalMillis,
+                       long checkIntervalMillis, long orphanTimeoutMillis, long peerTimeoutMillis) {
+        if (!nodes.contains(self)) {
+            throw new IllegalArgumentException("The cluster nodes must include this node: " + self);
+        }
+        if (batchSize < 1 || flushIntervalMillis < 1 || checkIntervalMillis < 1 || orphanTimeoutMillis < 1 || peerTimeoutMillis < 1) {
+            throw new IllegalArgumentException("Invalid cluster settings");
+        }
+        this.self = self;
+        this.ring = new ConsistentHashRing(nodes);
+        this.peers = new ArrayList<>(nodes);
+        this.peers.remove(self);
+        this.transport = transport;
+        this.batchSize = batchSize;
+        this.orphanTimeoutMillis = orphanTimeoutMillis;
+        this.peerTimeoutMillis = peerTimeoutMillis;
+        this.timer = Executors.newSingleThreadScheduledExecutor(daemonThreads("cluster-timer-"));
+        this.sender = Executors.newCachedThreadPool(daemonThreads("cluster-sender-"));
+        timer.scheduleWithFixedDelay(this::flushAll, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        timer.scheduleWithFixedDelay(this::checkShards, checkIntervalMillis, checkIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Attaches the service that crawls this node's shards. A node serves a single service.
+     */
+    void attach(ShardHost host) {
+        this.host = host;
+    }
+
+    public String getSelf() {
+        return self;
+    }
+
+    public List<String> getNodes() {
+        return ring.getNodes();
+    }
+
+    /**
+     * Returns whether this node owns the page at {@code normalizedUrl}.
+     */
+    boolean isLocal(String normalizedUrl) {
+        return ring.nodeFor(normalizedUrl).equals(self);
+    }
+
+    /**
+     * Creates the shard of a search started on this node.
+     */
+    Shard openOrigin(String searchId, String keyword) {
+        Shard shard = new Shard(searchId, keyword, self, true);
+        shards.put(searchId, shard);
+        return shard;
+    }
+
+    /**
+     * Queues {@code url}, which another node owns, to be sent to that node.
+     */
+    void forwardLink(Shard shard, String url, String normalizedUrl) {
+        buffer(shard, ring.nodeFor(normalizedUrl), url, false);
+        LINKS_FORWARDED.increment();
+    }
+
+    /**
+     * Queues {@code normalizedUrl}, a page matching the search of a remote shard, to be reported to
+     * the search's origin.
+     */
+    void forwardResult(Shard shard, String normalizedUrl) {
+        buffer(shard, shard.origin, normalizedUrl, true);
+        RESULTS_FORWARDED.increment();
+    }
+
+    /**
+     * Forgets a shard whose local crawl has ended. When the search was started here, the other nodes
+     * are told to stop their shards.
+     */
+    void release(Shard shard) {
+        shards.remove(shard.searchId, shard);
+        rememberStopped(shard.searchId);
+        if (shard.stop() && shard.isOrigin) {
+            broadcastStop(shard);
+        }
+    }
+
+    /**
+     * Accepts links another node found for a search, starting the search's shard here if needed.
+     */
+    public void receiveLinks(Batch batch) {
+        Shard shard = shards.get(batch.getSearchId());
+        if (shard == null) {
+            shard = startShard(batch);
+            if (shard == null) {
+                return;
+            }
+        }
+        shard.contactedAt = System.currentTimeMillis();
+        host.acceptLinks(shard, batch.getUrls());
+        shard.received.add(batch.getUrls().size());
+    }
+
+    /**
+     * Accepts pages another node found matching a search started on this node.
+     */
+    public void receiveResults(Batch batch) {
+        Shard shard = shards.get(batch.getSearchId());
+        if (shard == null || !shard.isOrigin) {
+            return;
+        }
+        host.acceptResults(shard, batch.getUrls());
+        shard.received.add(batch.getUrls().size());
+    }
+
+    /**
+     * Returns the state of a search's shard on this node. Nodes that never received any of the
+     * search's links report themselves idle.
+     */
+    public ShardStatus getStatus(String searchId) {
+        Shard shard = shards.get(searchId);
+        if (shard == null) {
+            return new ShardStatus(true, 0, 0);
+        }
+        shard.contactedAt = System.currentTimeMillis();
+        return new ShardStatus(isIdle(shard), shard.sent.sum(), shard.received.sum());
+    }
+
+    /**
+     * Stops this node's shard of a search, as asked by the search's origin.
+     */
+    public void stop(String searchId) {
+        rememberStopped(searchId);
+        Shard shard = shards.remove(searchId);
+        if (shard != null && shard.stop()) {
+            LOGGER.log(Level.FINE, "Stopped shard of search ID: {0}", searchId);
+        }
+    }
+
+    /**
+     * Registers the number of shards on this node in {@code registry}.
+     */
+    public void registerMetrics(MetricsRegistry registry) {
+        registry.gauge("crawler_cluster_shards", "Searches this cluster node holds a shard of.", shards::size);
+    }
+
+    public void shutdown() {
+        timer.shutdownNow();
+        sender.shutdownNow();
+    }
+
+    /**
+     * Starts the shard of a search another node sent links for, unless the search is already over, its
+     * origin is not one of the other nodes of the cluster, or the host refuses its keyword.
+     */
+    private synchronized Shard startShard(Batch batch) {
+        Shard shard = shards.get(batch.getSearchId());
+        if (shard != null || isStopped(batch.getSearchId())) {
+            return shard;
+        }
+        if (!peers.contains(batch.getOrigin())) {
+            LOGGER.log(Level.WARNING, "Ignored links of search ID: {0} from {1}, which is not a node of this cluster",
+                    new Object[]{batch.getSearchId(), batch.getOrigin()});
+            return null;
+        }
+        shard = new Shard(batch.getSearchId(), batch.getKeyword(), batch.getOrigin(), false);
+        shards.put(shard.searchId, shard);
+        try {
+            host.startShard(shard);
+        } catch (IllegalArgumentException e) {
+            LOGGER.log(Level.WARNING, "Refused shard of search ID: {0} from node {1}: {2}",
+                    new Object[]{shard.searchId, shard.origin, e.getMessage()});
+            stop(shard.searchId);
+            return null;
+        }
+        LOGGER.log(Level.INFO, "Started shard of search ID: {0} from node {1}", new Object[]{shard.searchId, shard.origin});
+        return shard;
+    }
+
+    /**
+     * Returns whether a shard has no work left: its crawl has no pages pending, and nothing it sent is
+     * still buffered or in transit. The checks follow the path a URL takes, so one that moves on
+     * while they run is still seen.
+     */
+    private boolean isIdle(Shard shard) {
+        if (!host.isIdle(shard)) {
+            return false;
+        }
+        synchronized (shard) {
+            if (shard.buffered > 0) {
+                return false;
+            }
+        }
+        return shard.inFlight.get() == 0;
+    }
+
+    private void buffer(Shard shard, String node, String url, boolean result) {
+        List<String> full = null;
+        synchronized (shard) {
+            List<String> buffer = result ? shard.resultBuffer : shard.linkBuffers.computeIfAbsent(node, ignored -> new ArrayList<>());
+            buffer.add(url);
+            shard.buffered++;
+            shard.sent.increment();
+            if (buffer.size() >= batchSize) {
+                full = takeBuffer(shard, node, result);
+            }
+        }
+        if (full != null) {
+            send(shard, node, full, result);
+        }
+    }
+
+    /**
+     * Empties a buffer of {@code shard} for sending, counting it as in transit. Must be called while
+     * holding the shard's lock.
+     */
+    private List<String> takeBuffer(Shard shard, String node, boolean result) {
+        List<String> buffer = result ? shard.resultBuffer : shard.linkBuffers.get(node);
+        if (buffer == null || buffer.isEmpty()) {
+            return null;
+        }
+        List<String> taken = new ArrayList<>(buffer);
+        buffer.clear();
+        shard.buffered -= taken.size();
+        shard.inFlight.incrementAndGet();
+        return taken;
+    }
+
+    private void send(Shard shard, String node, List<String> urls, boolean result) {
+        Batch batch = new Batch(shard.searchId, shard.keyword, shard.origin, urls);
+        try {
+            sender.execute(() -> deliver(shard, node, batch, result));
+        } catch (RejectedExecutionException e) {
+            failed(shard, node, batch, result, new IOException("Cluster node is shut down", e));
+        }
+    }
+
+    private void deliver(Shard shard, String node, Batch batch, boolean result) {
+        try {
+            if (result) {
+                transport.sendResults(node, batch);
+            } else {
+                transport.sendLinks(node, batch);
+            }
+            shard.inFlight.decrementAndGet();
+        } catch (IOException | RuntimeException e) {
+            failed(shard, node, batch, result, e);
+        }
+    }
+
+    /**
+     * Handles a batch that could not be delivered. Its links are crawled here instead; results are
+     * dropped. Either way the batch no longer counts as sent, so the search can still finish.
+     */
+    private void failed(Shard shard, String node, Batch batch, boolean result, Exception e) {
+        BATCHES_FAILED.increment();
+        if (!result && !shard.isStopped()) {
+            LOGGER.log(Level.WARNING, "Failed to send {0} links of search ID: {1} to node {2}; crawling them here instead",
+                    new Object[]{batch.getUrls().size(), shard.searchId, node});
+            host.crawlLocally(shard, batch.getUrls());
+        } else if (result) {
+            LOGGER.log(Level.WARNING, "Failed to report " + batch.getUrls().size() + " results of search ID: " + shard.searchId
+                    + " to node " + node, e);
+        }
+        shard.sent.add(-batch.getUrls().size());
+        shard.inFlight.decrementAndGet();
+    }
+
+    private void flushAll() {
+        for (Shard shard : shards.values()) {
+            Map<String, List<String>> links = new HashMap<>();
+            List<String> results;
+            synchronized (shard) {
+                for (String node : shard.linkBuffers.keySet()) {
+                    List<String> taken = takeBuffer(shard, node, false);
+                    if (taken != null) {
+                        links.put(node, taken);
+                    }
+                }
+                results = takeBuffer(shard, shard.origin, true);
+            }
+            links.forEach((node, urls) -> send(shard, node, urls, false));
+            if (results != null) {
+                send(shard, shard.origin, results, true);
+            }
+        }
+    }
+
+    private void checkShards() {
+        long now = System.currentTimeMillis();
+        for (Shard shard : shards.values()) {
+            try {
+                if (shard.isOrigin) {
+                    checkTermination(shard);
+                } else if (now - shard.contactedAt > orphanTimeoutMillis) {
+                    LOGGER.log(Level.WARNING, "No word from node {0} about search ID: {1}; stopping its shard",
+                            new Object[]{shard.origin, shard.searchId});
+                    stop(shard.searchId);
+                }
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Failed to check shard of search ID: " + shard.searchId, e);
+            }
+        }
+    }
+
+    /**
+     * Runs one round of the termination check of a search started on this node, and stops the search
+     * everywhere when it and the previous round found the whole cluster idle with the same, balanced
+     * totals. Nodes that cannot be reached hold none of the search's links, since undeliverable links
+     * are crawled by their sender, unless they went down after receiving some. Once a node has been
+     * unreachable for the peer timeout, whatever it held is given up on and the totals need not balance.
+     */
+    private void checkTermination(Shard shard) {
+        if (shard.isStopped()) {
+            return;
+        }
+        boolean idle = isIdle(shard);
+        long sent = shard.sent.sum();
+        long received = shard.received.sum();
+        boolean peersLost = false;
+        for (String peer : peers) {
+            try {
+                ShardStatus status = transport.getStatus(peer, shard.searchId);
+                unreachableSince.remove(peer);
+                idle &= status.isIdle();
+                sent += status.getSent();
+                received += status.getReceived();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Failed to get the status of search ID: " + shard.searchId + " from node " + peer, e);
+                long now = System.currentTimeMillis();
+                peersLost |= now - unreachableSince.computeIfAbsent(peer, ignored -> now) >= peerTimeoutMillis;
+            }
+        }
+        if (peersLost && !shard.peersLost) {
+            LOGGER.log(Level.WARNING, "Nodes of the cluster stopped answering; search ID: {0} finishes without the links they held",
+                    shard.searchId);
+        }
+        shard.peersLost = peersLost;
+        boolean terminated = idle && (sent == received || peersLost)
+                && shard.lastRoundIdle && shard.lastRoundSent == sent && shard.lastRoundReceived == received;
+        shard.lastRoundIdle = idle;
+        shard.lastRoundSent = sent;
+        shard.lastRoundReceived = received;
+        if (terminated && shard.stop()) {
+            LOGGER.log(Level.INFO, "Cluster finished crawling for search ID: {0}", shard.searchId);
+            broadcastStop(shard);
+        }
+    }
+
+    private void broadcastStop(Shard shard) {
+        for (String peer : peers) {
+            try {
+                sender.execute(() -> {
+                    try {
+                        transport.stop(peer, shard.searchId);
+                    } catch (IOException e) {
+                        LOGGER.log(Level.WARNING, "Failed to stop search ID: " + shard.searchId + " on node " + peer, e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                return;
+            }
+        }
+    }
+
+    private void rememberStopped(String searchId) {
+        synchronized (stoppedSearches) {
+            stoppedSearches.put(searchId, Boolean.TRUE);
+        }
+    }
+
+    private boolean isStopped(String searchId) {
+        synchronized (stoppedSearches) {
+            return stoppedSearches.containsKey(searchId);
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * The part of the cluster's work on one search held by this node.
+     */
+    static final class Shard {
+        final String searchId;
+        final String keyword;
+        final String origin;
+        final boolean isOrigin;
+        final LongAdder sent = new LongAdder();
+        final LongAdder received = new LongAdder();
+        final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicBoolean stopped = new AtomicBoolean();
+        private final Map<String, List<String>> linkBuffers = new HashMap<>();
+        private final List<String> resultBuffer = new ArrayList<>();
+        private int buffered;
+        private volatile long contactedAt = System.currentTimeMillis();
+        private boolean lastRoundIdle;
+        private boolean peersLost;
+        private long lastRoundSent = -1;
+        private long lastRoundReceived = -1;
+
+        Shard(String searchId, String keyword, String origin, boolean isOrigin) {
+            this.searchId = searchId;
+            this.keyword = keyword;
+            this.origin = origin;
+            this.isOrigin = isOrigin;
+        }
+
+        boolean isStopped() {
+            return stopped.get();
+        }
+
+        /**
+         * Returns {@code true} exactly once, for the caller that stops the shard.
+         */
+        boolean stop() {
+            return stopped.compareAndSet(false, true);
+        }
+    }
+
+    /**
+     * Crawls the shards of a node and receives the links and results sent to them.
+     */
+    interface ShardHost {
+        /**
+         * Starts crawling the shard of a search started on another node.
+         */
+        void startShard(Shard shard);
+
+        void acceptLinks(Shard shard, List<String> urls);
+
+        /**
+         * Queues links this node found and recorded as visited, but could not send to their owner.
+         */
+        void crawlLocally(Shard shard, List<String> urls);
+
+        void acceptResults(Shard shard, List<String> urls);
+
+        /**
+         * Returns whether the shard's crawl has no pages queued or being scanned.
+         */
+        boolean isIdle(Shard shard);
+    }
+
+    /**
+     * URLs sent from one node to another on behalf of a search.
+     */
+    public static final class Batch {
+        private final String searchId;
+        private final String keyword;
+        private final String origin;
+        private final List<String> urls;
+
+        public Batch(String searchId, String keyword, String origin, List<String> urls) {
+            this.searchId = searchId;
+            this.keyword = keyword;
+            this.origin = origin;
+            this.urls = urls;
+        }
+
+        public String getSearchId() {
+            return searchId;
+        }
+
+        public String getKeyword() {
+            return keyword;
+        }
+
+        public String getOrigin() {
+            return origin;
+        }
+
+        public List<String> getUrls() {
+            return urls == null ? List.of() : urls;
+        }
+    }
+
+    /**
+     * What a node reports about its shard of a search to the search's origin.
+     */
+    public static final class ShardStatus {
+        private final boolean idle;
+        private final long sent;
+        private final long received;
+
+        public ShardStatus(boolean idle, long sent, long received) {
+            this.idle = idle;
+            this.sent = sent;
+            this.received = received;
+        }
+
+        public boolean isIdle() {
+            return idle;
+        }
+
+        public long getSent() {
+            return sent;
+        }
+
+        public long getReceived() {
+            return received;
+        }
+    }
+}
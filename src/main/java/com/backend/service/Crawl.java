@@ -0,0 +1,373 @@
+package com.backend.service;
+
+import com.backend.model.ISearchOperation;
+import com.backend.util.KeywordMatcher;
+import com.backend.util.MultiKeywordMatcher;
+import com.backend.util.TransferStats;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * State of one crawl over the configured site, shared by all of its workers. A crawl runs on behalf
+ * of one or more subscribed search operations and scans every page once for all of their keywords.
+ *
+ * <p>The frontier (visited URLs, retries) is tracked on a {@link ISearchOperation}: the search itself
+ * for a private crawl, or an unregistered operation owned by the crawl when searches are coalesced.
+ * The URLs still to be visited are held in an {@link IUrlQueue} that is released when the crawl closes.
+ * Searches that join a shared crawl late are given the pages scanned so far as a catch-up backlog.
+ * Once a shared crawl has scanned more than {@link #MAX_CATCH_UP_PAGES} pages it stops keeping that
+ * list and takes no further subscribers, so later searches start a crawl of their own.
+ *
+ * <p>In cluster mode a crawl only covers this node's {@link ClusterNode.Shard} of a search. It then
+ * runs until the shard is stopped rather than until its own queue is empty, since other nodes may
+ * still send it links.
+ *
+ * <p>When checkpointing is enabled, the crawl records its subscribers, their results, the URLs it
+ * queues and the pages it scans in a {@link SearchCheckpointLog.Checkpoint}, from which it can be
+ * rebuilt after a restart.
+ *
+ * <p>When near-duplicate pages are skipped, the crawl keeps the {@link NearDuplicateIndex} of the pages
+ * whose links it has queued.
+ *
+ * <p>Workers that find the queue empty wait in {@link #pollOrAwait} until a URL is queued, the last
+ * pending URL is done, or a subscriber leaves, rather than polling the queue in a loop.
+ */
+class Crawl {
+    /**
+     * The most pages a shared crawl remembers for searches that join it late.
+     */
+    static final int MAX_CATCH_UP_PAGES = 10_000;
+
+    final ISearchOperation frontier;
+    final IUrlQueue queue;
+    final AtomicInteger pendingUrls = new AtomicInteger();
+    final TransferStats transferStats = new TransferStats();
+    final ClusterNode.Shard shard;
+    final SearchCheckpointLog.Checkpoint checkpoint;
+    final NearDuplicateIndex nearDuplicates;
+
+    private final boolean shared;
+    private final ArrayList<URL> scannedUrls = new ArrayList<>();
+    private final Object workLock = new Object();
+    private final AtomicInteger idleWorkers = new AtomicInteger();
+    private long workSignals;
+    private volatile Subscriptions subscriptions;
+    private volatile boolean seeded;
+    private boolean closed;
+    private boolean catchUpDropped;
+
+    Crawl(ISearchOperation frontier, IUrlQueue queue, ISearchOperation firstSubscriber, boolean shared, ClusterNode.Shard shard,
+          SearchCheckpointLog.Checkpoint checkpoint, NearDuplicateIndex nearDuplicates) {
+        this.frontier = frontier;
+        this.queue = queue;
+        this.shared = shared;
+        this.shard = shard;
+        this.checkpoint = checkpoint;
+        this.nearDuplicates = nearDuplicates;
+        this.subscriptions = new Subscriptions(0, List.of(new Subscription(firstSubscriber, 0, List.of(), 1)));
+        if (checkpoint != null) {
+            checkpoint.joined(firstSubscriber);
+        }
+    }
+
+    void enqueue(URL url) {
+        enqueue(url, PriorityUrlQueue.DEFAULT_PRIORITY);
+    }
+
+    /**
+     * Queues {@code url} with a priority, which only a best-first frontier takes into account. The
+     * priority is not checkpointed, so resumed crawls visit their remaining frontier in default order.
+     */
+    void enqueue(URL url, int priority) {
+        pendingUrls.incrementAndGet();
+        queue.add(url, priority);
+        if (checkpoint != null) {
+            checkpoint.queued(url);
+        }
+        signalWork(false);
+    }
+
+    /**
+     * Marks a pending URL, or other pending work such as sitemap seeding, as done. Idle workers are
+     * woken when it was the last one, so they can end the crawl.
+     */
+    void releasePending() {
+        if (pendingUrls.decrementAndGet() == 0) {
+            signalWork(true);
+        }
+    }
+
+    /**
+     * Takes the next queued URL, waiting up to {@code maxWaitNanos} for one if the queue is empty.
+     * Returns {@code null} if none was taken, possibly because the crawl ran out of work or subscribers,
+     * which the caller checks before asking again.
+     */
+    URL pollOrAwait(long maxWaitNanos) throws InterruptedException {
+        URL url = queue.poll();
+        if (url != null) {
+            return url;
+        }
+        // Counting this worker as idle before polling again means that a URL queued in between is either
+        // seen by that poll or signalled to this worker.
+        idleWorkers.incrementAndGet();
+        try {
+            long seen;
+            synchronized (workLock) {
+                seen = workSignals;
+            }
+            url = queue.poll();
+            if (url != null || !hasWork() || !hasActiveSubscribers()) {
+                return url;
+            }
+            synchronized (workLock) {
+                long deadline = System.nanoTime() + maxWaitNanos;
+                for (long remaining = maxWaitNanos; workSignals == seen && remaining > 0; remaining = deadline - System.nanoTime()) {
+                    TimeUnit.NANOSECONDS.timedWait(workLock, remaining);
+                }
+            }
+            return queue.poll();
+        } finally {
+            idleWorkers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Wakes one idle worker for a newly queued URL, or all of them when the crawl may be over.
+     */
+    private void signalWork(boolean all) {
+        if (idleWorkers.get() == 0) {
+            return;
+        }
+        synchronized (workLock) {
+            workSignals++;
+            if (all) {
+                workLock.notifyAll();
+            } else {
+                workLock.notify();
+            }
+        }
+    }
+
+    void recordResult(ISearchOperation searchOperation, String normalizedUrl) {
+        if (checkpoint != null) {
+            checkpoint.result(searchOperation.getId(), normalizedUrl);
+        }
+    }
+
+    void recordFinished(ISearchOperation searchOperation) {
+        if (checkpoint != null) {
+            checkpoint.finished(searchOperation.getId());
+        }
+    }
+
+    /**
+     * Returns whether the crawl may still get pages to scan: while its shard runs in cluster mode, or
+     * while URLs are pending otherwise.
+     */
+    boolean hasWork() {
+        return shard != null ? !shard.isStopped() : pendingUrls.get() > 0;
+    }
+
+    /**
+     * Returns whether this crawl is the shard of a search started on another cluster node, whose
+     * results are reported to that node.
+     */
+    boolean isRemoteShard() {
+        return shard != null && !shard.isOrigin;
+    }
+
+    void markSeeded() {
+        seeded = true;
+    }
+
+    boolean isSeeded() {
+        return seeded;
+    }
+
+    /**
+     * Returns whether the crawl has queued its starting URLs and has none pending since.
+     */
+    boolean isIdle() {
+        return seeded && pendingUrls.get() == 0;
+    }
+
+    Subscriptions getSubscriptions() {
+        return subscriptions;
+    }
+
+    boolean hasActiveSubscribers() {
+        return !subscriptions.subscribers.isEmpty();
+    }
+
+    /**
+     * Subscribes {@code searchOperation} to this crawl. Returns {@code null} if the crawl has already
+     * closed, or has scanned too many pages to give a late subscriber a backlog, and a new one has to be
+     * started instead. A checkpoint records joins and scans in the order they happened, so searches
+     * restored from one are never turned away.
+     */
+    synchronized Subscription join(ISearchOperation searchOperation) {
+        if (closed || catchUpDropped) {
+            return null;
+        }
+        long generation = subscriptions.generation + 1;
+        List<URL> backlog = new ArrayList<>(scannedUrls);
+        Subscription subscription = new Subscription(searchOperation, generation, backlog, backlog.isEmpty() ? 1 : 2);
+        List<Subscription> subscribers = new ArrayList<>(subscriptions.subscribers);
+        subscribers.add(subscription);
+        subscriptions = new Subscriptions(generation, subscribers);
+        if (checkpoint != null) {
+            checkpoint.joined(searchOperation);
+        }
+        return subscription;
+    }
+
+    /**
+     * Unsubscribes a search that needs no further pages, so its keyword is no longer scanned for.
+     */
+    synchronized void leave(Subscription subscription) {
+        if (!subscriptions.subscribers.contains(subscription)) {
+            return;
+        }
+        List<Subscription> subscribers = new ArrayList<>(subscriptions.subscribers);
+        subscribers.remove(subscription);
+        subscriptions = new Subscriptions(subscriptions.generation + 1, subscribers);
+        signalWork(true);
+    }
+
+    /**
+     * Records that {@code url} was scanned with {@code scannedWith} and returns the subscribers that
+     * joined after that snapshot was taken. Their catch-up backlog was captured before this page was
+     * recorded, so the caller has to scan the page for them separately.
+     */
+    synchronized List<Subscription> recordScanned(URL url, Subscriptions scannedWith) {
+        if (checkpoint != null) {
+            checkpoint.scanned(url);
+        }
+        if (!shared) {
+            return List.of();
+        }
+        if (!catchUpDropped) {
+            if (scannedUrls.size() < MAX_CATCH_UP_PAGES) {
+                scannedUrls.add(url);
+            } else {
+                // Past the limit no subscriber joins any more, so there is no backlog to keep.
+                catchUpDropped = true;
+                scannedUrls.clear();
+                scannedUrls.trimToSize();
+            }
+        }
+        if (subscriptions.generation == scannedWith.generation) {
+            return List.of();
+        }
+        List<Subscription> missed = new ArrayList<>();
+        for (Subscription subscription : subscriptions.subscribers) {
+            if (subscription.joinGeneration > scannedWith.generation) {
+                missed.add(subscription);
+            }
+        }
+        return missed;
+    }
+
+    /**
+     * Closes the crawl unless a subscriber joined while the frontier still has work. Once closed, no
+     * further searches can join.
+     */
+    synchronized boolean tryClose() {
+        if (hasWork() && hasActiveSubscribers()) {
+            return false;
+        }
+        closed = true;
+        return true;
+    }
+
+    /**
+     * Returns whether the crawl has closed and every search still subscribed to it has finished, so
+     * nothing is left to resume from its checkpoint.
+     */
+    synchronized boolean isOver() {
+        if (!closed) {
+            return false;
+        }
+        for (Subscription subscription : subscriptions.subscribers) {
+            if (!subscription.isFinished()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Closes the crawl unconditionally and returns the subscribers still attached to it.
+     */
+    synchronized List<Subscription> close() {
+        closed = true;
+        queue.close();
+        signalWork(true);
+        return subscriptions.subscribers;
+    }
+
+    /**
+     * Immutable snapshot of the subscribers of a crawl together with the automaton matching their
+     * keywords. Keyword {@code i} of the matcher belongs to subscriber {@code i}.
+     */
+    static final class Subscriptions {
+        final long generation;
+        final List<Subscription> subscribers;
+        final MultiKeywordMatcher matcher;
+
+        Subscriptions(long generation, List<Subscription> subscribers) {
+            this.generation = generation;
+            this.subscribers = Collections.unmodifiableList(subscribers);
+            List<String> keywords = new ArrayList<>(subscribers.size());
+            for (Subscription subscription : subscribers) {
+                keywords.add(subscription.searchOperation.getKeyword());
+            }
+            this.matcher = new MultiKeywordMatcher(keywords);
+        }
+    }
+
+    /**
+     * A search operation attached to a crawl. The search completes once the crawl has ended and its
+     * catch-up backlog, if any, has been scanned, or as soon as it reaches its result limit.
+     */
+    static final class Subscription {
+        final ISearchOperation searchOperation;
+        final long joinGeneration;
+        final KeywordMatcher keywordMatcher;
+        final List<URL> catchUpBacklog;
+        private final AtomicInteger remainingParts;
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        Subscription(ISearchOperation searchOperation, long joinGeneration, List<URL> catchUpBacklog, int parts) {
+            this.searchOperation = searchOperation;
+            this.joinGeneration = joinGeneration;
+            this.keywordMatcher = new KeywordMatcher(searchOperation.getKeyword());
+            this.catchUpBacklog = catchUpBacklog;
+            this.remainingParts = new AtomicInteger(parts);
+        }
+
+        /**
+         * Marks the crawl or the catch-up as done and returns whether that was the last outstanding part.
+         */
+        boolean completePart() {
+            return remainingParts.decrementAndGet() == 0;
+        }
+
+        /**
+         * Returns {@code true} exactly once, for the caller that gets to set the final status.
+         */
+        boolean markFinished() {
+            return finished.compareAndSet(false, true);
+        }
+
+        boolean isFinished() {
+            return finished.get();
+        }
+    }
+}
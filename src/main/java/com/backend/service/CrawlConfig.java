@@ -1,15 +1,51 @@
 package com.backend.service;
 
+import com.backend.util.UrlCanonicalizer;
+
+import java.nio.file.Path;
+
 /**
  * Configuration class for the web crawler. This class encapsulates various
  * parameters that control the behavior of the crawling process.
  */
 public class CrawlConfig {
+
+    /**
+     * How the URLs already queued by a crawl are remembered.
+     */
+    public enum VisitedSetMode {
+        /** Full URL strings; exact, but the most memory per URL. */
+        EXACT,
+        /** 64-bit URL fingerprints in open-addressing tables; about 11 to 22 bytes per URL. */
+        FINGERPRINT,
+        /** Scalable Bloom filter with a false-positive rate of one in a million; about 4 to 6 bytes per URL. */
+        BLOOM
+    }
+
+    /**
+     * The order in which a crawl visits the URLs it has queued.
+     */
+    public enum FrontierOrder {
+        /** Breadth first, in the order links were found. */
+        FIFO,
+        /** Most promising link first, as scored from its anchor text, URL, surrounding text, parent page and depth. */
+        BEST_FIRST
+    }
+
     private final String baseURL;
     private final int maxResults;
     private final int maxRetries;
     private final int timeout;
     private final int maxQueueSize;
+    private final int fetchParallelism;
+    private final boolean coalesceSearches;
+    private final VisitedSetMode visitedSetMode;
+    private final Path frontierSpillDirectory;
+    private final int frontierMemoryCapacity;
+    private final boolean seedFromSitemaps;
+    private final FrontierOrder frontierOrder;
+    private final boolean skipNearDuplicates;
+    private final UrlCanonicalizer urlCanonicalizer;
 
     /**
      * Constructs a new {@code CrawlConfig} with the specified configuration parameters.
@@ -21,11 +57,201 @@ public class CrawlConfig {
      * @param maxQueueSize          the maximum number of URLs that can be queued for crawling in a single search operation.
      */
     public CrawlConfig(String baseURL, int maxResults, int maxRetries, int timeout, int maxQueueSize) {
+        this(baseURL, maxResults, maxRetries, timeout, maxQueueSize, 1);
+    }
+
+    /**
+     * Constructs a new {@code CrawlConfig} with the specified configuration parameters.
+     *
+     * @param baseURL               the base URL from which the crawling starts. Only links within this base URL are followed.
+     * @param maxResults            the maximum number of URLs to collect per search operation.
+     * @param maxRetries            the maximum number of retries if a search operation fails.
+     * @param timeout               the timeout (in milliseconds) for HTTP connections.
+     * @param maxQueueSize          the maximum number of URLs that can be queued for crawling in a single search operation.
+     * @param fetchParallelism      the number of workers fetching pages concurrently for a single search operation.
+     */
+    public CrawlConfig(String baseURL, int maxResults, int maxRetries, int timeout, int maxQueueSize, int fetchParallelism) {
+        this(baseURL, maxResults, maxRetries, timeout, maxQueueSize, fetchParallelism, false);
+    }
+
+    /**
+     * Constructs a new {@code CrawlConfig} with the specified configuration parameters.
+     *
+     * @param baseURL               the base URL from which the crawling starts. Only links within this base URL are followed.
+     * @param maxResults            the maximum number of URLs to collect per search operation.
+     * @param maxRetries            the maximum number of retries if a search operation fails.
+     * @param timeout               the timeout (in milliseconds) for HTTP connections.
+     * @param maxQueueSize          the maximum number of URLs that can be queued for crawling in a single search operation.
+     * @param fetchParallelism      the number of workers fetching pages concurrently for a single search operation.
+     * @param coalesceSearches      whether searches started while a crawl is running join that crawl instead of starting their own.
+     */
+    public CrawlConfig(String baseURL, int maxResults, int maxRetries, int timeout, int maxQueueSize, int fetchParallelism, boolean coalesceSearches) {
+        this(baseURL, maxResults, maxRetries, timeout, maxQueueSize, fetchParallelism, coalesceSearches, VisitedSetMode.EXACT);
+    }
+
+    /**
+     * Constructs a new {@code CrawlConfig} with the specified configuration parameters.
+     *
+     * @param baseURL               the base URL from which the crawling starts. Only links within this base URL are followed.
+     * @param maxResults            the maximum number of URLs to collect per search operation.
+     * @param maxRetries            the maximum number of retries if a search operation fails.
+     * @param timeout               the timeout (in milliseconds) for HTTP connections.
+     * @param maxQueueSize          the maximum number of URLs that can be queued for crawling in a single search operation.
+     * @param fetchParallelism      the number of workers fetching pages concurrently for a single search operation.
+     * @param coalesceSearches      whether searches started while a crawl is running join that crawl instead of starting their own.
+     * @param visitedSetMode        how the URLs already queued by a crawl are remembered.
+     */
+    public CrawlConfig(String baseURL, int maxResults, int maxRetries, int timeout, int maxQueueSize, int fetchParallelism, boolean coalesceSearches,
+                       VisitedSetMode visitedSetMode) {
+        this(baseURL, maxResults, maxRetries, timeout, maxQueueSize, fetchParallelism, coalesceSearches, visitedSetMode, null, 0);
+    }
+
+    /**
+     * Constructs a new {@code CrawlConfig} with the specified configuration parameters.
+     *
+     * @param baseURL                the base URL from which the crawling starts. Only links within this base URL are followed.
+     * @param maxResults             the maximum number of URLs to collect per search operation.
+     * @param maxRetries             the maximum number of retries if a search operation fails.
+     * @param timeout                the timeout (in milliseconds) for HTTP connections.
+     * @param maxQueueSize           the maximum number of URLs that can be queued for crawling in a single search operation.
+     * @param fetchParallelism       the number of workers fetching pages concurrently for a single search operation.
+     * @param coalesceSearches       whether searches started while a crawl is running join that crawl instead of starting their own.
+     * @param visitedSetMode         how the URLs already queued by a crawl are remembered.
+     * @param frontierSpillDirectory the directory to which queued URLs beyond {@code frontierMemoryCapacity} are spilled,
+     *                               or {@code null} to keep every queued URL in memory.
+     * @param frontierMemoryCapacity the number of queued URLs per crawl kept in memory when spilling is enabled.
+     */
+    public CrawlConfig(String baseURL, int maxResults, int maxRetries, int timeout, int maxQueueSize, int fetchParallelism, boolean coalesceSearches,
+                       VisitedSetMode visitedSetMode, Path frontierSpillDirectory, int frontierMemoryCapacity) {
+        this(baseURL, maxResults, maxRetries, timeout, maxQueueSize, fetchParallelism, coalesceSearches, visitedSetMode,
+                frontierSpillDirectory, frontierMemoryCapacity, false);
+    }
+
+    /**
+     * Constructs a new {@code CrawlConfig} with the specified configuration parameters.
+     *
+     * @param baseURL                the base URL from which the crawling starts. Only links within this base URL are followed.
+     * @param maxResults             the maximum number of URLs to collect per search operation.
+     * @param maxRetries             the maximum number of retries if a search operation fails.
+     * @param timeout                the timeout (in milliseconds) for HTTP connections.
+     * @param maxQueueSize           the maximum number of URLs that can be queued for crawling in a single search operation.
+     * @param fetchParallelism       the number of workers fetching pages concurrently for a single search operation.
+     * @param coalesceSearches       whether searches started while a crawl is running join that crawl instead of starting their own.
+     * @param visitedSetMode         how the URLs already queued by a crawl are remembered.
+     * @param frontierSpillDirectory the directory to which queued URLs beyond {@code frontierMemoryCapacity} are spilled,
+     *                               or {@code null} to keep every queued URL in memory.
+     * @param frontierMemoryCapacity the number of queued URLs per crawl kept in memory when spilling is enabled.
+     * @param seedFromSitemaps       whether crawls also queue the pages listed in the site's sitemaps and feeds.
+     */
+    public CrawlConfig(String baseURL, int maxResults, int maxRetries, int timeout, int maxQueueSize, int fetchParallelism, boolean coalesceSearches,
+                       VisitedSetMode visitedSetMode, Path frontierSpillDirectory, int frontierMemoryCapacity, boolean seedFromSitemaps) {
+        this(baseURL, maxResults, maxRetries, timeout, maxQueueSize, fetchParallelism, coalesceSearches, visitedSetMode,
+                frontierSpillDirectory, frontierMemoryCapacity, seedFromSitemaps, FrontierOrder.FIFO);
+    }
+
+    /**
+     * Constructs a new {@code CrawlConfig} with the specified configuration parameters.
+     *
+     * @param baseURL                the base URL from which the crawling starts. Only links within this base URL are followed.
+     * @param maxResults             the maximum number of URLs to collect per search operation.
+     * @param maxRetries             the maximum number of retries if a search operation fails.
+     * @param timeout                the timeout (in milliseconds) for HTTP connections.
+     * @param maxQueueSize           the maximum number of URLs that can be queued for crawling in a single search operation.
+     * @param fetchParallelism       the number of workers fetching pages concurrently for a single search operation.
+     * @param coalesceSearches       whether searches started while a crawl is running join that crawl instead of starting their own.
+     * @param visitedSetMode         how the URLs already queued by a crawl are remembered.
+     * @param frontierSpillDirectory the directory to which queued URLs beyond {@code frontierMemoryCapacity} are spilled,
+     *                               or {@code null} to keep every queued URL in memory.
+     * @param frontierMemoryCapacity the number of queued URLs per crawl kept in memory when spilling is enabled.
+     * @param seedFromSitemaps       whether crawls also queue the pages listed in the site's sitemaps and feeds.
+     * @param frontierOrder          the order in which a crawl visits the URLs it has queued. A best-first frontier is kept
+     *                               in memory, so it cannot be combined with spilling.
+     */
+    public CrawlConfig(String baseURL, int maxResults, int maxRetries, int timeout, int maxQueueSize, int fetchParallelism, boolean coalesceSearches,
+                       VisitedSetMode visitedSetMode, Path frontierSpillDirectory, int frontierMemoryCapacity, boolean seedFromSitemaps,
+                       FrontierOrder frontierOrder) {
+        this(baseURL, maxResults, maxRetries, timeout, maxQueueSize, fetchParallelism, coalesceSearches, visitedSetMode,
+                frontierSpillDirectory, frontierMemoryCapacity, seedFromSitemaps, frontierOrder, false);
+    }
+
+    /**
+     * Constructs a new {@code CrawlConfig} with the specified configuration parameters.
+     *
+     * @param baseURL                the base URL from which the crawling starts. Only links within this base URL are followed.
+     * @param maxResults             the maximum number of URLs to collect per search operation.
+     * @param maxRetries             the maximum number of retries if a search operation fails.
+     * @param timeout                the timeout (in milliseconds) for HTTP connections.
+     * @param maxQueueSize           the maximum number of URLs that can be queued for crawling in a single search operation.
+     * @param fetchParallelism       the number of workers fetching pages concurrently for a single search operation.
+     * @param coalesceSearches       whether searches started while a crawl is running join that crawl instead of starting their own.
+     * @param visitedSetMode         how the URLs already queued by a crawl are remembered.
+     * @param frontierSpillDirectory the directory to which queued URLs beyond {@code frontierMemoryCapacity} are spilled,
+     *                               or {@code null} to keep every queued URL in memory.
+     * @param frontierMemoryCapacity the number of queued URLs per crawl kept in memory when spilling is enabled.
+     * @param seedFromSitemaps       whether crawls also queue the pages listed in the site's sitemaps and feeds.
+     * @param frontierOrder          the order in which a crawl visits the URLs it has queued. A best-first frontier is kept
+     *                               in memory, so it cannot be combined with spilling.
+     * @param skipNearDuplicates     whether the links of pages whose text nearly duplicates a page the crawl already expanded are
+     *                               left out of the frontier.
+     */
+    public CrawlConfig(String baseURL, int maxResults, int maxRetries, int timeout, int maxQueueSize, int fetchParallelism, boolean coalesceSearches,
+                       VisitedSetMode visitedSetMode, Path frontierSpillDirectory, int frontierMemoryCapacity, boolean seedFromSitemaps,
+                       FrontierOrder frontierOrder, boolean skipNearDuplicates) {
+        this(baseURL, maxResults, maxRetries, timeout, maxQueueSize, fetchParallelism, coalesceSearches, visitedSetMode,
+                frontierSpillDirectory, frontierMemoryCapacity, seedFromSitemaps, frontierOrder, skipNearDuplicates, UrlCanonicalizer.DEFAULT);
+    }
+
+    /**
+     * Constructs a new {@code CrawlConfig} with the specified configuration parameters.
+     *
+     * @param baseURL                the base URL from which the crawling starts. Only links within this base URL are followed.
+     * @param maxResults             the maximum number of URLs to collect per search operation.
+     * @param maxRetries             the maximum number of retries if a search operation fails.
+     * @param timeout                the timeout (in milliseconds) for HTTP connections.
+     * @param maxQueueSize           the maximum number of URLs that can be queued for crawling in a single search operation.
+     * @param fetchParallelism       the number of workers fetching pages concurrently for a single search operation.
+     * @param coalesceSearches       whether searches started while a crawl is running join that crawl instead of starting their own.
+     * @param visitedSetMode         how the URLs already queued by a crawl are remembered.
+     * @param frontierSpillDirectory the directory to which queued URLs beyond {@code frontierMemoryCapacity} are spilled,
+     *                               or {@code null} to keep every queued URL in memory.
+     * @param frontierMemoryCapacity the number of queued URLs per crawl kept in memory when spilling is enabled.
+     * @param seedFromSitemaps       whether crawls also queue the pages listed in the site's sitemaps and feeds.
+     * @param frontierOrder          the order in which a crawl visits the URLs it has queued. A best-first frontier is kept
+     *                               in memory, so it cannot be combined with spilling.
+     * @param skipNearDuplicates     whether the links of pages whose text nearly duplicates a page the crawl already expanded are
+     *                               left out of the frontier.
+     * @param urlCanonicalizer       how URLs are brought to the canonical form under which a crawl remembers and reports them,
+     *                               including which query parameters tell pages apart.
+     */
+    public CrawlConfig(String baseURL, int maxResults, int maxRetries, int timeout, int maxQueueSize, int fetchParallelism, boolean coalesceSearches,
+                       VisitedSetMode visitedSetMode, Path frontierSpillDirectory, int frontierMemoryCapacity, boolean seedFromSitemaps,
+                       FrontierOrder frontierOrder, boolean skipNearDuplicates, UrlCanonicalizer urlCanonicalizer) {
+        if (frontierSpillDirectory != null && frontierOrder == FrontierOrder.BEST_FIRST) {
+            throw new IllegalArgumentException("A best-first frontier cannot be spilled to disk");
+        }
+        if (frontierSpillDirectory != null && frontierMemoryCapacity < 1) {
+            throw new IllegalArgumentException("Frontier memory capacity must be at least 1 when spilling is enabled");
+        }
+        if (urlCanonicalizer == null) {
+            throw new IllegalArgumentException("URL canonicalizer must not be null");
+        }
+        if (fetchParallelism < 1) {
+            throw new IllegalArgumentException("Fetch parallelism must be at least 1");
+        }
         this.baseURL = baseURL;
         this.maxResults = maxResults;
         this.maxRetries = maxRetries;
         this.timeout = timeout;
         this.maxQueueSize = maxQueueSize;
+        this.fetchParallelism = fetchParallelism;
+        this.coalesceSearches = coalesceSearches;
+        this.visitedSetMode = visitedSetMode;
+        this.frontierSpillDirectory = frontierSpillDirectory;
+        this.frontierMemoryCapacity = frontierMemoryCapacity;
+        this.seedFromSitemaps = seedFromSitemaps;
+        this.frontierOrder = frontierOrder;
+        this.skipNearDuplicates = skipNearDuplicates;
+        this.urlCanonicalizer = urlCanonicalizer;
     }
 
     /**
@@ -74,4 +300,89 @@ public class CrawlConfig {
         return maxQueueSize;
     }
 
+    /**
+     * Returns the number of workers fetching pages concurrently for a single search operation.
+     *
+     * @return the fetch parallelism.
+     */
+    public int getFetchParallelism() {
+        return fetchParallelism;
+    }
+
+    /**
+     * Returns whether searches started while a crawl is running join that crawl instead of starting their own.
+     *
+     * @return {@code true} if searches are coalesced.
+     */
+    public boolean isCoalesceSearches() {
+        return coalesceSearches;
+    }
+
+    /**
+     * Returns how the URLs already queued by a crawl are remembered.
+     *
+     * @return the visited set mode.
+     */
+    public VisitedSetMode getVisitedSetMode() {
+        return visitedSetMode;
+    }
+
+    /**
+     * Returns the directory to which queued URLs are spilled, or {@code null} if they are kept in memory.
+     *
+     * @return the frontier spill directory.
+     */
+    public Path getFrontierSpillDirectory() {
+        return frontierSpillDirectory;
+    }
+
+    /**
+     * Returns the number of queued URLs per crawl kept in memory when spilling is enabled.
+     *
+     * @return the frontier memory capacity.
+     */
+    public int getFrontierMemoryCapacity() {
+        return frontierMemoryCapacity;
+    }
+
+    /**
+     * Returns whether crawls seed their frontier from the sitemaps listed in {@code robots.txt}, or
+     * {@code /sitemap.xml} if it lists none, in addition to the base URL.
+     *
+     * @return whether sitemap seeding is enabled.
+     */
+    public boolean isSeedFromSitemaps() {
+        return seedFromSitemaps;
+    }
+
+    /**
+     * Returns the order in which a crawl visits the URLs it has queued.
+     *
+     * @return the frontier order.
+     */
+    public FrontierOrder getFrontierOrder() {
+        return frontierOrder;
+    }
+
+    /**
+     * Returns whether the links of pages whose text nearly duplicates a page the crawl already expanded
+     * are left out of the frontier.
+     *
+     * @return whether near-duplicate pages are skipped.
+     */
+    public boolean isSkipNearDuplicates() {
+        return skipNearDuplicates;
+    }
+
+    /**
+     * Returns how URLs are brought to the canonical form under which a crawl remembers and reports
+     * them. The page cache, page index and revalidation store identify pages by
+     * {@link UrlCanonicalizer#KEEP_QUERY} instead, since they hold what each exact URL served.
+     *
+     * @return the URL canonicalizer.
+     */
+    public UrlCanonicalizer getUrlCanonicalizer() {
+        return urlCanonicalizer;
+    }
+
 }
@@ -1,20 +1,43 @@
 package com.backend.service;
 
+import com.backend.model.BloomVisitedSet;
+import com.backend.model.ExactVisitedSet;
+import com.backend.model.FingerprintVisitedSet;
 import com.backend.model.ISearchOperation;
+import com.backend.model.IVisitedSet;
 import com.backend.model.SearchStatus;
 import com.backend.model.SearchOperation;
+import com.backend.util.BodyReader;
+import com.backend.util.BodyScanner;
+import com.backend.util.FetchResult;
+import com.backend.util.HtmlLinkExtractor;
 import com.backend.util.HttpUtil;
+import com.backend.util.KeywordMatcher;
+import com.backend.util.LatencyHistogram;
+import com.backend.util.MetricsRegistry;
+import com.backend.util.MultiKeywordMatcher;
+import com.backend.util.Redirects;
+import com.backend.util.SimHash;
+import com.backend.util.TransferStats;
+import com.backend.util.UrlCanonicalizer;
+import com.backend.util.UrlUtil;
 
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Queue;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 
 public class CrawlService implements ICrawlService {
@@ -22,45 +45,337 @@ public class CrawlService implements ICrawlService {
     private static final int MIN_KEYWORD_LENGTH = 4;
     private static final int MAX_KEYWORD_LENGTH = 32;
     private static final String KEYWORD_LENGTH_ERROR_MESSAGE = "Keyword must be between %d and %d characters";
+    // Idle workers are woken by the crawl; this only bounds how late they notice events it does not
+    // signal, such as the shard of a distributed search being stopped.
+    private static final long IDLE_WORKER_MAX_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final int INITIAL_VISITED_SET_CAPACITY = 1024;
+    // Fingerprints of pages with fewer word shingles are too coarse to tell near-duplicates apart.
+    private static final int NEAR_DUPLICATE_MIN_SHINGLES = 16;
+    private static final LongAdder PAGES_SCANNED = MetricsRegistry.global()
+            .counter("crawler_pages_scanned_total", "Pages fetched and scanned by crawls.");
+    private static final LongAdder PAGES_FAILED = MetricsRegistry.global()
+            .counter("crawler_pages_failed_total", "Page fetches or scans that failed.");
+    private static final LongAdder NEAR_DUPLICATE_PAGES = MetricsRegistry.global()
+            .counter("crawler_near_duplicate_pages_total", "Pages whose links were skipped as near-duplicates of pages already expanded.");
+    private static final LongAdder NEAR_DUPLICATE_LINKS_SKIPPED = MetricsRegistry.global()
+            .counter("crawler_near_duplicate_links_skipped_total", "New links found on near-duplicate pages and left out of the frontier.");
+    private static final LongAdder REDIRECT_ALIASES = MetricsRegistry.global()
+            .counter("crawler_redirect_aliases_total", "Redirect targets recorded as visited, so links to them are not fetched again.");
+    private static final LongAdder REDIRECT_DUPLICATES = MetricsRegistry.global()
+            .counter("crawler_redirect_duplicates_total", "Redirected fetches left unscanned because their target was already visited.");
+    private static final LatencyHistogram PARSE_TIME = MetricsRegistry.global()
+            .histogram("crawler_page_parse_seconds", "Time spent extracting links from each page.");
+    private static final LatencyHistogram MATCH_TIME = MetricsRegistry.global()
+            .histogram("crawler_page_match_seconds", "Time spent matching keywords in each page.");
 
-    private final ConcurrentHashMap<String, ISearchOperation> searchOperations;
+    private final SearchRetention searchOperations;
     private final ExecutorService executor;
+    private final ExecutorService fetchExecutor;
     private final Dependencies dependencies;
     private final CrawlConfig config;
     private final ICircuitBreaker circuitBreaker;
+    private final AtomicReference<Crawl> activeSharedCrawl = new AtomicReference<>();
+    private final Set<Crawl> activeCrawls = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger activeSearches = new AtomicInteger();
+    private final ClusterNode cluster;
+    private final ConcurrentHashMap<String, Crawl> distributedCrawls = new ConcurrentHashMap<>();
+    private final SearchCheckpointLog checkpoints;
+    private final SitemapSeeder sitemapSeeder;
+    private volatile boolean stopping;
 
     public CrawlService(ExecutorService executor, CrawlConfig config, ICircuitBreaker circuitBreaker) {
         this(executor, config, circuitBreaker, new Dependencies());
     }
 
     public CrawlService(ExecutorService executor, CrawlConfig config, ICircuitBreaker circuitBreaker, Dependencies dependencies) {
+        this(executor, config, circuitBreaker, dependencies, SearchRetention.retainAll());
+    }
+
+    public CrawlService(ExecutorService executor, CrawlConfig config, ICircuitBreaker circuitBreaker, Dependencies dependencies,
+                        SearchRetention retention) {
+        this(executor, config, circuitBreaker, dependencies, retention, null);
+    }
+
+    /**
+     * Constructs a new {@code CrawlService} that crawls its node's share of every search when
+     * {@code cluster} is given. Searches are not coalesced in cluster mode.
+     *
+     * @param cluster the cluster node this service crawls for, or {@code null} to crawl every page locally.
+     */
+    public CrawlService(ExecutorService executor, CrawlConfig config, ICircuitBreaker circuitBreaker, Dependencies dependencies,
+                        SearchRetention retention, ClusterNode cluster) {
+        this(executor, config, circuitBreaker, dependencies, retention, cluster, null);
+    }
+
+    /**
+     * Constructs a new {@code CrawlService} that checkpoints its crawls in {@code checkpoints}, unless it
+     * is {@code null}. Crawls still running at shutdown are then interrupted right away and can be
+     * continued by {@link #resumeSearches} on the next start. Cluster shards are not checkpointed.
+     *
+     * @param checkpoints the log crawls are checkpointed in, or {@code null} to let shutdown end them.
+     */
+    public CrawlService(ExecutorService executor, CrawlConfig config, ICircuitBreaker circuitBreaker, Dependencies dependencies,
+                        SearchRetention retention, ClusterNode cluster, SearchCheckpointLog checkpoints) {
         this.executor = executor;
-        this.searchOperations = new ConcurrentHashMap<>();
+        this.fetchExecutor = Executors.newCachedThreadPool();
+        this.searchOperations = retention;
         this.config = config;
         this.dependencies = dependencies;
         this.circuitBreaker = circuitBreaker;
+        this.cluster = cluster;
+        this.checkpoints = checkpoints;
+        this.sitemapSeeder = new SitemapSeeder(dependencies, config.getTimeout());
+        if (cluster != null) {
+            cluster.attach(new ClusterShardHost());
+        }
     }
 
     @Override
     public String startSearch(String keyword) {
         validateKeyword(keyword);
-        ISearchOperation searchOperation = new SearchOperation(keyword);
-        searchOperations.put(searchOperation.getId(), searchOperation);
+        ISearchOperation searchOperation = new SearchOperation(keyword, newVisitedSet());
+        searchOperations.register(searchOperation);
         LOGGER.log(Level.INFO, "Started search operation with ID: {0}", searchOperation.getId());
 
-        executor.submit(() -> executeSearch(searchOperation));
+        if (answerFromIndex(searchOperation)) {
+            return searchOperation.getId();
+        }
+        activeSearches.incrementAndGet();
+        if (cluster != null) {
+            ClusterNode.Shard shard = cluster.openOrigin(searchOperation.getId(), keyword);
+            startDistributedCrawl(new Crawl(searchOperation, newUrlQueue(), searchOperation, false, shard, null, newNearDuplicateIndex()));
+        } else if (config.isCoalesceSearches()) {
+            startOrJoinSharedCrawl(searchOperation);
+        } else {
+            Crawl crawl = new Crawl(searchOperation, newUrlQueue(), searchOperation, false, null,
+                    newCheckpoint(searchOperation.getId(), false), newNearDuplicateIndex());
+            executor.submit(() -> executeSearch(crawl));
+        }
 
         return searchOperation.getId();
     }
 
-    private void executeSearch(ISearchOperation searchOperation) {
+    /**
+     * Adds the indexed pages on the base URL's host already known to contain the keyword to the
+     * results, in the crawl's own canonical form, which may merge pages indexed under different
+     * queries. The index may be shared with crawls of other sites, whose pages are left out. Returns
+     * {@code true} if they reach the result limit, in which case the search is complete without crawling.
+     */
+    private boolean answerFromIndex(ISearchOperation searchOperation) {
+        String baseSpec = UrlCanonicalizer.KEEP_QUERY.canonicalize(config.getBaseURL());
+        for (String indexedUrl : dependencies.findIndexedMatches(searchOperation.getKeyword())) {
+            if (searchOperation.getUrls().size() >= config.getMaxResults()) {
+                break;
+            }
+            String url = config.getUrlCanonicalizer().canonicalize(indexedUrl);
+            if (url != null && baseSpec != null && UrlCanonicalizer.sameHost(url, baseSpec)) {
+                searchOperation.tryAddUrl(url, config.getMaxResults());
+            }
+        }
+        if (searchOperation.getUrls().size() < config.getMaxResults()) {
+            return false;
+        }
+        searchOperation.setStatus(SearchStatus.DONE);
+        searchOperations.complete(searchOperation);
+        LOGGER.log(Level.INFO, "Search operation ID: {0} answered from the page index", searchOperation.getId());
+        return true;
+    }
+
+    private void startOrJoinSharedCrawl(ISearchOperation searchOperation) {
+        while (true) {
+            Crawl activeCrawl = activeSharedCrawl.get();
+            if (activeCrawl != null) {
+                Crawl.Subscription subscription = activeCrawl.join(searchOperation);
+                if (subscription != null) {
+                    LOGGER.log(Level.INFO, "Search operation ID: {0} joined the active crawl with {1} pages to catch up on",
+                            new Object[]{searchOperation.getId(), subscription.catchUpBacklog.size()});
+                    if (!subscription.catchUpBacklog.isEmpty()) {
+                        fetchExecutor.submit(() -> catchUp(activeCrawl, subscription));
+                    }
+                    return;
+                }
+                activeSharedCrawl.compareAndSet(activeCrawl, null);
+                continue;
+            }
+
+            // The shared crawl tracks its frontier on an operation of its own, so no single search owns
+            // the visited set; it is never registered and only labels the crawl in logs.
+            ISearchOperation frontier = new SearchOperation(config.getBaseURL(), newVisitedSet());
+            Crawl crawl = new Crawl(frontier, newUrlQueue(), searchOperation, true, null, newCheckpoint(frontier.getId(), true),
+                    newNearDuplicateIndex());
+            if (activeSharedCrawl.compareAndSet(null, crawl)) {
+                executor.submit(() -> executeSearch(crawl));
+                return;
+            }
+            crawl.queue.close();
+            if (crawl.checkpoint != null) {
+                crawl.checkpoint.discard();
+            }
+        }
+    }
+
+    /**
+     * Resumes the crawls interrupted by the previous shutdown from their checkpoints, so their searches
+     * are served again under their original IDs and pages already scanned are not fetched again.
+     * Returns the number of searches resumed.
+     */
+    public int resumeSearches() {
+        if (checkpoints == null) {
+            return 0;
+        }
+        int resumed = 0;
+        for (SearchCheckpointLog.Checkpoint checkpoint : checkpoints.recover()) {
+            if (!checkpoint.baseUrl.equals(config.getBaseURL())) {
+                LOGGER.log(Level.WARNING, "Discarding checkpoint of crawl ID: {0} for another base URL: {1}",
+                        new Object[]{checkpoint.crawlId, checkpoint.baseUrl});
+                checkpoint.discard();
+                continue;
+            }
+            CrawlRestorer restorer = new CrawlRestorer(checkpoint);
+            try {
+                checkpoint.replay(restorer);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to replay checkpoint of crawl ID: " + checkpoint.crawlId, e);
+                restorer.abandon();
+                continue;
+            }
+            resumed += restorer.resume();
+        }
+        if (resumed > 0) {
+            LOGGER.log(Level.INFO, "Resumed {0} searches from checkpoints", resumed);
+        }
+        return resumed;
+    }
+
+    private SearchCheckpointLog.Checkpoint newCheckpoint(String crawlId, boolean shared) {
+        return checkpoints != null ? checkpoints.create(crawlId, shared, config.getBaseURL()) : null;
+    }
+
+    private void startDistributedCrawl(Crawl crawl) {
+        distributedCrawls.put(crawl.shard.searchId, crawl);
+        executor.submit(() -> executeSearch(crawl));
+    }
+
+    /**
+     * Creates the visited set of a new crawl frontier. Operations that join a shared crawl get one as
+     * well, but never fill it; the compact sets keep that unused set small.
+     */
+    private IVisitedSet newVisitedSet() {
+        int expectedSize = Math.min(config.getMaxQueueSize(), INITIAL_VISITED_SET_CAPACITY);
+        switch (config.getVisitedSetMode()) {
+            case FINGERPRINT:
+                return new FingerprintVisitedSet(expectedSize);
+            case BLOOM:
+                return new BloomVisitedSet(expectedSize, BloomVisitedSet.DEFAULT_FALSE_POSITIVE_RATE);
+            default:
+                return new ExactVisitedSet();
+        }
+    }
+
+    /**
+     * Creates the queue of URLs still to be visited by a new crawl. A best-first queue is kept in
+     * memory; a first-in, first-out queue spills to disk when a spill directory is configured and falls
+     * back to memory if that directory cannot be used.
+     */
+    private IUrlQueue newUrlQueue() {
+        if (config.getFrontierOrder() == CrawlConfig.FrontierOrder.BEST_FIRST) {
+            return new PriorityUrlQueue();
+        }
+        if (config.getFrontierSpillDirectory() == null) {
+            return new MemoryUrlQueue();
+        }
         try {
-            startCrawling(searchOperation);
-            searchOperation.setStatus(SearchStatus.DONE);
-            LOGGER.log(Level.INFO, "Search operation completed for ID: {0}", searchOperation.getId());
+            return new SpillingUrlQueue(config.getFrontierSpillDirectory(), config.getFrontierMemoryCapacity());
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to create a spilling URL queue; keeping queued URLs in memory", e);
+            return new MemoryUrlQueue();
+        }
+    }
+
+    /**
+     * Creates the index of page fingerprints of a new crawl, or returns {@code null} if near-duplicate
+     * pages are not skipped.
+     */
+    private NearDuplicateIndex newNearDuplicateIndex() {
+        return config.isSkipNearDuplicates() ? new NearDuplicateIndex() : null;
+    }
+
+    private void executeSearch(Crawl crawl) {
+        activeCrawls.add(crawl);
+        try {
+            startCrawling(crawl);
+            for (Crawl.Subscription subscription : crawl.close()) {
+                if (!crawl.isRemoteShard() && subscription.completePart()) {
+                    finish(crawl, subscription, SearchStatus.DONE);
+                }
+            }
         } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Error during search operation for ID: " + searchOperation.getId(), e);
-            searchOperation.setStatus(SearchStatus.FAILED);
+            LOGGER.log(Level.SEVERE, "Error during search operation for ID: " + crawl.frontier.getId(), e);
+            for (Crawl.Subscription subscription : crawl.close()) {
+                if (!crawl.isRemoteShard()) {
+                    finish(crawl, subscription, SearchStatus.FAILED);
+                }
+            }
+        } finally {
+            activeCrawls.remove(crawl);
+            activeSharedCrawl.compareAndSet(crawl, null);
+            if (crawl.shard != null) {
+                distributedCrawls.remove(crawl.shard.searchId, crawl);
+                cluster.release(crawl.shard);
+            }
+            discardCheckpointIfOver(crawl);
+            LOGGER.log(Level.INFO, "Crawl for operation ID: {0} transferred {1}", new Object[]{crawl.frontier.getId(), crawl.transferStats});
+        }
+    }
+
+    /**
+     * Sets the final status of a search. While the service shuts down, checkpointed searches are left
+     * active instead, since they are resumed on the next start.
+     */
+    private void finish(Crawl crawl, Crawl.Subscription subscription, SearchStatus status) {
+        if (stopping && crawl.checkpoint != null || !subscription.markFinished()) {
+            return;
+        }
+        crawl.recordFinished(subscription.searchOperation);
+        activeSearches.decrementAndGet();
+        ISearchOperation searchOperation = subscription.searchOperation;
+        searchOperation.setStatus(status);
+        searchOperations.complete(searchOperation);
+        if (status == SearchStatus.DONE) {
+            LOGGER.log(Level.INFO, "Search operation completed for ID: {0}", searchOperation.getId());
+        }
+    }
+
+    /**
+     * Registers gauges of this service's state in {@code registry}. They are read only when the
+     * registry is scraped.
+     */
+    public void registerMetrics(MetricsRegistry registry) {
+        registry.gauge("crawler_active_searches", "Searches still collecting results.", activeSearches::get);
+        registry.gauge("crawler_active_crawls", "Crawls currently running.", activeCrawls::size);
+        registry.gauge("crawler_frontier_depth", "URLs queued and not yet visited, over all running crawls.",
+                () -> activeCrawls.stream().mapToLong(crawl -> crawl.queue.size()).sum());
+        registry.gauge("crawler_visited_urls", "URLs recorded in the visited sets of all running crawls.",
+                () -> activeCrawls.stream().mapToLong(crawl -> crawl.frontier.getVisitedUrls().size()).sum());
+        registry.collector("crawler_executor_queue_depth", "Tasks waiting in the service's executors.", "gauge", (out, name) -> {
+            writeQueueDepth(out, name, "search", executor);
+            writeQueueDepth(out, name, "fetch", fetchExecutor);
+        });
+        registry.collector("crawler_executor_active_threads", "Threads running tasks in the service's executors.", "gauge", (out, name) -> {
+            writeActiveThreads(out, name, "search", executor);
+            writeActiveThreads(out, name, "fetch", fetchExecutor);
+        });
+    }
+
+    private static void writeQueueDepth(StringBuilder out, String name, String executorName, ExecutorService executor) {
+        if (executor instanceof ThreadPoolExecutor) {
+            MetricsRegistry.sample(out, name, MetricsRegistry.label("executor", executorName), ((ThreadPoolExecutor) executor).getQueue().size());
+        }
+    }
+
+    private static void writeActiveThreads(StringBuilder out, String name, String executorName, ExecutorService executor) {
+        if (executor instanceof ThreadPoolExecutor) {
+            MetricsRegistry.sample(out, name, MetricsRegistry.label("executor", executorName), ((ThreadPoolExecutor) executor).getActiveCount());
         }
     }
 
@@ -71,7 +386,15 @@ public class CrawlService implements ICrawlService {
 
     @Override
     public void shutdown() {
-        executor.shutdown();
+        if (checkpoints != null) {
+            // Running crawls resume from their checkpoints on the next start, so there is no point in
+            // waiting for them to end.
+            stopping = true;
+            executor.shutdownNow();
+            fetchExecutor.shutdownNow();
+        } else {
+            executor.shutdown();
+        }
         try {
             if (!executor.awaitTermination(60, TimeUnit.SECONDS)) {
                 executor.shutdownNow();
@@ -79,95 +402,745 @@ public class CrawlService implements ICrawlService {
         } catch (InterruptedException e) {
             executor.shutdownNow();
             Thread.currentThread().interrupt();
+        } finally {
+            fetchExecutor.shutdownNow();
+            if (cluster != null) {
+                cluster.shutdown();
+            }
+            if (checkpoints != null) {
+                checkpoints.close();
+            }
         }
     }
 
-    private void startCrawling(ISearchOperation searchOperation) throws Exception {
-        Queue<URL> queue = initializeQueue(searchOperation);
+    private void startCrawling(Crawl crawl) throws Exception {
+        initializeQueue(crawl);
+        WorkerGate workerGate = new WorkerGate();
+
+        for (int i = 1; i < config.getFetchParallelism(); i++) {
+            fetchExecutor.submit(() -> {
+                if (!workerGate.enter()) {
+                    return;
+                }
+                try {
+                    crawlQueue(crawl);
+                } finally {
+                    workerGate.exit();
+                }
+            });
+        }
+
+        try {
+            do {
+                crawlQueue(crawl);
+            } while (!Thread.currentThread().isInterrupted() && !crawl.tryClose());
+        } finally {
+            workerGate.closeAndAwait();
+        }
+    }
+
+    /**
+     * Drains the frontier until it is exhausted or no subscribed search needs more results. Several
+     * workers may run this loop over the same queue; {@code pendingUrls} counts URLs that are queued or
+     * still being processed, so an empty queue only ends the loop once no other worker can add links.
+     */
+    private void crawlQueue(Crawl crawl) {
+        ISearchOperation frontier = crawl.frontier;
+        while (crawl.hasWork() && crawl.hasActiveSubscribers() && !Thread.currentThread().isInterrupted()) {
+            URL currentUrl;
+            try {
+                currentUrl = crawl.pollOrAwait(IDLE_WORKER_MAX_WAIT_NANOS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (currentUrl == null) {
+                continue;
+            }
 
-        while (!queue.isEmpty() && searchOperation.getUrls().size() < config.getMaxResults()) {
-            URL currentUrl = queue.poll();
             try {
-                if (circuitBreaker.shouldSkip(currentUrl, searchOperation.getId())) {
+                if (circuitBreaker.shouldSkip(currentUrl, frontier.getId())) {
                     continue;
                 }
 
-                processUrl(currentUrl, searchOperation, queue);
+                processUrl(currentUrl, crawl);
+                circuitBreaker.recordSuccess(currentUrl);
             } catch (Exception e) {
                 circuitBreaker.recordFailure(currentUrl);
-                if (searchOperation.getRetryCount() < config.getMaxRetries()) {
-                    searchOperation.incrementRetryCount();
-                    queue.add(currentUrl);
+                if (frontier.tryIncrementRetryCount(config.getMaxRetries())) {
+                    crawl.enqueue(currentUrl);
                 }
+            } finally {
+                crawl.releasePending();
             }
         }
+    }
+
+    /**
+     * Queues the base URL, except on the remote shards of a search, which only crawl the links sent to
+     * them, and on crawls resumed from a checkpoint, which continue from their recorded frontier.
+     */
+    private void initializeQueue(Crawl crawl) throws MalformedURLException {
+        if (!crawl.isRemoteShard() && !crawl.isSeeded()) {
+            URL baseUrl = new URL(config.getBaseURL());
+            String normalizedBaseUrl = normalizeUrl(baseUrl);
+            crawl.frontier.addVisitedUrl(normalizedBaseUrl);
+            queueUrl(crawl, baseUrl, normalizedBaseUrl);
+            if (config.isSeedFromSitemaps()) {
+                startSitemapSeeding(crawl, baseUrl);
+            }
+        }
+        crawl.markSeeded();
+    }
+
+    /**
+     * Queues the pages listed in the site's sitemaps from a helper thread, so workers start on the
+     * first of them while the rest are still being parsed. The seeding counts as a pending URL until it
+     * is done, so the crawl cannot end before it.
+     */
+    @SuppressWarnings("try")
+    private void startSitemapSeeding(Crawl crawl, URL baseUrl) {
+        crawl.pendingUrls.incrementAndGet();
+        try {
+            fetchExecutor.submit(() -> {
+                try (TransferStats.Binding ignored = TransferStats.bind(crawl.transferStats);
+                     FetchScheduler.Binding flow = FetchScheduler.bindFlow(crawl.frontier.getId())) {
+                    long found = sitemapSeeder.seed(baseUrl, url -> seedUrl(crawl, baseUrl, url));
+                    LOGGER.log(Level.INFO, "Found {0} URLs in sitemaps for operation ID: {1}", new Object[]{found, crawl.frontier.getId()});
+                } finally {
+                    crawl.releasePending();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            crawl.releasePending();
+        }
+    }
+
+    /**
+     * Queues a page found in a sitemap like a link found on a page: only on the base URL's host, only
+     * once, and only while the frontier has room. Returns {@code false} once seeding should stop.
+     */
+    private boolean seedUrl(Crawl crawl, URL baseUrl, URL url) {
+        ISearchOperation frontier = crawl.frontier;
+        if (!crawl.hasActiveSubscribers() || frontier.getVisitedUrls().size() >= config.getMaxQueueSize()) {
+            return false;
+        }
+        String normalizedUrl = normalizeUrl(url);
+        if (url.getHost().equals(baseUrl.getHost()) && !frontier.getVisitedUrls().contains(normalizedUrl)
+                && frontier.tryAddVisitedUrl(normalizedUrl, config.getMaxQueueSize())) {
+            int priority = isBestFirst() ? LinkScorer.priority(crawl.getSubscriptions().matcher, url) : PriorityUrlQueue.DEFAULT_PRIORITY;
+            queueUrl(crawl, url, normalizedUrl, priority);
+        }
+        return true;
+    }
+
+    private void queueUrl(Crawl crawl, URL url, String normalizedUrl) {
+        queueUrl(crawl, url, normalizedUrl, PriorityUrlQueue.DEFAULT_PRIORITY);
+    }
 
-        if (searchOperation.getStatus() != SearchStatus.FAILED) {
-            searchOperation.setStatus(SearchStatus.DONE);
+    /**
+     * Queues a newly found page for this crawl, or in cluster mode sends it to the node owning it. The
+     * priority only applies locally; forwarded links are queued by their owner in default order.
+     */
+    private void queueUrl(Crawl crawl, URL url, String normalizedUrl, int priority) {
+        if (crawl.shard != null && !cluster.isLocal(normalizedUrl)) {
+            cluster.forwardLink(crawl.shard, url.toString(), normalizedUrl);
+        } else {
+            crawl.enqueue(url, priority);
         }
     }
 
-    private Queue<URL> initializeQueue(ISearchOperation searchOperation) throws MalformedURLException {
-        Queue<URL> queue = new ConcurrentLinkedQueue<>();
-        URL baseUrl = new URL(config.getBaseURL());
-        searchOperation.addVisitedUrl(normalizeUrl(baseUrl));
-        queue.add(baseUrl);
-        return queue;
+    private boolean isBestFirst() {
+        return config.getFrontierOrder() == CrawlConfig.FrontierOrder.BEST_FIRST;
     }
 
-    private void processUrl(URL currentUrl, ISearchOperation searchOperation, Queue<URL> queue) throws Exception {
+    private void processUrl(URL currentUrl, Crawl crawl) throws Exception {
+        ISearchOperation frontier = crawl.frontier;
         String normalizedUrl = normalizeUrl(currentUrl);
+        boolean linksNeeded = frontier.getVisitedUrls().size() < config.getMaxQueueSize();
+        if (!linksNeeded) {
+            LOGGER.log(Level.WARNING, "Queue size limit reached. Skipping link extraction for operation ID: {0}.", frontier.getId());
+        }
 
-        String bodyText = dependencies.getBodyTextFromUrl(currentUrl, config.getTimeout());
-        if (bodyText.toLowerCase().contains(searchOperation.getKeyword().toLowerCase())) {
-            handleKeywordFound(searchOperation, normalizedUrl);
+        Crawl.Subscriptions subscriptions = crawl.getSubscriptions();
+        MultiKeywordMatcher.Scan keywordScan = subscriptions.matcher.newScan();
+        LinkQueuer linkQueuer = linksNeeded
+                ? new LinkQueuer(currentUrl, crawl, isBestFirst() ? new LinkScorer(subscriptions.matcher) : null) : null;
+        HtmlLinkExtractor linkExtractor = linkQueuer != null ? new HtmlLinkExtractor(linkQueuer) : null;
+        boolean scanned = false;
+        try {
+            scanPage(crawl, currentUrl, (chars, offset, length) -> !keywordScan.feed(chars, offset, length), linkExtractor);
+            scanned = true;
+        } finally {
+            if (linkQueuer != null) {
+                linkQueuer.flush(keywordScan.anyMatched(), scanned && !linkExtractor.isStopped());
+            }
         }
 
-        if (searchOperation.getVisitedUrls().size() < config.getMaxQueueSize()) {
-            extractAndQueueLinks(bodyText, currentUrl, queue, searchOperation);
+        for (int i = 0; i < subscriptions.subscribers.size(); i++) {
+            if (keywordScan.isMatched(i)) {
+                handleKeywordFound(crawl, subscriptions.subscribers.get(i), normalizedUrl);
+            }
+        }
+        for (Crawl.Subscription missed : crawl.recordScanned(currentUrl, subscriptions)) {
+            catchUpPage(crawl, missed, currentUrl);
+        }
+    }
+
+    /**
+     * Streams the page through {@code keywordScanner}, which returns {@code false} once it needs no
+     * more input, and through {@code linkExtractor} when links are to be queued. Both see the same
+     * chunks, so the body is read once and never retained. The bytes transferred are counted towards
+     * the crawl's {@link TransferStats}, and fetches are scheduled as the crawl's own flow.
+     */
+    @SuppressWarnings("try")
+    private void scanPage(Crawl crawl, URL url, BodyScanner keywordScanner, HtmlLinkExtractor linkExtractor) throws IOException {
+        PageScan pageScan = new PageScan(keywordScanner, linkExtractor);
+        try (TransferStats.Binding ignored = TransferStats.bind(crawl.transferStats);
+             FetchScheduler.Binding flow = FetchScheduler.bindFlow(crawl.frontier.getId());
+             Redirects.Binding redirects = Redirects.bind((requested, target) -> recordRedirect(crawl, requested, target, pageScan))) {
+            if (dependencies.supportsBodyScanning()) {
+                dependencies.scanBodyFromUrl(url, config.getTimeout(), pageScan);
+            } else {
+                HttpUtil.scanString(dependencies.getBodyTextFromUrl(url, config.getTimeout()), pageScan);
+            }
+        } catch (IOException e) {
+            PAGES_FAILED.increment();
+            throw e;
+        }
+        PAGES_SCANNED.increment();
+        MATCH_TIME.record(pageScan.matchNanos);
+        if (linkExtractor != null) {
+            PARSE_TIME.record(pageScan.parseNanos);
+        }
+    }
+
+    /**
+     * Records the page a fetch was redirected to on the same host as visited, so links to it are not
+     * fetched again. If it was visited already, it is or will be scanned under its own URL, and the
+     * body of the redirected fetch is skipped.
+     */
+    private void recordRedirect(Crawl crawl, URL requested, URL target, PageScan pageScan) {
+        String normalizedRequested = normalizeUrl(requested);
+        String normalizedTarget = config.getUrlCanonicalizer().canonicalize(target);
+        if (normalizedTarget == null || normalizedTarget.equals(normalizedRequested)
+                || !UrlCanonicalizer.sameHost(normalizedTarget, normalizedRequested)) {
+            return;
+        }
+        ISearchOperation frontier = crawl.frontier;
+        if (frontier.getVisitedUrls().contains(normalizedTarget)) {
+            REDIRECT_DUPLICATES.increment();
+            pageScan.skip();
+            LOGGER.log(Level.FINE, "Skipping {0}, redirected to already visited URL: {1}", new Object[]{requested, normalizedTarget});
         } else {
-            LOGGER.log(Level.WARNING, "Queue size limit reached after processing body text. Skipping further link extraction for operation ID: {0}.", searchOperation.getId());
+            frontier.addVisitedUrl(normalizedTarget);
+            REDIRECT_ALIASES.increment();
         }
     }
 
-    private void handleKeywordFound(ISearchOperation searchOperation, String normalizedUrl) {
-        LOGGER.log(Level.INFO, "Keyword \"{0}\" found in URL: {1}", new Object[]{searchOperation.getKeyword(), normalizedUrl});
-        searchOperation.addUrls(List.of(normalizedUrl));
+    /**
+     * Returns the canonical form under which a crawl remembers and reports {@code url}.
+     */
+    private String normalizeUrl(URL url) {
+        String normalized = config.getUrlCanonicalizer().canonicalize(url);
+        return normalized != null ? normalized : UrlUtil.normalizeUrl(url);
+    }
+
+    /**
+     * Scans the pages a search missed by joining a shared crawl late. Pages are fetched again through
+     * {@link Dependencies}, which is expected to serve them from the page cache.
+     */
+    private void catchUp(Crawl crawl, Crawl.Subscription subscription) {
+        for (URL url : subscription.catchUpBacklog) {
+            if (subscription.isFinished() || Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            catchUpPage(crawl, subscription, url);
+        }
+        if (subscription.completePart()) {
+            finish(crawl, subscription, SearchStatus.DONE);
+        }
+        discardCheckpointIfOver(crawl);
+    }
+
+    /**
+     * Deletes the checkpoint of a crawl once all of its searches have finished. Searches left active by
+     * a shutdown keep it, so they can be resumed.
+     */
+    private void discardCheckpointIfOver(Crawl crawl) {
+        if (crawl.checkpoint != null && crawl.isOver()) {
+            crawl.checkpoint.discard();
+        }
+    }
+
+    private void catchUpPage(Crawl crawl, Crawl.Subscription subscription, URL url) {
+        KeywordMatcher.Scan keywordScan = subscription.keywordMatcher.newScan();
+        try {
+            scanPage(crawl, url, (chars, offset, length) -> !keywordScan.feed(chars, offset, length), null);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to catch up on URL: {0} for operation ID: {1}", new Object[]{url, subscription.searchOperation.getId()});
+            return;
+        }
+        if (keywordScan.isMatched()) {
+            handleKeywordFound(crawl, subscription, normalizeUrl(url));
+        }
+    }
+
+    private void handleKeywordFound(Crawl crawl, Crawl.Subscription subscription, String normalizedUrl) {
+        ISearchOperation searchOperation = subscription.searchOperation;
+        LOGGER.log(Level.FINE, "Keyword \"{0}\" found in URL: {1}", new Object[]{searchOperation.getKeyword(), normalizedUrl});
+        if (crawl.isRemoteShard()) {
+            cluster.forwardResult(crawl.shard, normalizedUrl);
+            return;
+        }
+        if (!searchOperation.tryAddUrl(normalizedUrl, config.getMaxResults())) {
+            return;
+        }
+        crawl.recordResult(searchOperation, normalizedUrl);
         if (searchOperation.getUrls().size() >= config.getMaxResults()) {
             LOGGER.log(Level.INFO, "Reached max results limit for search operation ID: {0}", searchOperation.getId());
+            crawl.leave(subscription);
+            finish(crawl, subscription, SearchStatus.DONE);
         }
     }
 
-    private void extractAndQueueLinks(String bodyText, URL currentUrl, Queue<URL> queue, ISearchOperation searchOperation) throws MalformedURLException {
-        Pattern pattern = Pattern.compile("<a\\s+(?:[^>]*?\\s+)?href\\s*=\\s*[\'\\\"](.*?)[\'\\\"]", Pattern.CASE_INSENSITIVE);
-        Matcher matcher = pattern.matcher(bodyText);
-        while (matcher.find() && searchOperation.getUrls().size() < config.getMaxResults() && searchOperation.getVisitedUrls().size() < config.getMaxQueueSize()) {
-            String link = matcher.group(1);
-            try {
-                URL newUrl = new URL(currentUrl, link);
-                String normalizedNewUrl = normalizeUrl(newUrl);
-                if (newUrl.getHost().equals(currentUrl.getHost()) && !searchOperation.getVisitedUrls().contains(normalizedNewUrl)) {
-                    searchOperation.addVisitedUrl(normalizedNewUrl);
-                    queue.add(newUrl);
+    private void validateKeyword(String keyword) {
+        if (keyword.length() < MIN_KEYWORD_LENGTH || keyword.length() > MAX_KEYWORD_LENGTH) {
+            throw new IllegalArgumentException(String.format(KEYWORD_LENGTH_ERROR_MESSAGE, MIN_KEYWORD_LENGTH, MAX_KEYWORD_LENGTH));
+        }
+    }
+
+    /**
+     * Scans a page body as it streams in, feeding every chunk to the keyword scan and, if present, the
+     * link extractor. Reading stops once neither of them needs more input, or at once if the page is
+     * skipped.
+     */
+    private static class PageScan implements BodyScanner {
+        private final BodyScanner keywordScanner;
+        private final HtmlLinkExtractor linkExtractor;
+        private boolean keywordScanPending = true;
+        private volatile boolean skipped;
+        long matchNanos;
+        long parseNanos;
+
+        PageScan(BodyScanner keywordScanner, HtmlLinkExtractor linkExtractor) {
+            this.keywordScanner = keywordScanner;
+            this.linkExtractor = linkExtractor;
+        }
+
+        /**
+         * Leaves the body unscanned, for a page that is scanned under another URL.
+         */
+        void skip() {
+            skipped = true;
+        }
+
+        @Override
+        public boolean onChars(char[] chars, int offset, int length) {
+            if (skipped) {
+                return false;
+            }
+            long start = System.nanoTime();
+            if (keywordScanPending) {
+                keywordScanPending = keywordScanner.onChars(chars, offset, length);
+            }
+            long matched = System.nanoTime();
+            matchNanos += matched - start;
+            if (linkExtractor == null) {
+                return keywordScanPending;
+            }
+            boolean linkExtractionPending = linkExtractor.onChars(chars, offset, length);
+            parseNanos += System.nanoTime() - matched;
+            return keywordScanPending || linkExtractionPending;
+        }
+    }
+
+    /**
+     * Resolves the links found on a page and queues those on the same host that have not been visited,
+     * until the frontier is full or no subscribed search needs more pages. For a best-first frontier,
+     * the links are ranked by a {@link LinkScorer}, and when near-duplicates are skipped, the page's text
+     * is fingerprinted; in both cases the links are held back and queued once the whole page has been
+     * read, and dropped if the page turns out to nearly duplicate one the crawl has already expanded.
+     */
+    private class LinkQueuer implements HtmlLinkExtractor.LinkListener {
+        private final URL pageUrl;
+        private final Crawl crawl;
+        private final LinkScorer scorer;
+        private final SimHash simHash;
+        private final List<URL> heldUrls;
+        private final List<String> heldNormalizedUrls;
+        // The distinct links held back, which a page that repeats a link counts once when it is skipped.
+        private final Set<String> heldLinks;
+        private final String pageSpec;
+        private final StringBuilder normalizedLink = new StringBuilder();
+        private final StringBuilder resolvedLink = new StringBuilder();
+        private String baseSpec;
+
+        LinkQueuer(URL pageUrl, Crawl crawl, LinkScorer scorer) {
+            this.pageUrl = pageUrl;
+            this.crawl = crawl;
+            this.scorer = scorer;
+            this.simHash = crawl.nearDuplicates != null ? new SimHash() : null;
+            boolean holdsPlainLinks = scorer == null && simHash != null;
+            this.heldUrls = holdsPlainLinks ? new ArrayList<>() : null;
+            this.heldNormalizedUrls = holdsPlainLinks ? new ArrayList<>() : null;
+            this.heldLinks = scorer != null || holdsPlainLinks ? new HashSet<>() : null;
+            this.pageSpec = UrlCanonicalizer.KEEP_QUERY.canonicalize(pageUrl);
+            this.baseSpec = pageSpec;
+        }
+
+        @Override
+        public void onText(char[] chars, int offset, int length, boolean anchor) {
+            if (scorer != null) {
+                scorer.onText(chars, offset, length, anchor);
+            }
+            if (simHash != null) {
+                simHash.feed(chars, offset, length);
+            }
+        }
+
+        /**
+         * Queues the links held back, given whether the page matched a keyword, unless the page was read
+         * to its end and nearly duplicates a page already expanded.
+         */
+        void flush(boolean pageMatched, boolean complete) {
+            if (complete && isNearDuplicate()) {
+                NEAR_DUPLICATE_PAGES.increment();
+                int skipped = heldLinks == null ? 0 : heldLinks.size();
+                NEAR_DUPLICATE_LINKS_SKIPPED.add(skipped);
+                LOGGER.log(Level.FINE, "Skipping {0} links of near-duplicate page: {1}", new Object[]{skipped, pageUrl});
+                return;
+            }
+            if (scorer != null) {
+                for (LinkScorer.Link link : scorer.rank(pageMatched)) {
+                    admit(link.url, link.normalizedUrl, link.priority);
+                }
+            } else if (heldUrls != null) {
+                for (int i = 0; i < heldUrls.size(); i++) {
+                    admit(heldUrls.get(i), heldNormalizedUrls.get(i), PriorityUrlQueue.DEFAULT_PRIORITY);
+                }
+            }
+        }
+
+        /**
+         * Returns whether the page's fingerprint is close to that of a page the crawl already expanded,
+         * and records it otherwise. Pages with too little text to fingerprint reliably never count.
+         */
+        private boolean isNearDuplicate() {
+            return simHash != null && simHash.getShingleCount() >= NEAR_DUPLICATE_MIN_SHINGLES
+                    && !crawl.nearDuplicates.addIfNotNearDuplicate(simHash.fingerprint());
+        }
+
+        private void admit(URL url, String normalizedUrl, int priority) {
+            if (crawl.frontier.tryAddVisitedUrl(normalizedUrl, config.getMaxQueueSize())) {
+                queueUrl(crawl, url, normalizedUrl, priority);
+            }
+        }
+
+        @Override
+        public void onBase(String href) {
+            if (baseSpec != null && UrlCanonicalizer.KEEP_QUERY.resolve(baseSpec, href, 0, href.length(), resolvedLink)) {
+                baseSpec = resolvedLink.toString();
+            } else {
+                LOGGER.log(Level.WARNING, "Malformed base URL found: {0}", href);
+            }
+        }
+
+        @Override
+        public boolean onLink(String link) {
+            ISearchOperation frontier = crawl.frontier;
+            if (!crawl.hasActiveSubscribers() || frontier.getVisitedUrls().size() >= config.getMaxQueueSize()) {
+                return false;
+            }
+            // The link is canonicalized into a reused buffer and checked against the visited set before
+            // anything is allocated for it, since most links on a page have been seen before.
+            if (baseSpec == null || !config.getUrlCanonicalizer().resolve(baseSpec, link, 0, link.length(), normalizedLink)
+                    || !UrlCanonicalizer.sameHost(normalizedLink, pageSpec) || frontier.getVisitedUrls().contains(normalizedLink)) {
+                skip();
+                return true;
+            }
+            URL newUrl = resolve(link);
+            if (newUrl == null) {
+                skip();
+                return true;
+            }
+            String normalizedNewUrl = normalizedLink.toString();
+            if (scorer != null) {
+                // Every occurrence is scored, since each brings its own anchor text and context.
+                scorer.add(newUrl, normalizedNewUrl);
+                heldLinks.add(normalizedNewUrl);
+            } else if (heldUrls != null) {
+                if (heldLinks.add(normalizedNewUrl)) {
+                    heldUrls.add(newUrl);
+                    heldNormalizedUrls.add(normalizedNewUrl);
                 }
+            } else if (frontier.tryAddVisitedUrl(normalizedNewUrl, config.getMaxQueueSize())) {
+                queueUrl(crawl, newUrl, normalizedNewUrl);
+            }
+            return true;
+        }
+
+        /**
+         * Returns the URL a new link is fetched from: its canonical form with the whole query, which the
+         * crawl's canonical form may leave out.
+         */
+        private URL resolve(String link) {
+            if (!UrlCanonicalizer.KEEP_QUERY.resolve(baseSpec, link, 0, link.length(), resolvedLink)) {
+                return null;
+            }
+            try {
+                return new URL(resolvedLink.toString());
             } catch (MalformedURLException e) {
                 LOGGER.log(Level.WARNING, "Malformed URL found: {0}", link);
+                return null;
+            }
+        }
+
+        private void skip() {
+            if (scorer != null) {
+                scorer.skip();
             }
         }
     }
 
-    private String normalizeUrl(URL url) {
-        try {
-            return new URL(url.getProtocol(), url.getHost(), url.getPort(), url.getPath()).toString();
-        } catch (MalformedURLException e) {
-            LOGGER.log(Level.WARNING, "Error normalizing URL: {0}", url);
-            return url.toString();
+    /**
+     * Tracks the helper workers of a single crawl so the search only completes once all of them have
+     * stopped. Helpers that have not started by the time the crawl closes never run.
+     */
+    private static class WorkerGate {
+        private int activeWorkers;
+        private boolean closed;
+
+        synchronized boolean enter() {
+            if (closed) {
+                return false;
+            }
+            activeWorkers++;
+            return true;
+        }
+
+        synchronized void exit() {
+            activeWorkers--;
+            if (activeWorkers == 0) {
+                notifyAll();
+            }
+        }
+
+        synchronized void closeAndAwait() throws InterruptedException {
+            closed = true;
+            while (activeWorkers > 0) {
+                wait();
+            }
         }
     }
 
-    private void validateKeyword(String keyword) {
-        if (keyword.length() < MIN_KEYWORD_LENGTH || keyword.length() > MAX_KEYWORD_LENGTH) {
-            throw new IllegalArgumentException(String.format(KEYWORD_LENGTH_ERROR_MESSAGE, MIN_KEYWORD_LENGTH, MAX_KEYWORD_LENGTH));
+    /**
+     * Rebuilds a crawl from the records of its checkpoint. The records are replayed through the same
+     * {@link Crawl} methods that made them, which record nothing while the checkpoint is being restored,
+     * so joins and scanned pages interleave as they did and late subscribers get the same catch-up
+     * backlog. URLs queued but never scanned make up the resumed frontier.
+     */
+    private class CrawlRestorer implements SearchCheckpointLog.RecordListener {
+        private final SearchCheckpointLog.Checkpoint checkpoint;
+        private final Map<String, ISearchOperation> restoredSearches = new LinkedHashMap<>();
+        private final Set<String> finishedSearches = new HashSet<>();
+        private final Set<String> unscannedUrls = new LinkedHashSet<>();
+        private Crawl crawl;
+
+        CrawlRestorer(SearchCheckpointLog.Checkpoint checkpoint) {
+            this.checkpoint = checkpoint;
+        }
+
+        @Override
+        public void onJoined(String searchId, String keyword) {
+            if (restoredSearches.containsKey(searchId) || crawl != null && !checkpoint.shared) {
+                return;
+            }
+            ISearchOperation searchOperation = new SearchOperation(searchId, keyword, newVisitedSet());
+            restoredSearches.put(searchId, searchOperation);
+            if (crawl == null) {
+                ISearchOperation frontier = checkpoint.shared
+                        ? new SearchOperation(checkpoint.crawlId, config.getBaseURL(), newVisitedSet()) : searchOperation;
+                crawl = new Crawl(frontier, newUrlQueue(), searchOperation, checkpoint.shared, null, checkpoint, newNearDuplicateIndex());
+            } else {
+                crawl.join(searchOperation);
+            }
+        }
+
+        @Override
+        public void onResult(String searchId, String url) {
+            ISearchOperation searchOperation = restoredSearches.get(searchId);
+            if (searchOperation != null) {
+                searchOperation.tryAddUrl(url, config.getMaxResults());
+            }
+        }
+
+        @Override
+        public void onFinished(String searchId) {
+            finishedSearches.add(searchId);
+        }
+
+        @Override
+        public void onQueued(String url) {
+            if (crawl == null) {
+                return;
+            }
+            try {
+                crawl.frontier.addVisitedUrl(normalizeUrl(new URL(url)));
+                unscannedUrls.add(url);
+            } catch (MalformedURLException e) {
+                LOGGER.log(Level.WARNING, "Malformed URL in checkpoint: {0}", url);
+            }
+        }
+
+        @Override
+        public void onScanned(String url) {
+            if (crawl == null || !unscannedUrls.remove(url)) {
+                return;
+            }
+            try {
+                crawl.recordScanned(new URL(url), crawl.getSubscriptions());
+            } catch (MalformedURLException e) {
+                LOGGER.log(Level.WARNING, "Malformed URL in checkpoint: {0}", url);
+            }
+        }
+
+        void abandon() {
+            if (crawl != null) {
+                crawl.queue.close();
+            }
+            checkpoint.discard();
+        }
+
+        /**
+         * Registers the restored searches and starts the crawl again. Searches that had finished are
+         * registered as done. Returns the number of searches that go on crawling.
+         */
+        int resume() {
+            if (crawl == null) {
+                checkpoint.discard();
+                return 0;
+            }
+            for (String url : unscannedUrls) {
+                try {
+                    crawl.enqueue(new URL(url));
+                } catch (MalformedURLException e) {
+                    LOGGER.log(Level.WARNING, "Malformed URL in checkpoint: {0}", url);
+                }
+            }
+            crawl.markSeeded();
+            checkpoint.restored();
+
+            int resumed = 0;
+            List<Crawl.Subscription> catchUps = new ArrayList<>();
+            for (Crawl.Subscription subscription : crawl.getSubscriptions().subscribers) {
+                ISearchOperation searchOperation = subscription.searchOperation;
+                searchOperations.register(searchOperation);
+                activeSearches.incrementAndGet();
+                if (finishedSearches.contains(searchOperation.getId()) || searchOperation.getResultCount() >= config.getMaxResults()) {
+                    crawl.leave(subscription);
+                    finish(crawl, subscription, SearchStatus.DONE);
+                    continue;
+                }
+                resumed++;
+                if (!subscription.catchUpBacklog.isEmpty()) {
+                    catchUps.add(subscription);
+                }
+                LOGGER.log(Level.INFO, "Resuming search operation with ID: {0}", searchOperation.getId());
+            }
+            if (checkpoint.shared) {
+                activeSharedCrawl.compareAndSet(null, crawl);
+            }
+            executor.submit(() -> executeSearch(crawl));
+            for (Crawl.Subscription subscription : catchUps) {
+                fetchExecutor.submit(() -> catchUp(crawl, subscription));
+            }
+            return resumed;
+        }
+    }
+
+    /**
+     * Crawls this node's shards of searches started on other cluster nodes, and takes in the links and
+     * results other nodes send for any search.
+     */
+    private class ClusterShardHost implements ClusterNode.ShardHost {
+        @Override
+        public void startShard(ClusterNode.Shard shard) {
+            validateKeyword(shard.keyword);
+            ISearchOperation frontier = new SearchOperation(shard.keyword, newVisitedSet());
+            startDistributedCrawl(new Crawl(frontier, newUrlQueue(), frontier, false, shard, null, newNearDuplicateIndex()));
+        }
+
+        /**
+         * Queues the links another node sent for a shard. They are held to the rules of a search
+         * started here: the keyword must be valid, and only pages on the base URL's host are crawled.
+         */
+        @Override
+        public void acceptLinks(ClusterNode.Shard shard, List<String> urls) {
+            Crawl crawl = distributedCrawls.get(shard.searchId);
+            if (crawl == null || shard.isStopped()) {
+                return;
+            }
+            try {
+                validateKeyword(shard.keyword);
+            } catch (IllegalArgumentException e) {
+                LOGGER.log(Level.WARNING, "Ignored links for search ID: {0} with an invalid keyword", shard.searchId);
+                return;
+            }
+            String baseSpec = UrlCanonicalizer.KEEP_QUERY.canonicalize(config.getBaseURL());
+            for (String link : urls) {
+                try {
+                    URL url = new URL(link);
+                    String normalizedUrl = config.getUrlCanonicalizer().canonicalize(url);
+                    if (normalizedUrl == null || baseSpec == null || !UrlCanonicalizer.sameHost(normalizedUrl, baseSpec)) {
+                        LOGGER.log(Level.WARNING, "Ignored link to another host received for search ID: {0}", shard.searchId);
+                        continue;
+                    }
+                    if (crawl.frontier.tryAddVisitedUrl(normalizedUrl, config.getMaxQueueSize())) {
+                        crawl.enqueue(url);
+                    }
+                } catch (MalformedURLException e) {
+                    LOGGER.log(Level.WARNING, "Malformed URL received: {0}", link);
+                }
+            }
+        }
+
+        @Override
+        public void crawlLocally(ClusterNode.Shard shard, List<String> urls) {
+            Crawl crawl = distributedCrawls.get(shard.searchId);
+            if (crawl == null || shard.isStopped()) {
+                return;
+            }
+            for (String link : urls) {
+                try {
+                    crawl.enqueue(new URL(link));
+                } catch (MalformedURLException e) {
+                    LOGGER.log(Level.WARNING, "Malformed URL found: {0}", link);
+                }
+            }
+        }
+
+        @Override
+        public void acceptResults(ClusterNode.Shard shard, List<String> urls) {
+            Crawl crawl = distributedCrawls.get(shard.searchId);
+            if (crawl == null) {
+                return;
+            }
+            String baseSpec = UrlCanonicalizer.KEEP_QUERY.canonicalize(config.getBaseURL());
+            for (Crawl.Subscription subscription : crawl.getSubscriptions().subscribers) {
+                for (String url : urls) {
+                    String normalizedUrl = config.getUrlCanonicalizer().canonicalize(url);
+                    if (normalizedUrl != null && baseSpec != null && UrlCanonicalizer.sameHost(normalizedUrl, baseSpec)) {
+                        handleKeywordFound(crawl, subscription, normalizedUrl);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public boolean isIdle(ClusterNode.Shard shard) {
+            Crawl crawl = distributedCrawls.get(shard.searchId);
+            return crawl == null || crawl.isIdle();
         }
     }
 
@@ -175,5 +1148,41 @@ public class CrawlService implements ICrawlService {
         public String getBodyTextFromUrl(URL url, int timeout) throws IOException {
             return HttpUtil.getBodyTextFromUrl(url, timeout);
         }
+
+        /**
+         * Returns whether {@link #scanBodyFromUrl} is available. Implementations that return
+         * {@code false} are read through {@link #getBodyTextFromUrl} instead.
+         */
+        public boolean supportsBodyScanning() {
+            return true;
+        }
+
+        public void scanBodyFromUrl(URL url, int timeout, BodyScanner scanner) throws IOException {
+            HttpUtil.scanBodyFromUrl(url, timeout, scanner);
+        }
+
+        /**
+         * Fetches the body of {@code url} unless the copy described by {@code etag} and
+         * {@code lastModified}, either of which may be {@code null}, is still current.
+         */
+        public FetchResult fetchIfModified(URL url, int timeout, String etag, String lastModified) throws IOException {
+            return HttpUtil.fetchIfModified(url, timeout, etag, lastModified);
+        }
+
+        /**
+         * Streams the body of {@code url} to {@code reader} as bytes, for resources such as sitemaps
+         * that are parsed rather than scanned. They are neither cached nor indexed as pages.
+         */
+        public void readBodyFromUrl(URL url, int timeout, BodyReader reader) throws IOException {
+            HttpUtil.readBodyFromUrl(url, timeout, reader);
+        }
+
+        /**
+         * Returns the normalized URLs of pages already known to contain {@code keyword}, which a new
+         * search reports before it starts crawling. Without a page index there are none.
+         */
+        public List<String> findIndexedMatches(String keyword) {
+            return List.of();
+        }
     }
 }
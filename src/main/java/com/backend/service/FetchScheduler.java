@@ -0,0 +1,426 @@
+package com.backend.service;
+
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Central scheduler for page fetches, shared by every crawl of a {@link CrawlService}. Before each
+ * fetch, a worker acquires a {@link Permit} for the page's host, which enforces for that host:
+ *
+ * <ul>
+ *     <li>a token bucket that caps the sustained request rate, allowing short bursts;</li>
+ *     <li>an adaptive limit on requests in flight (AIMD): it grows by one every round trip while
+ *     requests succeed at normal latency, and is halved, at most once per round trip, when requests
+ *     time out, are refused with {@code 429}/{@code 503}, or take much longer than the host's baseline
+ *     latency;</li>
+ *     <li>fair interleaving of the crawls waiting for the host: permits are handed out round-robin
+ *     over the flows bound with {@link #bindFlow}, so a crawl with many queued pages cannot starve
+ *     the others.</li>
+ * </ul>
+ *
+ * <p>A host's schedule is dropped once it has been idle long enough for its token bucket to refill,
+ * whenever the number of hosts tracked exceeds a bound, so a crawl across many hosts does not keep
+ * one schedule per host it ever touched.
+ */
+public class FetchScheduler {
+    public static final String DEFAULT_FLOW = "default";
+
+    private static final ThreadLocal<String> FLOW = new ThreadLocal<>();
+    private static final double BACKOFF_RATIO = 0.5;
+    private static final double LATENCY_TOLERANCE = 2.0;
+    private static final double BASELINE_DRIFT = 0.01;
+    // Keeps jitter on very fast responses, such as those from a local cache or proxy, from reading as congestion.
+    private static final long LATENCY_SLACK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final int DEFAULT_MAX_HOSTS = 10_000;
+
+    private final ConcurrentHashMap<String, HostSchedule> hosts = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private final double requestsPerSecond;
+    private final int burst;
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxHosts;
+    private volatile int sweepAtHosts;
+
+    /**
+     * Constructs a new {@code FetchScheduler}.
+     *
+     * @param requestsPerSecond the sustained number of requests per second allowed to each host.
+     * @param burst             the number of requests a host may receive at once after being idle.
+     * @param initialLimit      the limit on requests in flight to a host before any have completed.
+     * @param minLimit          the lowest limit on requests in flight the host's limit backs off to.
+     * @param maxLimit          the highest limit on requests in flight the host's limit grows to.
+     */
+    public FetchScheduler(double requestsPerSecond, int burst, int initialLimit, int minLimit, int maxLimit) {
+        this(requestsPerSecond, burst, initialLimit, minLimit, maxLimit, DEFAULT_MAX_HOSTS);
+    }
+
+    /**
+     * Constructs a new {@code FetchScheduler}.
+     *
+     * @param requestsPerSecond the sustained number of requests per second allowed to each host.
+     * @param burst             the number of requests a host may receive at once after being idle.
+     * @param initialLimit      the limit on requests in flight to a host before any have completed.
+     * @param minLimit          the lowest limit on requests in flight the host's limit backs off to.
+     * @param maxLimit          the highest limit on requests in flight the host's limit grows to.
+     * @param maxHosts          the number of hosts tracked above which idle hosts are dropped.
+     */
+    public FetchScheduler(double requestsPerSecond, int burst, int initialLimit, int minLimit, int maxLimit, int maxHosts) {
+        if (!(requestsPerSecond > 0) || burst < 1 || minLimit < 1 || initialLimit < minLimit || maxLimit < initialLimit
+                || maxHosts < 1) {
+            throw new IllegalArgumentException("Invalid fetch scheduler settings");
+        }
+        this.requestsPerSecond = requestsPerSecond;
+        this.burst = burst;
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxHosts = maxHosts;
+        this.sweepAtHosts = maxHosts;
+    }
+
+    /**
+     * Binds the fetches made by the calling thread to {@code flowId} until the returned binding is
+     * closed. Fetches from threads without a binding share {@link #DEFAULT_FLOW}.
+     */
+    public static Binding bindFlow(String flowId) {
+        String previous = FLOW.get();
+        FLOW.set(flowId);
+        return () -> {
+            if (previous == null) {
+                FLOW.remove();
+            } else {
+                FLOW.set(previous);
+            }
+        };
+    }
+
+    /**
+     * Waits until a request to the host of {@code url} may be sent. The returned permit must be
+     * released once the request completes.
+     *
+     * @throws InterruptedIOException if the calling thread is interrupted while waiting.
+     */
+    public Permit acquire(URL url) throws InterruptedIOException {
+        String flow = FLOW.get();
+        if (hosts.size() > sweepAtHosts) {
+            sweep();
+        }
+        while (true) {
+            HostSchedule host = hosts.computeIfAbsent(url.getHost(), ignored -> new HostSchedule());
+            Permit permit = host.acquire(flow == null ? DEFAULT_FLOW : flow);
+            if (permit != null) {
+                return permit;
+            }
+            // The schedule was dropped by a sweep before this thread locked it; use its replacement.
+        }
+    }
+
+    /**
+     * Returns the number of hosts whose schedules are currently kept.
+     */
+    public int getHostCount() {
+        return hosts.size();
+    }
+
+    /**
+     * Returns the current limit on requests in flight to {@code host}.
+     */
+    public double getLimit(String host) {
+        HostSchedule schedule = hosts.get(host);
+        if (schedule == null) {
+            return initialLimit;
+        }
+        schedule.lock.lock();
+        try {
+            return schedule.limit;
+        } finally {
+            schedule.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of requests to {@code host} currently in flight.
+     */
+    public int getInFlight(String host) {
+        HostSchedule schedule = hosts.get(host);
+        if (schedule == null) {
+            return 0;
+        }
+        schedule.lock.lock();
+        try {
+            return schedule.inFlight;
+        } finally {
+            schedule.lock.unlock();
+        }
+    }
+
+    /**
+     * Drops the schedules of idle hosts. If most hosts are busy, the next sweep waits until the number
+     * of hosts has doubled, so sweeps cost amortized constant time per new host.
+     */
+    private void sweep() {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long now = System.nanoTime();
+            hosts.forEach((name, schedule) -> {
+                if (schedule.retireIfIdle(now)) {
+                    hosts.remove(name, schedule);
+                }
+            });
+            sweepAtHosts = Math.max(maxHosts, hosts.size() * 2);
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    /**
+     * How a scheduled request ended, which drives the host's limit on requests in flight.
+     */
+    public enum Outcome {
+        /**
+         * The request succeeded; its latency is compared with the host's baseline.
+         */
+        SUCCESS,
+        /**
+         * The host is overloaded: the request timed out, could not connect, or was refused.
+         */
+        OVERLOAD,
+        /**
+         * The request failed for a reason that says nothing about the host's load, such as a 404.
+         */
+        FAILURE
+    }
+
+    /**
+     * Restores the flow a thread was bound to before {@link #bindFlow} was called.
+     */
+    public interface Binding extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /**
+     * Permission to send one request to a host.
+     */
+    public final class Permit {
+        private final HostSchedule host;
+        private final long startNanos;
+        private volatile long respondedNanos;
+        private boolean released;
+
+        private Permit(HostSchedule host, long startNanos) {
+            this.host = host;
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * Marks the arrival of the response headers, which ends the latency sample of the request, so
+         * the time taken to stream a large body does not read as congestion. Only the first call counts.
+         * May be called from the thread that receives the response.
+         */
+        public void responded() {
+            if (respondedNanos == 0) {
+                respondedNanos = System.nanoTime();
+            }
+        }
+
+        /**
+         * Returns the permit, adjusting the host's limit to the outcome and latency of the request. The
+         * latency runs until {@link #responded} was called, or until now if it was not. Releasing a
+         * permit more than once has no effect.
+         */
+        public void release(Outcome outcome) {
+            if (released) {
+                return;
+            }
+            released = true;
+            host.release(outcome, (respondedNanos == 0 ? System.nanoTime() : respondedNanos) - startNanos);
+        }
+    }
+
+    private final class HostSchedule {
+        final ReentrantLock lock = new ReentrantLock();
+        final Condition changed = lock.newCondition();
+        final ArrayDeque<FlowQueue> flows = new ArrayDeque<>();
+        final Map<String, FlowQueue> flowsById = new HashMap<>();
+        double limit;
+        int inFlight;
+        double tokens;
+        long refilledAtNanos = System.nanoTime();
+        long baselineLatencyNanos;
+        long decreasedAtNanos;
+        boolean retired;
+
+        HostSchedule() {
+            this.limit = initialLimit;
+            this.tokens = burst;
+            this.decreasedAtNanos = refilledAtNanos - TimeUnit.HOURS.toNanos(1);
+        }
+
+        /**
+         * Waits for a permit, or returns {@code null} if this schedule has been dropped.
+         */
+        Permit acquire(String flow) throws InterruptedIOException {
+            lock.lock();
+            try {
+                if (retired) {
+                    return null;
+                }
+                Object waiter = enqueue(flow);
+                try {
+                    while (true) {
+                        if (isNext(waiter) && inFlight < (int) limit) {
+                            long now = System.nanoTime();
+                            long waitNanos = takeToken(now);
+                            if (waitNanos == 0) {
+                                dequeueNext();
+                                inFlight++;
+                                changed.signalAll();
+                                return new Permit(this, now);
+                            }
+                            changed.awaitNanos(waitNanos);
+                        } else {
+                            changed.await();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    remove(flow, waiter);
+                    changed.signalAll();
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting to fetch from host");
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void release(Outcome outcome, long latencyNanos) {
+            lock.lock();
+            try {
+                int inFlightBefore = inFlight--;
+                long now = System.nanoTime();
+                if (outcome == Outcome.OVERLOAD) {
+                    decrease(now);
+                } else if (outcome == Outcome.SUCCESS) {
+                    if (baselineLatencyNanos == 0 || latencyNanos < baselineLatencyNanos) {
+                        baselineLatencyNanos = latencyNanos;
+                    } else {
+                        baselineLatencyNanos += (long) ((latencyNanos - baselineLatencyNanos) * BASELINE_DRIFT);
+                    }
+                    if (latencyNanos > baselineLatencyNanos * LATENCY_TOLERANCE + LATENCY_SLACK_NANOS) {
+                        decrease(now);
+                    } else if (inFlightBefore >= limit / 2) {
+                        // Only grow a limit that is actually being used.
+                        limit = Math.min(maxLimit, limit + 1 / limit);
+                    }
+                }
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Marks this schedule as dropped if nothing is in flight or waiting and its token bucket has
+         * refilled, so a fresh schedule for the host would allow no more requests than this one.
+         */
+        boolean retireIfIdle(long now) {
+            if (!lock.tryLock()) {
+                return false;
+            }
+            try {
+                if (inFlight == 0 && flows.isEmpty()
+                        && tokens + (now - refilledAtNanos) * requestsPerSecond / TimeUnit.SECONDS.toNanos(1) >= burst) {
+                    retired = true;
+                }
+                return retired;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Halves the limit, at most once per baseline round trip, so the requests already in flight
+         * when a host starts struggling count as one congestion signal.
+         */
+        private void decrease(long now) {
+            if (now - decreasedAtNanos >= baselineLatencyNanos) {
+                limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+                decreasedAtNanos = now;
+            }
+        }
+
+        /**
+         * Takes a token from the bucket, returning {@code 0}, or returns how long (in nanoseconds) to
+         * wait until the next token is available.
+         */
+        private long takeToken(long now) {
+            tokens = Math.min(burst, tokens + (now - refilledAtNanos) * requestsPerSecond / TimeUnit.SECONDS.toNanos(1));
+            refilledAtNanos = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return Math.max(1, (long) ((1 - tokens) * TimeUnit.SECONDS.toNanos(1) / requestsPerSecond));
+        }
+
+        private Object enqueue(String flow) {
+            FlowQueue queue = flowsById.get(flow);
+            if (queue == null) {
+                queue = new FlowQueue(flow);
+                flowsById.put(flow, queue);
+                flows.addLast(queue);
+            }
+            Object waiter = new Object();
+            queue.waiters.addLast(waiter);
+            return waiter;
+        }
+
+        private boolean isNext(Object waiter) {
+            FlowQueue next = flows.peekFirst();
+            return next != null && next.waiters.peekFirst() == waiter;
+        }
+
+        /**
+         * Removes the next waiter and moves its flow to the back of the rotation.
+         */
+        private void dequeueNext() {
+            FlowQueue queue = flows.pollFirst();
+            queue.waiters.pollFirst();
+            if (queue.waiters.isEmpty()) {
+                flowsById.remove(queue.id);
+            } else {
+                flows.addLast(queue);
+            }
+        }
+
+        private void remove(String flow, Object waiter) {
+            FlowQueue queue = flowsById.get(flow);
+            if (queue != null && queue.waiters.remove(waiter) && queue.waiters.isEmpty()) {
+                flowsById.remove(flow);
+                flows.remove(queue);
+            }
+        }
+    }
+
+    private static final class FlowQueue {
+        final String id;
+        final ArrayDeque<Object> waiters = new ArrayDeque<>();
+
+        FlowQueue(String id) {
+            this.id = id;
+        }
+    }
+}
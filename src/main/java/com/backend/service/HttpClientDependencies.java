@@ -0,0 +1,46 @@
+package com.backend.service;
+
+import com.backend.util.AsyncHttpFetcher;
+import com.backend.util.BodyReader;
+import com.backend.util.BodyScanner;
+import com.backend.util.FetchResult;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link CrawlService.Dependencies} backed by a pooled {@link AsyncHttpFetcher} instead of opening a
+ * new {@code HttpURLConnection} per page.
+ */
+public class HttpClientDependencies extends CrawlService.Dependencies {
+    private final AsyncHttpFetcher fetcher;
+
+    public HttpClientDependencies(AsyncHttpFetcher fetcher) {
+        this.fetcher = fetcher;
+    }
+
+    @Override
+    public String getBodyTextFromUrl(URL url, int timeout) throws IOException {
+        return fetcher.fetch(url, timeout);
+    }
+
+    @Override
+    public void scanBodyFromUrl(URL url, int timeout, BodyScanner scanner) throws IOException {
+        fetcher.scan(url, timeout, scanner);
+    }
+
+    @Override
+    public FetchResult fetchIfModified(URL url, int timeout, String etag, String lastModified) throws IOException {
+        return fetcher.fetchIfModified(url, timeout, etag, lastModified);
+    }
+
+    @Override
+    public void readBodyFromUrl(URL url, int timeout, BodyReader reader) throws IOException {
+        fetcher.read(url, timeout, reader);
+    }
+
+    public CompletableFuture<String> getBodyTextFromUrlAsync(URL url, int timeout) {
+        return fetcher.fetchAsync(url, timeout);
+    }
+}
@@ -0,0 +1,95 @@
+package com.backend.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * {@link IClusterTransport} sending JSON over HTTP to the {@code /cluster} routes of the other nodes,
+ * whose addresses are their base URLs, such as {@code http://crawler-2:4567}. Every request carries
+ * the secret shared by the cluster in the {@link #SECRET_HEADER} header.
+ */
+public class HttpClusterTransport implements IClusterTransport {
+    public static final String SECRET_HEADER = "X-Cluster-Secret";
+
+    private static final Gson GSON = new Gson();
+
+    private final HttpClient client;
+    private final Duration timeout;
+    private final String secret;
+
+    /**
+     * Constructs a new {@code HttpClusterTransport}.
+     *
+     * @param timeoutMillis the timeout (in milliseconds) for connecting to a node and for each of its responses.
+     * @param secret        the secret shared by all nodes of the cluster, which they require of each other's requests.
+     */
+    public HttpClusterTransport(int timeoutMillis, String secret) {
+        if (secret == null || secret.isEmpty()) {
+            throw new IllegalArgumentException("The cluster secret must not be empty");
+        }
+        this.timeout = Duration.ofMillis(timeoutMillis);
+        this.secret = secret;
+        this.client = HttpClient.newBuilder().connectTimeout(timeout).build();
+    }
+
+    @Override
+    public void sendLinks(String node, ClusterNode.Batch batch) throws IOException {
+        send(HttpRequest.newBuilder(URI.create(node + "/cluster/links"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(GSON.toJson(batch))));
+    }
+
+    @Override
+    public void sendResults(String node, ClusterNode.Batch batch) throws IOException {
+        send(HttpRequest.newBuilder(URI.create(node + "/cluster/results"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(GSON.toJson(batch))));
+    }
+
+    @Override
+    public ClusterNode.ShardStatus getStatus(String node, String searchId) throws IOException {
+        String body = send(HttpRequest.newBuilder(searchUri(node, searchId)).GET());
+        try {
+            ClusterNode.ShardStatus status = GSON.fromJson(body, ClusterNode.ShardStatus.class);
+            if (status == null) {
+                throw new IOException("Empty shard status from node " + node);
+            }
+            return status;
+        } catch (JsonParseException e) {
+            throw new IOException("Invalid shard status from node " + node, e);
+        }
+    }
+
+    @Override
+    public void stop(String node, String searchId) throws IOException {
+        send(HttpRequest.newBuilder(searchUri(node, searchId)).DELETE());
+    }
+
+    private static URI searchUri(String node, String searchId) {
+        return URI.create(node + "/cluster/searches/" + URLEncoder.encode(searchId, StandardCharsets.UTF_8));
+    }
+
+    private String send(HttpRequest.Builder request) throws IOException {
+        HttpResponse<String> response;
+        try {
+            response = client.send(request.timeout(timeout).header(SECRET_HEADER, secret).build(), HttpResponse.BodyHandlers.ofString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while sending to cluster node");
+        }
+        if (response.statusCode() != 200) {
+            throw new IOException("Cluster node answered " + response.statusCode() + " to " + response.request().uri());
+        }
+        return response.body();
+    }
+}
@@ -5,4 +5,5 @@ import java.net.URL;
 public interface ICircuitBreaker {
     boolean shouldSkip(URL url, String operationId);
     void recordFailure(URL url);
+    void recordSuccess(URL url);
 }
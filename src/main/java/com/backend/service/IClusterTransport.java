@@ -0,0 +1,29 @@
+package com.backend.service;
+
+import java.io.IOException;
+
+/**
+ * Carries {@link ClusterNode} messages to the other nodes of a cluster, identified by the addresses
+ * they were configured with.
+ */
+public interface IClusterTransport {
+    /**
+     * Delivers links discovered by a search to the node owning them.
+     */
+    void sendLinks(String node, ClusterNode.Batch batch) throws IOException;
+
+    /**
+     * Delivers pages matching a search to the node the search was started on.
+     */
+    void sendResults(String node, ClusterNode.Batch batch) throws IOException;
+
+    /**
+     * Returns the state of a search's shard on {@code node}.
+     */
+    ClusterNode.ShardStatus getStatus(String node, String searchId) throws IOException;
+
+    /**
+     * Tells {@code node} that a search is over, so its shard stops crawling.
+     */
+    void stop(String node, String searchId) throws IOException;
+}
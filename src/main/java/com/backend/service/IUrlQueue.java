@@ -0,0 +1,33 @@
+package com.backend.service;
+
+import java.io.Closeable;
+import java.net.URL;
+
+/**
+ * Queue of the URLs a crawl still has to visit, first-in, first-out unless the implementation orders
+ * them by priority. Safe for use by all workers of a crawl at once.
+ */
+public interface IUrlQueue extends Closeable {
+    void add(URL url);
+
+    /**
+     * Queues {@code url} with a priority; URLs with higher priorities are visited first by queues that
+     * order by priority. First-in, first-out queues ignore it.
+     */
+    default void add(URL url, int priority) {
+        add(url);
+    }
+
+    /**
+     * Returns the next URL to visit, or {@code null} if the queue is empty.
+     */
+    URL poll();
+
+    int size();
+
+    /**
+     * Releases the resources held by the queue. The queue must not be used afterwards.
+     */
+    @Override
+    void close();
+}
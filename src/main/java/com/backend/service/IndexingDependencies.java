@@ -0,0 +1,83 @@
+package com.backend.service;
+
+import com.backend.util.BodyReader;
+import com.backend.util.BodyScanner;
+import com.backend.util.FetchResult;
+import com.backend.util.HttpUtil;
+import com.backend.util.UrlCanonicalizer;
+import com.backend.util.UrlUtil;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * {@link CrawlService.Dependencies} that serves fresh pages from a persistent {@link PageIndex} and
+ * only fetches pages that are missing from it or stale. Every fetched page is added to the index, so
+ * later searches can be answered from it without crawling. Pages are indexed under their canonical
+ * form with the whole query.
+ */
+public class IndexingDependencies extends CrawlService.Dependencies {
+    private static final Logger LOGGER = Logger.getLogger(IndexingDependencies.class.getName());
+
+    private final PageIndex pageIndex;
+    private final CrawlService.Dependencies delegate;
+
+    public IndexingDependencies(PageIndex pageIndex, CrawlService.Dependencies delegate) {
+        this.pageIndex = pageIndex;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String getBodyTextFromUrl(URL url, int timeout) throws IOException {
+        String normalizedUrl = UrlUtil.normalizeUrl(url, UrlCanonicalizer.KEEP_QUERY);
+        CharSequence indexed = pageIndex.getFreshText(normalizedUrl);
+        if (indexed != null) {
+            return indexed.toString();
+        }
+        return fetchAndIndex(url, normalizedUrl, timeout);
+    }
+
+    /**
+     * Scans the indexed copy of a fresh page. Other pages are read in full so they can be indexed,
+     * even when the scanner stops early.
+     */
+    @Override
+    public void scanBodyFromUrl(URL url, int timeout, BodyScanner scanner) throws IOException {
+        String normalizedUrl = UrlUtil.normalizeUrl(url, UrlCanonicalizer.KEEP_QUERY);
+        if (!pageIndex.scanFresh(normalizedUrl, scanner)) {
+            HttpUtil.scanString(fetchAndIndex(url, normalizedUrl, timeout), scanner);
+        }
+    }
+
+    @Override
+    public FetchResult fetchIfModified(URL url, int timeout, String etag, String lastModified) throws IOException {
+        return delegate.fetchIfModified(url, timeout, etag, lastModified);
+    }
+
+    @Override
+    public void readBodyFromUrl(URL url, int timeout, BodyReader reader) throws IOException {
+        delegate.readBodyFromUrl(url, timeout, reader);
+    }
+
+    @Override
+    public List<String> findIndexedMatches(String keyword) {
+        return pageIndex.search(keyword);
+    }
+
+    public PageIndex getPageIndex() {
+        return pageIndex;
+    }
+
+    private String fetchAndIndex(URL url, String normalizedUrl, int timeout) throws IOException {
+        String body = delegate.getBodyTextFromUrl(url, timeout);
+        try {
+            pageIndex.add(normalizedUrl, body);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to index page: " + normalizedUrl, e);
+        }
+        return body;
+    }
+}
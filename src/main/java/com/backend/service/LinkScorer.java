@@ -0,0 +1,172 @@
+package com.backend.service;
+
+import com.backend.util.MultiKeywordMatcher;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ranks the links found on one page for a best-first frontier, by how likely they are to lead to pages
+ * containing a subscribed keyword. A link scores {@value #ANCHOR_TEXT_MATCH} if its anchor text contains
+ * a keyword, {@value #URL_MATCH} if its URL does, {@value #PARENT_MATCH} if the page it was found on
+ * does, and {@value #CONTEXT_MATCH} if the {@value #CONTEXT_CHARS} characters of text before or after it
+ * do. Links with equal scores are ranked by the depth of their path, shallower first.
+ *
+ * <p>Links are collected as the page streams through the link extractor and ranked once it has been
+ * read, when the page's own match is known. Instances keep per-page state and are not thread-safe.
+ */
+final class LinkScorer {
+    static final int ANCHOR_TEXT_MATCH = 8;
+    static final int URL_MATCH = 4;
+    static final int PARENT_MATCH = 3;
+    static final int CONTEXT_MATCH = 2;
+    static final int CONTEXT_CHARS = 100;
+
+    private static final int MAX_ANCHOR_CHARS = 200;
+    private static final int MAX_DEPTH = 15;
+
+    private final MultiKeywordMatcher matcher;
+    private final char[] recentText = new char[CONTEXT_CHARS];
+    private final List<Link> links = new ArrayList<>();
+    private int recentEnd;
+    private int recentLength;
+    private Link current;
+
+    LinkScorer(MultiKeywordMatcher matcher) {
+        this.matcher = matcher;
+    }
+
+    /**
+     * Takes the next run of page text, as reported by the link extractor.
+     */
+    void onText(char[] chars, int offset, int length, boolean anchor) {
+        if (current != null) {
+            current.follow(chars, offset, length, anchor);
+        }
+        remember(chars, offset, length);
+    }
+
+    /**
+     * Adds a link to be ranked. The text that follows is attributed to it until the next link.
+     */
+    void add(URL url, String normalizedUrl) {
+        Link link = new Link(url, normalizedUrl, matcher.newScan(), matcher.newScan());
+        int start = (recentEnd - recentLength + CONTEXT_CHARS) % CONTEXT_CHARS;
+        if (start + recentLength <= CONTEXT_CHARS) {
+            link.contextScan.feed(recentText, start, recentLength);
+        } else {
+            link.contextScan.feed(recentText, start, CONTEXT_CHARS - start);
+            link.contextScan.feed(recentText, 0, recentLength - (CONTEXT_CHARS - start));
+        }
+        links.add(link);
+        current = link;
+    }
+
+    /**
+     * Notes a link that was found but not added, so the text that follows is not attributed to the
+     * link before it.
+     */
+    void skip() {
+        current = null;
+    }
+
+    /**
+     * Returns the links added so far with their priorities, given whether the page matched a keyword.
+     */
+    List<Link> rank(boolean pageMatched) {
+        for (Link link : links) {
+            int score = pageMatched ? PARENT_MATCH : 0;
+            if (link.anchorScan.anyMatched()) {
+                score += ANCHOR_TEXT_MATCH;
+            }
+            if (link.contextScan.anyMatched()) {
+                score += CONTEXT_MATCH;
+            }
+            if (matches(matcher, link.url)) {
+                score += URL_MATCH;
+            }
+            link.priority = priority(score, link.url);
+        }
+        return links;
+    }
+
+    /**
+     * Returns the priority of a URL found without a page around it, such as in a sitemap, from its URL
+     * and depth alone.
+     */
+    static int priority(MultiKeywordMatcher matcher, URL url) {
+        return priority(matches(matcher, url) ? URL_MATCH : 0, url);
+    }
+
+    private static int priority(int score, URL url) {
+        return score * (MAX_DEPTH + 1) + MAX_DEPTH - Math.min(depth(url), MAX_DEPTH);
+    }
+
+    /**
+     * Returns whether the path or query of {@code url} contains a keyword. The host is left out, since
+     * every URL of a crawl shares it.
+     */
+    private static boolean matches(MultiKeywordMatcher matcher, URL url) {
+        char[] file = url.getFile().toCharArray();
+        MultiKeywordMatcher.Scan scan = matcher.newScan();
+        scan.feed(file, 0, file.length);
+        return scan.anyMatched();
+    }
+
+    private static int depth(URL url) {
+        String path = url.getPath();
+        int depth = 0;
+        for (int i = 0; i < path.length(); i++) {
+            if (path.charAt(i) != '/' && (i == 0 || path.charAt(i - 1) == '/')) {
+                depth++;
+            }
+        }
+        return depth;
+    }
+
+    private void remember(char[] chars, int offset, int length) {
+        if (length > CONTEXT_CHARS) {
+            offset += length - CONTEXT_CHARS;
+            length = CONTEXT_CHARS;
+        }
+        for (int i = 0; i < length; i++) {
+            recentText[recentEnd] = chars[offset + i];
+            recentEnd = (recentEnd + 1) % CONTEXT_CHARS;
+        }
+        recentLength = Math.min(CONTEXT_CHARS, recentLength + length);
+    }
+
+    /**
+     * A link found on the page, with the keyword scans of its anchor text and surrounding text.
+     */
+    static final class Link {
+        final URL url;
+        final String normalizedUrl;
+        int priority;
+
+        private final MultiKeywordMatcher.Scan anchorScan;
+        private final MultiKeywordMatcher.Scan contextScan;
+        private int anchorChars;
+        private int followingChars;
+
+        Link(URL url, String normalizedUrl, MultiKeywordMatcher.Scan anchorScan, MultiKeywordMatcher.Scan contextScan) {
+            this.url = url;
+            this.normalizedUrl = normalizedUrl;
+            this.anchorScan = anchorScan;
+            this.contextScan = contextScan;
+        }
+
+        private void follow(char[] chars, int offset, int length, boolean anchor) {
+            if (anchor) {
+                int count = Math.min(length, MAX_ANCHOR_CHARS - anchorChars);
+                anchorScan.feed(chars, offset, count);
+                anchorChars += count;
+            } else {
+                int count = Math.min(length, CONTEXT_CHARS - followingChars);
+                contextScan.feed(chars, offset, count);
+                followingChars += count;
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.backend.service;
+
+import java.net.URL;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link IUrlQueue} holding every queued URL on the heap in a lock-free queue.
+ */
+public class MemoryUrlQueue implements IUrlQueue {
+    private final Queue<URL> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    @Override
+    public void add(URL url) {
+        queue.add(url);
+        size.incrementAndGet();
+    }
+
+    @Override
+    public URL poll() {
+        URL url = queue.poll();
+        if (url != null) {
+            size.decrementAndGet();
+        }
+        return url;
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public void close() {
+        queue.clear();
+        size.set(0);
+    }
+}
@@ -0,0 +1,99 @@
+package com.backend.service;
+
+import com.backend.util.SimHash;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Set of {@link SimHash} page fingerprints that answers whether a new fingerprint is within a small
+ * Hamming distance of one already added. Fingerprints are split into four 16-bit blocks and indexed by
+ * each of them; two fingerprints that differ in at most three bits agree on at least one whole block,
+ * so only the fingerprints sharing a block with the new one are compared. Safe for use by all workers
+ * of a crawl at once.
+ */
+public class NearDuplicateIndex {
+    public static final int DEFAULT_MAX_DISTANCE = 3;
+
+    private static final int BLOCKS = 4;
+    private static final int BLOCK_BITS = Long.SIZE / BLOCKS;
+    private static final int BLOCK_MASK = (1 << BLOCK_BITS) - 1;
+    private static final int INITIAL_BUCKET_CAPACITY = 2;
+
+    private final int maxDistance;
+    private final List<Map<Integer, Bucket>> tables;
+    private int size;
+
+    public NearDuplicateIndex() {
+        this(DEFAULT_MAX_DISTANCE);
+    }
+
+    /**
+     * Constructs a new {@code NearDuplicateIndex}.
+     *
+     * @param maxDistance the largest number of differing bits at which two fingerprints count as
+     *                    near-duplicates, at most 3.
+     */
+    public NearDuplicateIndex(int maxDistance) {
+        if (maxDistance < 0 || maxDistance >= BLOCKS) {
+            throw new IllegalArgumentException("Maximum distance must be between 0 and " + (BLOCKS - 1));
+        }
+        this.maxDistance = maxDistance;
+        this.tables = new ArrayList<>(BLOCKS);
+        for (int block = 0; block < BLOCKS; block++) {
+            tables.add(new HashMap<>());
+        }
+    }
+
+    /**
+     * Adds {@code fingerprint} unless it is a near-duplicate of a fingerprint already added.
+     *
+     * @return {@code true} if it was added, {@code false} if it is a near-duplicate.
+     */
+    public synchronized boolean addIfNotNearDuplicate(long fingerprint) {
+        for (int block = 0; block < BLOCKS; block++) {
+            Bucket bucket = tables.get(block).get(block(fingerprint, block));
+            if (bucket != null && bucket.containsWithin(fingerprint, maxDistance)) {
+                return false;
+            }
+        }
+        for (int block = 0; block < BLOCKS; block++) {
+            tables.get(block).computeIfAbsent(block(fingerprint, block), key -> new Bucket()).add(fingerprint);
+        }
+        size++;
+        return true;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private static int block(long fingerprint, int block) {
+        return (int) (fingerprint >>> (block * BLOCK_BITS)) & BLOCK_MASK;
+    }
+
+    private static final class Bucket {
+        private long[] fingerprints = new long[INITIAL_BUCKET_CAPACITY];
+        private int count;
+
+        void add(long fingerprint) {
+            if (count == fingerprints.length) {
+                long[] grown = new long[count * 2];
+                System.arraycopy(fingerprints, 0, grown, 0, count);
+                fingerprints = grown;
+            }
+            fingerprints[count++] = fingerprint;
+        }
+
+        boolean containsWithin(long fingerprint, int maxDistance) {
+            for (int i = 0; i < count; i++) {
+                if (SimHash.distance(fingerprints[i], fingerprint) <= maxDistance) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,407 @@
+package com.backend.service;
+
+import com.backend.util.BodyScanner;
+import com.backend.util.HttpUtil;
+import com.backend.util.MetricsRegistry;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Page body cache shared by all search operations. Entries are keyed by normalized URL and evicted
+ * in least-recently-used order once either the entry or the byte budget is exceeded, or once they
+ * are older than the configured time-to-live.
+ *
+ * <p>Concurrent lookups for the same key that miss the cache are collapsed into a single load: the
+ * first caller fetches the page and every other caller waits for that result instead of issuing its
+ * own request. A load streamed through {@link #scan} that its scanner stops early is not cached, and
+ * the callers waiting on it load the page themselves.
+ */
+public class PageCache {
+    private static final Logger LOGGER = Logger.getLogger(PageCache.class.getName());
+
+    /**
+     * How cached bodies are held in memory.
+     */
+    public enum StorageMode {
+        /** UTF-8 bytes on the Java heap. */
+        HEAP,
+        /** Deflate-compressed bytes on the Java heap. */
+        COMPRESSED,
+        /** UTF-8 bytes in direct buffers outside the Java heap. */
+        OFF_HEAP
+    }
+
+    @FunctionalInterface
+    public interface Loader {
+        String load() throws IOException;
+    }
+
+    /**
+     * Streams a page body to a scanner, stopping as soon as the scanner asks for it.
+     */
+    @FunctionalInterface
+    public interface StreamingLoader {
+        void load(BodyScanner scanner) throws IOException;
+    }
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final long ttlMillis;
+    private final StorageMode storageMode;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ConcurrentHashMap<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+    private long currentBytes;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * Constructs a new {@code PageCache}.
+     *
+     * @param maxEntries  the maximum number of pages kept in the cache.
+     * @param maxBytes    the maximum number of stored body bytes, after compression if enabled.
+     * @param ttlMillis   how long (in milliseconds) a cached page stays valid.
+     * @param storageMode how cached bodies are held in memory.
+     */
+    public PageCache(int maxEntries, long maxBytes, long ttlMillis, StorageMode storageMode) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.ttlMillis = ttlMillis;
+        this.storageMode = storageMode;
+    }
+
+    /**
+     * Returns the cached body for {@code key}, loading it with {@code loader} on a miss. Failed loads
+     * are not cached and their exception is rethrown to every caller waiting on the same key.
+     */
+    public String get(String key, Loader loader) throws IOException {
+        while (true) {
+            String cached = lookup(key);
+            if (cached != null) {
+                hitCount.incrementAndGet();
+                return cached;
+            }
+
+            CompletableFuture<String> pending = new CompletableFuture<>();
+            CompletableFuture<String> existing = inFlight.putIfAbsent(key, pending);
+            if (existing != null) {
+                coalescedCount.incrementAndGet();
+                String body = await(existing);
+                if (body != null) {
+                    return body;
+                }
+                // The load was cut short by its scanner, so the page is loaded again.
+                continue;
+            }
+
+            try {
+                // Another caller may have stored the page and left the in-flight map since the lookup above.
+                cached = lookup(key);
+                if (cached != null) {
+                    hitCount.incrementAndGet();
+                    pending.complete(cached);
+                    return cached;
+                }
+                missCount.incrementAndGet();
+                String body = loader.load();
+                store(key, body);
+                pending.complete(body);
+                return body;
+            } catch (IOException | RuntimeException e) {
+                pending.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, pending);
+            }
+        }
+    }
+
+    /**
+     * Feeds the cached body for {@code key} to {@code scanner}, streaming it from {@code loader} on a
+     * miss. The streamed body is copied into the cache as it is scanned and stored once it has been
+     * read to the end; if the scanner stops early, the rest of the page is not read and nothing is
+     * stored. Failed loads are handled as in {@link #get}.
+     */
+    public void scan(String key, StreamingLoader loader, BodyScanner scanner) throws IOException {
+        while (true) {
+            String cached = lookup(key);
+            if (cached != null) {
+                hitCount.incrementAndGet();
+                HttpUtil.scanString(cached, scanner);
+                return;
+            }
+
+            CompletableFuture<String> pending = new CompletableFuture<>();
+            CompletableFuture<String> existing = inFlight.putIfAbsent(key, pending);
+            if (existing != null) {
+                coalescedCount.incrementAndGet();
+                String body = await(existing);
+                if (body != null) {
+                    HttpUtil.scanString(body, scanner);
+                    return;
+                }
+                continue;
+            }
+
+            try {
+                cached = lookup(key);
+                if (cached != null) {
+                    hitCount.incrementAndGet();
+                    pending.complete(cached);
+                    HttpUtil.scanString(cached, scanner);
+                    return;
+                }
+                missCount.incrementAndGet();
+                Tee tee = new Tee(scanner);
+                loader.load(tee);
+                String body = tee.stopped ? null : tee.body.toString();
+                if (body != null) {
+                    store(key, body);
+                }
+                pending.complete(body);
+                return;
+            } catch (IOException | RuntimeException e) {
+                pending.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, pending);
+            }
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Returns the number of lookups that waited on another caller's in-flight load.
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getStoredBytes() {
+        return currentBytes;
+    }
+
+    /**
+     * Registers the hit, miss, coalesced-load and eviction counters of this cache, and the number of
+     * entries and bytes it holds, in {@code registry}.
+     */
+    public void registerMetrics(MetricsRegistry registry) {
+        registry.counter("crawler_page_cache_hits_total", "Page cache lookups answered from the cache.", this::getHitCount);
+        registry.counter("crawler_page_cache_misses_total", "Page cache lookups that loaded the page.", this::getMissCount);
+        registry.counter("crawler_page_cache_coalesced_total", "Page cache lookups that waited on another caller's load.",
+                this::getCoalescedCount);
+        registry.counter("crawler_page_cache_evictions_total", "Pages evicted from the page cache or expired.", this::getEvictionCount);
+        registry.gauge("crawler_page_cache_entries", "Pages held in the page cache.", this::size);
+        registry.gauge("crawler_page_cache_stored_bytes", "Bytes of page bodies held in the page cache, after compression if enabled.",
+                this::getStoredBytes);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PageCache[entries=%d, bytes=%d, hits=%d, misses=%d, coalesced=%d, evictions=%d]",
+                size(), getStoredBytes(), getHitCount(), getMissCount(), getCoalescedCount(), getEvictionCount());
+    }
+
+    private String lookup(String key) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.isExpired(System.currentTimeMillis())) {
+                removeEntry(key, entry);
+                return null;
+            }
+        }
+        // Entries are never modified once stored, so concurrent hits decompress them outside the lock.
+        return decode(entry);
+    }
+
+    private void store(String key, String body) {
+        Entry entry = encode(body);
+        if (entry.size > maxBytes) {
+            return;
+        }
+
+        synchronized (this) {
+            Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                currentBytes -= previous.size;
+            }
+            currentBytes += entry.size;
+            evictIfNeeded();
+        }
+    }
+
+    private void evictIfNeeded() {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Entry eldest = iterator.next().getValue();
+            // Expired entries are otherwise only dropped on lookup; trimming them from the cold end
+            // keeps pages that are never requested again from pinning the byte budget.
+            if (entries.size() <= maxEntries && currentBytes <= maxBytes && !eldest.isExpired(now)) {
+                break;
+            }
+            iterator.remove();
+            currentBytes -= eldest.size;
+            evictionCount.incrementAndGet();
+        }
+    }
+
+    private void removeEntry(String key, Entry entry) {
+        entries.remove(key);
+        currentBytes -= entry.size;
+        evictionCount.incrementAndGet();
+    }
+
+    private Entry encode(String body) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        switch (storageMode) {
+            case COMPRESSED:
+                return new Entry(ByteBuffer.wrap(compress(bytes)), bytes.length, expiresAt);
+            case OFF_HEAP:
+                ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+                direct.put(bytes).flip();
+                return new Entry(direct, bytes.length, expiresAt);
+            default:
+                return new Entry(ByteBuffer.wrap(bytes), bytes.length, expiresAt);
+        }
+    }
+
+    private String decode(Entry entry) {
+        ByteBuffer buffer = entry.body.duplicate();
+        byte[] stored = new byte[buffer.remaining()];
+        buffer.get(stored);
+        if (storageMode == StorageMode.COMPRESSED) {
+            return new String(decompress(stored, entry.originalLength), StandardCharsets.UTF_8);
+        }
+        return new String(stored, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] compress(byte[] bytes) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, bytes.length / 4));
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(chunk);
+                out.write(chunk, 0, length);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] decompress(byte[] compressed, int originalLength) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] result = new byte[originalLength];
+            int offset = 0;
+            while (offset < originalLength && !inflater.finished()) {
+                offset += inflater.inflate(result, offset, originalLength - offset);
+            }
+            return result;
+        } catch (DataFormatException e) {
+            LOGGER.log(Level.SEVERE, "Corrupted compressed page body in cache", e);
+            throw new IllegalStateException("Corrupted compressed page body in cache", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static String await(CompletableFuture<String> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for in-flight page load", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("In-flight page load failed", cause);
+        }
+    }
+
+    /**
+     * Forwards a streamed body to a scanner while keeping a copy of it for the cache.
+     */
+    private static class Tee implements BodyScanner {
+        final BodyScanner scanner;
+        final StringBuilder body = new StringBuilder();
+        boolean stopped;
+
+        Tee(BodyScanner scanner) {
+            this.scanner = scanner;
+        }
+
+        @Override
+        public boolean onChars(char[] chars, int offset, int length) {
+            body.append(chars, offset, length);
+            stopped = !scanner.onChars(chars, offset, length);
+            return !stopped;
+        }
+    }
+
+    private static class Entry {
+        final ByteBuffer body;
+        final int originalLength;
+        final int size;
+        final long expiresAt;
+
+        Entry(ByteBuffer body, int originalLength, long expiresAt) {
+            this.body = body;
+            this.originalLength = originalLength;
+            this.size = body.remaining();
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
@@ -0,0 +1,686 @@
+package com.backend.service;
+
+import com.backend.util.BodyScanner;
+import com.backend.util.KeywordMatcher;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persistent trigram index of crawled pages, keyed by normalized URL. Keyword queries are answered by
+ * intersecting the posting lists of the keyword's trigrams and verifying every candidate with an exact,
+ * case-insensitive substring match, so a new search does not have to fetch pages that were indexed
+ * recently.
+ *
+ * <p>Pages are added to an in-memory segment that is written to disk once it holds enough documents.
+ * Segment files are immutable and memory-mapped, so the stored text and postings live in the page cache
+ * of the operating system rather than on the Java heap. A page that is indexed again supersedes its
+ * earlier version, and segment files whose documents have all been superseded are deleted.
+ *
+ * <p>Pages older than the configured maximum age are reported as missing, so callers fetch them again.
+ */
+public class PageIndex implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(PageIndex.class.getName());
+
+    private static final int MAGIC = 0x50494458;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 24;
+    private static final int DOC_ENTRY_BYTES = 32;
+    private static final int TERM_ENTRY_BYTES = 16;
+    private static final long MAX_SEGMENT_CHARS = 64L * 1024 * 1024;
+    private static final int CHUNK_SIZE = 8192;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".idx";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int[] NO_DOCS = new int[0];
+
+    private final Path directory;
+    private final int maxSegmentDocs;
+    private final long maxAgeMillis;
+
+    private final ConcurrentHashMap<String, DocRef> latest = new ConcurrentHashMap<>();
+    private final Object sealLock = new Object();
+    private volatile List<MappedSegment> sealedSegments = List.of();
+    private volatile List<MemorySegment> sealingSegments = List.of();
+    private volatile MemorySegment activeSegment = new MemorySegment();
+    private long nextVersion;
+    private long nextSegmentNumber;
+    private boolean closed;
+
+    /**
+     * Opens the index stored in {@code directory}, creating the directory if needed.
+     *
+     * @param directory      the directory holding the segment files.
+     * @param maxSegmentDocs the number of pages buffered in memory before they are written to a segment file.
+     * @param maxAgeMillis   how long (in milliseconds) an indexed page is used before it has to be fetched again.
+     */
+    public PageIndex(Path directory, int maxSegmentDocs, long maxAgeMillis) throws IOException {
+        if (maxSegmentDocs < 1) {
+            throw new IllegalArgumentException("Segments must hold at least one document");
+        }
+        this.directory = directory;
+        this.maxSegmentDocs = maxSegmentDocs;
+        this.maxAgeMillis = maxAgeMillis;
+        Files.createDirectories(directory);
+        openSegments();
+    }
+
+    /**
+     * Indexes the body of the page at {@code normalizedUrl}, superseding any earlier version of it.
+     * The page's trigrams are extracted before the index is locked, and a full segment is written to
+     * disk after it is unlocked, so concurrent workers only contend on appending the postings.
+     */
+    public void add(String normalizedUrl, String text) throws IOException {
+        long[] trigrams = distinctTrigrams(text);
+        MemorySegment full;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            MemorySegment segment = activeSegment;
+            long crawledAt = System.currentTimeMillis();
+            int doc = segment.add(normalizedUrl, text, trigrams, nextVersion, crawledAt);
+            publish(normalizedUrl, new DocRef(segment, doc, nextVersion++, crawledAt));
+            if (segment.docCount() < maxSegmentDocs && segment.charCount() < MAX_SEGMENT_CHARS) {
+                return;
+            }
+            full = retireActiveSegment();
+        }
+        seal(full);
+    }
+
+    /**
+     * Returns the indexed body of {@code normalizedUrl}, or {@code null} if the page is not indexed or
+     * its copy is older than the maximum age.
+     */
+    public CharSequence getFreshText(String normalizedUrl) {
+        DocRef ref = latest.get(normalizedUrl);
+        if (ref == null || isStale(ref, System.currentTimeMillis())) {
+            return null;
+        }
+        return ref.segment.text(ref.doc);
+    }
+
+    /**
+     * Feeds the indexed body of {@code normalizedUrl} to {@code scanner} in chunks. Returns
+     * {@code false} without scanning if the page is missing or stale.
+     */
+    public boolean scanFresh(String normalizedUrl, BodyScanner scanner) {
+        CharSequence text = getFreshText(normalizedUrl);
+        if (text == null) {
+            return false;
+        }
+        CharBuffer source = text instanceof CharBuffer ? ((CharBuffer) text).duplicate() : CharBuffer.wrap(text);
+        char[] chunk = new char[Math.min(CHUNK_SIZE, Math.max(1, source.remaining()))];
+        while (source.hasRemaining()) {
+            int length = Math.min(chunk.length, source.remaining());
+            source.get(chunk, 0, length);
+            if (!scanner.onChars(chunk, 0, length)) {
+                break;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the normalized URLs of the fresh indexed pages containing {@code keyword}, ignoring case.
+     */
+    public List<String> search(String keyword) {
+        long[] trigrams = distinctTrigrams(keyword);
+        KeywordMatcher matcher = new KeywordMatcher(keyword);
+        long now = System.currentTimeMillis();
+
+        // The active segment is read before those being written and those sealed: a segment that moves
+        // on in between is then seen in at least one of its forms, and versions tell which copy of a page
+        // is current.
+        List<Segment> segments = new ArrayList<>();
+        segments.add(activeSegment);
+        segments.addAll(sealingSegments);
+        segments.addAll(sealedSegments);
+
+        Set<String> matches = new LinkedHashSet<>();
+        for (Segment segment : segments) {
+            for (int doc : segment.candidates(trigrams)) {
+                String url = segment.url(doc);
+                DocRef ref = latest.get(url);
+                if (ref == null || ref.version != segment.version(doc) || isStale(ref, now) || matches.contains(url)) {
+                    continue;
+                }
+                if (matcher.matches(segment.text(doc))) {
+                    matches.add(url);
+                }
+            }
+        }
+        return new ArrayList<>(matches);
+    }
+
+    /**
+     * Writes the pages buffered in memory to a new segment file.
+     */
+    public void flush() throws IOException {
+        MemorySegment full;
+        synchronized (this) {
+            if (activeSegment.docCount() == 0) {
+                return;
+            }
+            full = retireActiveSegment();
+        }
+        seal(full);
+    }
+
+    /**
+     * Writes the pages buffered in memory to disk and stops indexing new ones.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (sealLock) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+            }
+            flush();
+            synchronized (this) {
+                closed = true;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of distinct pages in the index, fresh or not.
+     */
+    public int size() {
+        return latest.size();
+    }
+
+    public int getSegmentCount() {
+        return sealedSegments.size();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PageIndex[pages=%d, segments=%d, directory=%s]", size(), getSegmentCount(), directory);
+    }
+
+    private boolean isStale(DocRef ref, long now) {
+        return now - ref.crawledAt > maxAgeMillis;
+    }
+
+    private void publish(String url, DocRef ref) {
+        DocRef previous = latest.put(url, ref);
+        if (previous != null && previous.segment.liveDocs.decrementAndGet() == 0 && previous.segment instanceof MappedSegment) {
+            drop((MappedSegment) previous.segment);
+        }
+    }
+
+    /**
+     * Removes a segment whose documents have all been superseded and deletes its file. Readers still
+     * holding the mapping keep working until it is garbage collected.
+     */
+    private void drop(MappedSegment segment) {
+        List<MappedSegment> remaining = new ArrayList<>(sealedSegments);
+        remaining.remove(segment);
+        sealedSegments = List.copyOf(remaining);
+        try {
+            Files.deleteIfExists(segment.path);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to delete superseded index segment: " + segment.path, e);
+        }
+    }
+
+    /**
+     * Replaces the active segment with an empty one, keeping the old one visible to searches until
+     * {@link #seal} has written it. Must be called while holding this index's lock.
+     */
+    private MemorySegment retireActiveSegment() {
+        MemorySegment segment = activeSegment;
+        List<MemorySegment> sealing = new ArrayList<>(sealingSegments);
+        sealing.add(segment);
+        sealingSegments = List.copyOf(sealing);
+        activeSegment = new MemorySegment();
+        return segment;
+    }
+
+    /**
+     * Writes a retired segment to a new segment file and moves its current pages over to it. The file
+     * is written without holding this index's lock, so pages can still be added meanwhile.
+     */
+    private void seal(MemorySegment segment) throws IOException {
+        synchronized (sealLock) {
+            Path path;
+            synchronized (this) {
+                path = directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, nextSegmentNumber++, SEGMENT_SUFFIX));
+            }
+            writeSegment(segment, path);
+            MappedSegment mapped = MappedSegment.open(path);
+
+            synchronized (this) {
+                List<MappedSegment> segments = new ArrayList<>(sealedSegments);
+                segments.add(mapped);
+                sealedSegments = List.copyOf(segments);
+                List<MemorySegment> sealing = new ArrayList<>(sealingSegments);
+                sealing.remove(segment);
+                sealingSegments = List.copyOf(sealing);
+                for (int doc = 0; doc < mapped.docCount(); doc++) {
+                    String url = mapped.url(doc);
+                    DocRef current = latest.get(url);
+                    if (current != null && current.segment == segment && current.doc == doc) {
+                        latest.replace(url, current, new DocRef(mapped, doc, current.version, current.crawledAt));
+                        mapped.liveDocs.incrementAndGet();
+                    }
+                }
+                if (mapped.liveDocs.get() == 0) {
+                    drop(mapped);
+                }
+            }
+            LOGGER.log(Level.INFO, "Wrote index segment {0} with {1} pages", new Object[]{path.getFileName(), mapped.docCount()});
+        }
+    }
+
+    private void openSegments() throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(TEMP_SUFFIX)) {
+                    Files.deleteIfExists(file);
+                } else if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    paths.add(file);
+                }
+            }
+        }
+        paths.sort(Comparator.comparing(path -> path.getFileName().toString()));
+
+        List<MappedSegment> segments = new ArrayList<>();
+        for (Path path : paths) {
+            nextSegmentNumber = Math.max(nextSegmentNumber, segmentNumber(path) + 1);
+            MappedSegment segment;
+            try {
+                segment = MappedSegment.open(path);
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "Skipping unreadable index segment: " + path, e);
+                continue;
+            }
+            segments.add(segment);
+            for (int doc = 0; doc < segment.docCount(); doc++) {
+                long version = segment.version(doc);
+                nextVersion = Math.max(nextVersion, version + 1);
+                DocRef ref = new DocRef(segment, doc, version, segment.crawledAt(doc));
+                DocRef previous = latest.get(segment.url(doc));
+                if (previous == null || previous.version < version) {
+                    latest.put(segment.url(doc), ref);
+                    segment.liveDocs.incrementAndGet();
+                    if (previous != null) {
+                        previous.segment.liveDocs.decrementAndGet();
+                    }
+                }
+            }
+        }
+        sealedSegments = List.copyOf(segments);
+        for (MappedSegment segment : segments) {
+            if (segment.liveDocs.get() == 0) {
+                drop(segment);
+            }
+        }
+    }
+
+    private static long segmentNumber(Path path) {
+        String name = path.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Writes {@code segment} to a temporary file and moves it into place, so a crash never leaves a
+     * partially written segment behind. The layout is a header, a document table, a sorted term table,
+     * the posting lists, and finally the URLs and bodies as UTF-16 characters.
+     */
+    private static void writeSegment(MemorySegment segment, Path path) throws IOException {
+        long[] terms = segment.sortedTerms();
+        int postingCount = 0;
+        for (long term : terms) {
+            postingCount += segment.postings(term).length;
+        }
+        int docCount = segment.docCount();
+        long charsStart = HEADER_BYTES + (long) docCount * DOC_ENTRY_BYTES + (long) terms.length * TERM_ENTRY_BYTES
+                + (long) postingCount * Integer.BYTES;
+        long size = charsStart + segment.charCount() * Character.BYTES;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Index segment too large: " + size + " bytes");
+        }
+
+        Path temp = path.resolveSibling(path.getFileName() + TEMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(docCount).putInt(terms.length).putLong(charsStart);
+
+            CharBuffer chars = buffer.duplicate().position((int) charsStart).slice().asCharBuffer();
+            for (int doc = 0; doc < docCount; doc++) {
+                String url = segment.url(doc);
+                String text = segment.text(doc);
+                buffer.putLong(segment.version(doc)).putLong(segment.crawledAt(doc));
+                buffer.putInt(chars.position()).putInt(url.length());
+                chars.put(url);
+                buffer.putInt(chars.position()).putInt(text.length());
+                chars.put(text);
+            }
+
+            int postingsOffset = 0;
+            for (long term : terms) {
+                int length = segment.postings(term).length;
+                buffer.putLong(term).putInt(postingsOffset).putInt(length);
+                postingsOffset += length;
+            }
+            for (long term : terms) {
+                for (int doc : segment.postings(term)) {
+                    buffer.putInt(doc);
+                }
+            }
+            buffer.force();
+        }
+        Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static long[] distinctTrigrams(CharSequence text) {
+        if (text.length() < 3) {
+            return new long[0];
+        }
+        long[] trigrams = new long[text.length() - 2];
+        long window = ((long) fold(text.charAt(0)) << 16) | fold(text.charAt(1));
+        for (int i = 2; i < text.length(); i++) {
+            window = ((window << 16) | fold(text.charAt(i))) & 0xFFFF_FFFF_FFFFL;
+            trigrams[i - 2] = window;
+        }
+        Arrays.sort(trigrams);
+        int distinct = 0;
+        for (int i = 0; i < trigrams.length; i++) {
+            if (i == 0 || trigrams[i] != trigrams[i - 1]) {
+                trigrams[distinct++] = trigrams[i];
+            }
+        }
+        return Arrays.copyOf(trigrams, distinct);
+    }
+
+    private static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    private static final class DocRef {
+        final Segment segment;
+        final int doc;
+        final long version;
+        final long crawledAt;
+
+        DocRef(Segment segment, int doc, long version, long crawledAt) {
+            this.segment = segment;
+            this.doc = doc;
+            this.version = version;
+            this.crawledAt = crawledAt;
+        }
+    }
+
+    private abstract static class Segment {
+        final AtomicInteger liveDocs = new AtomicInteger();
+
+        abstract int docCount();
+
+        abstract String url(int doc);
+
+        abstract CharSequence text(int doc);
+
+        abstract long version(int doc);
+
+        abstract long crawledAt(int doc);
+
+        abstract int[] postings(long trigram);
+
+        /**
+         * Returns the documents containing every trigram, in ascending order.
+         */
+        int[] candidates(long[] trigrams) {
+            if (trigrams.length == 0) {
+                int[] all = new int[docCount()];
+                Arrays.setAll(all, doc -> doc);
+                return all;
+            }
+            int[][] lists = new int[trigrams.length][];
+            for (int i = 0; i < trigrams.length; i++) {
+                lists[i] = postings(trigrams[i]);
+                if (lists[i].length == 0) {
+                    return NO_DOCS;
+                }
+            }
+            Arrays.sort(lists, Comparator.comparingInt(list -> list.length));
+            int[] result = lists[0];
+            for (int i = 1; i < lists.length && result.length > 0; i++) {
+                result = intersect(result, lists[i]);
+            }
+            return result;
+        }
+
+        private static int[] intersect(int[] left, int[] right) {
+            int[] result = new int[Math.min(left.length, right.length)];
+            int count = 0;
+            int j = 0;
+            for (int doc : left) {
+                while (j < right.length && right[j] < doc) {
+                    j++;
+                }
+                if (j == right.length) {
+                    break;
+                }
+                if (right[j] == doc) {
+                    result[count++] = doc;
+                }
+            }
+            return Arrays.copyOf(result, count);
+        }
+    }
+
+    /**
+     * Segment receiving new pages. Documents are only appended, so posting lists stay sorted.
+     */
+    private static final class MemorySegment extends Segment {
+        private final List<String> urls = new ArrayList<>();
+        private final List<String> texts = new ArrayList<>();
+        private final List<Long> versions = new ArrayList<>();
+        private final List<Long> crawlTimes = new ArrayList<>();
+        private final Map<Long, Postings> postings = new HashMap<>();
+        private long charCount;
+
+        synchronized int add(String url, String text, long[] trigrams, long version, long crawledAt) {
+            int doc = urls.size();
+            urls.add(url);
+            texts.add(text);
+            versions.add(version);
+            crawlTimes.add(crawledAt);
+            charCount += url.length() + text.length();
+            liveDocs.incrementAndGet();
+            for (long trigram : trigrams) {
+                postings.computeIfAbsent(trigram, key -> new Postings()).add(doc);
+            }
+            return doc;
+        }
+
+        synchronized long charCount() {
+            return charCount;
+        }
+
+        synchronized long[] sortedTerms() {
+            long[] terms = new long[postings.size()];
+            int i = 0;
+            for (long term : postings.keySet()) {
+                terms[i++] = term;
+            }
+            Arrays.sort(terms);
+            return terms;
+        }
+
+        @Override
+        synchronized int docCount() {
+            return urls.size();
+        }
+
+        @Override
+        synchronized String url(int doc) {
+            return urls.get(doc);
+        }
+
+        @Override
+        synchronized String text(int doc) {
+            return texts.get(doc);
+        }
+
+        @Override
+        synchronized long version(int doc) {
+            return versions.get(doc);
+        }
+
+        @Override
+        synchronized long crawledAt(int doc) {
+            return crawlTimes.get(doc);
+        }
+
+        @Override
+        synchronized int[] postings(long trigram) {
+            Postings list = postings.get(trigram);
+            return list == null ? NO_DOCS : Arrays.copyOf(list.docs, list.size);
+        }
+    }
+
+    private static final class Postings {
+        int[] docs = new int[4];
+        int size;
+
+        void add(int doc) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            docs[size++] = doc;
+        }
+    }
+
+    /**
+     * Immutable segment read from a memory-mapped file. Only absolute reads are used on the shared
+     * buffers, so lookups need no locking.
+     */
+    private static final class MappedSegment extends Segment {
+        final Path path;
+        private final ByteBuffer buffer;
+        private final CharBuffer chars;
+        private final int docCount;
+        private final int termCount;
+        private final int termsStart;
+        private final int postingsStart;
+
+        private MappedSegment(Path path, ByteBuffer buffer, int docCount, int termCount, int charsStart) {
+            this.path = path;
+            this.buffer = buffer;
+            this.docCount = docCount;
+            this.termCount = termCount;
+            this.termsStart = HEADER_BYTES + docCount * DOC_ENTRY_BYTES;
+            this.postingsStart = termsStart + termCount * TERM_ENTRY_BYTES;
+            this.chars = buffer.duplicate().position(charsStart).slice().asCharBuffer();
+        }
+
+        static MappedSegment open(Path path) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                    throw new IOException("Invalid index segment size: " + size);
+                }
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                    throw new IOException("Not an index segment: " + path);
+                }
+                int docCount = buffer.getInt(8);
+                int termCount = buffer.getInt(12);
+                long charsStart = buffer.getLong(16);
+                if (docCount < 0 || termCount < 0 || charsStart > size) {
+                    throw new IOException("Corrupted index segment header: " + path);
+                }
+                return new MappedSegment(path, buffer, docCount, termCount, (int) charsStart);
+            }
+        }
+
+        @Override
+        int docCount() {
+            return docCount;
+        }
+
+        @Override
+        String url(int doc) {
+            int entry = docEntry(doc);
+            return chars.subSequence(buffer.getInt(entry + 16), buffer.getInt(entry + 16) + buffer.getInt(entry + 20)).toString();
+        }
+
+        @Override
+        CharSequence text(int doc) {
+            int entry = docEntry(doc);
+            return chars.subSequence(buffer.getInt(entry + 24), buffer.getInt(entry + 24) + buffer.getInt(entry + 28));
+        }
+
+        @Override
+        long version(int doc) {
+            return buffer.getLong(docEntry(doc));
+        }
+
+        @Override
+        long crawledAt(int doc) {
+            return buffer.getLong(docEntry(doc) + 8);
+        }
+
+        @Override
+        int[] postings(long trigram) {
+            int low = 0;
+            int high = termCount - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int entry = termsStart + mid * TERM_ENTRY_BYTES;
+                long term = buffer.getLong(entry);
+                if (term < trigram) {
+                    low = mid + 1;
+                } else if (term > trigram) {
+                    high = mid - 1;
+                } else {
+                    int offset = postingsStart + buffer.getInt(entry + 8) * Integer.BYTES;
+                    int[] docs = new int[buffer.getInt(entry + 12)];
+                    for (int i = 0; i < docs.length; i++) {
+                        docs[i] = buffer.getInt(offset + i * Integer.BYTES);
+                    }
+                    return docs;
+                }
+            }
+            return NO_DOCS;
+        }
+
+        private int docEntry(int doc) {
+            return HEADER_BYTES + doc * DOC_ENTRY_BYTES;
+        }
+    }
+}
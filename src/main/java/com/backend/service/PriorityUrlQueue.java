@@ -0,0 +1,58 @@
+package com.backend.service;
+
+import java.net.URL;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * {@link IUrlQueue} on the heap that returns the URL with the highest priority first, and URLs of
+ * equal priority in the order they were added. URLs added without a priority get
+ * {@link #DEFAULT_PRIORITY}.
+ */
+public class PriorityUrlQueue implements IUrlQueue {
+    public static final int DEFAULT_PRIORITY = 0;
+
+    private static final Comparator<Entry> ORDER = Comparator.comparingInt((Entry entry) -> entry.priority).reversed()
+            .thenComparingLong(entry -> entry.sequence);
+
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>(ORDER);
+    private long nextSequence;
+
+    @Override
+    public void add(URL url) {
+        add(url, DEFAULT_PRIORITY);
+    }
+
+    @Override
+    public synchronized void add(URL url, int priority) {
+        queue.add(new Entry(url, priority, nextSequence++));
+    }
+
+    @Override
+    public synchronized URL poll() {
+        Entry entry = queue.poll();
+        return entry == null ? null : entry.url;
+    }
+
+    @Override
+    public synchronized int size() {
+        return queue.size();
+    }
+
+    @Override
+    public synchronized void close() {
+        queue.clear();
+    }
+
+    private static final class Entry {
+        final URL url;
+        final int priority;
+        final long sequence;
+
+        Entry(URL url, int priority, long sequence) {
+            this.url = url;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.backend.service;
+
+import com.backend.util.BodyReader;
+import com.backend.util.BodyScanner;
+import com.backend.util.FetchResult;
+import com.backend.util.HttpUtil;
+import com.backend.util.UrlCanonicalizer;
+import com.backend.util.UrlUtil;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * {@link CrawlService.Dependencies} that revalidates pages instead of downloading them again. Every
+ * page served with an {@code ETag} or {@code Last-Modified} header is kept in a
+ * {@link RevalidationStore}, and later fetches of it are made conditional. When the server answers
+ * {@code 304 Not Modified}, the stored copy is scanned, so keyword matching and link extraction work
+ * exactly as on a downloaded body while no body is transferred. Pages are stored under their
+ * canonical form with the whole query.
+ */
+public class RevalidatingDependencies extends CrawlService.Dependencies {
+    private static final Logger LOGGER = Logger.getLogger(RevalidatingDependencies.class.getName());
+
+    private final RevalidationStore store;
+    private final CrawlService.Dependencies delegate;
+    private final AtomicLong fetchCount = new AtomicLong();
+    private final AtomicLong notModifiedCount = new AtomicLong();
+    private final AtomicLong transferredChars = new AtomicLong();
+    private final AtomicLong reusedChars = new AtomicLong();
+
+    public RevalidatingDependencies(RevalidationStore store) {
+        this(store, new CrawlService.Dependencies());
+    }
+
+    public RevalidatingDependencies(RevalidationStore store, CrawlService.Dependencies delegate) {
+        this.store = store;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String getBodyTextFromUrl(URL url, int timeout) throws IOException {
+        String normalizedUrl = UrlUtil.normalizeUrl(url, UrlCanonicalizer.KEEP_QUERY);
+        RevalidationStore.StoredPage stored = store.load(normalizedUrl);
+        FetchResult result = stored == null
+                ? delegate.fetchIfModified(url, timeout, null, null)
+                : delegate.fetchIfModified(url, timeout, stored.etag, stored.lastModified);
+        fetchCount.incrementAndGet();
+
+        if (result.isNotModified()) {
+            if (stored == null) {
+                throw new IOException("Unexpected 304 Not Modified for unconditional request to URL: " + url);
+            }
+            notModifiedCount.incrementAndGet();
+            reusedChars.addAndGet(stored.text.length());
+            if (result.hasValidators() && !sameValidators(stored, result)) {
+                store(normalizedUrl, stored.text, result);
+            }
+            return stored.text;
+        }
+
+        String body = result.getBody();
+        transferredChars.addAndGet(body.length());
+        // Servers that send validators but ignore conditional requests return the same body again;
+        // its digest shows that the stored copy does not need to be rewritten.
+        if (result.hasValidators() && (stored == null || !sameValidators(stored, result)
+                || !Arrays.equals(stored.digest, RevalidationStore.digest(body)))) {
+            store(normalizedUrl, body, result);
+        }
+        return body;
+    }
+
+    /**
+     * Scans the stored copy of an unmodified page, or the downloaded body otherwise. Bodies are read
+     * in full so they can be stored, even when the scanner stops early.
+     */
+    @Override
+    public void scanBodyFromUrl(URL url, int timeout, BodyScanner scanner) throws IOException {
+        HttpUtil.scanString(getBodyTextFromUrl(url, timeout), scanner);
+    }
+
+    @Override
+    public FetchResult fetchIfModified(URL url, int timeout, String etag, String lastModified) throws IOException {
+        return delegate.fetchIfModified(url, timeout, etag, lastModified);
+    }
+
+    @Override
+    public void readBodyFromUrl(URL url, int timeout, BodyReader reader) throws IOException {
+        delegate.readBodyFromUrl(url, timeout, reader);
+    }
+
+    public long getFetchCount() {
+        return fetchCount.get();
+    }
+
+    /**
+     * Returns the number of fetches answered with {@code 304 Not Modified} and served from the store.
+     */
+    public long getNotModifiedCount() {
+        return notModifiedCount.get();
+    }
+
+    /**
+     * Returns the number of body characters downloaded.
+     */
+    public long getTransferredChars() {
+        return transferredChars.get();
+    }
+
+    /**
+     * Returns the number of body characters served from stored copies instead of being downloaded.
+     */
+    public long getReusedChars() {
+        return reusedChars.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RevalidatingDependencies{fetches=%d, notModified=%d, transferredChars=%d, reusedChars=%d}",
+                getFetchCount(), getNotModifiedCount(), getTransferredChars(), getReusedChars());
+    }
+
+    private void store(String normalizedUrl, String text, FetchResult result) {
+        try {
+            store.save(normalizedUrl, text, result.getEtag(), result.getLastModified());
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to store copy of URL: " + normalizedUrl, e);
+        }
+    }
+
+    private static boolean sameValidators(RevalidationStore.StoredPage stored, FetchResult result) {
+        return Objects.equals(stored.etag, result.getEtag()) && Objects.equals(stored.lastModified, result.getLastModified());
+    }
+}
@@ -0,0 +1,162 @@
+package com.backend.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Persistent store of page copies together with the validators ({@code ETag} and
+ * {@code Last-Modified}) their server sent, so later crawls can ask whether a page changed instead of
+ * downloading it again.
+ *
+ * <p>Each page is kept in its own gzip-compressed file named after the SHA-256 digest of its
+ * normalized URL. The file also holds the digest of the page text, which is checked when the page is
+ * read back, so a damaged copy is discarded and fetched again rather than scanned.
+ */
+public class RevalidationStore {
+    private static final Logger LOGGER = Logger.getLogger(RevalidationStore.class.getName());
+
+    private static final int MAGIC = 0x52564c44;
+    private static final int VERSION = 1;
+    private static final String FILE_SUFFIX = ".page";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Path directory;
+
+    /**
+     * Opens the store in {@code directory}, creating the directory if needed.
+     *
+     * @param directory the directory holding the stored pages.
+     */
+    public RevalidationStore(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * Returns the stored copy of {@code normalizedUrl}, or {@code null} if there is none or it cannot
+     * be read.
+     */
+    StoredPage load(String normalizedUrl) {
+        Path file = fileFor(normalizedUrl);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file))))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || !normalizedUrl.equals(in.readUTF())) {
+                return null;
+            }
+            String etag = in.readBoolean() ? in.readUTF() : null;
+            String lastModified = in.readBoolean() ? in.readUTF() : null;
+            byte[] digest = new byte[in.readUnsignedByte()];
+            in.readFully(digest);
+            byte[] text = new byte[in.readInt()];
+            in.readFully(text);
+            if (!Arrays.equals(digest, digest(text))) {
+                LOGGER.log(Level.WARNING, "Discarding damaged stored copy of URL: {0}", normalizedUrl);
+                Files.deleteIfExists(file);
+                return null;
+            }
+            return new StoredPage(new String(text, StandardCharsets.UTF_8), etag, lastModified, digest);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to read stored copy of URL: " + normalizedUrl, e);
+            return null;
+        }
+    }
+
+    /**
+     * Stores {@code text} with its validators as the copy of {@code normalizedUrl}, replacing any
+     * earlier one. The file is written under a temporary name first, so readers never see a partial copy.
+     */
+    StoredPage save(String normalizedUrl, String text, String etag, String lastModified) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        byte[] digest = digest(bytes);
+        Path file = fileFor(normalizedUrl);
+        Files.createDirectories(file.getParent());
+        Path temp = file.resolveSibling(file.getFileName() + "." + Thread.currentThread().getId() + TEMP_SUFFIX);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(temp))))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(normalizedUrl);
+            writeOptional(out, etag);
+            writeOptional(out, lastModified);
+            out.writeByte(digest.length);
+            out.write(digest);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new StoredPage(text, etag, lastModified, digest);
+    }
+
+    /**
+     * Returns the SHA-256 digest of the UTF-8 encoding of {@code text}.
+     */
+    static byte[] digest(String text) {
+        return digest(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] digest(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Spreads files over 256 subdirectories named after the first byte of the URL digest, so no single
+     * directory grows too large on big sites.
+     */
+    private Path fileFor(String normalizedUrl) {
+        String name = hex(digest(normalizedUrl));
+        return directory.resolve(name.substring(0, 2)).resolve(name + FILE_SUFFIX);
+    }
+
+    private static void writeOptional(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * A stored page copy with the validators it was served with.
+     */
+    static final class StoredPage {
+        final String text;
+        final String etag;
+        final String lastModified;
+        final byte[] digest;
+
+        StoredPage(String text, String etag, String lastModified, byte[] digest) {
+            this.text = text;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.digest = digest;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.backend.service;
+
+import com.backend.util.BodyReader;
+import com.backend.util.BodyScanner;
+import com.backend.util.FetchResult;
+import com.backend.util.HttpStatusException;
+import com.backend.util.ResponseHeaders;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.net.http.HttpTimeoutException;
+
+/**
+ * {@link CrawlService.Dependencies} that sends every fetch through a shared {@link FetchScheduler},
+ * reporting back whether the host answered normally or showed signs of overload. It belongs directly
+ * above the network fetcher, so pages served from caches or stored copies are not throttled.
+ *
+ * <p>Fetches report their latency up to the response headers, which the fetchers announce through
+ * {@link ResponseHeaders}, so slow transfers of large pages are not taken for an overloaded host.
+ * Streamed fetches from a delegate that does not announce them report it up to the first chunk of the
+ * body, which arrives right after the headers.
+ */
+public class ScheduledDependencies extends CrawlService.Dependencies {
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final int SERVICE_UNAVAILABLE = 503;
+
+    private final FetchScheduler scheduler;
+    private final CrawlService.Dependencies delegate;
+
+    public ScheduledDependencies(FetchScheduler scheduler) {
+        this(scheduler, new CrawlService.Dependencies());
+    }
+
+    public ScheduledDependencies(FetchScheduler scheduler, CrawlService.Dependencies delegate) {
+        this.scheduler = scheduler;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String getBodyTextFromUrl(URL url, int timeout) throws IOException {
+        return schedule(url, permit -> delegate.getBodyTextFromUrl(url, timeout));
+    }
+
+    @Override
+    public boolean supportsBodyScanning() {
+        return delegate.supportsBodyScanning();
+    }
+
+    @Override
+    public void scanBodyFromUrl(URL url, int timeout, BodyScanner scanner) throws IOException {
+        schedule(url, permit -> {
+            delegate.scanBodyFromUrl(url, timeout, (chars, offset, length) -> {
+                permit.responded();
+                return scanner.onChars(chars, offset, length);
+            });
+            return null;
+        });
+    }
+
+    @Override
+    public FetchResult fetchIfModified(URL url, int timeout, String etag, String lastModified) throws IOException {
+        return schedule(url, permit -> delegate.fetchIfModified(url, timeout, etag, lastModified));
+    }
+
+    @Override
+    public void readBodyFromUrl(URL url, int timeout, BodyReader reader) throws IOException {
+        schedule(url, permit -> {
+            delegate.readBodyFromUrl(url, timeout, (body, contentType) -> {
+                permit.responded();
+                reader.read(body, contentType);
+            });
+            return null;
+        });
+    }
+
+    public FetchScheduler getScheduler() {
+        return scheduler;
+    }
+
+    @SuppressWarnings("try")
+    private <T> T schedule(URL url, Fetch<T> fetch) throws IOException {
+        FetchScheduler.Permit permit = scheduler.acquire(url);
+        FetchScheduler.Outcome outcome = FetchScheduler.Outcome.FAILURE;
+        try (ResponseHeaders.Binding ignored = ResponseHeaders.bind(permit::responded)) {
+            T result = fetch.run(permit);
+            outcome = FetchScheduler.Outcome.SUCCESS;
+            return result;
+        } catch (IOException e) {
+            outcome = outcomeOf(e);
+            throw e;
+        } finally {
+            permit.release(outcome);
+        }
+    }
+
+    /**
+     * Classifies a failed fetch. Fetchers wrap the underlying error, so the whole cause chain is checked.
+     */
+    static FetchScheduler.Outcome outcomeOf(IOException error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SocketTimeoutException || cause instanceof HttpTimeoutException || cause instanceof ConnectException) {
+                return FetchScheduler.Outcome.OVERLOAD;
+            }
+            if (cause instanceof HttpStatusException) {
+                int status = ((HttpStatusException) cause).getStatusCode();
+                return status == TOO_MANY_REQUESTS || status == SERVICE_UNAVAILABLE
+                        ? FetchScheduler.Outcome.OVERLOAD : FetchScheduler.Outcome.FAILURE;
+            }
+        }
+        return FetchScheduler.Outcome.FAILURE;
+    }
+
+    private interface Fetch<T> {
+        T run(FetchScheduler.Permit permit) throws IOException;
+    }
+}
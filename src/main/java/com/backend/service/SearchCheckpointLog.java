@@ -0,0 +1,449 @@
+package com.backend.service;
+
+import com.backend.model.ISearchOperation;
+import com.backend.util.MetricsRegistry;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only checkpoint logs of the crawls in progress, from which searches interrupted by a restart
+ * are resumed under their original IDs instead of being crawled again from scratch.
+ *
+ * <p>Each crawl has its own log, named after the ID of its frontier, recording the searches subscribed
+ * to it, the results they found, the URLs queued and the pages scanned. Crawl workers only append
+ * records to an in-memory buffer. A background thread writes the records buffered for every log each
+ * {@code commitIntervalMillis} as a single frame and syncs each log once (a group commit), so a crash
+ * loses at most the last interval of work. Frames carry a CRC-32 checksum, and a log is read back up
+ * to its last intact frame.
+ */
+public class SearchCheckpointLog implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(SearchCheckpointLog.class.getName());
+
+    public static final long DEFAULT_COMMIT_INTERVAL_MILLIS = 200;
+
+    private static final int MAGIC = 0x434b5054;
+    private static final int VERSION = 1;
+    private static final String FILE_SUFFIX = ".log";
+    private static final int FRAME_HEADER_BYTES = 8;
+    private static final byte JOINED = 1;
+    private static final byte RESULT = 2;
+    private static final byte FINISHED = 3;
+    private static final byte QUEUED = 4;
+    private static final byte SCANNED = 5;
+    private static final LongAdder COMMITS = MetricsRegistry.global()
+            .counter("crawler_checkpoint_commits_total", "Checkpoint frames written and synced to disk.");
+    private static final LongAdder BYTES_WRITTEN = MetricsRegistry.global()
+            .counter("crawler_checkpoint_bytes_written_total", "Bytes appended to checkpoint logs.");
+
+    private final Path directory;
+    private final Set<Checkpoint> checkpoints = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService writer;
+
+    /**
+     * Opens the log in {@code directory} with the default commit interval.
+     */
+    public SearchCheckpointLog(Path directory) throws IOException {
+        this(directory, DEFAULT_COMMIT_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Opens the log in {@code directory}, creating the directory if needed.
+     *
+     * @param directory            the directory holding one log file per crawl.
+     * @param commitIntervalMillis how often (in milliseconds) buffered records are written and synced.
+     */
+    public SearchCheckpointLog(Path directory, long commitIntervalMillis) throws IOException {
+        if (commitIntervalMillis < 1) {
+            throw new IllegalArgumentException("Commit interval must be positive");
+        }
+        this.directory = directory;
+        Files.createDirectories(directory);
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "search-checkpoint-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.scheduleWithFixedDelay(this::commitAll, commitIntervalMillis, commitIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts the log of a new crawl.
+     *
+     * @param crawlId the ID of the crawl's frontier, which names the log.
+     * @param shared  whether searches are coalesced into the crawl.
+     * @param baseUrl the URL the crawl starts from.
+     */
+    Checkpoint create(String crawlId, boolean shared, String baseUrl) {
+        Checkpoint checkpoint = new Checkpoint(crawlId, shared, baseUrl, directory.resolve(crawlId + FILE_SUFFIX), 0, false);
+        checkpoint.writeHeader();
+        checkpoints.add(checkpoint);
+        return checkpoint;
+    }
+
+    /**
+     * Returns the logs left behind by crawls that did not end, typically because the service was shut
+     * down. They record nothing until they have been replayed and {@link Checkpoint#restored} is called.
+     * Logs that cannot be read are deleted.
+     */
+    List<Checkpoint> recover() {
+        List<Checkpoint> recovered = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + FILE_SUFFIX)) {
+            for (Path file : files) {
+                Checkpoint checkpoint = readHeader(file);
+                if (checkpoint == null) {
+                    LOGGER.log(Level.WARNING, "Discarding unreadable checkpoint log: {0}", file);
+                    Files.deleteIfExists(file);
+                    continue;
+                }
+                checkpoints.add(checkpoint);
+                recovered.add(checkpoint);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to list the checkpoint logs in " + directory, e);
+        }
+        return recovered;
+    }
+
+    /**
+     * Writes the records still buffered and stops the writer. The logs of crawls that have not ended
+     * are kept, so their searches can be resumed on the next start.
+     */
+    @Override
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        commitAll();
+        for (Checkpoint checkpoint : checkpoints) {
+            checkpoint.closeChannel();
+        }
+    }
+
+    private synchronized void commitAll() {
+        for (Checkpoint checkpoint : checkpoints) {
+            if (checkpoint.discarded) {
+                checkpoint.closeChannel();
+                checkpoints.remove(checkpoint);
+                try {
+                    Files.deleteIfExists(checkpoint.file);
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Failed to delete checkpoint log: " + checkpoint.file, e);
+                }
+            } else if (checkpoint.recording) {
+                try {
+                    checkpoint.commit();
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Failed to write checkpoint log: " + checkpoint.file + "; no longer checkpointing this crawl", e);
+                    checkpoint.recording = false;
+                    checkpoint.closeChannel();
+                    checkpoints.remove(checkpoint);
+                }
+            }
+        }
+    }
+
+    private static Checkpoint readHeader(Path file) {
+        String name = file.getFileName().toString();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            byte[] frame = readFrame(in);
+            if (frame == null) {
+                return null;
+            }
+            DataInputStream header = new DataInputStream(new ByteArrayInputStream(frame));
+            if (header.readInt() != MAGIC || header.readInt() != VERSION) {
+                return null;
+            }
+            boolean shared = header.readBoolean();
+            String baseUrl = header.readUTF();
+            return new Checkpoint(name.substring(0, name.length() - FILE_SUFFIX.length()), shared, baseUrl, file,
+                    FRAME_HEADER_BYTES + frame.length, true);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads the next frame, or returns {@code null} at the end of the log or at a frame that was only
+     * partly written or is damaged.
+     */
+    private static byte[] readFrame(DataInputStream in) throws IOException {
+        try {
+            int length = in.readInt();
+            int checksum = in.readInt();
+            if (length < 0) {
+                return null;
+            }
+            byte[] frame = in.readNBytes(length);
+            return frame.length == length && checksum(frame, length) == checksum ? frame : null;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private static int checksum(byte[] bytes, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, length);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Receives the records of a log in the order they were made.
+     */
+    interface RecordListener {
+        void onJoined(String searchId, String keyword);
+
+        void onResult(String searchId, String url);
+
+        void onFinished(String searchId);
+
+        void onQueued(String url);
+
+        void onScanned(String url);
+    }
+
+    /**
+     * The log of one crawl. Records are appended under the checkpoint's lock, so records made under the
+     * crawl's own lock keep that order in the log.
+     */
+    static final class Checkpoint {
+        final String crawlId;
+        final boolean shared;
+        final String baseUrl;
+
+        private final Path file;
+        private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private DataOutputStream out = new DataOutputStream(buffer);
+        private byte[] header;
+        private volatile boolean recording;
+        private volatile boolean discarded;
+        private long committedLength;
+        private FileChannel channel;
+
+        private Checkpoint(String crawlId, boolean shared, String baseUrl, Path file, long committedLength, boolean recovered) {
+            this.crawlId = crawlId;
+            this.shared = shared;
+            this.baseUrl = baseUrl;
+            this.file = file;
+            this.committedLength = committedLength;
+            this.recording = !recovered;
+        }
+
+        /**
+         * Records that {@code searchOperation} subscribed to the crawl, together with the results it
+         * already had.
+         */
+        void joined(ISearchOperation searchOperation) {
+            synchronized (this) {
+                append(JOINED, searchOperation.getId(), searchOperation.getKeyword());
+                for (String url : searchOperation.getResults(0, Integer.MAX_VALUE)) {
+                    append(RESULT, searchOperation.getId(), url);
+                }
+            }
+        }
+
+        void result(String searchId, String url) {
+            append(RESULT, searchId, url);
+        }
+
+        /**
+         * Records that a search got all the results it needs while the crawl goes on for others.
+         */
+        void finished(String searchId) {
+            append(FINISHED, searchId, null);
+        }
+
+        void queued(URL url) {
+            append(QUEUED, url.toString(), null);
+        }
+
+        void scanned(URL url) {
+            append(SCANNED, url.toString(), null);
+        }
+
+        /**
+         * Marks the crawl as over, so its log is deleted on the next commit.
+         */
+        void discard() {
+            recording = false;
+            discarded = true;
+        }
+
+        /**
+         * Starts recording again once the crawl has been rebuilt from the log.
+         */
+        void restored() {
+            if (!discarded) {
+                recording = true;
+            }
+        }
+
+        /**
+         * Feeds the records of a recovered log to {@code listener}, up to its last intact frame.
+         */
+        void replay(RecordListener listener) throws IOException {
+            long length = 0;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                for (byte[] frame = readFrame(in); frame != null; frame = readFrame(in)) {
+                    if (length > 0) {
+                        replayFrame(frame, listener);
+                    }
+                    length += FRAME_HEADER_BYTES + frame.length;
+                }
+            }
+            synchronized (this) {
+                committedLength = length;
+            }
+        }
+
+        private static void replayFrame(byte[] frame, RecordListener listener) throws IOException {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(frame));
+            while (in.available() > 0) {
+                byte type = in.readByte();
+                String first = in.readUTF();
+                switch (type) {
+                    case JOINED:
+                        listener.onJoined(first, in.readUTF());
+                        break;
+                    case RESULT:
+                        listener.onResult(first, in.readUTF());
+                        break;
+                    case FINISHED:
+                        listener.onFinished(first);
+                        break;
+                    case QUEUED:
+                        listener.onQueued(first);
+                        break;
+                    case SCANNED:
+                        listener.onScanned(first);
+                        break;
+                    default:
+                        throw new IOException("Unknown checkpoint record type: " + type);
+                }
+            }
+        }
+
+        /**
+         * Prepares the header of a new log, written as a frame of its own before the first records.
+         */
+        private void writeHeader() {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream headerOut = new DataOutputStream(bytes)) {
+                headerOut.writeInt(MAGIC);
+                headerOut.writeInt(VERSION);
+                headerOut.writeBoolean(shared);
+                headerOut.writeUTF(baseUrl);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Base URL cannot be checkpointed: " + baseUrl, e);
+            }
+            header = bytes.toByteArray();
+        }
+
+        private synchronized void append(byte type, String first, String second) {
+            if (!recording) {
+                return;
+            }
+            int mark = buffer.size();
+            try {
+                out.writeByte(type);
+                out.writeUTF(first);
+                if (second != null) {
+                    out.writeUTF(second);
+                }
+            } catch (IOException e) {
+                // Only strings too long for the record format fail; the record is dropped whole.
+                buffer = truncated(buffer, mark);
+                out = new DataOutputStream(buffer);
+                LOGGER.log(Level.FINE, "Dropping checkpoint record too long to write for crawl: {0}", crawlId);
+            }
+        }
+
+        private static ByteArrayOutputStream truncated(ByteArrayOutputStream buffer, int length) {
+            ByteArrayOutputStream copy = new ByteArrayOutputStream(Math.max(32, length));
+            copy.write(buffer.toByteArray(), 0, length);
+            return copy;
+        }
+
+        private synchronized ByteArrayOutputStream drain() {
+            if (buffer.size() == 0) {
+                return null;
+            }
+            ByteArrayOutputStream records = buffer;
+            buffer = new ByteArrayOutputStream(Math.max(32, records.size()));
+            out = new DataOutputStream(buffer);
+            return records;
+        }
+
+        /**
+         * Appends the buffered records as one frame and syncs the log. Only the writer thread calls this.
+         */
+        private void commit() throws IOException {
+            ByteArrayOutputStream records = drain();
+            if (records == null) {
+                return;
+            }
+            if (channel == null) {
+                channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                // Drops a frame left partly written by a crash, so new frames follow the last intact one.
+                channel.truncate(committedLength);
+                channel.position(committedLength);
+                if (header != null) {
+                    writeFrame(header);
+                    header = null;
+                }
+            }
+            writeFrame(records.toByteArray());
+            channel.force(false);
+            COMMITS.increment();
+        }
+
+        private void writeFrame(byte[] bytes) throws IOException {
+            ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER_BYTES + bytes.length);
+            frame.putInt(bytes.length).putInt(checksum(bytes, bytes.length)).put(bytes).flip();
+            while (frame.hasRemaining()) {
+                channel.write(frame);
+            }
+            committedLength += frame.limit();
+            BYTES_WRITTEN.add(frame.limit());
+        }
+
+        private void closeChannel() {
+            if (channel == null) {
+                return;
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Failed to close checkpoint log: " + file, e);
+            }
+            channel = null;
+        }
+    }
+}
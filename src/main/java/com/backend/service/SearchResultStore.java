@@ -0,0 +1,108 @@
+package com.backend.service;
+
+import com.backend.model.CompletedSearch;
+import com.backend.model.SearchStatus;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Local file store for the results of completed searches that no longer fit in memory. Each search is
+ * written to its own JSON file, named after its ID, and read back only when it is requested again.
+ */
+public class SearchResultStore {
+    private static final Logger LOGGER = Logger.getLogger(SearchResultStore.class.getName());
+    private static final Gson GSON = new Gson();
+    private static final Pattern ID_PATTERN = Pattern.compile("[A-Za-z0-9-]{1,64}");
+    private static final String FILE_SUFFIX = ".json";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+
+    /**
+     * Opens the store in {@code directory}, creating the directory if needed.
+     *
+     * @param directory the directory holding one file per stored search.
+     */
+    public SearchResultStore(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * Writes {@code search} to the store, replacing any earlier copy. The file is written under a
+     * temporary name first, so a concurrent {@link #load} never sees a partial file.
+     */
+    public void save(CompletedSearch search) throws IOException {
+        Path file = fileFor(search.getId());
+        if (file == null) {
+            throw new IOException("Search ID cannot be used as a file name: " + search.getId());
+        }
+        StoredSearch stored = new StoredSearch();
+        stored.id = search.getId();
+        stored.keyword = search.getKeyword();
+        stored.status = search.getStatus();
+        stored.retryCount = search.getRetryCount();
+        stored.urls = search.getResults(0, Integer.MAX_VALUE);
+
+        Path temp = file.resolveSibling(file.getFileName() + TEMP_SUFFIX);
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            GSON.toJson(stored, writer);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Returns the stored search with the given ID, or {@code null} if there is none or it cannot be read.
+     */
+    public CompletedSearch load(String id) {
+        Path file = fileFor(id);
+        if (file == null) {
+            return null;
+        }
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            StoredSearch stored = GSON.fromJson(reader, StoredSearch.class);
+            if (stored == null || stored.status == null || stored.status == SearchStatus.ACTIVE || stored.urls == null) {
+                LOGGER.log(Level.WARNING, "Ignoring invalid stored search: {0}", file);
+                return null;
+            }
+            return new CompletedSearch(stored.id, stored.keyword, stored.status, stored.retryCount, stored.urls);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | JsonParseException e) {
+            LOGGER.log(Level.WARNING, "Failed to read stored search: " + file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Returns the file of the search with the given ID, or {@code null} if the ID is not a plain
+     * file name. IDs come from request paths, so anything else is rejected rather than resolved.
+     */
+    private Path fileFor(String id) {
+        if (id == null || !ID_PATTERN.matcher(id).matches()) {
+            return null;
+        }
+        return directory.resolve(id + FILE_SUFFIX);
+    }
+
+    private static class StoredSearch {
+        String id;
+        String keyword;
+        SearchStatus status;
+        int retryCount;
+        List<String> urls;
+    }
+}
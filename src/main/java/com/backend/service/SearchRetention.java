@@ -0,0 +1,158 @@
+package com.backend.service;
+
+import com.backend.model.CompletedSearch;
+import com.backend.model.ISearchOperation;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Registry of the search operations served by the API, with a retention policy for completed ones.
+ *
+ * <p>When a search completes, it is replaced by a compact {@link CompletedSearch} that keeps only its
+ * status and results. Completed searches are evicted once they are older than the configured time to
+ * live, or oldest first once there are more than the configured maximum. Evicted searches are written
+ * to a {@link SearchResultStore}, if one is configured, and loaded from it again when requested;
+ * otherwise they are forgotten.
+ *
+ * <p>Eviction runs on the calling thread whenever searches are registered, completed or looked up,
+ * so no background thread is needed.
+ */
+public class SearchRetention {
+    private static final Logger LOGGER = Logger.getLogger(SearchRetention.class.getName());
+
+    private final ConcurrentHashMap<String, ISearchOperation> operations = new ConcurrentHashMap<>();
+    private final Queue<Completion> completions = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger completedCount = new AtomicInteger();
+    private final boolean retainAll;
+    private final long ttlMillis;
+    private final int maxCompleted;
+    private final SearchResultStore store;
+
+    /**
+     * Constructs a new {@code SearchRetention} that forgets evicted searches.
+     *
+     * @param ttlMillis    how long (in milliseconds) a completed search is kept after it completes.
+     * @param maxCompleted the maximum number of completed searches kept in memory.
+     */
+    public SearchRetention(long ttlMillis, int maxCompleted) {
+        this(ttlMillis, maxCompleted, null);
+    }
+
+    /**
+     * Constructs a new {@code SearchRetention}.
+     *
+     * @param ttlMillis    how long (in milliseconds) a completed search is kept in memory after it completes.
+     * @param maxCompleted the maximum number of completed searches kept in memory.
+     * @param store        the store evicted searches are written to, or {@code null} to forget them.
+     */
+    public SearchRetention(long ttlMillis, int maxCompleted, SearchResultStore store) {
+        this(false, ttlMillis, maxCompleted, store);
+        if (ttlMillis < 0 || maxCompleted < 0) {
+            throw new IllegalArgumentException("Time to live and maximum count must not be negative");
+        }
+    }
+
+    private SearchRetention(boolean retainAll, long ttlMillis, int maxCompleted, SearchResultStore store) {
+        this.retainAll = retainAll;
+        this.ttlMillis = ttlMillis;
+        this.maxCompleted = maxCompleted;
+        this.store = store;
+    }
+
+    /**
+     * Returns a retention that keeps every search, with all of its crawl state, for as long as the
+     * service runs.
+     */
+    public static SearchRetention retainAll() {
+        return new SearchRetention(true, Long.MAX_VALUE, Integer.MAX_VALUE, null);
+    }
+
+    public void register(ISearchOperation searchOperation) {
+        operations.put(searchOperation.getId(), searchOperation);
+        evictExpired();
+    }
+
+    /**
+     * Compacts a search that is no longer active and starts its retention period.
+     */
+    public void complete(ISearchOperation searchOperation) {
+        if (retainAll) {
+            return;
+        }
+        CompletedSearch completed = CompletedSearch.of(searchOperation);
+        if (operations.replace(completed.getId(), searchOperation, completed)) {
+            completions.add(new Completion(completed.getId(), System.currentTimeMillis()));
+            completedCount.incrementAndGet();
+        }
+        evictExpired();
+    }
+
+    /**
+     * Returns the search with the given ID, loading it from the store if it has been evicted, or
+     * {@code null} if it is unknown.
+     */
+    public ISearchOperation get(String id) {
+        evictExpired();
+        ISearchOperation searchOperation = operations.get(id);
+        if (searchOperation == null && store != null) {
+            return store.load(id);
+        }
+        return searchOperation;
+    }
+
+    /**
+     * Returns the number of searches held in memory, active or completed.
+     */
+    public int size() {
+        return operations.size();
+    }
+
+    private void evictExpired() {
+        if (retainAll) {
+            return;
+        }
+        long expiredBefore = System.currentTimeMillis() - ttlMillis;
+        Completion oldest;
+        while ((oldest = completions.peek()) != null
+                && (oldest.completedAt <= expiredBefore || completedCount.get() > maxCompleted)) {
+            if (completions.remove(oldest)) {
+                completedCount.decrementAndGet();
+                evict(oldest.id);
+            }
+        }
+    }
+
+    /**
+     * Writes the search to the store before removing it, so it never appears missing in between.
+     */
+    private void evict(String id) {
+        ISearchOperation searchOperation = operations.get(id);
+        if (searchOperation == null) {
+            return;
+        }
+        if (store != null) {
+            try {
+                store.save(CompletedSearch.of(searchOperation));
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to store search ID: " + id + "; its results are discarded", e);
+            }
+        }
+        operations.remove(id, searchOperation);
+    }
+
+    private static final class Completion {
+        final String id;
+        final long completedAt;
+
+        Completion(String id, long completedAt) {
+            this.id = id;
+            this.completedAt = completedAt;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.backend.service;
+
+import com.backend.util.MetricsRegistry;
+import com.backend.util.SitemapParser;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Discovers the pages of a site from the sitemaps and feeds it publishes, so a crawl can queue them in
+ * bulk instead of finding them one link at a time, including pages no other page links to.
+ *
+ * <p>The documents read are those listed by the {@code Sitemap:} lines of {@code robots.txt}, or
+ * {@code /sitemap.xml} if there are none. Each may be a sitemap, a sitemap index, or an RSS or Atom
+ * feed, optionally gzip-compressed. Sitemap indexes are followed breadth first, only to sitemaps on
+ * their own host, and at most {@code maxSitemaps} documents are read per crawl. Documents that cannot
+ * be fetched or parsed are skipped.
+ */
+class SitemapSeeder {
+    private static final Logger LOGGER = Logger.getLogger(SitemapSeeder.class.getName());
+
+    static final int DEFAULT_MAX_SITEMAPS = 1000;
+
+    private static final LongAdder SITEMAPS_READ = MetricsRegistry.global()
+            .counter("crawler_sitemaps_read_total", "Sitemaps and feeds fetched and parsed to seed crawls.");
+    private static final LongAdder URLS_SEEDED = MetricsRegistry.global()
+            .counter("crawler_sitemap_urls_total", "Page URLs found in sitemaps and feeds.");
+
+    private final CrawlService.Dependencies dependencies;
+    private final int timeout;
+    private final int maxSitemaps;
+
+    /**
+     * Receives the pages found, resolved against the document that listed them.
+     */
+    interface PageSink {
+        /**
+         * @return {@code true} to keep seeding, {@code false} to stop.
+         */
+        boolean onPage(URL url);
+    }
+
+    SitemapSeeder(CrawlService.Dependencies dependencies, int timeout) {
+        this(dependencies, timeout, DEFAULT_MAX_SITEMAPS);
+    }
+
+    /**
+     * Constructs a new {@code SitemapSeeder}.
+     *
+     * @param dependencies the dependencies documents are fetched through.
+     * @param timeout      the timeout (in milliseconds) for each fetch.
+     * @param maxSitemaps  the maximum number of sitemaps and feeds read per crawl.
+     */
+    SitemapSeeder(CrawlService.Dependencies dependencies, int timeout, int maxSitemaps) {
+        this.dependencies = dependencies;
+        this.timeout = timeout;
+        this.maxSitemaps = maxSitemaps;
+    }
+
+    /**
+     * Feeds the pages listed by the sitemaps of the site at {@code baseUrl} to {@code sink}, as they are
+     * parsed, until all have been read, the sink stops or the thread is interrupted.
+     *
+     * @return the number of pages found.
+     */
+    long seed(URL baseUrl, PageSink sink) {
+        Queue<URL> sitemaps = new ArrayDeque<>(findSitemaps(baseUrl));
+        Set<String> seen = new HashSet<>();
+        for (URL sitemap : sitemaps) {
+            seen.add(sitemap.toString());
+        }
+        Seeding seeding = new Seeding(sink, sitemaps, seen, maxSitemaps);
+        int read = 0;
+        while (!sitemaps.isEmpty() && read < maxSitemaps && !seeding.stopped && !Thread.currentThread().isInterrupted()) {
+            seeding.current = sitemaps.poll();
+            read++;
+            try {
+                dependencies.readBodyFromUrl(seeding.current, timeout, (body, contentType) -> SitemapParser.parse(body, seeding));
+                SITEMAPS_READ.increment();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Skipping unreadable sitemap: {0} ({1})", new Object[]{seeding.current, e.getMessage()});
+            }
+        }
+        return seeding.pages;
+    }
+
+    /**
+     * Returns the sitemaps declared in {@code robots.txt}, or the conventional {@code /sitemap.xml}.
+     */
+    private List<URL> findSitemaps(URL baseUrl) {
+        List<URL> sitemaps = new ArrayList<>();
+        try {
+            URL robots = new URL(baseUrl, "/robots.txt");
+            dependencies.readBodyFromUrl(robots, timeout, (body, contentType) -> {
+                for (String sitemap : SitemapParser.parseRobots(body)) {
+                    try {
+                        sitemaps.add(new URL(robots, sitemap));
+                    } catch (MalformedURLException e) {
+                        LOGGER.log(Level.FINE, "Malformed sitemap URL in robots.txt: {0}", sitemap);
+                    }
+                }
+            });
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "No robots.txt for {0} ({1})", new Object[]{baseUrl, e.getMessage()});
+        }
+        if (sitemaps.isEmpty()) {
+            try {
+                sitemaps.add(new URL(baseUrl, "/sitemap.xml"));
+            } catch (MalformedURLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return sitemaps;
+    }
+
+    /**
+     * Parser listener for one seeding run, which resolves entries against the document being read.
+     */
+    private static final class Seeding implements SitemapParser.Listener {
+        private final PageSink sink;
+        private final Queue<URL> sitemaps;
+        private final Set<String> seen;
+        private final int maxSitemaps;
+        URL current;
+        long pages;
+        boolean stopped;
+
+        Seeding(PageSink sink, Queue<URL> sitemaps, Set<String> seen, int maxSitemaps) {
+            this.sink = sink;
+            this.sitemaps = sitemaps;
+            this.seen = seen;
+            this.maxSitemaps = maxSitemaps;
+        }
+
+        @Override
+        public boolean onPage(String url) {
+            URL page;
+            try {
+                page = new URL(current, url);
+            } catch (MalformedURLException e) {
+                LOGGER.log(Level.FINE, "Malformed page URL in sitemap: {0}", url);
+                return true;
+            }
+            pages++;
+            URLS_SEEDED.increment();
+            if (!sink.onPage(page)) {
+                stopped = true;
+            }
+            return !stopped;
+        }
+
+        @Override
+        public void onSitemap(String url) {
+            try {
+                URL sitemap = new URL(current, url);
+                // Sitemaps beyond the per-crawl limit would never be read, so they are not kept either.
+                if (seen.size() < maxSitemaps && sitemap.getHost().equals(current.getHost()) && seen.add(sitemap.toString())) {
+                    sitemaps.add(sitemap);
+                }
+            } catch (MalformedURLException e) {
+                LOGGER.log(Level.FINE, "Malformed sitemap URL in sitemap index: {0}", url);
+            }
+        }
+    }
+}
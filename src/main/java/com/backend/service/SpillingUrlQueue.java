@@ -0,0 +1,240 @@
+package com.backend.service;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * {@link IUrlQueue} that keeps a bounded head of URLs on the heap and spills the rest to
+ * memory-mapped segment files, so a crawl can queue millions of links with a fixed heap budget.
+ *
+ * <p>Spilled URLs are stored as length-prefixed UTF-8 strings. Segments are filled and drained in
+ * order, and a drained segment is reused for new URLs rather than unmapped, so the files form a ring
+ * that only grows while the queue does. The head is refilled from the oldest segment in batches, and
+ * URLs added while anything is spilled go to disk as well, which keeps the queue first-in, first-out.
+ *
+ * <p>The files live in a private directory that is deleted on {@link #close()}. If a segment cannot be
+ * created, URLs are kept on the heap instead of being dropped.
+ */
+public class SpillingUrlQueue implements IUrlQueue {
+    private static final Logger LOGGER = Logger.getLogger(SpillingUrlQueue.class.getName());
+
+    public static final int DEFAULT_SEGMENT_BYTES = 4 * 1024 * 1024;
+
+    private static final int LENGTH_BYTES = Short.BYTES;
+    private static final int MAX_URL_BYTES = Short.MAX_VALUE;
+    private static final int REFILL_BATCH = 1024;
+    private static final int MAX_FREE_SEGMENTS = 2;
+    private static final String SEGMENT_PREFIX = "queue-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final Path directory;
+    private final int memoryCapacity;
+    private final int segmentBytes;
+
+    private final ArrayDeque<URL> head = new ArrayDeque<>();
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    private final ArrayDeque<Segment> freeSegments = new ArrayDeque<>();
+    private int spilledCount;
+    private long spilledTotal;
+    private long nextSegmentNumber;
+    private boolean closed;
+
+    /**
+     * Constructs a new {@code SpillingUrlQueue} with segments of {@link #DEFAULT_SEGMENT_BYTES}.
+     *
+     * @param parentDirectory the directory in which the queue creates its private segment directory.
+     * @param memoryCapacity  the number of URLs kept on the heap before further ones are spilled to disk.
+     */
+    public SpillingUrlQueue(Path parentDirectory, int memoryCapacity) throws IOException {
+        this(parentDirectory, memoryCapacity, DEFAULT_SEGMENT_BYTES);
+    }
+
+    /**
+     * Constructs a new {@code SpillingUrlQueue}.
+     *
+     * @param parentDirectory the directory in which the queue creates its private segment directory.
+     * @param memoryCapacity  the number of URLs kept on the heap before further ones are spilled to disk.
+     * @param segmentBytes    the size of each memory-mapped segment file.
+     */
+    public SpillingUrlQueue(Path parentDirectory, int memoryCapacity, int segmentBytes) throws IOException {
+        if (memoryCapacity < 1 || segmentBytes < LENGTH_BYTES + 1) {
+            throw new IllegalArgumentException("Memory capacity and segment size must be positive");
+        }
+        Files.createDirectories(parentDirectory);
+        this.directory = Files.createTempDirectory(parentDirectory, "frontier-");
+        this.memoryCapacity = memoryCapacity;
+        this.segmentBytes = segmentBytes;
+    }
+
+    @Override
+    public synchronized void add(URL url) {
+        if ((segments.isEmpty() && head.size() < memoryCapacity) || closed || !spill(url)) {
+            head.add(url);
+        }
+    }
+
+    @Override
+    public synchronized URL poll() {
+        if (head.isEmpty() && spilledCount > 0) {
+            refill();
+        }
+        return head.poll();
+    }
+
+    @Override
+    public synchronized int size() {
+        return head.size() + spilledCount;
+    }
+
+    /**
+     * Returns the number of URLs currently stored on disk rather than on the heap.
+     */
+    public synchronized int getSpilledCount() {
+        return spilledCount;
+    }
+
+    /**
+     * Returns the total number of URLs ever spilled to disk.
+     */
+    public synchronized long getSpilledTotal() {
+        return spilledTotal;
+    }
+
+    /**
+     * Returns the number of segment files currently mapped, including drained ones kept for reuse.
+     */
+    public synchronized int getSegmentCount() {
+        return segments.size() + freeSegments.size();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        head.clear();
+        segments.clear();
+        freeSegments.clear();
+        spilledCount = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(directory);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to delete URL queue directory: " + directory, e);
+        }
+    }
+
+    /**
+     * Appends {@code url} to the newest segment, starting a new one when it is full. Returns
+     * {@code false} if the URL could not be written.
+     */
+    private boolean spill(URL url) {
+        byte[] bytes = url.toString().getBytes(StandardCharsets.UTF_8);
+        int recordBytes = LENGTH_BYTES + bytes.length;
+        if (bytes.length > MAX_URL_BYTES || recordBytes > segmentBytes) {
+            return false;
+        }
+        Segment tail = segments.peekLast();
+        if (tail == null || tail.buffer.remaining() < recordBytes) {
+            try {
+                tail = takeFreeSegment();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to create URL queue segment in " + directory + "; keeping URLs in memory", e);
+                return false;
+            }
+            segments.add(tail);
+        }
+        tail.buffer.putShort((short) bytes.length);
+        tail.buffer.put(bytes);
+        tail.count++;
+        spilledCount++;
+        spilledTotal++;
+        return true;
+    }
+
+    /**
+     * Moves up to one batch of the oldest spilled URLs to the head, recycling segments as they drain.
+     */
+    private void refill() {
+        int batch = Math.min(memoryCapacity, REFILL_BATCH);
+        while (head.size() < batch && spilledCount > 0) {
+            Segment segment = segments.peekFirst();
+            if (segment.readPosition == segment.buffer.position()) {
+                recycle(segments.pollFirst());
+                continue;
+            }
+            int length = segment.buffer.getShort(segment.readPosition);
+            byte[] bytes = new byte[length];
+            segment.buffer.get(segment.readPosition + LENGTH_BYTES, bytes);
+            segment.readPosition += LENGTH_BYTES + length;
+            segment.count--;
+            spilledCount--;
+            try {
+                head.add(new URL(new String(bytes, StandardCharsets.UTF_8)));
+            } catch (MalformedURLException e) {
+                // Dropping the URL would leave the crawl waiting for it forever.
+                throw new IllegalStateException("Corrupted URL queue segment: " + segment.path, e);
+            }
+        }
+        Segment oldest = segments.peekFirst();
+        if (oldest != null && oldest.count == 0) {
+            recycle(segments.pollFirst());
+        }
+    }
+
+    private Segment takeFreeSegment() throws IOException {
+        Segment segment = freeSegments.pollFirst();
+        if (segment != null) {
+            return segment;
+        }
+        Path path = directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, nextSegmentNumber++, SEGMENT_SUFFIX));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return new Segment(path, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes));
+        }
+    }
+
+    private void recycle(Segment segment) {
+        segment.buffer.clear();
+        segment.readPosition = 0;
+        segment.count = 0;
+        if (freeSegments.size() < MAX_FREE_SEGMENTS) {
+            freeSegments.add(segment);
+            return;
+        }
+        // The mapping itself is released once the buffer is garbage collected.
+        try {
+            Files.deleteIfExists(segment.path);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to delete drained URL queue segment: " + segment.path, e);
+        }
+    }
+
+    /**
+     * A segment file. URLs are written at the buffer position and read from {@code readPosition}.
+     */
+    private static final class Segment {
+        final Path path;
+        final MappedByteBuffer buffer;
+        int readPosition;
+        int count;
+
+        Segment(Path path, MappedByteBuffer buffer) {
+            this.path = path;
+            this.buffer = buffer;
+        }
+    }
+}
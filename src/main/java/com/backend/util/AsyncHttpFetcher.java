@@ -0,0 +1,442 @@
+package com.backend.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.Charset;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Logger;
+
+/**
+ * Page fetcher built on a single shared {@link HttpClient}. Connections are pooled and kept alive
+ * across requests, HTTP/2 is negotiated where the server supports it so concurrent requests to the
+ * same origin are multiplexed over one connection, and the number of requests in flight to any single
+ * host is capped without blocking the calling thread.
+ *
+ * <p>The request timeout of the client only covers the wait for the response headers. Responses read
+ * whole must also be complete within the timeout, and streamed bodies fail once a single read waits
+ * longer than it, as {@code HttpURLConnection} read timeouts do, so a server that stalls mid-body
+ * cannot hold a caller or its host permit forever.
+ */
+public class AsyncHttpFetcher {
+    private static final Logger LOGGER = Logger.getLogger(AsyncHttpFetcher.class.getName());
+    private static final ScheduledThreadPoolExecutor READ_TIMER = readTimer();
+
+    private final HttpClient client;
+    private final int maxConnectionsPerHost;
+    private final ConcurrentHashMap<String, HostLimiter> hostLimiters = new ConcurrentHashMap<>();
+    private final TransferStats transferStats = new TransferStats();
+
+    /**
+     * Constructs a new {@code AsyncHttpFetcher}.
+     *
+     * @param maxConnectionsPerHost the maximum number of requests in flight to a single host.
+     * @param connectTimeout        the timeout (in milliseconds) for establishing a connection.
+     */
+    public AsyncHttpFetcher(int maxConnectionsPerHost, int connectTimeout) {
+        if (maxConnectionsPerHost < 1) {
+            throw new IllegalArgumentException("Max connections per host must be at least 1");
+        }
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofMillis(connectTimeout))
+                .build();
+    }
+
+    /**
+     * Fetches the body of {@code url} without blocking. The returned future fails with an
+     * {@link IOException} if the request fails or the server does not answer with HTTP 200.
+     */
+    public CompletableFuture<String> fetchAsync(URL url, int timeout) {
+        HttpRequest request;
+        try {
+            request = buildRequest(url, timeout);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        TransferStats attributedTo = TransferStats.bound();
+        Redirects.Listener redirectListener = Redirects.bound();
+        return exchange(url, request, timeout, ResponseHeaders.bound())
+                .handle((response, error) -> {
+                    if (error != null) {
+                        throw new CompletionException(toIOException(url, unwrap(error)));
+                    }
+                    if (response.statusCode() != 200) {
+                        throw new CompletionException(new HttpStatusException(url, response.statusCode()));
+                    }
+                    Redirects.report(redirectListener, url, response.uri());
+                    return decodeBody(url, response, attributedTo);
+                });
+    }
+
+    /**
+     * Fetches the body of {@code url} unless it has not changed since the copy described by
+     * {@code etag} and {@code lastModified}, either of which may be {@code null}. Blocks until the
+     * response has been read; a {@code 304 Not Modified} answer transfers no body.
+     */
+    public FetchResult fetchIfModified(URL url, int timeout, String etag, String lastModified) throws IOException {
+        HttpRequest.Builder builder = requestBuilder(url, timeout);
+        if (etag != null) {
+            builder.header(HttpUtil.IF_NONE_MATCH, etag);
+        }
+        if (lastModified != null) {
+            builder.header(HttpUtil.IF_MODIFIED_SINCE, lastModified);
+        }
+        HttpRequest request = builder.build();
+
+        TransferStats attributedTo = TransferStats.bound();
+        Redirects.Listener redirectListener = Redirects.bound();
+        CompletableFuture<FetchResult> result = exchange(url, request, timeout, ResponseHeaders.bound())
+                .handle((response, error) -> {
+                    if (error != null) {
+                        throw new CompletionException(toIOException(url, unwrap(error)));
+                    }
+                    String responseEtag = response.headers().firstValue(HttpUtil.ETAG).orElse(null);
+                    String responseLastModified = response.headers().firstValue(HttpUtil.LAST_MODIFIED).orElse(null);
+                    if (response.statusCode() == 304) {
+                        return FetchResult.notModified(responseEtag, responseLastModified);
+                    }
+                    if (response.statusCode() != 200) {
+                        throw new CompletionException(new HttpStatusException(url, response.statusCode()));
+                    }
+                    Redirects.report(redirectListener, url, response.uri());
+                    return FetchResult.modified(decodeBody(url, response, attributedTo), responseEtag, responseLastModified);
+                });
+        return await(url, result, timeout);
+    }
+
+    /**
+     * Fetches the body of {@code url}, blocking until the response has been read.
+     */
+    public String fetch(URL url, int timeout) throws IOException {
+        return await(url, fetchAsync(url, timeout), timeout);
+    }
+
+    /**
+     * Streams the body of {@code url} to {@code scanner} as it arrives, decoded with the charset the
+     * server declares, and closes the response as soon as the scanner stops. Blocks the calling thread
+     * while waiting for a per-host permit.
+     */
+    public void scan(URL url, int timeout, BodyScanner scanner) throws IOException {
+        read(url, timeout, (body, contentType) -> HttpUtil.scanStream(body, HttpUtil.charsetOf(contentType), scanner));
+    }
+
+    /**
+     * Streams the body of {@code url}, decompressed but not decoded to text, to {@code reader}, and
+     * closes the response once the reader returns. Blocks the calling thread while waiting for a
+     * per-host permit.
+     */
+    public void read(URL url, int timeout, BodyReader reader) throws IOException {
+        HttpRequest request = buildRequest(url, timeout);
+        HostLimiter limiter = limiterFor(url);
+        CompletableFuture<Void> permit = limiter.acquire();
+        try {
+            permit.get();
+        } catch (InterruptedException e) {
+            if (!permit.cancel(false)) {
+                limiter.release();
+            }
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while fetching URL: " + url, e);
+        } catch (ExecutionException e) {
+            throw toIOException(url, unwrap(e));
+        }
+
+        try {
+            long startNanos = System.nanoTime();
+            HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            HttpUtil.FETCH_LATENCY.recordSince(startNanos);
+            ResponseHeaders.report();
+            try (InputStream body = new ReadTimeoutInputStream(response.body(), timeout)) {
+                if (response.statusCode() != 200) {
+                    throw new HttpStatusException(url, response.statusCode());
+                }
+                Redirects.report(Redirects.bound(), url, response.uri());
+                String contentEncoding = response.headers().firstValue(ContentDecoding.CONTENT_ENCODING_HEADER).orElse(null);
+                ContentDecoding.CountingInputStream wire = new ContentDecoding.CountingInputStream(body);
+                // Closing the decoding stream also releases the native memory of its inflater.
+                try (ContentDecoding.CountingInputStream decoded = new ContentDecoding.CountingInputStream(ContentDecoding.decode(wire, contentEncoding))) {
+                    try {
+                        reader.read(decoded, response.headers().firstValue("Content-Type").orElse(null));
+                    } finally {
+                        transferStats.record(wire.getCount(), decoded.getCount(), ContentDecoding.isCompressed(contentEncoding), TransferStats.bound());
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while fetching URL: " + url, e);
+        } catch (IOException e) {
+            throw toIOException(url, e);
+        } finally {
+            limiter.release();
+        }
+    }
+
+    private HttpRequest buildRequest(URL url, int timeout) throws IOException {
+        return requestBuilder(url, timeout).build();
+    }
+
+    private HttpRequest.Builder requestBuilder(URL url, int timeout) throws IOException {
+        try {
+            return HttpRequest.newBuilder(url.toURI())
+                    .timeout(Duration.ofMillis(timeout))
+                    .header(ContentDecoding.ACCEPT_ENCODING_HEADER, ContentDecoding.ACCEPT_ENCODING)
+                    .GET();
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            throw new IOException("Error fetching body text from URL: " + url, e);
+        }
+    }
+
+    /**
+     * Returns the bytes transferred by all requests made through this fetcher.
+     */
+    public TransferStats getTransferStats() {
+        return transferStats;
+    }
+
+    /**
+     * Sends {@code request} once a permit for the host of {@code url} is free, and reads the whole
+     * response. The returned future fails with a {@link TimeoutException} unless the permit is granted
+     * and the response read within {@code timeout} milliseconds. {@code headersListener}, if any, is
+     * told when the headers arrive, before the body is read.
+     */
+    private CompletableFuture<HttpResponse<byte[]>> exchange(URL url, HttpRequest request, int timeout,
+                                                             ResponseHeaders.Listener headersListener) {
+        HostLimiter limiter = limiterFor(url);
+        CompletableFuture<Void> permit = limiter.acquire();
+        return permit
+                .thenCompose(ignored -> send(request, timeout, headersListener).whenComplete((response, error) -> limiter.release()))
+                .orTimeout(timeout, TimeUnit.MILLISECONDS)
+                // A caller that gave up while queued for the permit no longer takes it.
+                .whenComplete((response, error) -> permit.cancel(false));
+    }
+
+    private CompletableFuture<HttpResponse<byte[]>> send(HttpRequest request, int timeout, ResponseHeaders.Listener headersListener) {
+        long startNanos = System.nanoTime();
+        CompletableFuture<HttpResponse<byte[]>> response = client.sendAsync(request, info -> {
+            ResponseHeaders.report(headersListener);
+            return HttpResponse.BodyHandlers.ofByteArray().apply(info);
+        });
+        // The request is abandoned once the deadline passes, so a stalled body does not keep the connection busy.
+        return response.copy()
+                .orTimeout(timeout, TimeUnit.MILLISECONDS)
+                .whenComplete((body, error) -> {
+                    HttpUtil.FETCH_LATENCY.recordSince(startNanos);
+                    if (error != null) {
+                        response.cancel(true);
+                    }
+                });
+    }
+
+    private static <T> T await(URL url, CompletableFuture<T> result, int timeout) throws IOException {
+        try {
+            return result.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while fetching URL: " + url, e);
+        } catch (ExecutionException | TimeoutException e) {
+            result.cancel(true);
+            throw toIOException(url, unwrap(e));
+        }
+    }
+
+    /**
+     * Decompresses and decodes a buffered response body, recording the bytes received and decoded.
+     * Used by the methods that return the whole body as a string anyway.
+     */
+    private String decodeBody(URL url, HttpResponse<byte[]> response, TransferStats attributedTo) {
+        String contentEncoding = response.headers().firstValue(ContentDecoding.CONTENT_ENCODING_HEADER).orElse(null);
+        byte[] body = response.body();
+        StringBuilder content = new StringBuilder();
+        ContentDecoding.CountingInputStream decoded = null;
+        try {
+            decoded = new ContentDecoding.CountingInputStream(ContentDecoding.decode(new ByteArrayInputStream(body), contentEncoding));
+            try (InputStream in = decoded) {
+                HttpUtil.scanStream(in, charsetOf(response), (chars, offset, length) -> {
+                    content.append(chars, offset, length);
+                    return true;
+                });
+            }
+        } catch (IOException e) {
+            throw new CompletionException(toIOException(url, e));
+        } finally {
+            transferStats.record(body.length, decoded == null ? 0 : decoded.getCount(), ContentDecoding.isCompressed(contentEncoding), attributedTo);
+        }
+        return content.toString();
+    }
+
+    private static Charset charsetOf(HttpResponse<?> response) {
+        return HttpUtil.charsetOf(response.headers().firstValue("Content-Type").orElse(null));
+    }
+
+    private HostLimiter limiterFor(URL url) {
+        return hostLimiters.computeIfAbsent(url.getHost(), host -> new HostLimiter(maxConnectionsPerHost));
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    private static IOException toIOException(URL url, Throwable error) {
+        if (error instanceof TimeoutException) {
+            error = new HttpTimeoutException("Response not complete within the timeout");
+        }
+        if (error instanceof HttpTimeoutException || error instanceof SocketTimeoutException) {
+            LOGGER.warning("Timeout occurred while fetching URL: " + url + " " + error.getMessage());
+            return new IOException("Timeout while fetching URL: " + url, error);
+        }
+        if (error instanceof IOException) {
+            return (IOException) error;
+        }
+        LOGGER.severe("Error fetching body text from URL: " + url + " " + error.getMessage());
+        return new IOException("Error fetching body text from URL: " + url, error);
+    }
+
+    private static ScheduledThreadPoolExecutor readTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "http-read-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
+    /**
+     * Response body that fails with a {@link SocketTimeoutException} when a read waits longer than the
+     * timeout. The body of the client blocks without a limit, so a timer closes it to wake the reader.
+     */
+    private static final class ReadTimeoutInputStream extends FilterInputStream {
+        private final long timeoutMillis;
+        private volatile boolean timedOut;
+
+        ReadTimeoutInputStream(InputStream in, long timeoutMillis) {
+            super(in);
+            this.timeoutMillis = timeoutMillis;
+        }
+
+        @Override
+        public int read() throws IOException {
+            ScheduledFuture<?> watchdog = startWatchdog();
+            int read;
+            try {
+                read = super.read();
+            } catch (IOException e) {
+                throw timedOut ? timeout(e) : e;
+            } finally {
+                watchdog.cancel(false);
+            }
+            return checkTimeout(read);
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            ScheduledFuture<?> watchdog = startWatchdog();
+            int read;
+            try {
+                read = super.read(buffer, offset, length);
+            } catch (IOException e) {
+                throw timedOut ? timeout(e) : e;
+            } finally {
+                watchdog.cancel(false);
+            }
+            return checkTimeout(read);
+        }
+
+        private ScheduledFuture<?> startWatchdog() {
+            return READ_TIMER.schedule(() -> {
+                timedOut = true;
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    LOGGER.fine("Failed to close a stalled response body: " + e.getMessage());
+                }
+            }, timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Closing the body ends a blocked read as if the body were complete, so a read that returns
+         * after the timer fired is a timeout whatever it returned.
+         */
+        private int checkTimeout(int read) throws SocketTimeoutException {
+            if (timedOut) {
+                throw timeout(null);
+            }
+            return read;
+        }
+
+        private SocketTimeoutException timeout(IOException cause) {
+            SocketTimeoutException timeout = new SocketTimeoutException("Read timed out after " + timeoutMillis + " ms");
+            timeout.initCause(cause);
+            return timeout;
+        }
+    }
+
+    /**
+     * Non-blocking counting semaphore: callers over the limit receive a future that completes once a
+     * running request for the same host releases its permit.
+     */
+    private static class HostLimiter {
+        private final int maxPermits;
+        private final Queue<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+        private int permitsInUse;
+
+        HostLimiter(int maxPermits) {
+            this.maxPermits = maxPermits;
+        }
+
+        synchronized CompletableFuture<Void> acquire() {
+            if (permitsInUse < maxPermits) {
+                permitsInUse++;
+                return CompletableFuture.completedFuture(null);
+            }
+            CompletableFuture<Void> waiter = new CompletableFuture<>();
+            waiters.add(waiter);
+            return waiter;
+        }
+
+        void release() {
+            while (true) {
+                CompletableFuture<Void> next;
+                synchronized (this) {
+                    next = waiters.poll();
+                    if (next == null) {
+                        permitsInUse--;
+                        return;
+                    }
+                }
+                // The permit is handed straight to the next waiter; complete it outside the lock since
+                // it starts that waiter's request. Waiters that gave up in the meantime are skipped.
+                if (next.complete(null)) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.backend.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads a response body as a byte stream, for bodies that are not text to be scanned, such as
+ * sitemaps that may be gzip files themselves. Any {@code Content-Encoding} has already been removed.
+ */
+@FunctionalInterface
+public interface BodyReader {
+    /**
+     * Consumes the body. The stream is closed by the caller once this returns, so implementations may
+     * stop reading early.
+     *
+     * @param body        the decoded response body.
+     * @param contentType the {@code Content-Type} of the response, or {@code null} if it has none.
+     */
+    void read(InputStream body, String contentType) throws IOException;
+}
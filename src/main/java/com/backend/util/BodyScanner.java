@@ -0,0 +1,15 @@
+package com.backend.util;
+
+/**
+ * Receives a response body as it is read, in decoded chunks. The chunk array is reused between calls,
+ * so implementations must copy anything they want to keep.
+ */
+@FunctionalInterface
+public interface BodyScanner {
+    /**
+     * Consumes the next chunk of the body.
+     *
+     * @return {@code true} to keep reading, {@code false} to stop and close the response early.
+     */
+    boolean onChars(char[] chars, int offset, int length);
+}
@@ -0,0 +1,86 @@
+package com.backend.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Consistent hash ring assigning keys to nodes. Each node is placed on the ring at
+ * {@code virtualNodes} points, so keys spread evenly and adding or removing a node only moves the
+ * keys between it and its neighbours. Every instance built from the same nodes assigns every key to
+ * the same node, whatever the order the nodes were given in.
+ */
+public class ConsistentHashRing {
+    public static final int DEFAULT_VIRTUAL_NODES = 128;
+
+    private final long[] points;
+    private final String[] owners;
+    private final List<String> nodes;
+
+    public ConsistentHashRing(Collection<String> nodes) {
+        this(nodes, DEFAULT_VIRTUAL_NODES);
+    }
+
+    /**
+     * Constructs a new {@code ConsistentHashRing}.
+     *
+     * @param nodes        the nodes keys are assigned to.
+     * @param virtualNodes the number of points each node occupies on the ring.
+     */
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        if (nodes.isEmpty() || virtualNodes < 1) {
+            throw new IllegalArgumentException("A hash ring needs at least one node and one virtual node per node");
+        }
+        this.nodes = List.copyOf(nodes);
+        long[][] entries = new long[this.nodes.size() * virtualNodes][];
+        int index = 0;
+        for (int node = 0; node < this.nodes.size(); node++) {
+            for (int replica = 0; replica < virtualNodes; replica++) {
+                entries[index++] = new long[]{hash(this.nodes.get(node) + "#" + replica), node};
+            }
+        }
+        // Ties, which are vanishingly rare, are broken by node name so the ring does not depend on input order.
+        Arrays.sort(entries, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0])
+                : this.nodes.get((int) a[1]).compareTo(this.nodes.get((int) b[1])));
+        this.points = new long[entries.length];
+        this.owners = new String[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            points[i] = entries[i][0];
+            owners[i] = this.nodes.get((int) entries[i][1]);
+        }
+    }
+
+    /**
+     * Returns the node owning {@code key}: the first one clockwise from the key's hash.
+     */
+    public String nodeFor(CharSequence key) {
+        int index = Arrays.binarySearch(points, hash(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    public List<String> getNodes() {
+        return new ArrayList<>(nodes);
+    }
+
+    /**
+     * FNV-1a over the characters of {@code text} followed by a 64-bit finalizer, so keys differing in
+     * a single character land far apart on the ring.
+     */
+    static long hash(CharSequence text) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
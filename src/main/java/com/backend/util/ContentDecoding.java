@@ -0,0 +1,122 @@
+package com.backend.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Streaming decoding of compressed response bodies. Requests advertise {@link #ACCEPT_ENCODING}, and
+ * the response stream is wrapped in a decoder for the {@code Content-Encoding} the server chose, so
+ * bodies are decompressed chunk by chunk as the scanners read them and never buffered in full.
+ */
+public final class ContentDecoding {
+    public static final String ACCEPT_ENCODING_HEADER = "Accept-Encoding";
+    public static final String CONTENT_ENCODING_HEADER = "Content-Encoding";
+    public static final String ACCEPT_ENCODING = "gzip, deflate";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private ContentDecoding() {
+    }
+
+    /**
+     * Returns whether {@code contentEncoding} denotes a compressed body.
+     */
+    public static boolean isCompressed(String contentEncoding) {
+        return contentEncoding != null && !contentEncoding.isBlank() && !"identity".equalsIgnoreCase(contentEncoding.trim());
+    }
+
+    /**
+     * Wraps {@code in} in a decoder for {@code contentEncoding}. Bodies without an encoding, or with
+     * {@code identity}, are returned as they are.
+     *
+     * @throws IOException if the encoding is not supported.
+     */
+    public static InputStream decode(InputStream in, String contentEncoding) throws IOException {
+        if (!isCompressed(contentEncoding)) {
+            return in;
+        }
+        switch (contentEncoding.trim().toLowerCase(Locale.ROOT)) {
+            case "gzip":
+            case "x-gzip":
+                return new GZIPInputStream(in, BUFFER_SIZE);
+            case "deflate":
+                return inflate(in);
+            default:
+                throw new IOException("Unsupported Content-Encoding: " + contentEncoding);
+        }
+    }
+
+    /**
+     * Decodes a {@code deflate} body. The encoding is defined as a zlib stream, but some servers send
+     * raw deflate data, so the zlib header is checked for first.
+     */
+    private static InputStream inflate(InputStream in) throws IOException {
+        PushbackInputStream pushback = new PushbackInputStream(in, 2);
+        int first = pushback.read();
+        int second = first == -1 ? -1 : pushback.read();
+        if (second != -1) {
+            pushback.unread(second);
+        }
+        if (first != -1) {
+            pushback.unread(first);
+        }
+        boolean zlibHeader = first != -1 && second != -1 && (first & 0x0f) == 8 && ((first << 8) | second) % 31 == 0;
+        Inflater inflater = new Inflater(!zlibHeader);
+        return new InflaterInputStream(pushback, inflater, BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    inflater.end();
+                }
+            }
+        };
+    }
+
+    /**
+     * Stream that counts the bytes read through it.
+     */
+    public static final class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        public CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.backend.util;
+
+/**
+ * Outcome of a conditional page fetch: either the body with the validators the server sent for it, or
+ * a {@code 304 Not Modified} answer confirming that the copy described by the request's validators is
+ * still current.
+ */
+public final class FetchResult {
+    private final boolean notModified;
+    private final String body;
+    private final String etag;
+    private final String lastModified;
+
+    private FetchResult(boolean notModified, String body, String etag, String lastModified) {
+        this.notModified = notModified;
+        this.body = body;
+        this.etag = etag;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Returns a result carrying a freshly transferred body and its {@code ETag} and
+     * {@code Last-Modified} headers, either of which may be {@code null}.
+     */
+    public static FetchResult modified(String body, String etag, String lastModified) {
+        return new FetchResult(false, body, etag, lastModified);
+    }
+
+    /**
+     * Returns a {@code 304 Not Modified} result, with the validators the server sent along, if any.
+     */
+    public static FetchResult notModified(String etag, String lastModified) {
+        return new FetchResult(true, null, etag, lastModified);
+    }
+
+    public boolean isNotModified() {
+        return notModified;
+    }
+
+    /**
+     * Returns the transferred body, or {@code null} if the page was not modified.
+     */
+    public String getBody() {
+        return body;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Returns whether the server sent a validator that a later request can be made conditional on.
+     */
+    public boolean hasValidators() {
+        return etag != null || lastModified != null;
+    }
+}
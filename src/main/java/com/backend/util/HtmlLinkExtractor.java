@@ -0,0 +1,509 @@
+package com.backend.util;
+
+/**
+ * Streaming HTML tokenizer that extracts link targets in a single linear pass over the body, without
+ * buffering the page or backtracking. It reports {@code <a href>}, {@code <area href>},
+ * {@code <link rel="canonical" href>}, {@code <frame src>} and {@code <iframe src>} targets as well as
+ * the {@code <base href>} of the document, and ignores anything inside comments, {@code <script>} and
+ * {@code <style>} elements. The text between tags is passed on as well, flagged when it is the anchor
+ * text of the last reported link, for listeners that rank links by their context.
+ *
+ * <p>The tokenizer is a {@link BodyScanner}, so it can be fed the same chunks as the keyword scan while
+ * the response is being read. Only attribute values that can yield a link are copied. Instances keep
+ * per-page state and are not thread-safe.
+ */
+public final class HtmlLinkExtractor implements BodyScanner {
+    private static final int MAX_NAME_LENGTH = 16;
+    private static final int MAX_VALUE_LENGTH = 4096;
+    private static final String COMMENT_END = "-->";
+    private static final int[] COMMENT_END_FALLBACK = fallbacks(COMMENT_END);
+    private static final String SCRIPT_END = "</script";
+    private static final int[] SCRIPT_END_FALLBACK = fallbacks(SCRIPT_END);
+    private static final String STYLE_END = "</style";
+    private static final int[] STYLE_END_FALLBACK = fallbacks(STYLE_END);
+
+    private static final int TEXT = 0;
+    private static final int TAG_OPEN = 1;
+    private static final int MARKUP_DECLARATION = 2;
+    private static final int COMMENT = 3;
+    private static final int BOGUS_COMMENT = 4;
+    private static final int END_TAG = 5;
+    private static final int TAG_NAME = 6;
+    private static final int BEFORE_ATTRIBUTE_NAME = 7;
+    private static final int ATTRIBUTE_NAME = 8;
+    private static final int AFTER_ATTRIBUTE_NAME = 9;
+    private static final int BEFORE_ATTRIBUTE_VALUE = 10;
+    private static final int ATTRIBUTE_VALUE_DOUBLE_QUOTED = 11;
+    private static final int ATTRIBUTE_VALUE_SINGLE_QUOTED = 12;
+    private static final int ATTRIBUTE_VALUE_UNQUOTED = 13;
+    private static final int RAW_TEXT = 14;
+    private static final int END_TAG_NAME = 15;
+
+    private static final int TAG_OTHER = 0;
+    private static final int TAG_ANCHOR = 1;
+    private static final int TAG_CANONICAL_CANDIDATE = 2;
+    private static final int TAG_FRAME = 3;
+    private static final int TAG_BASE = 4;
+    private static final int TAG_RAW_TEXT = 5;
+
+    /**
+     * Receives the links found in a page, in document order.
+     */
+    public interface LinkListener {
+        /**
+         * Called with the raw, still unresolved value of a link attribute.
+         *
+         * @return {@code true} to keep extracting, {@code false} to stop.
+         */
+        boolean onLink(String link);
+
+        /**
+         * Called when the document declares a {@code <base href>} that later links resolve against.
+         */
+        default void onBase(String href) {
+        }
+
+        /**
+         * Called with each run of text between tags, outside comments, scripts and styles. Character
+         * references are not decoded, and a run may be split across calls.
+         *
+         * @param anchor whether the text lies inside the {@code <a>} element of the last reported link.
+         */
+        default void onText(char[] chars, int offset, int length, boolean anchor) {
+        }
+    }
+
+    private final LinkListener listener;
+    private final StringBuilder tagName = new StringBuilder(MAX_NAME_LENGTH);
+    private final StringBuilder attributeName = new StringBuilder(MAX_NAME_LENGTH);
+    private final StringBuilder attributeValue = new StringBuilder();
+
+    private int state = TEXT;
+    private boolean endTag;
+    private int tagKind;
+    private boolean capturingValue;
+    private int markupProgress;
+    private String rawTextEnd;
+    private int[] rawTextFallback;
+    private int rawTextProgress;
+
+    private String href;
+    private String src;
+    private boolean canonical;
+    private boolean inAnchor;
+    private boolean stopped;
+
+    public HtmlLinkExtractor(LinkListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Returns whether the listener has asked to stop extracting links.
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    @Override
+    public boolean onChars(char[] chars, int offset, int length) {
+        int end = offset + length;
+        int i = offset;
+        while (i < end && !stopped) {
+            // Most of a page is text, script or attribute values nobody asked for, so those states jump
+            // straight to the next character that can change state.
+            char stop = skipTarget();
+            if (stop != 0) {
+                int start = i;
+                while (i < end && chars[i] != stop) {
+                    i++;
+                }
+                if (state == TEXT && i > start) {
+                    listener.onText(chars, start, i - start, inAnchor);
+                }
+                if (i == end) {
+                    break;
+                }
+            }
+            consume(chars[i++]);
+        }
+        return !stopped;
+    }
+
+    private char skipTarget() {
+        switch (state) {
+            case TEXT:
+                return '<';
+            case END_TAG:
+            case BOGUS_COMMENT:
+                return '>';
+            case COMMENT:
+                return markupProgress == 0 ? '-' : 0;
+            case RAW_TEXT:
+                return rawTextProgress == 0 ? '<' : 0;
+            case ATTRIBUTE_VALUE_DOUBLE_QUOTED:
+                return capturingValue ? 0 : '"';
+            case ATTRIBUTE_VALUE_SINGLE_QUOTED:
+                return capturingValue ? 0 : '\'';
+            default:
+                return 0;
+        }
+    }
+
+    private void consume(char c) {
+        switch (state) {
+            case TEXT:
+                if (c == '<') {
+                    state = TAG_OPEN;
+                }
+                break;
+            case TAG_OPEN:
+                if (c == '!') {
+                    markupProgress = 0;
+                    state = MARKUP_DECLARATION;
+                } else if (c == '/') {
+                    startTag(true);
+                    state = END_TAG_NAME;
+                } else if (isAsciiLetter(c)) {
+                    startTag(false);
+                    appendLowerCase(tagName, c);
+                    state = TAG_NAME;
+                } else if (c != '<') {
+                    state = TEXT;
+                }
+                break;
+            case MARKUP_DECLARATION:
+                if (c == '-' && markupProgress == 0) {
+                    markupProgress = 1;
+                } else if (c == '-' && markupProgress == 1) {
+                    markupProgress = 0;
+                    state = COMMENT;
+                } else {
+                    state = c == '>' ? TEXT : BOGUS_COMMENT;
+                }
+                break;
+            case COMMENT:
+                markupProgress = advance(COMMENT_END, COMMENT_END_FALLBACK, markupProgress, c);
+                if (markupProgress == COMMENT_END.length()) {
+                    state = TEXT;
+                }
+                break;
+            case BOGUS_COMMENT:
+                if (c == '>') {
+                    state = TEXT;
+                }
+                break;
+            case END_TAG:
+                if (c == '>') {
+                    state = TEXT;
+                }
+                break;
+            case END_TAG_NAME:
+                if (c == '>') {
+                    endOfEndTagName();
+                    state = TEXT;
+                } else if (isWhitespace(c) || c == '/') {
+                    endOfEndTagName();
+                    state = END_TAG;
+                } else {
+                    appendLowerCase(tagName, c);
+                }
+                break;
+            case TAG_NAME:
+                if (isWhitespace(c) || c == '/') {
+                    tagKind = classifyTag();
+                    state = BEFORE_ATTRIBUTE_NAME;
+                } else if (c == '>') {
+                    tagKind = classifyTag();
+                    endOfTag();
+                } else {
+                    appendLowerCase(tagName, c);
+                }
+                break;
+            case BEFORE_ATTRIBUTE_NAME:
+                if (c == '>') {
+                    endOfTag();
+                } else if (!isWhitespace(c) && c != '/') {
+                    startAttribute(c);
+                }
+                break;
+            case ATTRIBUTE_NAME:
+                if (c == '=') {
+                    state = BEFORE_ATTRIBUTE_VALUE;
+                } else if (isWhitespace(c)) {
+                    state = AFTER_ATTRIBUTE_NAME;
+                } else if (c == '/') {
+                    state = BEFORE_ATTRIBUTE_NAME;
+                } else if (c == '>') {
+                    endOfTag();
+                } else {
+                    appendLowerCase(attributeName, c);
+                }
+                break;
+            case AFTER_ATTRIBUTE_NAME:
+                if (c == '=') {
+                    state = BEFORE_ATTRIBUTE_VALUE;
+                } else if (c == '>') {
+                    endOfTag();
+                } else if (c == '/') {
+                    state = BEFORE_ATTRIBUTE_NAME;
+                } else if (!isWhitespace(c)) {
+                    startAttribute(c);
+                }
+                break;
+            case BEFORE_ATTRIBUTE_VALUE:
+                if (isWhitespace(c)) {
+                    break;
+                }
+                startValue();
+                if (c == '"') {
+                    state = ATTRIBUTE_VALUE_DOUBLE_QUOTED;
+                } else if (c == '\'') {
+                    state = ATTRIBUTE_VALUE_SINGLE_QUOTED;
+                } else if (c == '>') {
+                    endOfTag();
+                } else {
+                    appendValue(c);
+                    state = ATTRIBUTE_VALUE_UNQUOTED;
+                }
+                break;
+            case ATTRIBUTE_VALUE_DOUBLE_QUOTED:
+                if (c == '"') {
+                    endOfValue();
+                    state = BEFORE_ATTRIBUTE_NAME;
+                } else {
+                    appendValue(c);
+                }
+                break;
+            case ATTRIBUTE_VALUE_SINGLE_QUOTED:
+                if (c == '\'') {
+                    endOfValue();
+                    state = BEFORE_ATTRIBUTE_NAME;
+                } else {
+                    appendValue(c);
+                }
+                break;
+            case ATTRIBUTE_VALUE_UNQUOTED:
+                if (isWhitespace(c)) {
+                    endOfValue();
+                    state = BEFORE_ATTRIBUTE_NAME;
+                } else if (c == '>') {
+                    endOfValue();
+                    endOfTag();
+                } else {
+                    appendValue(c);
+                }
+                break;
+            case RAW_TEXT:
+                if (rawTextProgress == rawTextEnd.length()) {
+                    // The closing tag name has been read, but only closes the element if the name ends
+                    // here; its attributes and '>' are then skipped as an end tag.
+                    if (c == '>') {
+                        state = TEXT;
+                        break;
+                    }
+                    if (isWhitespace(c) || c == '/') {
+                        state = END_TAG;
+                        break;
+                    }
+                }
+                rawTextProgress = advance(rawTextEnd, rawTextFallback, rawTextProgress, toLowerCase(c));
+                break;
+            default:
+                throw new IllegalStateException("Unexpected tokenizer state: " + state);
+        }
+    }
+
+    private void startTag(boolean isEndTag) {
+        endTag = isEndTag;
+        tagKind = TAG_OTHER;
+        tagName.setLength(0);
+        href = null;
+        src = null;
+        canonical = false;
+    }
+
+    private void startAttribute(char c) {
+        attributeName.setLength(0);
+        appendLowerCase(attributeName, c);
+        state = ATTRIBUTE_NAME;
+    }
+
+    private void startValue() {
+        attributeValue.setLength(0);
+        capturingValue = tagKind != TAG_OTHER && tagKind != TAG_RAW_TEXT && isLinkAttribute();
+    }
+
+    private void appendValue(char c) {
+        if (capturingValue && attributeValue.length() < MAX_VALUE_LENGTH) {
+            attributeValue.append(c);
+        }
+    }
+
+    private void endOfValue() {
+        if (!capturingValue) {
+            return;
+        }
+        capturingValue = false;
+        String value = decodeEntities(attributeValue.toString().trim());
+        if ("href".contentEquals(attributeName) && href == null) {
+            href = value;
+        } else if ("src".contentEquals(attributeName) && src == null) {
+            src = value;
+        } else if ("rel".contentEquals(attributeName)) {
+            canonical = containsToken(value, "canonical");
+        }
+    }
+
+    private void endOfEndTagName() {
+        if ("a".contentEquals(tagName)) {
+            inAnchor = false;
+        }
+    }
+
+    private void endOfTag() {
+        state = TEXT;
+        if (endTag) {
+            return;
+        }
+        switch (tagKind) {
+            case TAG_ANCHOR:
+                if (emit(href)) {
+                    inAnchor = "a".contentEquals(tagName);
+                }
+                break;
+            case TAG_CANONICAL_CANDIDATE:
+                if (canonical && emit(href)) {
+                    inAnchor = false;
+                }
+                break;
+            case TAG_FRAME:
+                if (emit(src)) {
+                    inAnchor = false;
+                }
+                break;
+            case TAG_BASE:
+                if (href != null && !href.isEmpty()) {
+                    listener.onBase(href);
+                }
+                break;
+            case TAG_RAW_TEXT:
+                boolean script = "script".contentEquals(tagName);
+                rawTextEnd = script ? SCRIPT_END : STYLE_END;
+                rawTextFallback = script ? SCRIPT_END_FALLBACK : STYLE_END_FALLBACK;
+                rawTextProgress = 0;
+                state = RAW_TEXT;
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Reports {@code link} unless it is empty, and returns whether it was reported.
+     */
+    private boolean emit(String link) {
+        if (link == null || link.isEmpty()) {
+            return false;
+        }
+        if (!listener.onLink(link)) {
+            stopped = true;
+        }
+        return true;
+    }
+
+    private int classifyTag() {
+        if (endTag) {
+            return TAG_OTHER;
+        }
+        if ("a".contentEquals(tagName) || "area".contentEquals(tagName)) {
+            return TAG_ANCHOR;
+        }
+        if ("link".contentEquals(tagName)) {
+            return TAG_CANONICAL_CANDIDATE;
+        }
+        if ("frame".contentEquals(tagName) || "iframe".contentEquals(tagName)) {
+            return TAG_FRAME;
+        }
+        if ("base".contentEquals(tagName)) {
+            return TAG_BASE;
+        }
+        if ("script".contentEquals(tagName) || "style".contentEquals(tagName)) {
+            return TAG_RAW_TEXT;
+        }
+        return TAG_OTHER;
+    }
+
+    private boolean isLinkAttribute() {
+        return "href".contentEquals(attributeName) || "src".contentEquals(attributeName)
+                || "rel".contentEquals(attributeName);
+    }
+
+    /**
+     * Advances a match of {@code target} by one character, as in Knuth-Morris-Pratt: on a mismatch, or
+     * after a complete match, the progress falls back to the longest prefix of {@code target} that is
+     * also a suffix of the characters matched so far, so an overlapping match such as {@code "-->"} at
+     * the end of {@code "--->"} is not missed.
+     *
+     * @param fallback the {@link #fallbacks} of {@code target}.
+     * @param progress the number of characters of {@code target} matched so far, up to its length.
+     */
+    private static int advance(String target, int[] fallback, int progress, char c) {
+        while (progress > 0 && (progress == target.length() || c != target.charAt(progress))) {
+            progress = fallback[progress - 1];
+        }
+        return c == target.charAt(progress) ? progress + 1 : 0;
+    }
+
+    /**
+     * Returns, for each prefix of {@code target}, the length of its longest proper prefix that is also
+     * its suffix.
+     */
+    private static int[] fallbacks(String target) {
+        int[] fallback = new int[target.length()];
+        int length = 0;
+        for (int i = 1; i < target.length(); i++) {
+            while (length > 0 && target.charAt(i) != target.charAt(length)) {
+                length = fallback[length - 1];
+            }
+            if (target.charAt(i) == target.charAt(length)) {
+                length++;
+            }
+            fallback[i] = length;
+        }
+        return fallback;
+    }
+
+    private static boolean containsToken(String value, String token) {
+        for (String part : value.split("\\s+")) {
+            if (part.equalsIgnoreCase(token)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String decodeEntities(String value) {
+        if (value.indexOf('&') < 0) {
+            return value;
+        }
+        return value.replace("&amp;", "&").replace("&#38;", "&").replace("&quot;", "\"").replace("&#39;", "'");
+    }
+
+    private static void appendLowerCase(StringBuilder builder, char c) {
+        if (builder.length() < MAX_NAME_LENGTH) {
+            builder.append(toLowerCase(c));
+        }
+    }
+
+    private static char toLowerCase(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\n' || c == '\t' || c == '\r' || c == '\f';
+    }
+}
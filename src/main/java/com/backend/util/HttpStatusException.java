@@ -0,0 +1,24 @@
+package com.backend.util;
+
+import java.io.IOException;
+import java.net.URL;
+
+/**
+ * Thrown when a server answers a fetch with a status other than {@code 200 OK} (or
+ * {@code 304 Not Modified} for conditional requests), so callers can tell overload answers such as
+ * {@code 429} and {@code 503} apart from missing pages.
+ */
+public class HttpStatusException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final int statusCode;
+
+    public HttpStatusException(URL url, int statusCode) {
+        super("Failed to fetch URL: " + url + " with HTTP status: " + statusCode);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
@@ -1,39 +1,121 @@
 package com.backend.util;
 
-import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.HttpURLConnection;
 import java.net.SocketTimeoutException;
 import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
 import java.util.logging.Logger;
 
 public class HttpUtil {
     private static final Logger LOGGER = Logger.getLogger(HttpUtil.class.getName());
+    private static final int CHUNK_SIZE = 8192;
+    private static final Charset DEFAULT_CHARSET = StandardCharsets.UTF_8;
+    private static final TransferStats TRANSFER_STATS = new TransferStats();
+    static final LatencyHistogram FETCH_LATENCY = MetricsRegistry.global()
+            .histogram("crawler_fetch_latency_seconds", "Time from sending a page request until its response arrives.");
+    static final String ETAG = "ETag";
+    static final String LAST_MODIFIED = "Last-Modified";
+    static final String IF_NONE_MATCH = "If-None-Match";
+    static final String IF_MODIFIED_SINCE = "If-Modified-Since";
 
     public static String getBodyTextFromUrl(URL url, int timeout) throws IOException {
+        StringBuilder content = new StringBuilder();
+        scanBodyFromUrl(url, timeout, (chars, offset, length) -> {
+            content.append(chars, offset, length);
+            return true;
+        });
+        return content.toString();
+    }
+
+    /**
+     * Streams the body of {@code url} to {@code scanner} in chunks decoded with the charset declared
+     * in the response {@code Content-Type}, falling back to UTF-8. Reading stops as soon as the
+     * scanner asks for it.
+     */
+    public static void scanBodyFromUrl(URL url, int timeout, BodyScanner scanner) throws IOException {
+        readBodyFromUrl(url, timeout, (body, contentType) -> scanStream(body, charsetOf(contentType), scanner));
+    }
+
+    /**
+     * Streams the body of {@code url}, decompressed but not decoded to text, to {@code reader}.
+     */
+    public static void readBodyFromUrl(URL url, int timeout, BodyReader reader) throws IOException {
         HttpURLConnection connection = null;
         try {
             connection = (HttpURLConnection) url.openConnection();
             connection.setRequestMethod("GET");
             connection.setConnectTimeout(timeout);
             connection.setReadTimeout(timeout);
+            connection.setRequestProperty(ContentDecoding.ACCEPT_ENCODING_HEADER, ContentDecoding.ACCEPT_ENCODING);
 
+            long startNanos = System.nanoTime();
             int status = connection.getResponseCode();
+            FETCH_LATENCY.recordSince(startNanos);
+            ResponseHeaders.report();
             if (status != HttpURLConnection.HTTP_OK) {
-                throw new IOException("Failed to fetch URL: " + url + " with HTTP status: " + status);
+                throw new HttpStatusException(url, status);
             }
+            Redirects.report(url, connection.getURL());
 
-            BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-            StringBuilder content = new StringBuilder();
-            String inputLine;
+            readResponse(connection, reader);
+        } catch (SocketTimeoutException e) {
+            LOGGER.warning("Timeout occurred while fetching URL: " + url + " " + e.getMessage());
+            throw new IOException("Timeout while fetching URL: " + url, e);
+        } catch (Exception e) {
+            LOGGER.severe("Error fetching body text from URL: " + url + " " + e.getMessage());
+            throw new IOException("Error fetching body text from URL: " + url, e);
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
 
-            while ((inputLine = in.readLine()) != null) {
-                content.append(inputLine);
+    /**
+     * Fetches the body of {@code url} unless it has not changed since the copy described by
+     * {@code etag} and {@code lastModified}, either of which may be {@code null}. The request carries
+     * {@code If-None-Match} and {@code If-Modified-Since} headers for the validators given, and a
+     * {@code 304 Not Modified} answer is returned without a body.
+     */
+    public static FetchResult fetchIfModified(URL url, int timeout, String etag, String lastModified) throws IOException {
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) url.openConnection();
+            connection.setRequestMethod("GET");
+            connection.setConnectTimeout(timeout);
+            connection.setReadTimeout(timeout);
+            connection.setRequestProperty(ContentDecoding.ACCEPT_ENCODING_HEADER, ContentDecoding.ACCEPT_ENCODING);
+            if (etag != null) {
+                connection.setRequestProperty(IF_NONE_MATCH, etag);
+            }
+            if (lastModified != null) {
+                connection.setRequestProperty(IF_MODIFIED_SINCE, lastModified);
             }
 
-            in.close();
-            return content.toString();
+            long startNanos = System.nanoTime();
+            int status = connection.getResponseCode();
+            FETCH_LATENCY.recordSince(startNanos);
+            ResponseHeaders.report();
+            if (status == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                return FetchResult.notModified(connection.getHeaderField(ETAG), connection.getHeaderField(LAST_MODIFIED));
+            }
+            if (status != HttpURLConnection.HTTP_OK) {
+                throw new HttpStatusException(url, status);
+            }
+            Redirects.report(url, connection.getURL());
+
+            StringBuilder content = new StringBuilder();
+            readResponse(connection, (body, contentType) -> scanStream(body, charsetOf(contentType), (chars, offset, length) -> {
+                content.append(chars, offset, length);
+                return true;
+            }));
+            return FetchResult.modified(content.toString(), connection.getHeaderField(ETAG), connection.getHeaderField(LAST_MODIFIED));
         } catch (SocketTimeoutException e) {
             LOGGER.warning("Timeout occurred while fetching URL: " + url + " " + e.getMessage());
             throw new IOException("Timeout while fetching URL: " + url, e);
@@ -46,4 +128,82 @@ public class HttpUtil {
             }
         }
     }
+
+    /**
+     * Returns the bytes transferred by all requests made through this class.
+     */
+    public static TransferStats getTransferStats() {
+        return TRANSFER_STATS;
+    }
+
+    /**
+     * Decompresses the body of {@code connection} as it streams in and hands it to {@code reader},
+     * recording the bytes received and decoded.
+     */
+    private static void readResponse(HttpURLConnection connection, BodyReader reader) throws IOException {
+        String contentEncoding = connection.getContentEncoding();
+        // Closing the decoding stream also releases the native memory of its inflater.
+        try (InputStream in = connection.getInputStream();
+             ContentDecoding.CountingInputStream wire = new ContentDecoding.CountingInputStream(in);
+             ContentDecoding.CountingInputStream decoded = new ContentDecoding.CountingInputStream(ContentDecoding.decode(wire, contentEncoding))) {
+            try {
+                reader.read(decoded, connection.getContentType());
+            } finally {
+                TRANSFER_STATS.record(wire.getCount(), decoded.getCount(), ContentDecoding.isCompressed(contentEncoding), TransferStats.bound());
+            }
+        }
+    }
+
+    /**
+     * Decodes {@code in} with {@code charset} and feeds it to {@code scanner} until the stream ends or
+     * the scanner stops. The caller remains responsible for closing the stream.
+     */
+    public static void scanStream(InputStream in, Charset charset, BodyScanner scanner) throws IOException {
+        Reader reader = new InputStreamReader(in, charset);
+        char[] chunk = new char[CHUNK_SIZE];
+        int read;
+        while ((read = reader.read(chunk)) != -1) {
+            if (read > 0 && !scanner.onChars(chunk, 0, read)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Feeds an already materialized body to {@code scanner} in chunks, so in-memory bodies go through
+     * the same scanning path as streamed ones.
+     */
+    public static void scanString(String body, BodyScanner scanner) {
+        char[] chunk = new char[Math.min(CHUNK_SIZE, Math.max(1, body.length()))];
+        for (int offset = 0; offset < body.length(); offset += chunk.length) {
+            int length = Math.min(chunk.length, body.length() - offset);
+            body.getChars(offset, offset + length, chunk, 0);
+            if (!scanner.onChars(chunk, 0, length)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the charset named by the {@code charset} parameter of a {@code Content-Type} header, or
+     * UTF-8 if it is missing or not supported.
+     */
+    public static Charset charsetOf(String contentType) {
+        if (contentType == null) {
+            return DEFAULT_CHARSET;
+        }
+        for (String parameter : contentType.split(";")) {
+            String trimmed = parameter.trim();
+            if (trimmed.toLowerCase(Locale.ROOT).startsWith("charset=")) {
+                String name = trimmed.substring("charset=".length()).replace("\"", "").replace("'", "").trim();
+                try {
+                    return Charset.forName(name);
+                } catch (IllegalArgumentException e) {
+                    LOGGER.warning("Unsupported charset in Content-Type: " + contentType);
+                    return DEFAULT_CHARSET;
+                }
+            }
+        }
+        return DEFAULT_CHARSET;
+    }
 }
@@ -0,0 +1,126 @@
+package com.backend.util;
+
+/**
+ * Case-insensitive substring matcher for a single keyword, built once per search and shared by all
+ * of its workers. The keyword is compiled into a Knuth-Morris-Pratt automaton, so text can be scanned
+ * incrementally in arbitrary chunks without lower-casing or buffering it. Transitions for ASCII input
+ * are precomputed into a table; other characters fall back to the failure function.
+ */
+public final class KeywordMatcher {
+    private static final int ASCII_RANGE = 128;
+
+    private final char[] pattern;
+    private final int[] failure;
+    private final int[][] asciiTransitions;
+
+    public KeywordMatcher(String keyword) {
+        if (keyword == null || keyword.isEmpty()) {
+            throw new IllegalArgumentException("Keyword must not be empty");
+        }
+        this.pattern = new char[keyword.length()];
+        for (int i = 0; i < pattern.length; i++) {
+            pattern[i] = fold(keyword.charAt(i));
+        }
+        this.failure = buildFailureFunction(pattern);
+        this.asciiTransitions = buildAsciiTransitions();
+    }
+
+    /**
+     * Returns whether {@code text} contains the keyword, ignoring case.
+     */
+    public boolean matches(CharSequence text) {
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = next(state, text.charAt(i));
+            if (state == pattern.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Starts a new incremental scan. Scans are not thread-safe; use one per page.
+     */
+    public Scan newScan() {
+        return new Scan();
+    }
+
+    private int next(int state, char c) {
+        if (c < ASCII_RANGE) {
+            return asciiTransitions[state][c];
+        }
+        char folded = fold(c);
+        while (state > 0 && pattern[state] != folded) {
+            state = failure[state - 1];
+        }
+        return pattern[state] == folded ? state + 1 : 0;
+    }
+
+    private int[][] buildAsciiTransitions() {
+        int[][] transitions = new int[pattern.length][ASCII_RANGE];
+        for (int state = 0; state < pattern.length; state++) {
+            for (char c = 0; c < ASCII_RANGE; c++) {
+                char folded = fold(c);
+                int candidate = state;
+                while (candidate > 0 && pattern[candidate] != folded) {
+                    candidate = failure[candidate - 1];
+                }
+                transitions[state][c] = pattern[candidate] == folded ? candidate + 1 : 0;
+            }
+        }
+        return transitions;
+    }
+
+    private static int[] buildFailureFunction(char[] pattern) {
+        int[] failure = new int[pattern.length];
+        int prefix = 0;
+        for (int i = 1; i < pattern.length; i++) {
+            while (prefix > 0 && pattern[i] != pattern[prefix]) {
+                prefix = failure[prefix - 1];
+            }
+            if (pattern[i] == pattern[prefix]) {
+                prefix++;
+            }
+            failure[i] = prefix;
+        }
+        return failure;
+    }
+
+    private static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /**
+     * Incremental scan over a page delivered in chunks. Once the keyword has been seen the scan stays
+     * matched and ignores further input.
+     */
+    public final class Scan {
+        private int state;
+        private boolean matched;
+
+        /**
+         * Feeds the next chunk of text and returns whether the keyword has been found so far.
+         */
+        public boolean feed(char[] chars, int offset, int length) {
+            if (matched) {
+                return true;
+            }
+            int current = state;
+            int end = offset + length;
+            for (int i = offset; i < end; i++) {
+                current = next(current, chars[i]);
+                if (current == pattern.length) {
+                    matched = true;
+                    return true;
+                }
+            }
+            state = current;
+            return false;
+        }
+
+        public boolean isMatched() {
+            return matched;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.backend.util;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations with fixed, roughly logarithmic buckets from 50 microseconds to
+ * 10 seconds. Recording a sample is a binary search over the bucket bounds and two {@link LongAdder}
+ * increments, so it can sit on the per-page hot path; buckets are only summed when scraped.
+ */
+public final class LatencyHistogram {
+    private static final double[] BUCKET_SECONDS = {
+            0.00005, 0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01,
+            0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+    };
+    private static final long[] BUCKET_NANOS = Arrays.stream(BUCKET_SECONDS)
+            .mapToLong(seconds -> Math.round(seconds * TimeUnit.SECONDS.toNanos(1)))
+            .toArray();
+    private static final String[] BUCKET_LABELS = Arrays.stream(BUCKET_SECONDS)
+            .mapToObj(seconds -> BigDecimal.valueOf(seconds).stripTrailingZeros().toPlainString())
+            .toArray(String[]::new);
+
+    private final LongAdder[] counts = new LongAdder[BUCKET_NANOS.length + 1];
+    private final LongAdder sumNanos = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a duration, in nanoseconds. Negative durations, from a clock adjustment, count as zero.
+     */
+    public void record(long nanos) {
+        long duration = Math.max(0, nanos);
+        int index = Arrays.binarySearch(BUCKET_NANOS, duration);
+        counts[index >= 0 ? index : -index - 1].increment();
+        sumNanos.add(duration);
+    }
+
+    /**
+     * Records the time elapsed since {@code startNanos}, a value of {@link System#nanoTime()}.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : counts) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    public double getSumSeconds() {
+        return sumNanos.sum() / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+
+    /**
+     * Writes the histogram as Prometheus {@code _bucket}, {@code _sum} and {@code _count} samples.
+     */
+    void writeTo(StringBuilder out, String name) {
+        long cumulative = 0;
+        for (int i = 0; i < BUCKET_SECONDS.length; i++) {
+            cumulative += counts[i].sum();
+            out.append(name).append("_bucket{le=\"").append(BUCKET_LABELS[i]).append("\"} ").append(cumulative).append('\n');
+        }
+        cumulative += counts[BUCKET_SECONDS.length].sum();
+        out.append(name).append("_bucket{le=\"+Inf\"} ").append(cumulative).append('\n');
+        out.append(name).append("_sum ").append(getSumSeconds()).append('\n');
+        out.append(name).append("_count ").append(cumulative).append('\n');
+    }
+}
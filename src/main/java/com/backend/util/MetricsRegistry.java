@@ -0,0 +1,177 @@
+package com.backend.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Registry of the crawler's metrics, written in the Prometheus text exposition format.
+ *
+ * <p>Hot paths update {@link LongAdder} counters and {@link LatencyHistogram}s, which cost a few
+ * uncontended increments. Everything else (queue depths, set sizes, breaker states) is registered as
+ * a callback and only read when the registry is scraped, so it costs nothing while nobody scrapes.
+ */
+public final class MetricsRegistry {
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+
+    private final Map<String, Metric> metrics = new ConcurrentSkipListMap<>();
+
+    /**
+     * Returns the registry shared by the whole process, which static utilities record into.
+     */
+    public static MetricsRegistry global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Returns the counter registered under {@code name}, registering it first if needed.
+     */
+    public LongAdder counter(String name, String help) {
+        return ((CounterMetric) metrics.computeIfAbsent(name, ignored -> new CounterMetric(help))).value;
+    }
+
+    /**
+     * Returns the histogram registered under {@code name}, registering it first if needed. Durations
+     * are exposed in seconds.
+     */
+    public LatencyHistogram histogram(String name, String help) {
+        return ((HistogramMetric) metrics.computeIfAbsent(name, ignored -> new HistogramMetric(help))).histogram;
+    }
+
+    /**
+     * Registers a gauge read from {@code value} on every scrape, replacing any metric of that name.
+     */
+    public void gauge(String name, String help, DoubleSupplier value) {
+        metrics.put(name, new CallbackMetric(help, "gauge", (out, metricName) -> sample(out, metricName, "", value.getAsDouble())));
+    }
+
+    /**
+     * Registers a counter read from {@code value} on every scrape, replacing any metric of that name.
+     * Used for totals that are already kept elsewhere.
+     */
+    public void counter(String name, String help, DoubleSupplier value) {
+        metrics.put(name, new CallbackMetric(help, "counter", (out, metricName) -> sample(out, metricName, "", value.getAsDouble())));
+    }
+
+    /**
+     * Registers a metric whose samples, usually one per label value, are written by {@code samples}
+     * on every scrape, replacing any metric of that name.
+     *
+     * @param type the Prometheus metric type, such as {@code gauge} or {@code counter}.
+     */
+    public void collector(String name, String help, String type, Collector samples) {
+        metrics.put(name, new CallbackMetric(help, type, samples));
+    }
+
+    public void unregister(String name) {
+        metrics.remove(name);
+    }
+
+    /**
+     * Returns every registered metric in the Prometheus text exposition format.
+     */
+    public String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        for (Map.Entry<String, Metric> entry : metrics.entrySet()) {
+            Metric metric = entry.getValue();
+            out.append("# HELP ").append(entry.getKey()).append(' ').append(metric.help).append('\n');
+            out.append("# TYPE ").append(entry.getKey()).append(' ').append(metric.type).append('\n');
+            metric.writeTo(out, entry.getKey());
+        }
+        return out.toString();
+    }
+
+    /**
+     * Writes one sample line. {@code labels} is either empty or a complete label set such as
+     * {@code {host="example.com"}}, built with {@link #label}.
+     */
+    public static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name).append(labels).append(' ');
+        if (value == (long) value) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+
+    /**
+     * Returns the label set {@code {name="value"}}, escaping the value as the exposition format requires.
+     */
+    public static String label(String name, String value) {
+        StringBuilder label = new StringBuilder(name.length() + value.length() + 5).append('{').append(name).append("=\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '"') {
+                label.append('\\').append(c);
+            } else if (c == '\n') {
+                label.append("\\n");
+            } else {
+                label.append(c);
+            }
+        }
+        return label.append("\"}").toString();
+    }
+
+    /**
+     * Writes the samples of a callback metric.
+     */
+    public interface Collector {
+        void writeTo(StringBuilder out, String name);
+    }
+
+    private abstract static class Metric {
+        final String help;
+        final String type;
+
+        Metric(String help, String type) {
+            this.help = help;
+            this.type = type;
+        }
+
+        abstract void writeTo(StringBuilder out, String name);
+    }
+
+    private static final class CounterMetric extends Metric {
+        final LongAdder value = new LongAdder();
+
+        CounterMetric(String help) {
+            super(help, "counter");
+        }
+
+        @Override
+        void writeTo(StringBuilder out, String name) {
+            sample(out, name, "", value.sum());
+        }
+    }
+
+    private static final class HistogramMetric extends Metric {
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        HistogramMetric(String help) {
+            super(help, "histogram");
+        }
+
+        @Override
+        void writeTo(StringBuilder out, String name) {
+            histogram.writeTo(out, name);
+        }
+    }
+
+    private static final class CallbackMetric extends Metric {
+        final Collector samples;
+
+        CallbackMetric(String help, String type, Collector samples) {
+            super(help, type);
+            this.samples = samples;
+        }
+
+        @Override
+        void writeTo(StringBuilder out, String name) {
+            samples.writeTo(out, name);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.backend.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Case-insensitive matcher for a set of keywords, scanning text once no matter how many keywords it
+ * holds. The keywords are compiled into an Aho-Corasick automaton; as in {@link KeywordMatcher},
+ * transitions for ASCII input are precomputed into a table and other characters follow failure links.
+ * Instances are immutable and may be shared between threads.
+ */
+public final class MultiKeywordMatcher {
+    private static final int ASCII_RANGE = 128;
+    private static final int[] NO_OUTPUT = new int[0];
+
+    private final int keywordCount;
+    private final int[][] asciiTransitions;
+    private final List<Map<Character, Integer>> children;
+    private final int[] failure;
+    private final int[][] outputs;
+
+    public MultiKeywordMatcher(List<String> keywords) {
+        this.keywordCount = keywords.size();
+        this.children = new ArrayList<>();
+        List<List<Integer>> nodeOutputs = new ArrayList<>();
+        children.add(new HashMap<>());
+        nodeOutputs.add(new ArrayList<>());
+
+        for (int index = 0; index < keywords.size(); index++) {
+            String keyword = keywords.get(index);
+            if (keyword == null || keyword.isEmpty()) {
+                throw new IllegalArgumentException("Keywords must not be empty");
+            }
+            int node = 0;
+            for (int i = 0; i < keyword.length(); i++) {
+                char c = fold(keyword.charAt(i));
+                Integer child = children.get(node).get(c);
+                if (child == null) {
+                    child = children.size();
+                    children.get(node).put(c, child);
+                    children.add(new HashMap<>());
+                    nodeOutputs.add(new ArrayList<>());
+                }
+                node = child;
+            }
+            nodeOutputs.get(node).add(index);
+        }
+
+        this.failure = new int[children.size()];
+        this.outputs = new int[children.size()][];
+        this.asciiTransitions = new int[children.size()][];
+        buildFailureLinks(nodeOutputs);
+    }
+
+    public int getKeywordCount() {
+        return keywordCount;
+    }
+
+    /**
+     * Starts a new incremental scan. Scans are not thread-safe; use one per page.
+     */
+    public Scan newScan() {
+        return new Scan();
+    }
+
+    private void buildFailureLinks(List<List<Integer>> nodeOutputs) {
+        Queue<Integer> queue = new ArrayDeque<>();
+        outputs[0] = NO_OUTPUT;
+        for (int child : children.get(0).values()) {
+            failure[child] = 0;
+            queue.add(child);
+        }
+
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            List<Integer> merged = new ArrayList<>(nodeOutputs.get(node));
+            for (int inherited : outputs[failure[node]]) {
+                merged.add(inherited);
+            }
+            outputs[node] = merged.isEmpty() ? NO_OUTPUT : merged.stream().mapToInt(Integer::intValue).toArray();
+
+            for (Map.Entry<Character, Integer> edge : children.get(node).entrySet()) {
+                int child = edge.getValue();
+                failure[child] = follow(failure[node], edge.getKey());
+                queue.add(child);
+            }
+        }
+
+        // Nodes are numbered in insertion order, not breadth-first, so the ASCII table is filled in a
+        // second pass once every failure link is known.
+        for (int node = 0; node < children.size(); node++) {
+            int[] row = new int[ASCII_RANGE];
+            for (char c = 0; c < ASCII_RANGE; c++) {
+                row[c] = follow(node, fold(c));
+            }
+            asciiTransitions[node] = row;
+        }
+    }
+
+    private int follow(int node, char folded) {
+        while (true) {
+            Integer child = children.get(node).get(folded);
+            if (child != null) {
+                return child;
+            }
+            if (node == 0) {
+                return 0;
+            }
+            node = failure[node];
+        }
+    }
+
+    private int next(int node, char c) {
+        if (c < ASCII_RANGE) {
+            return asciiTransitions[node][c];
+        }
+        return follow(node, fold(c));
+    }
+
+    private static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /**
+     * Incremental scan over a page delivered in chunks, recording which keywords have been seen.
+     */
+    public final class Scan {
+        private final boolean[] matched = new boolean[keywordCount];
+        private int matchedCount;
+        private int state;
+
+        /**
+         * Feeds the next chunk of text and returns whether every keyword has been found so far.
+         */
+        public boolean feed(char[] chars, int offset, int length) {
+            if (allMatched()) {
+                return true;
+            }
+            int current = state;
+            int end = offset + length;
+            for (int i = offset; i < end; i++) {
+                current = next(current, chars[i]);
+                for (int keyword : outputs[current]) {
+                    if (!matched[keyword]) {
+                        matched[keyword] = true;
+                        matchedCount++;
+                    }
+                }
+            }
+            state = current;
+            return allMatched();
+        }
+
+        public boolean isMatched(int keyword) {
+            return matched[keyword];
+        }
+
+        public boolean allMatched() {
+            return matchedCount == keywordCount;
+        }
+
+        public boolean anyMatched() {
+            return matchedCount > 0;
+        }
+    }
+}
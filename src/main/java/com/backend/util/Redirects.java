@@ -0,0 +1,88 @@
+package com.backend.util;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+
+/**
+ * Tells the listener bound to the requesting thread where a fetch ended up when the server redirected
+ * it. Fetchers follow redirects on their own; this lets a crawl record the final URL of a page through
+ * any stack of {@code Dependencies}, the way {@link TransferStats} are attributed to it.
+ */
+public final class Redirects {
+    private static final ThreadLocal<Listener> BOUND = new ThreadLocal<>();
+
+    private Redirects() {
+    }
+
+    /**
+     * Binds {@code listener} to the current thread until the returned binding is closed, restoring the
+     * previous binding then.
+     */
+    public static Binding bind(Listener listener) {
+        Listener previous = BOUND.get();
+        BOUND.set(listener);
+        return () -> {
+            if (previous == null) {
+                BOUND.remove();
+            } else {
+                BOUND.set(previous);
+            }
+        };
+    }
+
+    /**
+     * Returns the listener bound to the current thread, or {@code null}. Fetchers that finish a request
+     * on another thread capture this when the request is made.
+     */
+    public static Listener bound() {
+        return BOUND.get();
+    }
+
+    /**
+     * Reports to the listener bound to the current thread that a fetch of {@code requested} was served
+     * from {@code target}. Nothing is reported if both are the same.
+     */
+    public static void report(URL requested, URL target) {
+        report(bound(), requested, target);
+    }
+
+    /**
+     * Reports to {@code listener}, if any, that a fetch of {@code requested} was served from
+     * {@code target}. Nothing is reported if both are the same.
+     */
+    public static void report(Listener listener, URL requested, URL target) {
+        // URL.equals resolves host names, so the URLs are compared as text.
+        if (listener != null && !requested.toString().equals(target.toString())) {
+            listener.onRedirect(requested, target);
+        }
+    }
+
+    static void report(Listener listener, URL requested, URI target) {
+        if (listener == null) {
+            return;
+        }
+        try {
+            report(listener, requested, target.toURL());
+        } catch (MalformedURLException | IllegalArgumentException e) {
+            // A target that is not a URL cannot be queued either, so there is nothing to record.
+        }
+    }
+
+    /**
+     * Receives the final URLs of redirected fetches.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        void onRedirect(URL requested, URL target);
+    }
+
+    /**
+     * Undoes a {@link #bind} when closed.
+     */
+    @FunctionalInterface
+    public interface Binding extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,71 @@
+package com.backend.util;
+
+/**
+ * Tells the listener bound to the requesting thread when the headers of a response have arrived.
+ * Fetches that return the whole body only finish once it has been read; this lets a caller time the
+ * response itself through any stack of {@code Dependencies}, the way {@link Redirects} reports the
+ * final URL of a page.
+ */
+public final class ResponseHeaders {
+    private static final ThreadLocal<Listener> BOUND = new ThreadLocal<>();
+
+    private ResponseHeaders() {
+    }
+
+    /**
+     * Binds {@code listener} to the current thread until the returned binding is closed, restoring the
+     * previous binding then.
+     */
+    public static Binding bind(Listener listener) {
+        Listener previous = BOUND.get();
+        BOUND.set(listener);
+        return () -> {
+            if (previous == null) {
+                BOUND.remove();
+            } else {
+                BOUND.set(previous);
+            }
+        };
+    }
+
+    /**
+     * Returns the listener bound to the current thread, or {@code null}. Fetchers that receive the
+     * response on another thread capture this when the request is made.
+     */
+    public static Listener bound() {
+        return BOUND.get();
+    }
+
+    /**
+     * Reports to the listener bound to the current thread that the response headers have arrived.
+     */
+    public static void report() {
+        report(bound());
+    }
+
+    /**
+     * Reports to {@code listener}, if any, that the response headers have arrived.
+     */
+    public static void report(Listener listener) {
+        if (listener != null) {
+            listener.onHeaders();
+        }
+    }
+
+    /**
+     * Receives the arrival of response headers.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        void onHeaders();
+    }
+
+    /**
+     * Undoes a {@link #bind} when closed.
+     */
+    @FunctionalInterface
+    public interface Binding extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,112 @@
+package com.backend.util;
+
+/**
+ * Incremental 64-bit SimHash of a text, fed in chunks as it streams in. The features are the
+ * overlapping shingles of {@value #SHINGLE_WORDS} consecutive words, compared case-insensitively, so
+ * texts that share most of their word sequences get fingerprints that differ in few bits, and the
+ * Hamming distance between two fingerprints estimates how different the texts are. Words are runs of
+ * letters and digits; a word split across chunks is joined. Instances are not thread-safe.
+ */
+public final class SimHash {
+    public static final int SHINGLE_WORDS = 3;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final int[] weights = new int[Long.SIZE];
+    private long wordHash = FNV_OFFSET;
+    private boolean inWord;
+    private long previousWord;
+    private long wordBeforePrevious;
+    private int words;
+    private int shingles;
+
+    public void feed(char[] chars, int offset, int length) {
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            char c = chars[i];
+            if (c < 128 ? isAsciiLetterOrDigit(c) : Character.isLetterOrDigit(c)) {
+                wordHash = (wordHash ^ fold(c)) * FNV_PRIME;
+                inWord = true;
+            } else if (inWord) {
+                endWord();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of shingles hashed so far. Fingerprints of texts with few shingles are too
+     * coarse to tell near-duplicates from merely similar short texts.
+     */
+    public int getShingleCount() {
+        return shingles + (inWord && words + 1 >= SHINGLE_WORDS ? 1 : 0);
+    }
+
+    /**
+     * Returns the fingerprint of the text fed so far, including a word it ends with.
+     */
+    public long fingerprint() {
+        int[] counts = weights;
+        if (inWord && words + 1 >= SHINGLE_WORDS) {
+            counts = weights.clone();
+            addShingle(counts, shingle(wordHash));
+        }
+        long fingerprint = 0;
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            if (counts[bit] > 0) {
+                fingerprint |= 1L << bit;
+            }
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Returns the number of bits in which two fingerprints differ.
+     */
+    public static int distance(long first, long second) {
+        return Long.bitCount(first ^ second);
+    }
+
+    private void endWord() {
+        long word = wordHash;
+        words++;
+        if (words >= SHINGLE_WORDS) {
+            addShingle(weights, shingle(word));
+            shingles++;
+        }
+        wordBeforePrevious = previousWord;
+        previousWord = word;
+        wordHash = FNV_OFFSET;
+        inWord = false;
+    }
+
+    private long shingle(long word) {
+        return mix(wordBeforePrevious ^ Long.rotateLeft(previousWord, 21) ^ Long.rotateLeft(word, 42));
+    }
+
+    private static void addShingle(int[] counts, long hash) {
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            counts[bit] += (int) ((hash >>> bit) & 1) * 2 - 1;
+        }
+    }
+
+    /**
+     * Finalizer of SplitMix64, spreading the combined word hashes over all 64 bits.
+     */
+    private static long mix(long hash) {
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+
+    private static boolean isAsciiLetterOrDigit(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+
+    private static char fold(char c) {
+        if (c < 128) {
+            return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+}
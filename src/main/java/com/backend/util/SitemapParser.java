@@ -0,0 +1,218 @@
+package com.backend.util;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PushbackInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streaming parser for the documents a site publishes to list its pages: XML sitemaps and sitemap
+ * indexes, RSS and Atom feeds, and the {@code Sitemap:} lines of {@code robots.txt}. Documents are read
+ * with a pull parser in a single pass and never held in memory, and gzip-compressed files are
+ * recognized by their magic number and decompressed on the fly.
+ *
+ * <p>Elements are matched by local name, so the namespace a site declares (or omits) does not matter.
+ * DTDs and external entities are not processed, and at most {@link #MAX_DOCUMENT_BYTES} are read from a
+ * document, the size limit of the sitemap protocol, however small its compressed form.
+ */
+public final class SitemapParser {
+    public static final long MAX_DOCUMENT_BYTES = 50L * 1024 * 1024;
+
+    private static final String ROBOTS_SITEMAP_PREFIX = "sitemap:";
+    private static final XMLInputFactory XML_INPUT_FACTORY = newInputFactory();
+
+    /**
+     * Receives the entries of a document in document order.
+     */
+    public interface Listener {
+        /**
+         * Called with the raw, still unresolved URL of a page.
+         *
+         * @return {@code true} to keep parsing, {@code false} to stop.
+         */
+        boolean onPage(String url);
+
+        /**
+         * Called with the raw URL of a sitemap listed in a sitemap index.
+         */
+        void onSitemap(String url);
+    }
+
+    private SitemapParser() {
+    }
+
+    /**
+     * Parses a sitemap, sitemap index, RSS or Atom document, which may be gzip-compressed, until its end
+     * or until the listener stops. Page URLs come from {@code <url><loc>}, {@code <item><link>} and
+     * {@code <entry><link href>}, sitemap URLs from {@code <sitemap><loc>}.
+     *
+     * @throws IOException if the document is not well-formed XML or exceeds the size limit.
+     */
+    public static void parse(InputStream in, Listener listener) throws IOException {
+        XMLStreamReader reader = null;
+        try {
+            reader = XML_INPUT_FACTORY.createXMLStreamReader(new BoundedInputStream(decompress(in), MAX_DOCUMENT_BYTES));
+            String entry = null;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.END_ELEMENT) {
+                    if (reader.getLocalName().equals(entry)) {
+                        entry = null;
+                    }
+                    continue;
+                }
+                if (event != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+                String name = reader.getLocalName();
+                switch (name) {
+                    case "url":
+                    case "sitemap":
+                    case "item":
+                    case "entry":
+                        entry = name;
+                        break;
+                    case "loc":
+                        if ("url".equals(entry) || "sitemap".equals(entry)) {
+                            String url = reader.getElementText().trim();
+                            if (url.isEmpty()) {
+                                break;
+                            }
+                            if ("sitemap".equals(entry)) {
+                                listener.onSitemap(url);
+                            } else if (!listener.onPage(url)) {
+                                return;
+                            }
+                        }
+                        break;
+                    case "link":
+                        if ("item".equals(entry) || "entry".equals(entry)) {
+                            String url = feedLink(reader);
+                            if (url != null && !url.isEmpty() && !listener.onPage(url)) {
+                                return;
+                            }
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Malformed sitemap or feed: " + e.getMessage(), e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                    // The underlying stream is closed by the caller.
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the sitemap URLs declared by the {@code Sitemap:} lines of a {@code robots.txt} body.
+     */
+    public static List<String> parseRobots(InputStream in) throws IOException {
+        List<String> sitemaps = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new BoundedInputStream(in, MAX_DOCUMENT_BYTES), StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            int comment = line.indexOf('#');
+            String directive = (comment >= 0 ? line.substring(0, comment) : line).trim();
+            if (directive.toLowerCase(Locale.ROOT).startsWith(ROBOTS_SITEMAP_PREFIX)) {
+                String url = directive.substring(ROBOTS_SITEMAP_PREFIX.length()).trim();
+                if (!url.isEmpty()) {
+                    sitemaps.add(url);
+                }
+            }
+        }
+        return sitemaps;
+    }
+
+    /**
+     * Returns the target of a feed entry's {@code <link>}: the text of an RSS link, or the
+     * {@code href} of an Atom link to the entry itself. Links to related resources are skipped.
+     */
+    private static String feedLink(XMLStreamReader reader) throws XMLStreamException {
+        String href = reader.getAttributeValue(null, "href");
+        if (href == null) {
+            return reader.getElementText().trim();
+        }
+        String rel = reader.getAttributeValue(null, "rel");
+        return rel == null || rel.equals("alternate") ? href.trim() : null;
+    }
+
+    /**
+     * Wraps {@code in} in a gzip decoder if it starts with the gzip magic number. Sitemaps served as
+     * {@code .xml.gz} files arrive compressed even after any {@code Content-Encoding} was removed.
+     */
+    private static InputStream decompress(InputStream in) throws IOException {
+        PushbackInputStream pushback = new PushbackInputStream(in, 2);
+        int first = pushback.read();
+        int second = first == -1 ? -1 : pushback.read();
+        if (second != -1) {
+            pushback.unread(second);
+        }
+        if (first != -1) {
+            pushback.unread(first);
+        }
+        return first == 0x1f && second == 0x8b ? new GZIPInputStream(pushback) : pushback;
+    }
+
+    private static XMLInputFactory newInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    /**
+     * Stream that fails once more than {@code limit} bytes have been read through it.
+     */
+    private static final class BoundedInputStream extends FilterInputStream {
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = super.read();
+            if (read != -1) {
+                consume(1);
+            }
+            return read;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                consume(read);
+            }
+            return read;
+        }
+
+        private void consume(int count) throws IOException {
+            remaining -= count;
+            if (remaining < 0) {
+                throw new IOException("Document exceeds " + MAX_DOCUMENT_BYTES + " bytes");
+            }
+        }
+    }
+}
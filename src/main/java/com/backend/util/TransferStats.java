@@ -0,0 +1,109 @@
+package com.backend.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the response bodies transferred by a fetcher: bytes received over the wire, bytes after
+ * content decoding, and how many responses were compressed. The difference between the two byte
+ * counts is the bandwidth saved by compression.
+ *
+ * <p>Besides the counters of the fetcher itself, transfers are attributed to the stats bound to the
+ * requesting thread with {@link #bind}, which lets a crawl count the traffic of its own pages through
+ * any stack of {@code Dependencies}.
+ */
+public final class TransferStats {
+    private static final ThreadLocal<TransferStats> BOUND = new ThreadLocal<>();
+    private static final LongAdder RECEIVED_BYTES = MetricsRegistry.global()
+            .counter("crawler_fetch_received_bytes_total", "Bytes of response bodies received over the wire, before decompression.");
+    private static final LongAdder DECODED_BYTES = MetricsRegistry.global()
+            .counter("crawler_fetch_decoded_bytes_total", "Bytes of response bodies after decompression.");
+
+    private final AtomicLong responseCount = new AtomicLong();
+    private final AtomicLong compressedResponseCount = new AtomicLong();
+    private final AtomicLong wireBytes = new AtomicLong();
+    private final AtomicLong decodedBytes = new AtomicLong();
+
+    /**
+     * Binds {@code stats} to the current thread until the returned binding is closed, restoring the
+     * previous binding then.
+     */
+    public static Binding bind(TransferStats stats) {
+        TransferStats previous = BOUND.get();
+        BOUND.set(stats);
+        return () -> {
+            if (previous == null) {
+                BOUND.remove();
+            } else {
+                BOUND.set(previous);
+            }
+        };
+    }
+
+    /**
+     * Returns the stats bound to the current thread, or {@code null}. Fetchers that finish reading a
+     * body on another thread capture this when the request is made.
+     */
+    public static TransferStats bound() {
+        return BOUND.get();
+    }
+
+    /**
+     * Records one response body in these stats and, if present, in {@code attributedTo}, and counts it
+     * in the process-wide byte metrics.
+     */
+    public void record(long wireBytes, long decodedBytes, boolean compressed, TransferStats attributedTo) {
+        RECEIVED_BYTES.add(wireBytes);
+        DECODED_BYTES.add(decodedBytes);
+        add(wireBytes, decodedBytes, compressed);
+        if (attributedTo != null && attributedTo != this) {
+            attributedTo.add(wireBytes, decodedBytes, compressed);
+        }
+    }
+
+    public long getResponseCount() {
+        return responseCount.get();
+    }
+
+    public long getCompressedResponseCount() {
+        return compressedResponseCount.get();
+    }
+
+    /**
+     * Returns the number of body bytes received over the wire, before content decoding.
+     */
+    public long getWireBytes() {
+        return wireBytes.get();
+    }
+
+    /**
+     * Returns the number of body bytes after content decoding.
+     */
+    public long getDecodedBytes() {
+        return decodedBytes.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TransferStats{responses=%d, compressed=%d, wireBytes=%d, decodedBytes=%d}",
+                getResponseCount(), getCompressedResponseCount(), getWireBytes(), getDecodedBytes());
+    }
+
+    private void add(long wire, long decoded, boolean compressed) {
+        responseCount.incrementAndGet();
+        if (compressed) {
+            compressedResponseCount.incrementAndGet();
+        }
+        wireBytes.addAndGet(wire);
+        decodedBytes.addAndGet(decoded);
+    }
+
+    /**
+     * Undoes a {@link #bind} when closed.
+     */
+    @FunctionalInterface
+    public interface Binding extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
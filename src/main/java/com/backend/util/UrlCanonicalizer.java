@@ -0,0 +1,485 @@
+package com.backend.util;
+
+import java.net.URL;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Canonical form of http and https URLs, computed directly on character sequences. A reference is
+ * resolved against a base URL as RFC 3986 describes, the scheme and host are lowercased, userinfo,
+ * default ports and the fragment are dropped, {@code .} and {@code ..} path segments are removed, the
+ * hex digits of percent-escapes are uppercased, and the query is filtered by the {@link QueryMode}.
+ * An empty path becomes {@code /}.
+ *
+ * <p>{@link #resolve} writes into a buffer the caller reuses and creates no objects of its own, so a
+ * link can be checked against a visited set, which fingerprints any {@link CharSequence}, before
+ * anything is allocated for it. Instances are immutable and safe for use by any number of threads.
+ */
+public final class UrlCanonicalizer {
+    /**
+     * How the query of a URL is carried into its canonical form.
+     */
+    public enum QueryMode {
+        /** No query, so URLs differing only in their query are one page. */
+        DROP_ALL,
+        /** The whole query, as it appears. */
+        KEEP_ALL,
+        /** Only the listed parameters, in the order they appear. */
+        KEEP_LISTED,
+        /** Every parameter except the listed ones, such as tracking or session parameters. */
+        DROP_LISTED
+    }
+
+    /**
+     * Drops the query, as the crawler has always identified pages.
+     */
+    public static final UrlCanonicalizer DEFAULT = new UrlCanonicalizer(QueryMode.DROP_ALL);
+
+    /**
+     * Keeps the query, for the URL a page is fetched from.
+     */
+    public static final UrlCanonicalizer KEEP_QUERY = new UrlCanonicalizer(QueryMode.KEEP_ALL);
+
+    private static final String HTTP = "http";
+    private static final String HTTPS = "https";
+    private static final int HTTP_PORT = 80;
+    private static final int HTTPS_PORT = 443;
+    private static final int MAX_PORT = 65535;
+
+    private final QueryMode queryMode;
+    private final String[] parameters;
+
+    public UrlCanonicalizer(QueryMode queryMode) {
+        this(queryMode, List.of());
+    }
+
+    /**
+     * Constructs a new {@code UrlCanonicalizer}.
+     *
+     * @param queryMode  how the query is carried into the canonical form.
+     * @param parameters the names of the query parameters kept or dropped by {@code KEEP_LISTED} and
+     *                   {@code DROP_LISTED}, matched exactly.
+     */
+    public UrlCanonicalizer(QueryMode queryMode, Collection<String> parameters) {
+        if (queryMode == null) {
+            throw new IllegalArgumentException("Query mode must not be null");
+        }
+        this.queryMode = queryMode;
+        this.parameters = parameters.toArray(new String[0]);
+    }
+
+    public QueryMode getQueryMode() {
+        return queryMode;
+    }
+
+    /**
+     * Returns the canonical form of the absolute URL {@code url}, or {@code null} if it is not a
+     * well-formed http or https URL.
+     */
+    public String canonicalize(CharSequence url) {
+        StringBuilder out = new StringBuilder(url.length() + 1);
+        return resolve(null, url, 0, url.length(), out) ? out.toString() : null;
+    }
+
+    /**
+     * Returns the canonical form of {@code url}, built from its parsed parts, or {@code null} if it is
+     * not an http or https URL.
+     */
+    public String canonicalize(URL url) {
+        String protocol = url.getProtocol();
+        boolean secure = HTTPS.equals(protocol);
+        String authority = url.getAuthority();
+        if ((!secure && !HTTP.equals(protocol)) || authority == null) {
+            return null;
+        }
+        String path = url.getPath();
+        String query = url.getQuery();
+        StringBuilder out = new StringBuilder(protocol.length() + authority.length() + path.length()
+                + (query != null ? query.length() : 0) + 8);
+        out.append(protocol).append("://");
+        if (!appendAuthority(authority, 0, authority.length(), secure, out)) {
+            return null;
+        }
+        int pathStart = out.length();
+        out.append('/');
+        boolean absolutePath = !path.isEmpty() && path.charAt(0) == '/';
+        appendSegments(path, absolutePath ? 1 : 0, path.length(), pathStart, out);
+        if (query != null) {
+            appendQuery(query, 0, query.length(), out);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Resolves {@code reference[start, end)} against {@code base} and replaces the contents of
+     * {@code out} with the canonical form of the result.
+     *
+     * @param base      the canonical form of the URL the reference appears on, or {@code null} if the
+     *                  reference must be absolute. Its query is used when the reference has no path
+     *                  and no query, so a base canonicalized with {@link #KEEP_QUERY} is the most
+     *                  faithful.
+     * @param reference the text holding the reference, such as the value of an {@code href}.
+     * @param start     the index of the reference's first character.
+     * @param end       the index after the reference's last character.
+     * @param out       the buffer receiving the canonical form.
+     * @return {@code true} if the result is a well-formed http or https URL, {@code false} otherwise,
+     * in which case the contents of {@code out} are unspecified.
+     */
+    public boolean resolve(CharSequence base, CharSequence reference, int start, int end, StringBuilder out) {
+        out.setLength(0);
+        while (start < end && reference.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && reference.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        int fragment = indexOf(reference, '#', start, end);
+        if (fragment >= 0) {
+            end = fragment;
+        }
+
+        int position = start;
+        int schemeEnd = schemeEnd(reference, start, end);
+        boolean secure;
+        if (schemeEnd >= 0) {
+            if (equalsIgnoreCase(reference, start, schemeEnd, HTTP)) {
+                secure = false;
+            } else if (equalsIgnoreCase(reference, start, schemeEnd, HTTPS)) {
+                secure = true;
+            } else {
+                return false;
+            }
+            position = schemeEnd + 1;
+            // "http:page.html" is relative to a base of the same scheme.
+            if (!startsWithDoubleSlash(reference, position, end) && (base == null || secure != isSecure(base))) {
+                return false;
+            }
+        } else if (base == null) {
+            return false;
+        } else {
+            secure = isSecure(base);
+        }
+
+        int query = indexOf(reference, '?', position, end);
+        int pathEnd = query >= 0 ? query : end;
+        if (startsWithDoubleSlash(reference, position, end)) {
+            int authorityEnd = position + 2;
+            while (authorityEnd < pathEnd && reference.charAt(authorityEnd) != '/') {
+                authorityEnd++;
+            }
+            out.append(secure ? HTTPS : HTTP).append("://");
+            if (!appendAuthority(reference, position + 2, authorityEnd, secure, out)) {
+                return false;
+            }
+            int pathStart = out.length();
+            out.append('/');
+            appendSegments(reference, authorityEnd < pathEnd ? authorityEnd + 1 : pathEnd, pathEnd, pathStart, out);
+            appendQuery(reference, query >= 0 ? query + 1 : -1, end, out);
+            return true;
+        }
+
+        int baseAuthorityEnd = authorityEnd(base);
+        int baseQuery = indexOf(base, '?', baseAuthorityEnd, base.length());
+        int basePathEnd = baseQuery >= 0 ? baseQuery : base.length();
+        out.append(base, 0, baseAuthorityEnd);
+        int pathStart = out.length();
+        if (position == pathEnd) {
+            appendPath(base, baseAuthorityEnd, basePathEnd, out);
+            if (query >= 0) {
+                appendQuery(reference, query + 1, end, out);
+            } else if (baseQuery >= 0) {
+                appendQuery(base, baseQuery + 1, base.length(), out);
+            }
+            return true;
+        }
+        if (reference.charAt(position) == '/') {
+            out.append('/');
+            appendSegments(reference, position + 1, pathEnd, pathStart, out);
+        } else {
+            appendPath(base, baseAuthorityEnd, basePathEnd, out);
+            int lastSlash = out.length() - 1;
+            while (out.charAt(lastSlash) != '/') {
+                lastSlash--;
+            }
+            out.setLength(lastSlash + 1);
+            appendSegments(reference, position, pathEnd, pathStart, out);
+        }
+        appendQuery(reference, query >= 0 ? query + 1 : -1, end, out);
+        return true;
+    }
+
+    /**
+     * Returns whether two canonical URLs have the same host, regardless of scheme and port.
+     */
+    public static boolean sameHost(CharSequence first, CharSequence second) {
+        int firstStart = hostStart(first);
+        int firstEnd = hostEnd(first, firstStart);
+        int secondStart = hostStart(second);
+        int secondEnd = hostEnd(second, secondStart);
+        if (firstEnd - firstStart != secondEnd - secondStart) {
+            return false;
+        }
+        for (int i = 0; i < firstEnd - firstStart; i++) {
+            if (first.charAt(firstStart + i) != second.charAt(secondStart + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the index of the colon ending the scheme of {@code text[start, end)}, or {@code -1} if
+     * it has none and is a relative reference.
+     */
+    private static int schemeEnd(CharSequence text, int start, int end) {
+        if (start == end || !isAsciiLetter(text.charAt(start))) {
+            return -1;
+        }
+        for (int i = start + 1; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == ':') {
+                return i;
+            }
+            if (!isAsciiLetter(c) && !(c >= '0' && c <= '9') && c != '+' && c != '-' && c != '.') {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Appends the lowercased host of {@code text[start, end)} and its port unless it is the default
+     * one, leaving out any userinfo.
+     */
+    private static boolean appendAuthority(CharSequence text, int start, int end, boolean secure, StringBuilder out) {
+        int hostStart = start;
+        for (int i = end - 1; i >= start; i--) {
+            if (text.charAt(i) == '@') {
+                hostStart = i + 1;
+                break;
+            }
+        }
+        int hostEnd;
+        if (hostStart < end && text.charAt(hostStart) == '[') {
+            int close = indexOf(text, ']', hostStart, end);
+            if (close < 0 || (close + 1 < end && text.charAt(close + 1) != ':')) {
+                return false;
+            }
+            hostEnd = close + 1;
+        } else {
+            int colon = indexOf(text, ':', hostStart, end);
+            hostEnd = colon >= 0 ? colon : end;
+        }
+        if (hostEnd == hostStart) {
+            return false;
+        }
+        for (int i = hostStart; i < hostEnd; i++) {
+            char c = text.charAt(i);
+            if (c <= ' ' || c == '\\') {
+                return false;
+            }
+            out.append(c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c < 128 ? c : Character.toLowerCase(c));
+        }
+        if (hostEnd + 1 < end) {
+            int port = 0;
+            for (int i = hostEnd + 1; i < end; i++) {
+                char c = text.charAt(i);
+                if (c < '0' || c > '9') {
+                    return false;
+                }
+                port = port * 10 + (c - '0');
+                if (port > MAX_PORT) {
+                    return false;
+                }
+            }
+            if (port != (secure ? HTTPS_PORT : HTTP_PORT)) {
+                out.append(':').append(port);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Appends the segments of the relative path {@code text[start, end)} to the path being built in
+     * {@code out}, which starts at {@code pathStart} and ends with a slash, removing {@code .} and
+     * {@code ..} segments as they come.
+     */
+    private static void appendSegments(CharSequence text, int start, int end, int pathStart, StringBuilder out) {
+        int segmentStart = start;
+        while (true) {
+            int slash = indexOf(text, '/', segmentStart, end);
+            int segmentEnd = slash >= 0 ? slash : end;
+            int length = segmentEnd - segmentStart;
+            if (length == 1 && text.charAt(segmentStart) == '.') {
+                // The current directory adds nothing.
+            } else if (length == 2 && text.charAt(segmentStart) == '.' && text.charAt(segmentStart + 1) == '.') {
+                int previousSlash = out.length() - 2;
+                while (previousSlash >= pathStart && out.charAt(previousSlash) != '/') {
+                    previousSlash--;
+                }
+                if (previousSlash >= pathStart) {
+                    out.setLength(previousSlash + 1);
+                }
+            } else {
+                appendEscaped(text, segmentStart, segmentEnd, out);
+                if (slash >= 0) {
+                    out.append('/');
+                }
+            }
+            if (slash < 0) {
+                return;
+            }
+            segmentStart = slash + 1;
+        }
+    }
+
+    /**
+     * Appends the path of a canonical URL, which needs no further work, or {@code /} if it is empty.
+     */
+    private static void appendPath(CharSequence canonical, int start, int end, StringBuilder out) {
+        if (start == end) {
+            out.append('/');
+        } else {
+            out.append(canonical, start, end);
+        }
+    }
+
+    /**
+     * Appends the query {@code text[start, end)}, which follows a question mark, filtered by the query
+     * mode. Nothing is appended if {@code start} is negative or nothing of the query is kept.
+     */
+    private void appendQuery(CharSequence text, int start, int end, StringBuilder out) {
+        if (start < 0 || queryMode == QueryMode.DROP_ALL) {
+            return;
+        }
+        if (queryMode == QueryMode.KEEP_ALL) {
+            if (start < end) {
+                out.append('?');
+                appendEscaped(text, start, end, out);
+            }
+            return;
+        }
+        boolean first = true;
+        int parameterStart = start;
+        while (parameterStart <= end) {
+            int ampersand = indexOf(text, '&', parameterStart, end);
+            int parameterEnd = ampersand >= 0 ? ampersand : end;
+            if (parameterEnd > parameterStart) {
+                int equals = indexOf(text, '=', parameterStart, parameterEnd);
+                boolean listed = isListed(text, parameterStart, equals >= 0 ? equals : parameterEnd);
+                if (listed == (queryMode == QueryMode.KEEP_LISTED)) {
+                    out.append(first ? '?' : '&');
+                    appendEscaped(text, parameterStart, parameterEnd, out);
+                    first = false;
+                }
+            }
+            if (ampersand < 0) {
+                return;
+            }
+            parameterStart = ampersand + 1;
+        }
+    }
+
+    private boolean isListed(CharSequence text, int start, int end) {
+        for (String parameter : parameters) {
+            if (parameter.length() == end - start && regionMatches(text, start, parameter)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Appends {@code text[start, end)} with the hex digits of its percent-escapes uppercased.
+     */
+    private static void appendEscaped(CharSequence text, int start, int end, StringBuilder out) {
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            out.append(c);
+            if (c == '%' && i + 2 < end && isHexDigit(text.charAt(i + 1)) && isHexDigit(text.charAt(i + 2))) {
+                out.append(Character.toUpperCase(text.charAt(i + 1))).append(Character.toUpperCase(text.charAt(i + 2)));
+                i += 2;
+            }
+        }
+    }
+
+    private static boolean isSecure(CharSequence canonical) {
+        return canonical.length() > HTTP.length() && canonical.charAt(HTTP.length()) == 's';
+    }
+
+    private static int hostStart(CharSequence canonical) {
+        return (isSecure(canonical) ? HTTPS : HTTP).length() + "://".length();
+    }
+
+    private static int hostEnd(CharSequence canonical, int start) {
+        int end = start;
+        boolean bracketed = false;
+        while (end < canonical.length()) {
+            char c = canonical.charAt(end);
+            if (c == '/' || c == '?' || (c == ':' && !bracketed)) {
+                break;
+            }
+            if (c == '[') {
+                bracketed = true;
+            } else if (c == ']') {
+                bracketed = false;
+            }
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * Returns the index after the authority of a canonical URL, where its path starts.
+     */
+    private static int authorityEnd(CharSequence canonical) {
+        int end = hostStart(canonical);
+        while (end < canonical.length() && canonical.charAt(end) != '/' && canonical.charAt(end) != '?') {
+            end++;
+        }
+        return end;
+    }
+
+    private static boolean startsWithDoubleSlash(CharSequence text, int start, int end) {
+        return start + 1 < end && text.charAt(start) == '/' && text.charAt(start + 1) == '/';
+    }
+
+    private static int indexOf(CharSequence text, char c, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean regionMatches(CharSequence text, int start, String expected) {
+        for (int i = 0; i < expected.length(); i++) {
+            if (text.charAt(start + i) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean equalsIgnoreCase(CharSequence text, int start, int end, String lowercase) {
+        if (end - start != lowercase.length()) {
+            return false;
+        }
+        for (int i = 0; i < lowercase.length(); i++) {
+            char c = text.charAt(start + i);
+            if ((c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c) != lowercase.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isHexDigit(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+}
@@ -0,0 +1,30 @@
+package com.backend.util;
+
+import java.net.URL;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class UrlUtil {
+    private static final Logger LOGGER = Logger.getLogger(UrlUtil.class.getName());
+
+    /**
+     * Returns the canonical form of {@code url} without its query, as {@link UrlCanonicalizer#DEFAULT}
+     * computes it, or the URL as it is if it is not an http or https URL.
+     */
+    public static String normalizeUrl(URL url) {
+        return normalizeUrl(url, UrlCanonicalizer.DEFAULT);
+    }
+
+    /**
+     * Returns the canonical form of {@code url} computed by {@code canonicalizer}, or the URL as it is
+     * if it is not an http or https URL.
+     */
+    public static String normalizeUrl(URL url, UrlCanonicalizer canonicalizer) {
+        String normalized = canonicalizer.canonicalize(url);
+        if (normalized == null) {
+            LOGGER.log(Level.WARNING, "Error normalizing URL: {0}", url);
+            return url.toString();
+        }
+        return normalized;
+    }
+}
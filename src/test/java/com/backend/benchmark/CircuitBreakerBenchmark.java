@@ -0,0 +1,67 @@
+package com.backend.benchmark;
+
+import com.backend.service.CircuitBreaker;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link CircuitBreaker} throughput with four crawl workers: the check made before every
+ * fetch, for a healthy host and for a host whose circuit is open, and recording failures spread over
+ * many hosts whose circuits stay closed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class CircuitBreakerBenchmark {
+    private static final int FAILING_HOSTS = 1024;
+    private static final String OPERATION_ID = "benchmark";
+
+    private CircuitBreaker circuitBreaker;
+    private CircuitBreaker tolerantCircuitBreaker;
+    private URL healthyUrl;
+    private URL downUrl;
+    private URL[] failingUrls;
+
+    @Setup(Level.Trial)
+    public void openCircuits() throws MalformedURLException {
+        circuitBreaker = new CircuitBreaker(5, TimeUnit.HOURS.toMillis(1));
+        tolerantCircuitBreaker = new CircuitBreaker(Integer.MAX_VALUE, TimeUnit.HOURS.toMillis(1));
+        healthyUrl = new URL("https://healthy.example.com/articles/1");
+        downUrl = new URL("https://down.example.com/articles/1");
+        for (int i = 0; i < 5; i++) {
+            circuitBreaker.recordFailure(downUrl);
+        }
+        failingUrls = new URL[FAILING_HOSTS];
+        for (int i = 0; i < FAILING_HOSTS; i++) {
+            failingUrls[i] = new URL("https://host-" + i + ".example.com/page");
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Worker {
+        int next;
+    }
+
+    @Benchmark
+    public boolean shouldSkipHealthyHost() {
+        return circuitBreaker.shouldSkip(healthyUrl, OPERATION_ID);
+    }
+
+    @Benchmark
+    public boolean shouldSkipOpenHost() {
+        return circuitBreaker.shouldSkip(downUrl, OPERATION_ID);
+    }
+
+    @Benchmark
+    public void recordFailure(Worker worker) {
+        tolerantCircuitBreaker.recordFailure(failingUrls[worker.next]);
+        worker.next = (worker.next + 1) & (FAILING_HOSTS - 1);
+    }
+}
@@ -0,0 +1,114 @@
+package com.backend.benchmark;
+
+import com.backend.util.AsyncHttpFetcher;
+import com.backend.util.HttpUtil;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares pages/sec of the per-request {@code HttpURLConnection} path in {@link HttpUtil} against the
+ * pooled {@link AsyncHttpFetcher}, both sequentially and with requests pipelined asynchronously, using
+ * a local HTTP server so results do not depend on the network.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+public class FetcherBenchmark {
+    private static final int PAGES_PER_INVOCATION = 64;
+    private static final int TIMEOUT_MS = 5000;
+
+    @Param({"16384"})
+    public int pageSize;
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private AsyncHttpFetcher fetcher;
+    private List<URL> urls;
+
+    @Setup(Level.Trial)
+    public void startServer() throws IOException {
+        byte[] page = buildPage(pageSize);
+        serverExecutor = Executors.newFixedThreadPool(16);
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+            exchange.sendResponseHeaders(200, page.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(page);
+            }
+        });
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        urls = new ArrayList<>();
+        for (int i = 0; i < PAGES_PER_INVOCATION; i++) {
+            urls.add(new URL("http://localhost:" + server.getAddress().getPort() + "/page-" + i + ".html"));
+        }
+        fetcher = new AsyncHttpFetcher(16, TIMEOUT_MS);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAGES_PER_INVOCATION)
+    public int httpUrlConnection() throws IOException {
+        int bytes = 0;
+        for (URL url : urls) {
+            bytes += HttpUtil.getBodyTextFromUrl(url, TIMEOUT_MS).length();
+        }
+        return bytes;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAGES_PER_INVOCATION)
+    public int pooledHttpClient() throws IOException {
+        int bytes = 0;
+        for (URL url : urls) {
+            bytes += fetcher.fetch(url, TIMEOUT_MS).length();
+        }
+        return bytes;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAGES_PER_INVOCATION)
+    public int pooledHttpClientAsync() {
+        List<CompletableFuture<String>> pending = new ArrayList<>(urls.size());
+        for (URL url : urls) {
+            pending.add(fetcher.fetchAsync(url, TIMEOUT_MS));
+        }
+        int bytes = 0;
+        for (CompletableFuture<String> body : pending) {
+            bytes += body.join().length();
+        }
+        return bytes;
+    }
+
+    private static byte[] buildPage(int size) {
+        StringBuilder page = new StringBuilder("<html><body>");
+        int link = 0;
+        while (page.length() < size) {
+            page.append("<p>Lorem ipsum dolor sit amet <a href=\"/page-").append(link++ % PAGES_PER_INVOCATION).append(".html\">link</a></p>\n");
+        }
+        page.append("</body></html>");
+        return page.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,97 @@
+package com.backend.benchmark;
+
+import com.backend.loadtest.SyntheticSite;
+import com.backend.model.ISearchOperation;
+import com.backend.model.SearchStatus;
+import com.backend.service.CircuitBreaker;
+import com.backend.service.CrawlConfig;
+import com.backend.service.CrawlService;
+import com.backend.service.HttpClientDependencies;
+import com.backend.service.SearchRetention;
+import com.backend.util.AsyncHttpFetcher;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Compares how many pages a search fetches before reaching {@code maxResults} with a first-in,
+ * first-out frontier and with a best-first one, on the synthetic site of the load test. Each invocation
+ * runs one search to completion; the {@code pagesFetched} counter reports its fetches next to its time.
+ * Searches rotate over the site's keywords, so both orders run the same sequence of searches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 8)
+@Measurement(iterations = 24)
+@Fork(1)
+public class FrontierOrderBenchmark {
+    private static final int PAGES = 5000;
+    private static final int FAN_OUT = 8;
+    private static final int PAGE_SIZE = 4096;
+    private static final double KEYWORD_DENSITY = 0.02;
+    private static final int KEYWORDS = 8;
+    private static final int MAX_RESULTS = 20;
+    private static final int TIMEOUT_MS = 5000;
+
+    @Param({"FIFO", "BEST_FIRST"})
+    public CrawlConfig.FrontierOrder frontierOrder;
+
+    @Param({"0", "0.5"})
+    public double descriptiveAnchorRate;
+
+    @Param({"1", "8"})
+    public int fetchParallelism;
+
+    private SyntheticSite site;
+    private ExecutorService executor;
+    private CrawlService crawlService;
+    private String[] keywords;
+    private int nextKeyword;
+
+    /**
+     * Fetches of the last search, reported as a secondary result.
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Fetches {
+        public long pagesFetched;
+    }
+
+    @Setup(Level.Trial)
+    public void startSite() throws IOException {
+        keywords = new String[KEYWORDS];
+        for (int i = 0; i < keywords.length; i++) {
+            keywords[i] = "needle" + i;
+        }
+        site = new SyntheticSite(PAGES, FAN_OUT, PAGE_SIZE, 0, 0, 0, KEYWORD_DENSITY, descriptiveAnchorRate, keywords, 42);
+        String baseUrl = site.start(16);
+        CrawlConfig config = new CrawlConfig(baseUrl, MAX_RESULTS, 0, TIMEOUT_MS, PAGES, fetchParallelism, false,
+                CrawlConfig.VisitedSetMode.EXACT, null, 0, false, frontierOrder);
+        executor = Executors.newCachedThreadPool();
+        crawlService = new CrawlService(executor, config, new CircuitBreaker(PAGES, TimeUnit.SECONDS.toMillis(10)),
+                new HttpClientDependencies(new AsyncHttpFetcher(16, TIMEOUT_MS)), SearchRetention.retainAll());
+    }
+
+    @TearDown(Level.Trial)
+    public void stopSite() {
+        crawlService.shutdown();
+        site.stop();
+    }
+
+    @Benchmark
+    public int searchUntilMaxResults(Fetches fetches) {
+        long fetchedBefore = site.getPagesServed();
+        String keyword = keywords[nextKeyword++ % keywords.length];
+        ISearchOperation search = crawlService.getSearchOperation(crawlService.startSearch(keyword));
+        while (search.getStatus() == SearchStatus.ACTIVE) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        fetches.pagesFetched += site.getPagesServed() - fetchedBefore;
+        return search.getUrls().size();
+    }
+}
@@ -0,0 +1,70 @@
+package com.backend.benchmark;
+
+import com.backend.util.HtmlLinkExtractor;
+import com.backend.util.HttpUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * HTML pages checked into {@code src/test/resources/benchmark/corpus}, so benchmarks that parse pages
+ * run on realistic markup and give reproducible results offline. The corpus covers a news article
+ * with inline scripts and comments, a documentation page with a {@code <base>} element and escaped
+ * markup in code blocks, and a product listing dense with links.
+ */
+final class HtmlCorpus {
+    static final String NEWS_ARTICLE = "news-article.html";
+    static final String DOCS_PAGE = "docs-page.html";
+    static final String PRODUCT_LISTING = "product-listing.html";
+
+    private static final String DIRECTORY = "/benchmark/corpus/";
+
+    private HtmlCorpus() {
+    }
+
+    static String load(String name) {
+        try (InputStream in = HtmlCorpus.class.getResourceAsStream(DIRECTORY + name)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing corpus page: " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read corpus page: " + name, e);
+        }
+    }
+
+    /**
+     * Returns the URL the page is treated as having been fetched from.
+     */
+    static URL pageUrl(String name) {
+        try {
+            return new URL("https://www.example.com/section/" + name);
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns every link of every corpus page resolved against its page URL, as the crawler sees them.
+     */
+    static List<URL> allLinks() {
+        List<URL> links = new ArrayList<>();
+        for (String name : new String[]{NEWS_ARTICLE, DOCS_PAGE, PRODUCT_LISTING}) {
+            URL pageUrl = pageUrl(name);
+            HttpUtil.scanString(load(name), new HtmlLinkExtractor(link -> {
+                try {
+                    links.add(new URL(pageUrl, link));
+                } catch (MalformedURLException e) {
+                    // Skipped, as the crawler does.
+                }
+                return true;
+            }));
+        }
+        return links;
+    }
+}
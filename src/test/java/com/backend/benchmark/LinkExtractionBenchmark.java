@@ -0,0 +1,93 @@
+package com.backend.benchmark;
+
+import com.backend.util.HtmlLinkExtractor;
+import com.backend.util.HttpUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares link extraction with the regular expression the crawler used to compile for every page
+ * against the streaming {@link HtmlLinkExtractor}, on generated pages of typical sizes that mix
+ * markup, inline scripts, styles and comments.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LinkExtractionBenchmark {
+    private static final String LINK_REGEX = "<a\\s+(?:[^>]*?\\s+)?href\\s*=\\s*['\\\"](.*?)['\\\"]";
+    private static final Pattern LINK_PATTERN = Pattern.compile(LINK_REGEX, Pattern.CASE_INSENSITIVE);
+
+    @Param({"16384", "131072", "524288"})
+    public int pageSize;
+
+    private String page;
+
+    @Setup(Level.Trial)
+    public void buildPage() {
+        Random random = new Random(42);
+        StringBuilder html = new StringBuilder(pageSize + 256);
+        html.append("<!DOCTYPE html><html><head><title>Benchmark</title>")
+                .append("<link rel=\"canonical\" href=\"https://example.com/\">")
+                .append("<style>body { margin: 0 } a:hover { color: red }</style></head><body>\n");
+        int block = 0;
+        while (html.length() < pageSize) {
+            switch (block++ % 5) {
+                case 0:
+                    html.append("<div class=\"item\" data-id=\"").append(random.nextInt(100000)).append("\">")
+                            .append("<a class=\"title\" href=\"/articles/").append(random.nextInt(100000))
+                            .append(".html\">Article headline</a><span>Posted today</span></div>\n");
+                    break;
+                case 1:
+                    html.append("<p>Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod tempor ")
+                            .append("incididunt ut labore et dolore magna aliqua. Ut enim ad minim veniam.</p>\n");
+                    break;
+                case 2:
+                    html.append("<script>window.dataLayer = window.dataLayer || []; if (a < b && c > d) { ")
+                            .append("document.write('<a href=\"/tracking\">'); }</script>\n");
+                    break;
+                case 3:
+                    html.append("<!-- navigation block ").append(block).append(" -->")
+                            .append("<ul><li><a href='/section/").append(random.nextInt(50)).append("'>Section</a></li>")
+                            .append("<li><img src=\"/img/").append(random.nextInt(1000)).append(".png\" alt=\"x\"></li></ul>\n");
+                    break;
+                default:
+                    html.append("<table><tr><td>Cell</td><td><a\n  target=\"_blank\"\n  href=\"https://example.com/ext/")
+                            .append(random.nextInt(1000)).append("\">External</a></td></tr></table>\n");
+                    break;
+            }
+        }
+        page = html.append("</body></html>").toString();
+    }
+
+    @Benchmark
+    public void regexCompiledPerPage(Blackhole blackhole) {
+        Matcher matcher = Pattern.compile(LINK_REGEX, Pattern.CASE_INSENSITIVE).matcher(page);
+        while (matcher.find()) {
+            blackhole.consume(matcher.group(1));
+        }
+    }
+
+    @Benchmark
+    public void regexPrecompiled(Blackhole blackhole) {
+        Matcher matcher = LINK_PATTERN.matcher(page);
+        while (matcher.find()) {
+            blackhole.consume(matcher.group(1));
+        }
+    }
+
+    @Benchmark
+    public void streamingTokenizer(Blackhole blackhole) {
+        HttpUtil.scanString(page, new HtmlLinkExtractor(link -> {
+            blackhole.consume(link);
+            return true;
+        }));
+    }
+}
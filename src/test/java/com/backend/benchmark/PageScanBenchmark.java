@@ -0,0 +1,97 @@
+package com.backend.benchmark;
+
+import com.backend.model.FingerprintVisitedSet;
+import com.backend.model.IVisitedSet;
+import com.backend.util.HtmlLinkExtractor;
+import com.backend.util.HttpUtil;
+import com.backend.util.KeywordMatcher;
+import com.backend.util.MultiKeywordMatcher;
+import com.backend.util.UrlCanonicalizer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-page work of a crawl on the HTML corpus: extracting links and queuing the new
+ * same-host ones as {@code CrawlService}'s link queuer does, and matching keywords as
+ * {@code processUrl} does, for a single search and for a shared crawl serving several searches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PageScanBenchmark {
+    private static final int VISITED_SET_CAPACITY = 1024;
+
+    @Param({HtmlCorpus.NEWS_ARTICLE, HtmlCorpus.DOCS_PAGE, HtmlCorpus.PRODUCT_LISTING})
+    public String page;
+
+    private String html;
+    private URL pageUrl;
+    private KeywordMatcher presentKeyword;
+    private KeywordMatcher absentKeyword;
+    private MultiKeywordMatcher sharedCrawlKeywords;
+
+    @Setup(Level.Trial)
+    public void loadPage() {
+        html = HtmlCorpus.load(page);
+        pageUrl = HtmlCorpus.pageUrl(page);
+        presentKeyword = new KeywordMatcher("security");
+        absentKeyword = new KeywordMatcher("kubernetes");
+        sharedCrawlKeywords = new MultiKeywordMatcher(List.of("security", "kubernetes", "warranty", "outage",
+                "protocol", "checkout", "latency", "firmware"));
+    }
+
+    @Benchmark
+    public int extractAndQueueLinks() {
+        IVisitedSet visited = new FingerprintVisitedSet(VISITED_SET_CAPACITY);
+        String pageSpec = UrlCanonicalizer.KEEP_QUERY.canonicalize(pageUrl);
+        StringBuilder canonical = new StringBuilder();
+        StringBuilder resolved = new StringBuilder();
+        HttpUtil.scanString(html, new HtmlLinkExtractor(link -> {
+            if (UrlCanonicalizer.DEFAULT.resolve(pageSpec, link, 0, link.length(), canonical)
+                    && UrlCanonicalizer.sameHost(canonical, pageSpec) && !visited.contains(canonical)
+                    && UrlCanonicalizer.KEEP_QUERY.resolve(pageSpec, link, 0, link.length(), resolved)) {
+                try {
+                    URL url = new URL(resolved.toString());
+                    if (url.getPort() <= 0xFFFF) {
+                        visited.addIfAbsent(canonical.toString());
+                    }
+                } catch (MalformedURLException e) {
+                    // Skipped, as the crawler does.
+                }
+            }
+            return true;
+        }));
+        return visited.size();
+    }
+
+    @Benchmark
+    public boolean keywordMatchPresent() {
+        KeywordMatcher.Scan scan = presentKeyword.newScan();
+        HttpUtil.scanString(html, (chars, offset, length) -> !scan.feed(chars, offset, length));
+        return scan.isMatched();
+    }
+
+    @Benchmark
+    public boolean keywordMatchAbsent() {
+        KeywordMatcher.Scan scan = absentKeyword.newScan();
+        HttpUtil.scanString(html, (chars, offset, length) -> !scan.feed(chars, offset, length));
+        return scan.isMatched();
+    }
+
+    @Benchmark
+    public void sharedCrawlKeywordMatch(Blackhole blackhole) {
+        MultiKeywordMatcher.Scan scan = sharedCrawlKeywords.newScan();
+        HttpUtil.scanString(html, (chars, offset, length) -> !scan.feed(chars, offset, length));
+        for (int i = 0; i < sharedCrawlKeywords.getKeywordCount(); i++) {
+            blackhole.consume(scan.isMatched(i));
+        }
+    }
+}
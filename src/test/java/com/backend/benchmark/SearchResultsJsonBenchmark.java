@@ -0,0 +1,45 @@
+package com.backend.benchmark;
+
+import com.backend.model.SearchOperation;
+import com.backend.model.SearchStatus;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures serializing a search's results as the {@code GET /crawl/{id}} endpoint does, as the
+ * result count grows: the full document, and the last page of a paginated request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchResultsJsonBenchmark {
+    private static final int PAGE_LIMIT = 100;
+
+    @Param({"10", "1000", "100000"})
+    public int results;
+
+    private SearchOperation searchOperation;
+
+    @Setup(Level.Trial)
+    public void buildResults() {
+        searchOperation = new SearchOperation("security");
+        for (int i = 0; i < results; i++) {
+            searchOperation.tryAddUrl("https://www.example.com/articles/" + i + "/security-update?ref=\"feed\"", Integer.MAX_VALUE);
+        }
+        searchOperation.setStatus(SearchStatus.DONE);
+    }
+
+    @Benchmark
+    public String fullJson() {
+        return searchOperation.toString();
+    }
+
+    @Benchmark
+    public String lastPageJson() {
+        return searchOperation.toJson(Math.max(0, results - PAGE_LIMIT), PAGE_LIMIT);
+    }
+}
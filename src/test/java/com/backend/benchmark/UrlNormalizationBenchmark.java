@@ -0,0 +1,70 @@
+package com.backend.benchmark;
+
+import com.backend.util.UrlCanonicalizer;
+import com.backend.util.UrlUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link UrlUtil#normalizeUrl} on the links found in the HTML corpus, alone and together
+ * with resolving the raw link against its page, which is what happens for every link of every page,
+ * and the same two steps done by {@link UrlCanonicalizer#resolve} into a reused buffer, as the crawl's
+ * link queuer now does before its visited check.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UrlNormalizationBenchmark {
+    private URL[] urls;
+    private String[] specs;
+    private URL base;
+    private String baseSpec;
+    private final StringBuilder canonical = new StringBuilder();
+    private int next;
+
+    @Setup(Level.Trial)
+    public void loadLinks() {
+        List<URL> links = HtmlCorpus.allLinks();
+        urls = links.toArray(new URL[0]);
+        specs = links.stream().map(URL::toString).toArray(String[]::new);
+        base = HtmlCorpus.pageUrl(HtmlCorpus.NEWS_ARTICLE);
+        baseSpec = UrlCanonicalizer.KEEP_QUERY.canonicalize(base);
+    }
+
+    @Benchmark
+    public String normalizeUrl() {
+        URL url = urls[next];
+        next = next + 1 == urls.length ? 0 : next + 1;
+        return UrlUtil.normalizeUrl(url);
+    }
+
+    @Benchmark
+    public String resolveAndNormalize() throws MalformedURLException {
+        String spec = specs[next];
+        next = next + 1 == specs.length ? 0 : next + 1;
+        return UrlUtil.normalizeUrl(new URL(base, spec));
+    }
+
+    @Benchmark
+    public int canonicalize() {
+        String spec = specs[next];
+        next = next + 1 == specs.length ? 0 : next + 1;
+        UrlCanonicalizer.DEFAULT.resolve(null, spec, 0, spec.length(), canonical);
+        return canonical.length();
+    }
+
+    @Benchmark
+    public int resolveAndCanonicalize() {
+        String spec = specs[next];
+        next = next + 1 == specs.length ? 0 : next + 1;
+        UrlCanonicalizer.DEFAULT.resolve(baseSpec, spec, 0, spec.length(), canonical);
+        return canonical.length();
+    }
+}
@@ -0,0 +1,74 @@
+package com.backend.benchmark;
+
+import com.backend.service.IUrlQueue;
+import com.backend.service.MemoryUrlQueue;
+import com.backend.service.SpillingUrlQueue;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures steady-state add and poll throughput of the crawl frontier queues with a backlog of queued
+ * URLs. With the spilling queue the backlog lives in memory-mapped segments, so the heap holds only
+ * {@link #MEMORY_CAPACITY} URLs however large the backlog is.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UrlQueueBenchmark {
+    private static final int MEMORY_CAPACITY = 10000;
+
+    @Param({"memory", "spilling"})
+    public String queueType;
+
+    @Param({"10000", "1000000"})
+    public int backlog;
+
+    private Path directory;
+    private IUrlQueue queue;
+    private URL[] urls;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void fillQueue() throws IOException {
+        urls = new URL[1024];
+        for (int i = 0; i < urls.length; i++) {
+            urls[i] = url(i);
+        }
+        if ("spilling".equals(queueType)) {
+            directory = Files.createTempDirectory("url-queue-benchmark");
+            queue = new SpillingUrlQueue(directory, MEMORY_CAPACITY);
+        } else {
+            queue = new MemoryUrlQueue();
+        }
+        for (int i = 0; i < backlog; i++) {
+            queue.add(url(i));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void closeQueue() throws IOException {
+        queue.close();
+        if (directory != null) {
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    @Benchmark
+    public URL addAndPoll() {
+        queue.add(urls[next++ & (urls.length - 1)]);
+        return queue.poll();
+    }
+
+    private static URL url(int i) throws MalformedURLException {
+        return new URL("https://example.com/articles/" + i + "/index.html?ref=home");
+    }
+}
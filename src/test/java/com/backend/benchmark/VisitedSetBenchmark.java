@@ -0,0 +1,72 @@
+package com.backend.benchmark;
+
+import com.backend.model.BloomVisitedSet;
+import com.backend.model.ExactVisitedSet;
+import com.backend.model.FingerprintVisitedSet;
+import com.backend.model.IVisitedSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures visited-set insertion with four crawl workers inserting concurrently, as a crawl with
+ * {@code fetchParallelism} of four does. Every worker walks its own slice of a pool of distinct URLs
+ * and wraps around, so the set fills up during an iteration and later inserts hit existing entries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class VisitedSetBenchmark {
+    private static final int POOL_SIZE = 1 << 20;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    @Param({"EXACT", "FINGERPRINT", "BLOOM"})
+    public String mode;
+
+    private String[] pool;
+    private IVisitedSet visited;
+
+    @Setup(Level.Trial)
+    public void buildPool() {
+        pool = new String[POOL_SIZE];
+        for (int i = 0; i < POOL_SIZE; i++) {
+            pool[i] = "https://www.example.com/section-" + (i % 97) + "/article/" + i + "?page=" + (i % 13);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void newSet() {
+        switch (mode) {
+            case "FINGERPRINT":
+                visited = new FingerprintVisitedSet(INITIAL_CAPACITY);
+                break;
+            case "BLOOM":
+                visited = new BloomVisitedSet(INITIAL_CAPACITY, BloomVisitedSet.DEFAULT_FALSE_POSITIVE_RATE);
+                break;
+            default:
+                visited = new ExactVisitedSet();
+                break;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Worker {
+        int next;
+
+        @Setup(Level.Trial)
+        public void start() {
+            next = System.identityHashCode(this) & (POOL_SIZE - 1);
+        }
+    }
+
+    @Benchmark
+    public boolean addIfAbsent(Worker worker) {
+        String url = pool[worker.next];
+        worker.next = (worker.next + 1) & (POOL_SIZE - 1);
+        return visited.addIfAbsent(url);
+    }
+}
@@ -0,0 +1,267 @@
+package com.backend.integration;
+
+import com.backend.util.AsyncHttpFetcher;
+import com.backend.util.FetchResult;
+import com.backend.util.HttpUtil;
+import com.backend.util.Redirects;
+import com.backend.util.TransferStats;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncHttpFetcherIntegrationTest {
+    private static final int TIMEOUT_MILLISECONDS = 5000;
+    private static final int MAX_CONNECTIONS_PER_HOST = 2;
+    private static final int SLOW_RESPONSE_DELAY_MILLISECONDS = 100;
+    private static final int STALL_MILLISECONDS = 10_000;
+    private static final int SHORT_TIMEOUT_MILLISECONDS = 300;
+    private static final String VERSIONED_ETAG = "\"v1\"";
+    private static final String GZIPPED_BODY = "<html>" + "compressible text ".repeat(200) + "keyword</html>";
+
+    private static final AtomicInteger activeSlowRequests = new AtomicInteger();
+    private static final AtomicInteger peakSlowRequests = new AtomicInteger();
+
+    private static HttpServer server;
+    private static ExecutorService serverExecutor;
+    private static String serverUrl;
+
+    @BeforeAll
+    public static void startLocalServer() throws IOException {
+        serverExecutor = Executors.newFixedThreadPool(8);
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/page", exchange -> respond(exchange, 200, "<html>çãõ keyword</html>"));
+        server.createContext("/moved", exchange -> {
+            exchange.getResponseHeaders().add("Location", "/page");
+            exchange.sendResponseHeaders(301, -1);
+            exchange.close();
+        });
+        server.createContext("/missing", exchange -> respond(exchange, 404, "not found"));
+        server.createContext("/versioned", exchange -> {
+            exchange.getResponseHeaders().add("ETag", VERSIONED_ETAG);
+            if (VERSIONED_ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+            } else {
+                respond(exchange, 200, "<html>versioned keyword</html>");
+            }
+        });
+        server.createContext("/gzipped", exchange -> {
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            if (acceptEncoding == null || !acceptEncoding.contains("gzip")) {
+                respond(exchange, 200, GZIPPED_BODY);
+                return;
+            }
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(GZIPPED_BODY.getBytes(StandardCharsets.UTF_8));
+            }
+            exchange.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, compressed.size());
+            try (OutputStream out = exchange.getResponseBody()) {
+                compressed.writeTo(out);
+            }
+        });
+        server.createContext("/slow", exchange -> {
+            peakSlowRequests.accumulateAndGet(activeSlowRequests.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(SLOW_RESPONSE_DELAY_MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            activeSlowRequests.decrementAndGet();
+            respond(exchange, 200, "slow");
+        });
+        server.createContext("/stalled", exchange -> {
+            // Sends the headers and the first bytes of the body, then stops as an overloaded origin would.
+            exchange.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+            exchange.sendResponseHeaders(200, 100);
+            OutputStream out = exchange.getResponseBody();
+            out.write("<html".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            try {
+                Thread.sleep(STALL_MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+        server.setExecutor(serverExecutor);
+        server.start();
+        serverUrl = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @AfterAll
+    public static void stopLocalServer() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    public void shouldFetchBodyUsingDeclaredCharset() throws Exception {
+        AsyncHttpFetcher fetcher = new AsyncHttpFetcher(MAX_CONNECTIONS_PER_HOST, TIMEOUT_MILLISECONDS);
+
+        assertEquals("<html>çãõ keyword</html>", fetcher.fetch(new URL(serverUrl + "/page"), TIMEOUT_MILLISECONDS));
+    }
+
+    @Test
+    public void shouldFailOnNonOkStatus() {
+        AsyncHttpFetcher fetcher = new AsyncHttpFetcher(MAX_CONNECTIONS_PER_HOST, TIMEOUT_MILLISECONDS);
+
+        IOException error = assertThrows(IOException.class, () -> fetcher.fetch(new URL(serverUrl + "/missing"), TIMEOUT_MILLISECONDS));
+        assertTrue(error.getMessage().contains("404"));
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void shouldReportRedirectTargetToBoundListener() throws Exception {
+        AsyncHttpFetcher fetcher = new AsyncHttpFetcher(MAX_CONNECTIONS_PER_HOST, TIMEOUT_MILLISECONDS);
+        URL moved = new URL(serverUrl + "/moved");
+        List<String> targets = new ArrayList<>();
+
+        try (Redirects.Binding ignored = Redirects.bind((requested, target) -> targets.add(requested.getPath() + " -> " + target.getPath()))) {
+            fetcher.scan(moved, TIMEOUT_MILLISECONDS, (chars, offset, length) -> true);
+            HttpUtil.scanBodyFromUrl(moved, TIMEOUT_MILLISECONDS, (chars, offset, length) -> true);
+            fetcher.fetch(new URL(serverUrl + "/page"), TIMEOUT_MILLISECONDS);
+        }
+        fetcher.fetch(moved, TIMEOUT_MILLISECONDS);
+
+        assertEquals(List.of("/moved -> /page", "/moved -> /page"), targets);
+    }
+
+    @Test
+    public void shouldRevalidateWithEtag() throws Exception {
+        AsyncHttpFetcher fetcher = new AsyncHttpFetcher(MAX_CONNECTIONS_PER_HOST, TIMEOUT_MILLISECONDS);
+        URL url = new URL(serverUrl + "/versioned");
+
+        FetchResult first = fetcher.fetchIfModified(url, TIMEOUT_MILLISECONDS, null, null);
+        FetchResult second = fetcher.fetchIfModified(url, TIMEOUT_MILLISECONDS, first.getEtag(), null);
+        FetchResult changed = fetcher.fetchIfModified(url, TIMEOUT_MILLISECONDS, "\"v0\"", null);
+
+        assertFalse(first.isNotModified());
+        assertEquals("<html>versioned keyword</html>", first.getBody());
+        assertEquals(VERSIONED_ETAG, first.getEtag());
+        assertTrue(second.isNotModified());
+        assertNull(second.getBody());
+        assertFalse(changed.isNotModified());
+    }
+
+    @Test
+    public void shouldRevalidateWithEtagOverUrlConnection() throws Exception {
+        URL url = new URL(serverUrl + "/versioned");
+
+        FetchResult first = HttpUtil.fetchIfModified(url, TIMEOUT_MILLISECONDS, null, null);
+        FetchResult second = HttpUtil.fetchIfModified(url, TIMEOUT_MILLISECONDS, first.getEtag(), null);
+
+        assertEquals("<html>versioned keyword</html>", first.getBody());
+        assertTrue(second.isNotModified());
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void shouldDecodeGzipResponsesAndCountWireBytes() throws Exception {
+        AsyncHttpFetcher fetcher = new AsyncHttpFetcher(MAX_CONNECTIONS_PER_HOST, TIMEOUT_MILLISECONDS);
+        URL url = new URL(serverUrl + "/gzipped");
+        TransferStats searchStats = new TransferStats();
+        StringBuilder scanned = new StringBuilder();
+
+        String fetched = fetcher.fetch(url, TIMEOUT_MILLISECONDS);
+        try (TransferStats.Binding ignored = TransferStats.bind(searchStats)) {
+            fetcher.scan(url, TIMEOUT_MILLISECONDS, (chars, offset, length) -> {
+                scanned.append(chars, offset, length);
+                return true;
+            });
+        }
+
+        assertEquals(GZIPPED_BODY, fetched);
+        assertEquals(GZIPPED_BODY, scanned.toString());
+        TransferStats stats = fetcher.getTransferStats();
+        assertEquals(2, stats.getCompressedResponseCount());
+        assertEquals(2L * GZIPPED_BODY.length(), stats.getDecodedBytes());
+        assertTrue(stats.getWireBytes() < stats.getDecodedBytes() / 10, stats.toString());
+        assertEquals(1, searchStats.getResponseCount());
+        assertEquals(GZIPPED_BODY.length(), searchStats.getDecodedBytes());
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void shouldDecodeGzipResponsesOverUrlConnection() throws Exception {
+        TransferStats searchStats = new TransferStats();
+        StringBuilder scanned = new StringBuilder();
+
+        try (TransferStats.Binding ignored = TransferStats.bind(searchStats)) {
+            HttpUtil.scanBodyFromUrl(new URL(serverUrl + "/gzipped"), TIMEOUT_MILLISECONDS, (chars, offset, length) -> {
+                scanned.append(chars, offset, length);
+                return true;
+            });
+        }
+
+        assertEquals(GZIPPED_BODY, scanned.toString());
+        assertEquals(1, searchStats.getCompressedResponseCount());
+        assertEquals(GZIPPED_BODY.length(), searchStats.getDecodedBytes());
+        assertTrue(searchStats.getWireBytes() < searchStats.getDecodedBytes() / 10, searchStats.toString());
+    }
+
+    @Test
+    public void shouldLimitConcurrentRequestsPerHost() throws Exception {
+        AsyncHttpFetcher fetcher = new AsyncHttpFetcher(MAX_CONNECTIONS_PER_HOST, TIMEOUT_MILLISECONDS);
+        List<CompletableFuture<String>> responses = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            responses.add(fetcher.fetchAsync(new URL(serverUrl + "/slow?i=" + i), TIMEOUT_MILLISECONDS));
+        }
+
+        for (CompletableFuture<String> response : responses) {
+            assertEquals("slow", response.join());
+        }
+        assertTrue(peakSlowRequests.get() <= MAX_CONNECTIONS_PER_HOST, "Peak concurrent requests: " + peakSlowRequests.get());
+    }
+
+    @Test
+    public void shouldTimeOutBodiesThatStallMidway() throws Exception {
+        AsyncHttpFetcher fetcher = new AsyncHttpFetcher(MAX_CONNECTIONS_PER_HOST, TIMEOUT_MILLISECONDS);
+        URL stalled = new URL(serverUrl + "/stalled");
+        long startNanos = System.nanoTime();
+
+        IOException fetchError = assertThrows(IOException.class, () -> fetcher.fetch(stalled, SHORT_TIMEOUT_MILLISECONDS));
+        IOException scanError = assertThrows(IOException.class,
+                () -> fetcher.scan(stalled, SHORT_TIMEOUT_MILLISECONDS, (chars, offset, length) -> true));
+        IOException revalidateError = assertThrows(IOException.class,
+                () -> fetcher.fetchIfModified(stalled, SHORT_TIMEOUT_MILLISECONDS, null, null));
+        // Every stalled request has given back its host permit, so the limit of two does not block this one.
+        String page = fetcher.fetch(new URL(serverUrl + "/page"), TIMEOUT_MILLISECONDS);
+
+        assertTrue(System.nanoTime() - startNanos < TimeUnit.MILLISECONDS.toNanos(STALL_MILLISECONDS / 2));
+        assertTrue(fetchError.getMessage().startsWith("Timeout"), fetchError.getMessage());
+        assertTrue(scanError.getMessage().startsWith("Timeout"), scanError.getMessage());
+        assertTrue(revalidateError.getMessage().startsWith("Timeout"), revalidateError.getMessage());
+        assertEquals("<html>çãõ keyword</html>", page);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
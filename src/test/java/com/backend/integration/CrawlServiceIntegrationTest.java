@@ -18,6 +18,8 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -147,6 +149,52 @@ public class CrawlServiceIntegrationTest {
         assertEquals("done", getSearchStatus(searchId), "Expected the search to be completed ('done')");
     }
 
+    @Test
+    public void shouldStreamResultsUntilSearchCompletes() throws Exception {
+        String searchId = startSearch("linux");
+        HttpURLConnection connection = openConnection("/crawl/" + searchId + "/stream?format=ndjson", "GET");
+        assertEquals(HttpURLConnection.HTTP_OK, connection.getResponseCode());
+        assertTrue(connection.getContentType().startsWith("application/x-ndjson"));
+
+        List<String> streamedUrls = new ArrayList<>();
+        JsonObject statusEvent = null;
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream()))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                JsonObject event = GSON.fromJson(line, JsonObject.class);
+                if (event.get("type").getAsString().equals("status")) {
+                    statusEvent = event;
+                } else {
+                    assertEquals(streamedUrls.size(), event.get("offset").getAsInt());
+                    streamedUrls.add(event.get("url").getAsString());
+                }
+            }
+        }
+
+        assertNotNull(statusEvent, "Expected the stream to end with a status event");
+        assertEquals(getSearchStatus(searchId), statusEvent.get("status").getAsString());
+        assertEquals(streamedUrls.size(), statusEvent.get("total").getAsInt());
+        assertEquals(streamedUrls.size(), getSearchResults(searchId).getAsJsonArray("urls").size());
+    }
+
+    @Test
+    public void shouldResumeEventStreamFromLastEventId() throws Exception {
+        String searchId = startSearch("linux");
+        waitForSearchCompletion(searchId);
+        int total = getSearchResults(searchId).getAsJsonArray("urls").size();
+
+        HttpURLConnection connection = openConnection("/crawl/" + searchId + "/stream", "GET");
+        connection.setRequestProperty("Last-Event-ID", String.valueOf(total));
+        assertEquals(HttpURLConnection.HTTP_OK, connection.getResponseCode());
+        assertTrue(connection.getContentType().startsWith("text/event-stream"));
+
+        String events = readResponse(connection);
+        assertTrue(events.startsWith("id: " + total + "event: status"), events);
+    }
+
     private String startSearch(String keyword) throws Exception {
         HttpURLConnection connection = openConnection("/crawl", "POST");
 
@@ -0,0 +1,479 @@
+package com.backend.loadtest;
+
+import com.backend.AppServer;
+import com.backend.service.CachingDependencies;
+import com.backend.service.CircuitBreaker;
+import com.backend.service.ClusterNode;
+import com.backend.service.CrawlConfig;
+import com.backend.service.CrawlService;
+import com.backend.service.FetchScheduler;
+import com.backend.service.HttpClientDependencies;
+import com.backend.service.HttpClusterTransport;
+import com.backend.service.PageCache;
+import com.backend.service.ScheduledDependencies;
+import com.backend.service.SearchRetention;
+import com.backend.util.AsyncHttpFetcher;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import spark.Spark;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * End-to-end load test: serves a {@link SyntheticSite}, starts the application against it with the
+ * same dependency stack as {@code Main}, runs concurrent searches through the HTTP API, and reports
+ * crawl throughput, time to first result, time to completion, peak heap usage and GC time.
+ *
+ * <p>Each search is posted to {@code POST /crawl} and followed on {@code GET /crawl/:id/stream} in
+ * NDJSON format, so time to first result is measured as a client sees it. Settings are passed as
+ * {@code key=value} arguments; see {@link Settings} for the keys and their defaults. Run it with
+ * {@code mvn -Pload-test test -DskipTests -Dloadtest.args="searches=16 pages=5000"}.
+ *
+ * <p>With {@code nodes=N} the application runs as a cluster of {@code N} nodes on localhost: this JVM
+ * is one node and starts the others as child JVMs, and searches are spread over all of them. Heap
+ * and GC figures then cover this JVM only.
+ */
+public class LoadTest {
+    private static final Logger LOGGER = Logger.getLogger(LoadTest.class.getName());
+
+    private static final String NODE_MODE = "node";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals(NODE_MODE)) {
+            Settings settings = Settings.parse(Arrays.copyOfRange(args, 1, args.length));
+            Logger.getLogger("").setLevel(settings.quiet ? Level.WARNING : Level.INFO);
+            startNode(settings, settings.siteUrl, settings.nodePort, Arrays.asList(settings.clusterNodes.split(",")), settings.clusterSecret);
+            return;
+        }
+        Settings settings = Settings.parse(args);
+        Logger.getLogger("").setLevel(settings.quiet ? Level.WARNING : Level.INFO);
+        Report report = new LoadTest().run(settings, args);
+        System.out.println(report);
+        System.exit(report.failedSearches == 0 ? 0 : 1);
+    }
+
+    Report run(Settings settings, String[] args) throws Exception {
+        String[] keywords = new String[settings.keywords];
+        for (int i = 0; i < keywords.length; i++) {
+            keywords[i] = "needle" + i;
+        }
+        SyntheticSite site = new SyntheticSite(settings.pages, settings.fanOut, settings.pageSize, settings.minLatencyMillis,
+                settings.maxLatencyMillis, settings.errorRate, settings.keywordDensity, settings.descriptiveAnchorRate, keywords, settings.seed);
+        String baseUrl = site.start(settings.siteThreads);
+        int[] ports = new int[settings.nodes];
+        List<String> nodes = new ArrayList<>();
+        for (int i = 0; i < ports.length; i++) {
+            ports[i] = freePort();
+            nodes.add("http://localhost:" + ports[i]);
+        }
+        String clusterSecret = UUID.randomUUID().toString();
+        List<Process> children = new ArrayList<>();
+        for (int i = 1; i < ports.length; i++) {
+            children.add(startChildNode(settings, args, baseUrl, ports[i], nodes, clusterSecret));
+        }
+        CrawlService crawlService = startNode(settings, baseUrl, ports[0], settings.nodes > 1 ? nodes : null, clusterSecret);
+        for (int i = 1; i < ports.length; i++) {
+            awaitNode(ports[i], children.get(i - 1));
+        }
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        ExecutorService clients = Executors.newFixedThreadPool(settings.searches);
+        List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+                heapPools.add(pool);
+            }
+        }
+        long gcMillisBefore = gcMillis();
+        long gcCountBefore = gcCount();
+        long startNanos = System.nanoTime();
+        try {
+            List<Future<SearchTiming>> futures = new ArrayList<>();
+            for (int i = 0; i < settings.searches; i++) {
+                String keyword = keywords[i % keywords.length];
+                int port = ports[i % ports.length];
+                futures.add(clients.submit(() -> runSearch(client, port, keyword, settings.deadlineSeconds)));
+            }
+            List<SearchTiming> timings = new ArrayList<>();
+            int failed = 0;
+            for (Future<SearchTiming> future : futures) {
+                try {
+                    timings.add(future.get(settings.deadlineSeconds + 10, TimeUnit.SECONDS));
+                } catch (Exception e) {
+                    LOGGER.log(Level.WARNING, "Search failed", e);
+                    failed++;
+                }
+            }
+            long elapsedNanos = System.nanoTime() - startNanos;
+            long heapPeakBytes = 0;
+            for (MemoryPoolMXBean pool : heapPools) {
+                heapPeakBytes += pool.getPeakUsage().getUsed();
+            }
+            return new Report(settings, timings, failed, elapsedNanos, site.getPagesServed(), site.getErrorsServed(),
+                    site.getBytesServed(), heapPeakBytes, gcMillis() - gcMillisBefore, gcCount() - gcCountBefore);
+        } finally {
+            clients.shutdownNow();
+            Spark.stop();
+            Spark.awaitStop();
+            crawlService.shutdown();
+            children.forEach(Process::destroy);
+            site.stop();
+        }
+    }
+
+    /**
+     * Starts the application in this JVM with the same dependency stack as {@code Main}, as a member
+     * of the cluster of {@code clusterNodes} sharing {@code clusterSecret} unless it is {@code null}.
+     */
+    private static CrawlService startNode(Settings settings, String baseUrl, int port, List<String> clusterNodes, String clusterSecret) {
+        CrawlConfig config = new CrawlConfig(baseUrl, settings.maxResults, settings.maxRetries, settings.timeoutMillis,
+                settings.maxQueueSize, settings.fetchParallelism, settings.coalesceSearches, CrawlConfig.VisitedSetMode.FINGERPRINT,
+                null, 0, settings.seedFromSitemaps, settings.frontierOrder, settings.skipNearDuplicates);
+        FetchScheduler scheduler = new FetchScheduler(settings.hostRequestsPerSecond, settings.hostBurst,
+                Math.min(4, settings.maxConnections), 1, settings.maxConnections);
+        CrawlService.Dependencies dependencies = new CachingDependencies(
+                new PageCache(20000, 256L * 1024 * 1024, TimeUnit.MINUTES.toMillis(10), PageCache.StorageMode.COMPRESSED),
+                new ScheduledDependencies(scheduler, new HttpClientDependencies(new AsyncHttpFetcher(settings.maxConnections, settings.timeoutMillis))));
+        ClusterNode cluster = clusterNodes == null ? null
+                : new ClusterNode("http://localhost:" + port, clusterNodes, new HttpClusterTransport(settings.timeoutMillis, clusterSecret));
+        CrawlService crawlService = new CrawlService(Executors.newCachedThreadPool(), config,
+                new CircuitBreaker(settings.breakerThreshold, TimeUnit.SECONDS.toMillis(10)), dependencies,
+                new SearchRetention(TimeUnit.HOURS.toMillis(1), 1000, null), cluster);
+        new AppServer(crawlService, port, cluster, clusterSecret).start();
+        Spark.awaitInitialization();
+        return crawlService;
+    }
+
+    private static Process startChildNode(Settings settings, String[] args, String baseUrl, int port, List<String> nodes,
+                                          String clusterSecret) throws IOException {
+        List<String> command = new ArrayList<>(List.of(Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"), LoadTest.class.getName(), NODE_MODE));
+        command.addAll(Arrays.asList(args));
+        command.add("nodePort=" + port);
+        command.add("siteUrl=" + baseUrl);
+        command.add("clusterNodes=" + String.join(",", nodes));
+        command.add("clusterSecret=" + clusterSecret);
+        ProcessBuilder builder = new ProcessBuilder(command);
+        if (settings.quiet) {
+            builder.redirectOutput(ProcessBuilder.Redirect.DISCARD).redirectError(ProcessBuilder.Redirect.DISCARD);
+        } else {
+            builder.inheritIO();
+        }
+        return builder.start();
+    }
+
+    /**
+     * Waits until the child node listening on {@code port} serves requests.
+     */
+    private static void awaitNode(int port, Process process) throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IOException("Cluster node on port " + port + " exited with status " + process.exitValue());
+            }
+            try {
+                HttpResponse<Void> response = client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/metrics")).build(),
+                        HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet.
+            }
+            Thread.sleep(100);
+        }
+        throw new IOException("Cluster node on port " + port + " did not start");
+    }
+
+    /**
+     * Starts a search for {@code keyword} and follows its event stream until the search finishes.
+     */
+    private static SearchTiming runSearch(HttpClient client, int port, String keyword, long deadlineSeconds)
+            throws IOException, InterruptedException {
+        long startNanos = System.nanoTime();
+        JsonObject body = new JsonObject();
+        body.addProperty("keyword", keyword);
+        HttpResponse<String> created = client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/crawl"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (created.statusCode() != 200) {
+            throw new IOException("Failed to start search for " + keyword + ": HTTP " + created.statusCode() + " " + created.body());
+        }
+        String id = JsonParser.parseString(created.body()).getAsJsonObject().get("id").getAsString();
+
+        HttpResponse<Stream<String>> stream = client.send(HttpRequest.newBuilder(
+                URI.create("http://localhost:" + port + "/crawl/" + id + "/stream?format=ndjson"))
+                .timeout(Duration.ofSeconds(deadlineSeconds))
+                .build(), HttpResponse.BodyHandlers.ofLines());
+        long firstResultNanos = -1;
+        int results = 0;
+        try (Stream<String> lines = stream.body()) {
+            Iterator<String> iterator = lines.iterator();
+            while (iterator.hasNext()) {
+                String line = iterator.next();
+                if (line.isBlank()) {
+                    continue;
+                }
+                JsonObject event = JsonParser.parseString(line).getAsJsonObject();
+                if ("url".equals(event.get("type").getAsString())) {
+                    if (firstResultNanos < 0) {
+                        firstResultNanos = System.nanoTime() - startNanos;
+                    }
+                    results++;
+                } else if ("status".equals(event.get("type").getAsString())) {
+                    return new SearchTiming(keyword, firstResultNanos, System.nanoTime() - startNanos, results,
+                            event.get("status").getAsString());
+                }
+            }
+        }
+        throw new IOException("Event stream of search " + id + " ended without a status");
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, collector.getCollectionTime());
+        }
+        return total;
+    }
+
+    private static long gcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, collector.getCollectionCount());
+        }
+        return total;
+    }
+
+    /**
+     * Load test settings, each overridable with a {@code key=value} argument.
+     */
+    static final class Settings {
+        int pages = 2000;
+        int fanOut = 8;
+        int pageSize = 8 * 1024;
+        int minLatencyMillis = 5;
+        int maxLatencyMillis = 50;
+        double errorRate = 0.01;
+        double keywordDensity = 0.05;
+        double descriptiveAnchorRate = 0;
+        int keywords = 8;
+        long seed = 42;
+        int siteThreads = 64;
+        int searches = 8;
+        int maxResults = 100;
+        int maxRetries = 1;
+        int timeoutMillis = 5000;
+        int maxQueueSize = 50000;
+        int fetchParallelism = 8;
+        boolean coalesceSearches = true;
+        boolean seedFromSitemaps = false;
+        CrawlConfig.FrontierOrder frontierOrder = CrawlConfig.FrontierOrder.BEST_FIRST;
+        boolean skipNearDuplicates = true;
+        int maxConnections = 32;
+        // The synthetic site is local, so the default politeness rate would only measure the scheduler.
+        double hostRequestsPerSecond = 10000;
+        int hostBurst = 100;
+        // The whole site is one host, so Main's threshold of 5 would stop every crawl after a few injected errors.
+        int breakerThreshold = 1000;
+        long deadlineSeconds = 300;
+        boolean quiet = true;
+        int nodes = 1;
+        // Set for the child JVMs of a cluster run.
+        int nodePort;
+        String siteUrl;
+        String clusterNodes;
+        String clusterSecret;
+
+        static Settings parse(String[] args) {
+            Map<String, String> values = new HashMap<>();
+            for (String arg : args) {
+                for (String pair : arg.trim().split("\\s+")) {
+                    if (pair.isEmpty()) {
+                        continue;
+                    }
+                    int separator = pair.indexOf('=');
+                    if (separator < 1) {
+                        throw new IllegalArgumentException("Expected key=value but got: " + pair);
+                    }
+                    values.put(pair.substring(0, separator), pair.substring(separator + 1));
+                }
+            }
+            Settings settings = new Settings();
+            settings.pages = intValue(values, "pages", settings.pages);
+            settings.fanOut = intValue(values, "fanOut", settings.fanOut);
+            settings.pageSize = intValue(values, "pageSize", settings.pageSize);
+            settings.minLatencyMillis = intValue(values, "minLatencyMillis", settings.minLatencyMillis);
+            settings.maxLatencyMillis = intValue(values, "maxLatencyMillis", settings.maxLatencyMillis);
+            settings.errorRate = doubleValue(values, "errorRate", settings.errorRate);
+            settings.keywordDensity = doubleValue(values, "keywordDensity", settings.keywordDensity);
+            settings.descriptiveAnchorRate = doubleValue(values, "descriptiveAnchorRate", settings.descriptiveAnchorRate);
+            settings.keywords = intValue(values, "keywords", settings.keywords);
+            settings.seed = Long.parseLong(values.getOrDefault("seed", String.valueOf(settings.seed)));
+            settings.siteThreads = intValue(values, "siteThreads", settings.siteThreads);
+            settings.searches = intValue(values, "searches", settings.searches);
+            settings.maxResults = intValue(values, "maxResults", settings.maxResults);
+            settings.maxRetries = intValue(values, "maxRetries", settings.maxRetries);
+            settings.timeoutMillis = intValue(values, "timeoutMillis", settings.timeoutMillis);
+            settings.maxQueueSize = intValue(values, "maxQueueSize", settings.maxQueueSize);
+            settings.fetchParallelism = intValue(values, "fetchParallelism", settings.fetchParallelism);
+            settings.coalesceSearches = Boolean.parseBoolean(values.getOrDefault("coalesceSearches", String.valueOf(settings.coalesceSearches)));
+            settings.seedFromSitemaps = Boolean.parseBoolean(values.getOrDefault("seedFromSitemaps", String.valueOf(settings.seedFromSitemaps)));
+            settings.frontierOrder = CrawlConfig.FrontierOrder.valueOf(values.getOrDefault("frontierOrder", settings.frontierOrder.name()));
+            settings.skipNearDuplicates = Boolean.parseBoolean(values.getOrDefault("skipNearDuplicates", String.valueOf(settings.skipNearDuplicates)));
+            settings.maxConnections = intValue(values, "maxConnections", settings.maxConnections);
+            settings.hostRequestsPerSecond = doubleValue(values, "hostRequestsPerSecond", settings.hostRequestsPerSecond);
+            settings.hostBurst = intValue(values, "hostBurst", settings.hostBurst);
+            settings.breakerThreshold = intValue(values, "breakerThreshold", settings.breakerThreshold);
+            settings.deadlineSeconds = intValue(values, "deadlineSeconds", (int) settings.deadlineSeconds);
+            settings.quiet = Boolean.parseBoolean(values.getOrDefault("quiet", String.valueOf(settings.quiet)));
+            settings.nodes = intValue(values, "nodes", settings.nodes);
+            settings.nodePort = intValue(values, "nodePort", settings.nodePort);
+            settings.siteUrl = values.get("siteUrl");
+            settings.clusterNodes = values.get("clusterNodes");
+            settings.clusterSecret = values.get("clusterSecret");
+            values.keySet().removeAll(Arrays.asList("pages", "fanOut", "pageSize", "minLatencyMillis", "maxLatencyMillis", "errorRate",
+                    "keywordDensity", "descriptiveAnchorRate", "keywords", "seed", "siteThreads", "searches", "maxResults", "maxRetries",
+                    "timeoutMillis", "maxQueueSize", "fetchParallelism", "coalesceSearches", "seedFromSitemaps", "frontierOrder",
+                    "skipNearDuplicates", "maxConnections", "hostRequestsPerSecond", "hostBurst", "breakerThreshold", "deadlineSeconds", "quiet", "nodes", "nodePort", "siteUrl", "clusterNodes",
+                    "clusterSecret"));
+            if (!values.isEmpty()) {
+                throw new IllegalArgumentException("Unknown settings: " + values.keySet());
+            }
+            if (settings.nodes < 1) {
+                throw new IllegalArgumentException("At least one node is needed");
+            }
+            return settings;
+        }
+
+        private static int intValue(Map<String, String> values, String key, int defaultValue) {
+            String value = values.get(key);
+            return value == null ? defaultValue : Integer.parseInt(value);
+        }
+
+        private static double doubleValue(Map<String, String> values, String key, double defaultValue) {
+            String value = values.get(key);
+            return value == null ? defaultValue : Double.parseDouble(value);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("pages=%d fanOut=%d pageSize=%d latency=%d-%dms errorRate=%.3f keywordDensity=%.3f "
+                            + "descriptiveAnchorRate=%.3f keywords=%d searches=%d maxResults=%d fetchParallelism=%d coalesceSearches=%b "
+                            + "seedFromSitemaps=%b frontierOrder=%s skipNearDuplicates=%b maxConnections=%d nodes=%d",
+                    pages, fanOut, pageSize, minLatencyMillis, maxLatencyMillis, errorRate, keywordDensity, descriptiveAnchorRate, keywords,
+                    searches, maxResults, fetchParallelism, coalesceSearches, seedFromSitemaps, frontierOrder, skipNearDuplicates, maxConnections, nodes);
+        }
+    }
+
+    /**
+     * What one search's client observed.
+     */
+    static final class SearchTiming {
+        final String keyword;
+        final long firstResultNanos;
+        final long doneNanos;
+        final int results;
+        final String status;
+
+        SearchTiming(String keyword, long firstResultNanos, long doneNanos, int results, String status) {
+            this.keyword = keyword;
+            this.firstResultNanos = firstResultNanos;
+            this.doneNanos = doneNanos;
+            this.results = results;
+            this.status = status;
+        }
+    }
+
+    /**
+     * Aggregated results of a load test run.
+     */
+    static final class Report {
+        final Settings settings;
+        final List<SearchTiming> timings;
+        final int failedSearches;
+        final long elapsedNanos;
+        final long pagesServed;
+        final long errorsServed;
+        final long bytesServed;
+        final long heapPeakBytes;
+        final long gcMillis;
+        final long gcCount;
+
+        Report(Settings settings, List<SearchTiming> timings, int failedSearches, long elapsedNanos, long pagesServed,
+               long errorsServed, long bytesServed, long heapPeakBytes, long gcMillis, long gcCount) {
+            this.settings = settings;
+            this.timings = timings;
+            this.failedSearches = failedSearches;
+            this.elapsedNanos = elapsedNanos;
+            this.pagesServed = pagesServed;
+            this.errorsServed = errorsServed;
+            this.bytesServed = bytesServed;
+            this.heapPeakBytes = heapPeakBytes;
+            this.gcMillis = gcMillis;
+            this.gcCount = gcCount;
+        }
+
+        @Override
+        public String toString() {
+            long[] firstResult = timings.stream().mapToLong(timing -> timing.firstResultNanos).filter(nanos -> nanos >= 0).sorted().toArray();
+            long[] done = timings.stream().mapToLong(timing -> timing.doneNanos).sorted().toArray();
+            int results = timings.stream().mapToInt(timing -> timing.results).sum();
+            double seconds = elapsedNanos / 1e9;
+            StringBuilder report = new StringBuilder();
+            report.append("Load test: ").append(settings).append('\n');
+            report.append(String.format("  searches:          %d completed, %d failed, %d without results, %d results%n",
+                    timings.size(), failedSearches, timings.size() - firstResult.length, results));
+            report.append(String.format("  elapsed:           %.2f s%n", seconds));
+            report.append(String.format("  pages fetched:     %d (%.1f pages/s, %.1f MB/s), %d errors served%n",
+                    pagesServed, pagesServed / seconds, bytesServed / seconds / (1024 * 1024), errorsServed));
+            report.append(String.format("  first result:      p50 %s, p99 %s%n", millis(firstResult, 0.50), millis(firstResult, 0.99)));
+            report.append(String.format("  done:              p50 %s, p99 %s%n", millis(done, 0.50), millis(done, 0.99)));
+            report.append(String.format("  heap peak:         %.1f MB%n", heapPeakBytes / (1024.0 * 1024)));
+            report.append(String.format("  gc:                %d ms in %d collections", gcMillis, gcCount));
+            return report.toString();
+        }
+
+        private static String millis(long[] sortedNanos, double quantile) {
+            if (sortedNanos.length == 0) {
+                return "n/a";
+            }
+            int index = Math.min(sortedNanos.length - 1, (int) Math.ceil(quantile * sortedNanos.length) - 1);
+            return String.format("%.1f ms", sortedNanos[Math.max(0, index)] / 1e6);
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.backend.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Embedded website with a configurable, deterministic link graph, served from memory so a crawl can
+ * be measured without touching external sites.
+ *
+ * <p>Page {@code n} lives at {@code /page/n}; the home page {@code /} links to page 0. Every page links
+ * to {@code fanOut} pages: the next one in sequence, so all pages are reachable, and others chosen
+ * pseudo-randomly. Each page contains each keyword with probability {@code keywordDensity}, is padded
+ * to {@code pageSize} bytes with words drawn at random, so that no two pages are near-duplicates,
+ * answers after a latency drawn uniformly from {@code [minLatencyMillis, maxLatencyMillis]}, and fails
+ * with {@code 503} with probability {@code errorRate}. The same settings always produce the same site.
+ *
+ * <p>With probability {@code descriptiveAnchorRate}, the text of a link names the keywords its target
+ * contains, as descriptive anchors on real sites do; the page holding the link then contains them too.
+ * Such links are what a best-first frontier can follow to matching pages.
+ *
+ * <p>{@code /sitemap.xml} lists every page, and is served at once and without errors.
+ */
+public class SyntheticSite {
+    private static final String[] FILLER_WORDS = ("lorem ipsum dolor sit amet consectetur adipiscing elit sed do eiusmod "
+            + "tempor incididunt ut labore et dolore magna aliqua").split(" ");
+
+    private final int pageCount;
+    private final int fanOut;
+    private final int pageSize;
+    private final int minLatencyMillis;
+    private final int maxLatencyMillis;
+    private final double errorRate;
+    private final double keywordDensity;
+    private final double descriptiveAnchorRate;
+    private final String[] keywords;
+    private final long seed;
+    private final LongAdder pagesServed = new LongAdder();
+    private final LongAdder errorsServed = new LongAdder();
+    private final LongAdder bytesServed = new LongAdder();
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+
+    public SyntheticSite(int pageCount, int fanOut, int pageSize, int minLatencyMillis, int maxLatencyMillis, double errorRate,
+                         double keywordDensity, String[] keywords, long seed) {
+        this(pageCount, fanOut, pageSize, minLatencyMillis, maxLatencyMillis, errorRate, keywordDensity, 0, keywords, seed);
+    }
+
+    public SyntheticSite(int pageCount, int fanOut, int pageSize, int minLatencyMillis, int maxLatencyMillis, double errorRate,
+                         double keywordDensity, double descriptiveAnchorRate, String[] keywords, long seed) {
+        this.pageCount = pageCount;
+        this.fanOut = fanOut;
+        this.pageSize = pageSize;
+        this.minLatencyMillis = minLatencyMillis;
+        this.maxLatencyMillis = maxLatencyMillis;
+        this.errorRate = errorRate;
+        this.keywordDensity = keywordDensity;
+        this.descriptiveAnchorRate = descriptiveAnchorRate;
+        this.keywords = keywords;
+        this.seed = seed;
+    }
+
+    /**
+     * Starts serving on a free local port with {@code threads} handler threads and returns the base URL.
+     */
+    public String start(int threads) throws IOException {
+        // Without TCP_NODELAY, headers and body go out in separate segments and every response waits
+        // for the client's delayed ACK, adding about 40 ms to each page.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        serverExecutor = Executors.newFixedThreadPool(threads);
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 1024);
+        server.createContext("/", this::handle);
+        server.setExecutor(serverExecutor);
+        server.start();
+        return "http://localhost:" + server.getAddress().getPort() + "/";
+    }
+
+    public void stop() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    public long getPagesServed() {
+        return pagesServed.sum();
+    }
+
+    long getErrorsServed() {
+        return errorsServed.sum();
+    }
+
+    long getBytesServed() {
+        return bytesServed.sum();
+    }
+
+    /**
+     * Returns the number of pages containing {@code keyword} in their own text, not counting the
+     * anchors that name it.
+     */
+    int countPagesWith(int keyword) {
+        int count = 0;
+        for (int page = 0; page < pageCount; page++) {
+            if (contains(page, keyword)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            if (path.equals("/sitemap.xml")) {
+                send(exchange, "application/xml", renderSitemap(exchange));
+                return;
+            }
+            int page;
+            if (path.equals("/")) {
+                page = -1;
+            } else if (path.startsWith("/page/")) {
+                try {
+                    page = Integer.parseInt(path.substring("/page/".length()));
+                } catch (NumberFormatException e) {
+                    page = pageCount;
+                }
+            } else {
+                page = pageCount;
+            }
+            if (page >= pageCount) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+
+            SplittableRandom random = new SplittableRandom(seed ^ (page * 0x9e3779b97f4a7c15L));
+            sleep(minLatencyMillis + (maxLatencyMillis > minLatencyMillis ? random.nextInt(maxLatencyMillis - minLatencyMillis + 1) : 0));
+            if (page >= 0 && random.nextDouble() < errorRate) {
+                errorsServed.increment();
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+
+            byte[] body = render(page, random).getBytes(StandardCharsets.UTF_8);
+            send(exchange, "text/html; charset=UTF-8", body);
+            pagesServed.increment();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void send(HttpExchange exchange, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+        bytesServed.add(body.length);
+    }
+
+    private byte[] renderSitemap(HttpExchange exchange) {
+        String origin = "http://" + exchange.getRequestHeaders().getFirst("Host");
+        StringBuilder xml = new StringBuilder(pageCount * 48 + 128);
+        xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<urlset xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">\n");
+        for (int page = 0; page < pageCount; page++) {
+            xml.append("<url><loc>").append(origin).append("/page/").append(page).append("</loc></url>\n");
+        }
+        return xml.append("</urlset>\n").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private String render(int page, SplittableRandom random) {
+        StringBuilder html = new StringBuilder(pageSize + 512);
+        html.append("<!DOCTYPE html><html><head><title>Page ").append(page).append("</title></head><body><ul>\n");
+        if (page < 0) {
+            html.append("<li><a href=\"/page/0\">Start</a></li>\n");
+        } else {
+            appendLink(html, (page + 1) % pageCount, "Next", random);
+            for (int i = 1; i < fanOut; i++) {
+                appendLink(html, random.nextInt(pageCount), "Related", random);
+            }
+        }
+        html.append("</ul>\n<p>");
+        for (int keyword = 0; page >= 0 && keyword < keywords.length; keyword++) {
+            if (contains(page, keyword)) {
+                html.append(keywords[keyword]).append(' ');
+            }
+        }
+        while (html.length() < pageSize) {
+            html.append(FILLER_WORDS[random.nextInt(FILLER_WORDS.length)]).append(' ');
+        }
+        return html.append("</p></body></html>").toString();
+    }
+
+    private void appendLink(StringBuilder html, int target, String text, SplittableRandom random) {
+        html.append("<li><a href=\"/page/").append(target).append("\">").append(text);
+        if (descriptiveAnchorRate > 0 && random.nextDouble() < descriptiveAnchorRate) {
+            for (int keyword = 0; keyword < keywords.length; keyword++) {
+                if (contains(target, keyword)) {
+                    html.append(' ').append(keywords[keyword]);
+                }
+            }
+        }
+        html.append("</a></li>\n");
+    }
+
+    private boolean contains(int page, int keyword) {
+        long hash = (seed + page) * 0xbf58476d1ce4e5b9L ^ (keyword + 1) * 0x94d049bb133111ebL;
+        hash ^= hash >>> 31;
+        hash *= 0xd6e8feb86659fd93L;
+        hash ^= hash >>> 32;
+        return (hash >>> 11) * 0x1.0p-53 < keywordDensity;
+    }
+
+    private static void sleep(int millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
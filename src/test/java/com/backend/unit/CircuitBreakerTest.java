@@ -11,6 +11,7 @@ import static org.junit.jupiter.api.Assertions.*;
 class CircuitBreakerTest {
     private static final int CIRCUIT_BREAKER_THRESHOLD = 5;
     private static final long TIMEOUT_MILLIS = 2000;
+    private static final long SHORT_OPEN_MILLIS = 100;
 
     private CircuitBreaker circuitBreaker;
     private URL testUrl;
@@ -91,4 +92,72 @@ class CircuitBreakerTest {
     void testCircuitBreakerNoFailureRecorded() {
         assertFalse(circuitBreaker.shouldSkip(testUrl, "operationId"));
     }
+
+    @Test
+    void testFailuresOnDifferentUrlsOfOneHostOpenTheCircuit() throws Exception {
+        for (int i = 0; i < CIRCUIT_BREAKER_THRESHOLD; i++) {
+            circuitBreaker.recordFailure(new URL("http://example.com/page-" + i));
+        }
+
+        assertTrue(circuitBreaker.shouldSkip(new URL("http://example.com/never-fetched"), "operationId"));
+        assertFalse(circuitBreaker.shouldSkip(anotherUrl, "operationId"));
+    }
+
+    @Test
+    void testHalfOpenCircuitClosesAfterSuccessfulProbes() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(2, SHORT_OPEN_MILLIS, TIMEOUT_MILLIS, 2, 100);
+        breaker.recordFailure(testUrl);
+        breaker.recordFailure(testUrl);
+        Thread.sleep(SHORT_OPEN_MILLIS + 50);
+
+        assertFalse(breaker.shouldSkip(testUrl, "operationId"));
+        assertFalse(breaker.shouldSkip(testUrl, "operationId"));
+        assertTrue(breaker.shouldSkip(testUrl, "operationId"));
+
+        breaker.recordSuccess(testUrl);
+        breaker.recordSuccess(testUrl);
+        assertFalse(breaker.shouldSkip(testUrl, "operationId"));
+        breaker.recordFailure(testUrl);
+        assertFalse(breaker.shouldSkip(testUrl, "operationId"));
+    }
+
+    @Test
+    void testFailedProbeOpensCircuitAgain() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(2, SHORT_OPEN_MILLIS, TIMEOUT_MILLIS, 2, 100);
+        breaker.recordFailure(testUrl);
+        breaker.recordFailure(testUrl);
+        Thread.sleep(SHORT_OPEN_MILLIS + 50);
+
+        assertFalse(breaker.shouldSkip(testUrl, "operationId"));
+        breaker.recordFailure(testUrl);
+
+        assertTrue(breaker.shouldSkip(testUrl, "operationId"));
+        Thread.sleep(SHORT_OPEN_MILLIS + 50);
+        assertFalse(breaker.shouldSkip(testUrl, "operationId"));
+    }
+
+    @Test
+    void testFailuresOutsideWindowAreForgotten() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(2, TIMEOUT_MILLIS, SHORT_OPEN_MILLIS, 1, 100);
+        breaker.recordFailure(testUrl);
+        Thread.sleep(SHORT_OPEN_MILLIS * 2);
+
+        breaker.recordFailure(testUrl);
+        assertFalse(breaker.shouldSkip(testUrl, "operationId"));
+        breaker.recordFailure(testUrl);
+        assertTrue(breaker.shouldSkip(testUrl, "operationId"));
+    }
+
+    @Test
+    void testTrackedHostsAreBounded() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(1, TIMEOUT_MILLIS, TIMEOUT_MILLIS, 1, 2);
+        breaker.recordFailure(new URL("http://first.example.com"));
+        breaker.recordFailure(new URL("http://second.example.com"));
+
+        breaker.recordFailure(new URL("http://third.example.com"));
+
+        assertTrue(breaker.shouldSkip(new URL("http://first.example.com"), "operationId"));
+        assertTrue(breaker.shouldSkip(new URL("http://second.example.com"), "operationId"));
+        assertFalse(breaker.shouldSkip(new URL("http://third.example.com"), "operationId"));
+    }
 }
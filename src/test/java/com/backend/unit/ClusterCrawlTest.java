@@ -0,0 +1,240 @@
+package com.backend.unit;
+
+import com.backend.model.ISearchOperation;
+import com.backend.model.SearchStatus;
+import com.backend.service.CircuitBreaker;
+import com.backend.service.ClusterNode;
+import com.backend.service.CrawlConfig;
+import com.backend.service.CrawlService;
+import com.backend.service.IClusterTransport;
+import com.backend.service.SearchRetention;
+import com.backend.util.BodyScanner;
+import com.backend.util.HttpUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClusterCrawlTest {
+    private static final String BASE_URL = "https://site.test/";
+    private static final int PAGES = 60;
+    private static final List<String> NODES = List.of("node-a", "node-b", "node-c");
+
+    private final SyntheticSite site = new SyntheticSite();
+    private final Map<String, ClusterNode> clusterNodes = new ConcurrentHashMap<>();
+    private final Set<String> unreachableNodes = ConcurrentHashMap.newKeySet();
+    private final Map<String, CrawlService> services = new HashMap<>();
+
+    @AfterEach
+    void tearDown() {
+        services.values().forEach(CrawlService::shutdown);
+    }
+
+    @Test
+    void testClusterFindsEveryMatchAndFetchesEachPageOnce() throws Exception {
+        startCluster(100);
+
+        ISearchOperation searchOperation = awaitCompletion(services.get("node-a"), services.get("node-a").startSearch("needle"));
+
+        assertEquals(SearchStatus.DONE, searchOperation.getStatus());
+        assertEquals(site.matchingUrls(), searchOperation.getUrls());
+        assertEquals(PAGES + 1, site.fetches.size());
+        site.fetches.values().forEach(count -> assertEquals(1, count.get()));
+        for (String node : NODES) {
+            assertTrue(site.fetchesByNode.getOrDefault(node, new AtomicInteger()).get() > 0, "No pages fetched by " + node);
+        }
+    }
+
+    @Test
+    void testSearchStopsEverywhereAtMaxResults() throws Exception {
+        startCluster(3);
+
+        String searchId = services.get("node-b").startSearch("needle");
+        ISearchOperation searchOperation = awaitCompletion(services.get("node-b"), searchId);
+
+        assertEquals(SearchStatus.DONE, searchOperation.getStatus());
+        assertEquals(3, searchOperation.getUrls().size());
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        for (String node : NODES) {
+            ClusterNode.ShardStatus status = clusterNodes.get(node).getStatus(searchId);
+            while ((!status.isIdle() || status.getSent() != 0) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+                status = clusterNodes.get(node).getStatus(searchId);
+            }
+            assertTrue(status.isIdle(), "Shard still running on " + node);
+            assertEquals(0, status.getSent());
+        }
+    }
+
+    @Test
+    void testLinksForUnreachableNodeAreCrawledBySender() throws Exception {
+        unreachableNodes.add("node-c");
+        startCluster(100);
+
+        ISearchOperation searchOperation = awaitCompletion(services.get("node-a"), services.get("node-a").startSearch("needle"));
+
+        assertEquals(SearchStatus.DONE, searchOperation.getStatus());
+        assertEquals(site.matchingUrls(), searchOperation.getUrls());
+        assertNull(site.fetchesByNode.get("node-c"));
+    }
+
+    @Test
+    void testSearchFinishesWhenPeerDiesMidCrawl() throws Exception {
+        // node-c goes down, answering nothing and sending nothing, as soon as it starts on the links it was sent.
+        site.onFetch = node -> {
+            if (node.equals("node-c")) {
+                unreachableNodes.add(node);
+            }
+        };
+        startCluster(100);
+
+        String searchId = services.get("node-a").startSearch("needle");
+        ISearchOperation searchOperation = awaitCompletion(services.get("node-a"), searchId);
+        clusterNodes.get("node-c").stop(searchId);
+
+        assertEquals(SearchStatus.DONE, searchOperation.getStatus());
+        assertTrue(unreachableNodes.contains("node-c"), "node-c never received any links");
+        assertTrue(site.matchingUrls().containsAll(searchOperation.getUrls()));
+    }
+
+    @Test
+    void testLinksFromOutsideTheClusterAreIgnored() throws Exception {
+        startCluster(100);
+        ClusterNode node = clusterNodes.get("node-b");
+
+        node.receiveLinks(new ClusterNode.Batch("forged", "needle", "http://attacker.test", List.of(BASE_URL + "p/1")));
+        node.receiveLinks(new ClusterNode.Batch("short", "ab", "node-a", List.of(BASE_URL + "p/2")));
+        node.receiveLinks(new ClusterNode.Batch("elsewhere", "needle", "node-a", List.of("https://other.test/p/3")));
+        Thread.sleep(100);
+
+        assertEquals(0, node.getStatus("forged").getReceived());
+        assertEquals(0, node.getStatus("short").getReceived());
+        assertTrue(node.getStatus("elsewhere").isIdle());
+        assertTrue(site.fetches.isEmpty(), "Fetched " + site.fetches.keySet());
+        node.stop("elsewhere");
+    }
+
+    private void startCluster(int maxResults) {
+        CrawlConfig config = new CrawlConfig(BASE_URL, maxResults, 0, 5000, 1000, 2);
+        for (String node : NODES) {
+            ClusterNode clusterNode = new ClusterNode(node, NODES, new InMemoryTransport(node), 4, 5, 20, TimeUnit.SECONDS.toMillis(30), 200);
+            clusterNodes.put(node, clusterNode);
+            services.put(node, new CrawlService(Executors.newCachedThreadPool(), config, new CircuitBreaker(100, 1000),
+                    site.fetchedBy(node), SearchRetention.retainAll(), clusterNode));
+        }
+    }
+
+    private static ISearchOperation awaitCompletion(CrawlService service, String searchId) throws InterruptedException {
+        ISearchOperation searchOperation = service.getSearchOperation(searchId);
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (searchOperation.getStatus() == SearchStatus.ACTIVE && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        return searchOperation;
+    }
+
+    /**
+     * Delivers the messages of one node by calling the receiving node directly, failing if either of
+     * them is unreachable.
+     */
+    private class InMemoryTransport implements IClusterTransport {
+        private final String sender;
+
+        InMemoryTransport(String sender) {
+            this.sender = sender;
+        }
+
+        @Override
+        public void sendLinks(String node, ClusterNode.Batch batch) throws IOException {
+            reach(node).receiveLinks(batch);
+        }
+
+        @Override
+        public void sendResults(String node, ClusterNode.Batch batch) throws IOException {
+            reach(node).receiveResults(batch);
+        }
+
+        @Override
+        public ClusterNode.ShardStatus getStatus(String node, String searchId) throws IOException {
+            return reach(node).getStatus(searchId);
+        }
+
+        @Override
+        public void stop(String node, String searchId) throws IOException {
+            reach(node).stop(searchId);
+        }
+
+        private ClusterNode reach(String node) throws IOException {
+            if (unreachableNodes.contains(sender)) {
+                throw new IOException("Network is unreachable: " + sender);
+            }
+            if (unreachableNodes.contains(node)) {
+                throw new IOException("Connection refused: " + node);
+            }
+            return clusterNodes.get(node);
+        }
+    }
+
+    /**
+     * Pages {@code /p/0} to {@code /p/59} on a single host, each linking to three others; every fifth
+     * page contains the keyword. Fetches are counted per page and per fetching node.
+     */
+    private static class SyntheticSite {
+        final Map<String, AtomicInteger> fetches = new ConcurrentHashMap<>();
+        final Map<String, AtomicInteger> fetchesByNode = new ConcurrentHashMap<>();
+        volatile Consumer<String> onFetch = node -> {
+        };
+
+        CrawlService.Dependencies fetchedBy(String node) {
+            return new CrawlService.Dependencies() {
+                @Override
+                public String getBodyTextFromUrl(URL url, int timeout) {
+                    fetches.computeIfAbsent(url.getPath(), ignored -> new AtomicInteger()).incrementAndGet();
+                    fetchesByNode.computeIfAbsent(node, ignored -> new AtomicInteger()).incrementAndGet();
+                    onFetch.accept(node);
+                    return page(url.getPath());
+                }
+
+                @Override
+                public void scanBodyFromUrl(URL url, int timeout, BodyScanner scanner) {
+                    HttpUtil.scanString(getBodyTextFromUrl(url, timeout), scanner);
+                }
+            };
+        }
+
+        Set<String> matchingUrls() {
+            Set<String> urls = new HashSet<>();
+            for (int page = 0; page < PAGES; page += 5) {
+                urls.add(BASE_URL + "p/" + page);
+            }
+            return urls;
+        }
+
+        private static String page(String path) {
+            if (!path.startsWith("/p/")) {
+                return "<a href=\"/p/0\">Start</a>";
+            }
+            int page = Integer.parseInt(path.substring(3));
+            List<Integer> links = new ArrayList<>(List.of((page + 1) % PAGES, (page * 7 + 3) % PAGES, (page * 2) % PAGES));
+            StringBuilder body = new StringBuilder(page % 5 == 0 ? "needle " : "hay ");
+            for (int link : links) {
+                body.append("<a href=\"/p/").append(link).append("\">Link</a>");
+            }
+            return body.append("<a href=\"/\">Home</a>").toString();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.backend.unit;
+
+import com.backend.util.ConsistentHashRing;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsistentHashRingTest {
+    private static final int KEYS = 30000;
+
+    @Test
+    void testAssignmentDoesNotDependOnNodeOrder() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("node-a", "node-b", "node-c"));
+        ConsistentHashRing reordered = new ConsistentHashRing(List.of("node-c", "node-a", "node-b"));
+
+        for (int i = 0; i < KEYS; i++) {
+            String key = "https://example.com/page/" + i;
+            assertEquals(ring.nodeFor(key), reordered.nodeFor(key));
+        }
+    }
+
+    @Test
+    void testKeysSpreadEvenlyOverNodes() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("node-a", "node-b", "node-c", "node-d"));
+        Map<String, Integer> counts = new HashMap<>();
+
+        for (int i = 0; i < KEYS; i++) {
+            counts.merge(ring.nodeFor("https://example.com/page/" + i), 1, Integer::sum);
+        }
+
+        assertEquals(4, counts.size());
+        for (int count : counts.values()) {
+            assertTrue(count > KEYS / 4 * 0.75 && count < KEYS / 4 * 1.25, "Unbalanced ring: " + counts);
+        }
+    }
+
+    @Test
+    void testAddingNodeOnlyMovesKeysToIt() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("node-a", "node-b", "node-c"));
+        ConsistentHashRing grown = new ConsistentHashRing(List.of("node-a", "node-b", "node-c", "node-d"));
+        int moved = 0;
+
+        for (int i = 0; i < KEYS; i++) {
+            String key = "https://example.com/page/" + i;
+            String before = ring.nodeFor(key);
+            String after = grown.nodeFor(key);
+            if (!before.equals(after)) {
+                assertEquals("node-d", after);
+                moved++;
+            }
+        }
+
+        assertTrue(moved > KEYS / 4 * 0.75 && moved < KEYS / 4 * 1.25, "Moved " + moved + " keys");
+    }
+
+    @Test
+    void testSingleNodeOwnsEverything() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("node-a"));
+
+        assertEquals("node-a", ring.nodeFor("https://example.com/"));
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(List.of()));
+    }
+}
@@ -0,0 +1,79 @@
+package com.backend.unit;
+
+import com.backend.util.ContentDecoding;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentDecodingTest {
+    private static final String BODY = "<html>" + "çãõ keyword ".repeat(500) + "</html>";
+
+    @Test
+    void testGzipBodyIsDecoded() throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(BODY.getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertEquals(BODY, decode(compressed.toByteArray(), "gzip"));
+        assertEquals(BODY, decode(compressed.toByteArray(), "X-GZIP"));
+    }
+
+    @Test
+    void testZlibAndRawDeflateBodiesAreDecoded() throws IOException {
+        assertEquals(BODY, decode(deflate(false), "deflate"));
+        assertEquals(BODY, decode(deflate(true), "deflate"));
+    }
+
+    @Test
+    void testIdentityBodyIsReturnedUnchanged() throws IOException {
+        byte[] bytes = BODY.getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(BODY, decode(bytes, null));
+        assertEquals(BODY, decode(bytes, "identity"));
+        assertFalse(ContentDecoding.isCompressed(" identity "));
+        assertTrue(ContentDecoding.isCompressed("gzip"));
+    }
+
+    @Test
+    void testUnsupportedEncodingIsRejected() {
+        assertThrows(IOException.class, () -> ContentDecoding.decode(new ByteArrayInputStream(new byte[0]), "br"));
+    }
+
+    @Test
+    void testCountingStreamCountsBytesRead() throws IOException {
+        byte[] bytes = BODY.getBytes(StandardCharsets.UTF_8);
+        ContentDecoding.CountingInputStream counting = new ContentDecoding.CountingInputStream(new ByteArrayInputStream(bytes));
+
+        counting.read();
+        counting.readAllBytes();
+
+        assertEquals(bytes.length, counting.getCount());
+    }
+
+    private static String decode(byte[] body, String contentEncoding) throws IOException {
+        try (InputStream in = ContentDecoding.decode(new ByteArrayInputStream(body), contentEncoding)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static byte[] deflate(boolean raw) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, raw);
+        try (DeflaterOutputStream out = new DeflaterOutputStream(compressed, deflater)) {
+            out.write(BODY.getBytes(StandardCharsets.UTF_8));
+        } finally {
+            deflater.end();
+        }
+        return compressed.toByteArray();
+    }
+}
@@ -5,14 +5,29 @@ import com.backend.model.SearchStatus;
 import com.backend.service.CrawlConfig;
 import com.backend.service.CrawlService;
 import com.backend.service.ICircuitBreaker;
+import com.backend.service.IndexingDependencies;
+import com.backend.service.PageIndex;
+import com.backend.util.BodyReader;
+import com.backend.util.BodyScanner;
+import com.backend.util.MetricsRegistry;
+import com.backend.util.Redirects;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -107,6 +122,347 @@ class CrawlServiceTest {
         assertEquals(MAX_RESULTS, searchOperation.getUrls().size());
     }
 
+    @Test
+    void testParallelCrawlRespectsLimitsExactly() throws Exception {
+        int fetchParallelism = 8;
+        int maxQueueSize = 50;
+        CrawlConfig parallelConfig = new CrawlConfig(BASE_URL, MAX_RESULTS, MAX_RETRIES, TIMEOUT_MS, maxQueueSize, fetchParallelism);
+        CrawlService parallelService = new CrawlService(executorService, parallelConfig, circuitBreaker, dependencies);
+        when(dependencies.getBodyTextFromUrl(any(URL.class), anyInt())).thenAnswer(invocation -> {
+            URL url = invocation.getArgument(0);
+            String prefix = url.getPath().equals("/") ? "/page" : url.getPath().replace(".html", "");
+            StringBuilder body = new StringBuilder("security");
+            for (int i = 0; i < 20; i++) {
+                body.append("<a href=\"").append(prefix).append("-").append(i).append(".html\">Link</a>");
+            }
+            return body.toString();
+        });
+
+        String searchId = parallelService.startSearch("security");
+
+        executorService.invokeAll(List.of(() -> null));
+
+        ISearchOperation searchOperation = parallelService.getSearchOperation(searchId);
+
+        assertEquals(SearchStatus.DONE, searchOperation.getStatus());
+        assertEquals(MAX_RESULTS, searchOperation.getUrls().size());
+        assertTrue(searchOperation.getVisitedUrls().size() <= maxQueueSize);
+        parallelService.shutdown();
+    }
+
+    @Test
+    void testParallelCrawlVisitsEveryPageOnce() throws Exception {
+        CrawlConfig parallelConfig = new CrawlConfig(BASE_URL, MAX_RESULTS, MAX_RETRIES, TIMEOUT_MS, MAX_QUEUE_SIZE, 4);
+        CrawlService parallelService = new CrawlService(executorService, parallelConfig, circuitBreaker, dependencies);
+        when(dependencies.getBodyTextFromUrl(any(URL.class), anyInt())).thenReturn(
+                "<a href=\"/a.html\">A</a><a href=\"/b.html\">B</a><a href=\"/c.html\">C</a>");
+
+        String searchId = parallelService.startSearch("security");
+
+        executorService.invokeAll(List.of(() -> null));
+
+        ISearchOperation searchOperation = parallelService.getSearchOperation(searchId);
+
+        assertEquals(SearchStatus.DONE, searchOperation.getStatus());
+        assertTrue(searchOperation.getUrls().isEmpty());
+        assertEquals(4, searchOperation.getVisitedUrls().size());
+        verify(dependencies, times(4)).getBodyTextFromUrl(any(URL.class), anyInt());
+        parallelService.shutdown();
+    }
+
+    @Test
+    void testStreamingScanStopsReadingOnceKeywordFoundAndNoLinksNeeded() throws Exception {
+        AtomicInteger chunksRead = new AtomicInteger();
+        CrawlService.Dependencies streamingDependencies = new CrawlService.Dependencies() {
+            @Override
+            public void scanBodyFromUrl(URL url, int timeout, BodyScanner scanner) {
+                char[] chunk = "security".toCharArray();
+                for (int i = 0; i < 100; i++) {
+                    chunksRead.incrementAndGet();
+                    if (!scanner.onChars(chunk, 0, chunk.length)) {
+                        return;
+                    }
+                }
+            }
+        };
+        CrawlConfig noLinksConfig = new CrawlConfig(BASE_URL, MAX_RESULTS, MAX_RETRIES, TIMEOUT_MS, 1);
+        CrawlService streamingService = new CrawlService(executorService, noLinksConfig, circuitBreaker, streamingDependencies);
+
+        String searchId = streamingService.startSearch("security");
+
+        executorService.invokeAll(List.of(() -> null));
+
+        ISearchOperation searchOperation = streamingService.getSearchOperation(searchId);
+
+        assertEquals(SearchStatus.DONE, searchOperation.getStatus());
+        assertEquals(1, searchOperation.getUrls().size());
+        assertEquals(1, chunksRead.get());
+    }
+
+    @Test
+    void testCoalescedSearchesShareOneCrawl() throws Exception {
+        CrawlConfig coalescingConfig = new CrawlConfig(BASE_URL, MAX_RESULTS, MAX_RETRIES, TIMEOUT_MS, MAX_QUEUE_SIZE, 1, true);
+        CrawlService coalescingService = new CrawlService(executorService, coalescingConfig, circuitBreaker, dependencies);
+        CountDownLatch secondPageRequested = new CountDownLatch(1);
+        CountDownLatch releaseSecondPage = new CountDownLatch(1);
+        when(dependencies.getBodyTextFromUrl(any(URL.class), anyInt())).thenAnswer(invocation -> {
+            URL url = invocation.getArgument(0);
+            if (url.getPath().equals("/a.html") && secondPageRequested.getCount() > 0) {
+                secondPageRequested.countDown();
+                releaseSecondPage.await();
+            }
+            return "security privacy <a href=\"/a.html\">A</a><a href=\"/b.html\">B</a><a href=\"/c.html\">C</a>";
+        });
+
+        String firstId = coalescingService.startSearch("security");
+        assertTrue(secondPageRequested.await(5, TimeUnit.SECONDS));
+        String secondId = coalescingService.startSearch("privacy");
+        releaseSecondPage.countDown();
+
+        executorService.invokeAll(List.of(() -> null));
+
+        ISearchOperation first = awaitCompletion(coalescingService, firstId);
+        ISearchOperation second = awaitCompletion(coalescingService, secondId);
+
+        assertEquals(SearchStatus.DONE, first.getStatus());
+        assertEquals(SearchStatus.DONE, second.getStatus());
+        assertEquals(4, first.getUrls().size());
+        assertEquals(4, second.getUrls().size());
+        // Four pages crawled once, plus the base page and the page in flight rescanned for the late search.
+        verify(dependencies, times(6)).getBodyTextFromUrl(any(URL.class), anyInt());
+        coalescingService.shutdown();
+    }
+
+    @Test
+    void testLateSearchStartsOwnCrawlOnceCatchUpIsDropped() throws Exception {
+        int pages = 10_005;
+        String lastPage = "/" + (pages - 1) + ".html";
+        AtomicInteger basePageFetches = new AtomicInteger();
+        CountDownLatch lastPageRequested = new CountDownLatch(1);
+        CountDownLatch releaseLastPage = new CountDownLatch(1);
+        CrawlService.Dependencies chainDependencies = new CrawlService.Dependencies() {
+            @Override
+            public boolean supportsBodyScanning() {
+                return false;
+            }
+
+            @Override
+            public String getBodyTextFromUrl(URL url, int timeout) throws IOException {
+                String path = url.getPath();
+                if (path.equals("/")) {
+                    basePageFetches.incrementAndGet();
+                    return "<a href=\"/1.html\">next</a>";
+                }
+                if (path.equals(lastPage) && lastPageRequested.getCount() > 0) {
+                    lastPageRequested.countDown();
+                    try {
+                        releaseLastPage.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException(e);
+                    }
+                }
+                int page = Integer.parseInt(path.substring(1, path.indexOf('.')));
+                return page + 1 < pages ? "<a href=\"/" + (page + 1) + ".html\">next</a>" : "security privacy";
+            }
+        };
+        CrawlConfig coalescingConfig = new CrawlConfig(BASE_URL, MAX_RESULTS, MAX_RETRIES, TIMEOUT_MS, 2 * pages, 1, true);
+        CrawlService coalescingService = new CrawlService(executorService, coalescingConfig, circuitBreaker, chainDependencies);
+
+        String firstId = coalescingService.startSearch("security");
+        assertTrue(lastPageRequested.await(30, TimeUnit.SECONDS));
+        String secondId = coalescingService.startSearch("privacy");
+        releaseLastPage.countDown();
+
+        ISearchOperation first = awaitCompletion(coalescingService, firstId);
+        ISearchOperation second = awaitCompletion(coalescingService, secondId);
+
+        assertEquals(SearchStatus.DONE, first.getStatus());
+        assertEquals(SearchStatus.DONE, second.getStatus());
+        assertEquals(Set.of(BASE_URL + lastPage.substring(1)), Set.copyOf(second.getUrls()));
+        // The late search crawled the site again instead of joining with a backlog of every page scanned.
+        assertEquals(2, basePageFetches.get());
+        coalescingService.shutdown();
+    }
+
+    @Test
+    void testIndexedPagesAreNotFetchedAgain(@TempDir Path indexDirectory) throws Exception {
+        PageIndex pageIndex = new PageIndex(indexDirectory, 2, TimeUnit.MINUTES.toMillis(1));
+        CrawlService indexedService = new CrawlService(executorService, config, circuitBreaker, new IndexingDependencies(pageIndex, dependencies));
+        when(dependencies.getBodyTextFromUrl(any(URL.class), anyInt()))
+                .thenReturn("security privacy <a href=\"/a.html\">A</a><a href=\"/b.html\">B</a>");
+
+        ISearchOperation first = awaitCompletion(indexedService, indexedService.startSearch("security"));
+        ISearchOperation second = awaitCompletion(indexedService, indexedService.startSearch("privacy"));
+
+        assertEquals(SearchStatus.DONE, first.getStatus());
+        assertEquals(SearchStatus.DONE, second.getStatus());
+        assertEquals(3, first.getUrls().size());
+        assertEquals(first.getUrls().size(), second.getUrls().size());
+        verify(dependencies, times(3)).getBodyTextFromUrl(any(URL.class), anyInt());
+        indexedService.shutdown();
+    }
+
+    @Test
+    void testIndexedPagesOfOtherHostsAreNotReported(@TempDir Path indexDirectory) throws Exception {
+        PageIndex pageIndex = new PageIndex(indexDirectory, 100, TimeUnit.MINUTES.toMillis(1));
+        for (int i = 0; i < MAX_RESULTS; i++) {
+            pageIndex.add("http://other.example.org/page-" + i + ".html", "security");
+        }
+        CrawlService indexedService = new CrawlService(executorService, config, circuitBreaker, new IndexingDependencies(pageIndex, dependencies));
+        when(dependencies.getBodyTextFromUrl(any(URL.class), anyInt())).thenReturn("security");
+
+        ISearchOperation searchOperation = awaitCompletion(indexedService, indexedService.startSearch("security"));
+
+        assertEquals(SearchStatus.DONE, searchOperation.getStatus());
+        assertEquals(Set.of(BASE_URL), Set.copyOf(searchOperation.getUrls()));
+        indexedService.shutdown();
+    }
+
+    @Test
+    void testSpillingFrontierVisitsEveryPageAndCleansUp(@TempDir Path spillDirectory) throws Exception {
+        CrawlConfig spillingConfig = new CrawlConfig(BASE_URL, MAX_RESULTS, MAX_RETRIES, TIMEOUT_MS, MAX_QUEUE_SIZE, 2, false,
+                CrawlConfig.VisitedSetMode.FINGERPRINT, spillDirectory, 1);
+        CrawlService spillingService = new CrawlService(executorService, spillingConfig, circuitBreaker, dependencies);
+        StringBuilder links = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            links.append("<a href=\"/page-").append(i).append(".html\">").append(i).append("</a>");
+        }
+        when(dependencies.getBodyTextFromUrl(any(URL.class), anyInt())).thenReturn(links.toString());
+
+        ISearchOperation searchOperation = awaitCompletion(spillingService, spillingService.startSearch("security"));
+
+        assertEquals(SearchStatus.DONE, searchOperation.getStatus());
+        assertEquals(51, searchOperation.getVisitedUrls().size());
+        verify(dependencies, times(51)).getBodyTextFromUrl(any(URL.class), anyInt());
+        try (Stream<Path> files = Files.list(spillDirectory)) {
+            assertEquals(0, files.count());
+        }
+        spillingService.shutdown();
+    }
+
+    @Test
+    void testSitemapSeedingQueuesPagesNoLinkPointsTo() throws Exception {
+        CrawlConfig seedingConfig = new CrawlConfig(BASE_URL, MAX_RESULTS, MAX_RETRIES, TIMEOUT_MS, MAX_QUEUE_SIZE, 1, false,
+                CrawlConfig.VisitedSetMode.EXACT, null, 0, true);
+        CrawlService seedingService = new CrawlService(executorService, seedingConfig, circuitBreaker, dependencies);
+        when(dependencies.getBodyTextFromUrl(any(URL.class), anyInt())).thenReturn("security <a href=\"/a.html\">A</a>");
+        doAnswer(invocation -> {
+            URL url = invocation.getArgument(0);
+            if (!url.getPath().equals("/sitemap.xml")) {
+                throw new IOException("Not found: " + url);
+            }
+            String sitemap = "<urlset xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">"
+                    + "<url><loc>https://www.youtube.com/orphan.html</loc></url>"
+                    + "<url><loc>https://www.youtube.com/a.html</loc></url>"
+                    + "<url><loc>https://elsewhere.com/page.html</loc></url>"
+                    + "</urlset>";
+            invocation.<BodyReader>getArgument(2).read(new ByteArrayInputStream(sitemap.getBytes(StandardCharsets.UTF_8)), "application/xml");
+            return null;
+        }).when(dependencies).readBodyFromUrl(any(URL.class), anyInt(), any(BodyReader.class));
+
+        ISearchOperation searchOperation = awaitCompletion(seedingService, seedingService.startSearch("security"));
+
+        assertEquals(SearchStatus.DONE, searchOperation.getStatus());
+        assertEquals(3, searchOperation.getUrls().size());
+        assertTrue(searchOperation.getUrls().contains("https://www.youtube.com/orphan.html"));
+        verify(dependencies, times(3)).getBodyTextFromUrl(any(URL.class), anyInt());
+        seedingService.shutdown();
+    }
+
+    @Test
+    void testBestFirstFrontierFollowsMostPromisingLinkFirst() throws Exception {
+        CrawlConfig bestFirstConfig = new CrawlConfig(BASE_URL, 2, MAX_RETRIES, TIMEOUT_MS, MAX_QUEUE_SIZE, 1, false,
+                CrawlConfig.VisitedSetMode.EXACT, null, 0, false, CrawlConfig.FrontierOrder.BEST_FIRST);
+        CrawlService bestFirstService = new CrawlService(executorService, bestFirstConfig, circuitBreaker, dependencies);
+        List<String> fetched = new CopyOnWriteArrayList<>();
+        when(dependencies.getBodyTextFromUrl(any(URL.class), anyInt())).thenAnswer(invocation -> {
+            URL url = invocation.getArgument(0);
+            fetched.add(url.getPath());
+            switch (url.getPath()) {
+                case "/":
+                    return "<a href=\"/a.html\">Home</a><a href=\"/b/c/d.html\">Archive</a> <a href=\"/e.html\">About</a>"
+                            + "<p>Latest: <a href=\"/f.html\">Security news</a></p>";
+                case "/f.html":
+                    return "security";
+                default:
+                    return "nothing here";
+            }
+        });
+
+        ISearchOperation searchOperation = awaitCompletion(bestFirstService, bestFirstService.startSearch("security"));
+
+        assertEquals(SearchStatus.DONE, searchOperation.getStatus());
+        assertEquals(List.of("/", "/f.html"), fetched);
+        bestFirstService.shutdown();
+    }
+
+    @Test
+    void testLinksOfNearDuplicatePagesAreNotFollowed() throws Exception {
+        CrawlConfig deduplicatingConfig = new CrawlConfig(BASE_URL, MAX_RESULTS, MAX_RETRIES, TIMEOUT_MS, MAX_QUEUE_SIZE, 1, false,
+                CrawlConfig.VisitedSetMode.EXACT, null, 0, false, CrawlConfig.FrontierOrder.FIFO, true);
+        CrawlService deduplicatingService = new CrawlService(executorService, deduplicatingConfig, circuitBreaker, dependencies);
+        String article = "<p>Security researchers disclosed a flaw in the way the parser handles nested archives, "
+                + "allowing a crafted file to exhaust memory on any server that unpacks uploads without limits.</p>";
+        List<String> fetched = new CopyOnWriteArrayList<>();
+        when(dependencies.getBodyTextFromUrl(any(URL.class), anyInt())).thenAnswer(invocation -> {
+            URL url = invocation.getArgument(0);
+            fetched.add(url.getPath());
+            switch (url.getPath()) {
+                case "/":
+                    return "<a href=\"/article.html\">Article</a><a href=\"/print/article.html\">Print</a>";
+                case "/article.html":
+                case "/print/article.html":
+                    return url.getPath().equals("/article.html")
+                            ? "<h1>News</h1>" + article + "<a href=\"/related.html\">More</a><a href=\"/related.html\">More</a>"
+                            : "<h1>News</h1>" + article + "<a href=\"/session.html\">More</a><a href=\"/session.html\">More</a>";
+                default:
+                    return "nothing here";
+            }
+        });
+
+        LongAdder skippedLinks = MetricsRegistry.global().counter("crawler_near_duplicate_links_skipped_total", "");
+        long skippedBefore = skippedLinks.sum();
+
+        ISearchOperation searchOperation = awaitCompletion(deduplicatingService, deduplicatingService.startSearch("security"));
+
+        assertEquals(SearchStatus.DONE, searchOperation.getStatus());
+        assertEquals(List.of("/", "/article.html", "/print/article.html", "/related.html"), fetched);
+        // The skipped page links to the same page twice, which counts once.
+        assertEquals(1, skippedLinks.sum() - skippedBefore);
+        assertEquals(2, searchOperation.getUrls().size());
+        deduplicatingService.shutdown();
+    }
+
+    @Test
+    void testRedirectTargetsAreNotFetchedOrScannedTwice() throws Exception {
+        List<String> fetched = new CopyOnWriteArrayList<>();
+        when(dependencies.getBodyTextFromUrl(any(URL.class), anyInt())).thenAnswer(invocation -> {
+            URL url = invocation.getArgument(0);
+            fetched.add(url.getPath());
+            switch (url.getPath()) {
+                case "/":
+                    return "<a href=\"/moved.html\">Moved</a><a href=\"/b.html\">B</a>";
+                case "/moved.html":
+                    Redirects.report(url, new URL(BASE_URL + "b.html"));
+                    return "security";
+                case "/b.html":
+                    return "security <a href=\"/old.html\">Old</a>";
+                case "/old.html":
+                    Redirects.report(url, new URL(BASE_URL + "new.html"));
+                    return "security <a href=\"/new.html\">New</a>";
+                default:
+                    return "nothing here";
+            }
+        });
+
+        ISearchOperation searchOperation = awaitCompletion(crawlService, crawlService.startSearch("security"));
+
+        assertEquals(SearchStatus.DONE, searchOperation.getStatus());
+        assertEquals(List.of("/", "/moved.html", "/b.html", "/old.html"), fetched);
+        assertEquals(Set.of("https://www.youtube.com/b.html", "https://www.youtube.com/old.html"), Set.copyOf(searchOperation.getUrls()));
+    }
+
     @Test
     void testShutdown() {
         assertFalse(executorService.isShutdown());
@@ -143,4 +499,13 @@ class CrawlServiceTest {
 
         verify(mockExecutorService).shutdownNow();
     }
+
+    private static ISearchOperation awaitCompletion(CrawlService service, String searchId) throws InterruptedException {
+        ISearchOperation searchOperation = service.getSearchOperation(searchId);
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (searchOperation.getStatus() == SearchStatus.ACTIVE && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        return searchOperation;
+    }
 }
@@ -0,0 +1,202 @@
+package com.backend.unit;
+
+import com.backend.service.CrawlService;
+import com.backend.service.FetchScheduler;
+import com.backend.service.ScheduledDependencies;
+import com.backend.util.BodyScanner;
+import com.backend.util.HttpStatusException;
+import com.backend.util.ResponseHeaders;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FetchSchedulerTest {
+    private static final String HOST = "example.com";
+
+    @Test
+    void testTokenBucketLimitsRequestRateAfterBurst() throws Exception {
+        FetchScheduler scheduler = new FetchScheduler(20, 2, 10, 1, 10);
+        URL url = new URL("http://" + HOST + "/");
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 6; i++) {
+            scheduler.acquire(url).release(FetchScheduler.Outcome.SUCCESS);
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Two requests use the burst, the other four wait about 50ms each for a token.
+        assertTrue(elapsedMillis >= 150, "Elapsed: " + elapsedMillis + "ms");
+    }
+
+    @Test
+    void testConcurrencyLimitBlocksUntilPermitIsReleased() throws Exception {
+        FetchScheduler scheduler = new FetchScheduler(1000, 100, 1, 1, 1);
+        URL url = new URL("http://" + HOST + "/");
+        FetchScheduler.Permit first = scheduler.acquire(url);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<FetchScheduler.Permit> second = executor.submit(() -> scheduler.acquire(url));
+            Thread.sleep(100);
+            assertFalse(second.isDone());
+
+            first.release(FetchScheduler.Outcome.SUCCESS);
+
+            second.get(5, TimeUnit.SECONDS).release(FetchScheduler.Outcome.SUCCESS);
+            assertEquals(0, scheduler.getInFlight(HOST));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testLimitGrowsOnSuccessAndHalvesOnOverload() throws Exception {
+        FetchScheduler scheduler = new FetchScheduler(10000, 1000, 4, 1, 8);
+        URL url = new URL("http://" + HOST + "/");
+
+        for (int i = 0; i < 50; i++) {
+            List<FetchScheduler.Permit> permits = new ArrayList<>();
+            for (int j = 0; j < (int) scheduler.getLimit(HOST); j++) {
+                permits.add(scheduler.acquire(url));
+            }
+            permits.forEach(permit -> permit.release(FetchScheduler.Outcome.SUCCESS));
+        }
+        assertEquals(8, scheduler.getLimit(HOST), 0.001);
+
+        scheduler.acquire(url).release(FetchScheduler.Outcome.OVERLOAD);
+        assertEquals(4, scheduler.getLimit(HOST), 0.001);
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    void testWaitingFlowsAreServedRoundRobin() throws Exception {
+        FetchScheduler scheduler = new FetchScheduler(1000, 100, 1, 1, 1);
+        URL url = new URL("http://" + HOST + "/");
+        FetchScheduler.Permit blocker = scheduler.acquire(url);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            // The busy flow queues three requests before the quiet flow queues its single one.
+            CountDownLatch done = new CountDownLatch(4);
+            for (String flow : List.of("busy", "busy", "busy", "quiet")) {
+                executor.submit(() -> {
+                    try (FetchScheduler.Binding ignored = FetchScheduler.bindFlow(flow)) {
+                        FetchScheduler.Permit permit = scheduler.acquire(url);
+                        order.add(flow);
+                        permit.release(FetchScheduler.Outcome.SUCCESS);
+                    } catch (IOException e) {
+                        order.add("error");
+                    } finally {
+                        done.countDown();
+                    }
+                });
+                Thread.sleep(50);
+            }
+
+            blocker.release(FetchScheduler.Outcome.SUCCESS);
+
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(List.of("busy", "quiet", "busy", "busy"), order);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testScheduledDependenciesTreatTooManyRequestsAsOverload() throws Exception {
+        FetchScheduler scheduler = new FetchScheduler(1000, 100, 4, 1, 8);
+        URL missing = new URL("http://" + HOST + "/missing");
+        URL throttled = new URL("http://" + HOST + "/throttled");
+        ScheduledDependencies dependencies = new ScheduledDependencies(scheduler, new CrawlService.Dependencies() {
+            @Override
+            public String getBodyTextFromUrl(URL url, int timeout) throws IOException {
+                throw new HttpStatusException(url, url.equals(missing) ? 404 : 429);
+            }
+        });
+
+        assertThrows(IOException.class, () -> dependencies.getBodyTextFromUrl(missing, 1000));
+        assertEquals(4, scheduler.getLimit(HOST), 0.001);
+        assertThrows(IOException.class, () -> dependencies.getBodyTextFromUrl(throttled, 1000));
+        assertEquals(2, scheduler.getLimit(HOST), 0.001);
+        assertEquals(0, scheduler.getInFlight(HOST));
+    }
+
+    @Test
+    void testIdleHostsAreDroppedAboveTheHostBound() throws Exception {
+        FetchScheduler scheduler = new FetchScheduler(1000, 1, 1, 1, 1, 2);
+        FetchScheduler.Permit busy = scheduler.acquire(new URL("http://a.example.com/"));
+        scheduler.acquire(new URL("http://b.example.com/")).release(FetchScheduler.Outcome.SUCCESS);
+        scheduler.acquire(new URL("http://c.example.com/")).release(FetchScheduler.Outcome.SUCCESS);
+        assertEquals(3, scheduler.getHostCount());
+
+        // Gives the idle hosts time to refill their single token.
+        Thread.sleep(20);
+        FetchScheduler.Permit next = scheduler.acquire(new URL("http://d.example.com/"));
+
+        assertEquals(2, scheduler.getHostCount());
+        assertEquals(1, scheduler.getInFlight("a.example.com"));
+        busy.release(FetchScheduler.Outcome.SUCCESS);
+        next.release(FetchScheduler.Outcome.SUCCESS);
+    }
+
+    @Test
+    void testSlowBodyDoesNotReadAsCongestion() throws Exception {
+        FetchScheduler scheduler = new FetchScheduler(1000, 100, 4, 1, 8);
+        URL fast = new URL("http://" + HOST + "/fast");
+        ScheduledDependencies dependencies = new ScheduledDependencies(scheduler, new CrawlService.Dependencies() {
+            @Override
+            public void scanBodyFromUrl(URL url, int timeout, BodyScanner scanner) throws IOException {
+                scanner.onChars(new char[]{'x'}, 0, 1);
+                if (!url.equals(fast)) {
+                    try {
+                        // The rest of a large body trickles in long after the headers.
+                        Thread.sleep(200);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        });
+
+        dependencies.scanBodyFromUrl(fast, 1000, (chars, offset, length) -> true);
+        dependencies.scanBodyFromUrl(new URL("http://" + HOST + "/large"), 1000, (chars, offset, length) -> true);
+
+        assertEquals(4, scheduler.getLimit(HOST), 0.001);
+    }
+
+    @Test
+    void testSlowWholeBodyDoesNotReadAsCongestion() throws Exception {
+        FetchScheduler scheduler = new FetchScheduler(1000, 100, 4, 1, 8);
+        URL fast = new URL("http://" + HOST + "/fast");
+        ScheduledDependencies dependencies = new ScheduledDependencies(scheduler, new CrawlService.Dependencies() {
+            @Override
+            public String getBodyTextFromUrl(URL url, int timeout) {
+                ResponseHeaders.report();
+                if (!url.equals(fast)) {
+                    try {
+                        // The body is read whole, long after the headers.
+                        Thread.sleep(200);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return "x";
+            }
+        });
+
+        dependencies.getBodyTextFromUrl(fast, 1000);
+        dependencies.getBodyTextFromUrl(new URL("http://" + HOST + "/large"), 1000);
+
+        assertEquals(4, scheduler.getLimit(HOST), 0.001);
+    }
+}
@@ -0,0 +1,133 @@
+package com.backend.unit;
+
+import com.backend.util.HtmlLinkExtractor;
+import com.backend.util.HttpUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HtmlLinkExtractorTest {
+
+    @Test
+    void testExtractsAnchorHrefsInAnyQuotingStyle() {
+        List<String> links = extract("<A HREF=\"/one\">1</A> <a class='x' href='/two'>2</a> <a href=/three>3</a>"
+                + "<a title=\"no link\">4</a> <area shape=rect href=\"/four\">");
+
+        assertEquals(List.of("/one", "/two", "/three", "/four"), links);
+    }
+
+    @Test
+    void testExtractsCanonicalLinksAndFrameSources() {
+        List<String> links = extract("<link rel=\"stylesheet\" href=\"/site.css\"><link rel=\"Canonical\" href=\"/canonical\">"
+                + "<frame src=\"/frame\"><iframe width=1 src='/iframe'></iframe><img src=\"/image.png\">");
+
+        assertEquals(List.of("/canonical", "/frame", "/iframe"), links);
+    }
+
+    @Test
+    void testIgnoresLinksInCommentsScriptsAndStyles() {
+        List<String> links = extract("<!-- <a href=\"/commented\"> --><!DOCTYPE html>"
+                + "<script>var s = '<a href=\"/scripted\">'; if (a < b) {}</script>"
+                + "<style>a[href=\"/styled\"] {}</STYLE>"
+                + "<a href=\"/visible\">");
+
+        assertEquals(List.of("/visible"), links);
+    }
+
+    @Test
+    void testReportsBaseHrefAndDecodesAmpersands() {
+        List<String> bases = new ArrayList<>();
+        List<String> links = new ArrayList<>();
+        HtmlLinkExtractor extractor = new HtmlLinkExtractor(new HtmlLinkExtractor.LinkListener() {
+            @Override
+            public boolean onLink(String link) {
+                links.add(link);
+                return true;
+            }
+
+            @Override
+            public void onBase(String href) {
+                bases.add(href);
+            }
+        });
+
+        HttpUtil.scanString("<base href=\"/docs/\"><a href=\"page?a=1&amp;b=2\">", extractor);
+
+        assertEquals(List.of("/docs/"), bases);
+        assertEquals(List.of("page?a=1&b=2"), links);
+    }
+
+    @Test
+    void testEndsCommentsOnOverlappingDashes() {
+        assertEquals(List.of("/x"), extract("<!-- note ---><a href=\"/x\">x</a>"));
+        assertEquals(List.of("/y"), extract("<!-- a -- b ----><a href=\"/y\">y</a>"));
+    }
+
+    @Test
+    void testEndsScriptsOnlyAtTheirWholeEndTagName() {
+        List<String> links = extract("<script>document.write('</scripts><a href=\"/hidden\">');</Script >"
+                + "<a href=\"/shown\">"
+                + "<style>p{}<</style/><a href=\"/styled\">");
+
+        assertEquals(List.of("/shown", "/styled"), links);
+    }
+
+    @Test
+    void testExtractsLinksSplitAcrossChunkBoundaries() {
+        char[] html = "<p>x</p><!-- c --><a\nhref = \"/split-link\">a</a><script>'</scr'</script><a href='/after'>".toCharArray();
+        List<String> links = new ArrayList<>();
+        HtmlLinkExtractor extractor = new HtmlLinkExtractor(link -> links.add(link));
+
+        for (int i = 0; i < html.length; i++) {
+            extractor.onChars(html, i, 1);
+        }
+
+        assertEquals(List.of("/split-link", "/after"), links);
+    }
+
+    @Test
+    void testReportsTextAndFlagsAnchorTextOfReportedLinks() {
+        List<String> text = new ArrayList<>();
+        HtmlLinkExtractor extractor = new HtmlLinkExtractor(new HtmlLinkExtractor.LinkListener() {
+            @Override
+            public boolean onLink(String link) {
+                text.add("[" + link + "]");
+                return true;
+            }
+
+            @Override
+            public void onText(char[] chars, int offset, int length, boolean anchor) {
+                String run = new String(chars, offset, length);
+                text.add(anchor ? "<" + run + ">" : run);
+            }
+        });
+
+        HttpUtil.scanString("<p>Read <a href=\"/one\">the <b>first</b></a> or<script>no</script> "
+                + "<a name=\"x\">named</a><a href=\"/two\">second</A >.", extractor);
+
+        assertEquals(List.of("Read ", "[/one]", "<the >", "<first>", " or", " ", "named", "[/two]", "<second>", "."), text);
+    }
+
+    @Test
+    void testStopsWhenListenerDeclinesMoreLinks() {
+        List<String> links = new ArrayList<>();
+        HtmlLinkExtractor extractor = new HtmlLinkExtractor(link -> {
+            links.add(link);
+            return links.size() < 2;
+        });
+
+        HttpUtil.scanString("<a href=\"/1\"><a href=\"/2\"><a href=\"/3\">", extractor);
+
+        assertEquals(List.of("/1", "/2"), links);
+        assertTrue(extractor.isStopped());
+    }
+
+    private static List<String> extract(String html) {
+        List<String> links = new ArrayList<>();
+        HttpUtil.scanString(html, new HtmlLinkExtractor(link -> links.add(link)));
+        return links;
+    }
+}
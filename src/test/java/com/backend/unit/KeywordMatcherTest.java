@@ -0,0 +1,54 @@
+package com.backend.unit;
+
+import com.backend.util.KeywordMatcher;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeywordMatcherTest {
+
+    @Test
+    void testMatchesIgnoringCase() {
+        KeywordMatcher matcher = new KeywordMatcher("Security");
+
+        assertTrue(matcher.matches("Cyber SECURITY news"));
+        assertTrue(matcher.matches("security"));
+        assertFalse(matcher.matches("secur ity"));
+        assertFalse(matcher.matches(""));
+    }
+
+    @Test
+    void testMatchesAfterPartialPrefix() {
+        KeywordMatcher matcher = new KeywordMatcher("aab");
+
+        assertTrue(matcher.matches("aaab"));
+        assertTrue(matcher.matches("abaab"));
+        assertFalse(matcher.matches("abab"));
+    }
+
+    @Test
+    void testMatchesNonAsciiKeyword() {
+        KeywordMatcher matcher = new KeywordMatcher("Ação");
+
+        assertTrue(matcher.matches("<p>AÇÃO rápida</p>"));
+        assertFalse(matcher.matches("acao"));
+    }
+
+    @Test
+    void testScanFindsKeywordAcrossChunkBoundaries() {
+        KeywordMatcher matcher = new KeywordMatcher("linux");
+        char[] text = "the LinUX kernel".toCharArray();
+
+        KeywordMatcher.Scan scan = matcher.newScan();
+        for (int i = 0; i < text.length; i++) {
+            boolean matched = scan.feed(text, i, 1);
+            assertEquals(i >= 8, matched);
+        }
+        assertTrue(scan.isMatched());
+    }
+
+    @Test
+    void testRejectsEmptyKeyword() {
+        assertThrows(IllegalArgumentException.class, () -> new KeywordMatcher(""));
+    }
+}
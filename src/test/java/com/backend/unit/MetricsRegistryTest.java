@@ -0,0 +1,101 @@
+package com.backend.unit;
+
+import com.backend.service.CircuitBreaker;
+import com.backend.service.PageCache;
+import com.backend.util.LatencyHistogram;
+import com.backend.util.MetricsRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsRegistryTest {
+
+    @Test
+    void testCountersAreSharedByName() {
+        MetricsRegistry registry = new MetricsRegistry();
+        LongAdder pages = registry.counter("test_pages_total", "Pages.");
+        pages.add(3);
+        registry.counter("test_pages_total", "Pages.").increment();
+
+        String text = registry.scrape();
+
+        assertTrue(text.contains("# HELP test_pages_total Pages.\n# TYPE test_pages_total counter\ntest_pages_total 4\n"), text);
+    }
+
+    @Test
+    void testHistogramBucketsAreCumulative() {
+        MetricsRegistry registry = new MetricsRegistry();
+        LatencyHistogram histogram = registry.histogram("test_latency_seconds", "Latency.");
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(30));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(1));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(3));
+        histogram.record(TimeUnit.SECONDS.toNanos(60));
+
+        String text = registry.scrape();
+
+        assertTrue(text.contains("# TYPE test_latency_seconds histogram\n"), text);
+        assertTrue(text.contains("test_latency_seconds_bucket{le=\"0.00005\"} 1\n"), text);
+        assertTrue(text.contains("test_latency_seconds_bucket{le=\"0.001\"} 2\n"), text);
+        assertTrue(text.contains("test_latency_seconds_bucket{le=\"0.005\"} 3\n"), text);
+        assertTrue(text.contains("test_latency_seconds_bucket{le=\"10\"} 3\n"), text);
+        assertTrue(text.contains("test_latency_seconds_bucket{le=\"+Inf\"} 4\n"), text);
+        assertTrue(text.contains("test_latency_seconds_count 4\n"), text);
+        assertEquals(60.00403, histogram.getSumSeconds(), 1e-9);
+    }
+
+    @Test
+    void testGaugesAreReadOnScrape() {
+        MetricsRegistry registry = new MetricsRegistry();
+        AtomicInteger depth = new AtomicInteger();
+        registry.gauge("test_depth", "Depth.", depth::get);
+
+        depth.set(7);
+        assertTrue(registry.scrape().contains("test_depth 7\n"));
+        depth.set(2);
+        assertTrue(registry.scrape().contains("test_depth 2\n"));
+    }
+
+    @Test
+    void testLabelValuesAreEscaped() {
+        assertEquals("{host=\"a\\\"b\\\\c\\n\"}", MetricsRegistry.label("host", "a\"b\\c\n"));
+    }
+
+    @Test
+    void testCircuitBreakerExportsHostStates() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        CircuitBreaker circuitBreaker = new CircuitBreaker(2, TimeUnit.MINUTES.toMillis(1));
+        circuitBreaker.registerMetrics(registry);
+        circuitBreaker.recordFailure(new URL("http://down.example.com/a"));
+        circuitBreaker.recordFailure(new URL("http://down.example.com/b"));
+        circuitBreaker.recordFailure(new URL("http://flaky.example.com/a"));
+
+        String text = registry.scrape();
+
+        assertTrue(text.contains("crawler_circuit_breaker_state{host=\"down.example.com\"} 1\n"), text);
+        assertTrue(text.contains("crawler_circuit_breaker_state{host=\"flaky.example.com\"} 0\n"), text);
+        assertTrue(text.contains("crawler_circuit_breaker_tracked_hosts 2\n"), text);
+    }
+
+    @Test
+    void testPageCacheExportsCountersAndSize() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        PageCache pageCache = new PageCache(1, 1024, TimeUnit.MINUTES.toMillis(1), PageCache.StorageMode.HEAP);
+        pageCache.registerMetrics(registry);
+        pageCache.get("http://example.com/a", () -> "a");
+        pageCache.get("http://example.com/a", () -> "a");
+        pageCache.get("http://example.com/bb", () -> "bb");
+
+        String text = registry.scrape();
+
+        assertTrue(text.contains("# TYPE crawler_page_cache_hits_total counter\ncrawler_page_cache_hits_total 1\n"), text);
+        assertTrue(text.contains("crawler_page_cache_misses_total 2\n"), text);
+        assertTrue(text.contains("crawler_page_cache_evictions_total 1\n"), text);
+        assertTrue(text.contains("crawler_page_cache_entries 1\n"), text);
+        assertTrue(text.contains("crawler_page_cache_stored_bytes 2\n"), text);
+    }
+}
@@ -0,0 +1,66 @@
+package com.backend.unit;
+
+import com.backend.util.MultiKeywordMatcher;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultiKeywordMatcherTest {
+
+    @Test
+    void testReportsEachMatchedKeyword() {
+        MultiKeywordMatcher matcher = new MultiKeywordMatcher(List.of("security", "privacy", "linux"));
+
+        MultiKeywordMatcher.Scan scan = scan(matcher, "Notes on PRIVACY and Linux kernels");
+
+        assertFalse(scan.isMatched(0));
+        assertTrue(scan.isMatched(1));
+        assertTrue(scan.isMatched(2));
+        assertFalse(scan.allMatched());
+    }
+
+    @Test
+    void testMatchesOverlappingAndNestedKeywords() {
+        MultiKeywordMatcher matcher = new MultiKeywordMatcher(List.of("he", "she", "hers", "his"));
+
+        MultiKeywordMatcher.Scan scan = scan(matcher, "ushers");
+
+        assertTrue(scan.isMatched(0));
+        assertTrue(scan.isMatched(1));
+        assertTrue(scan.isMatched(2));
+        assertFalse(scan.isMatched(3));
+    }
+
+    @Test
+    void testMatchesAcrossChunkBoundariesAndNonAsciiText() {
+        MultiKeywordMatcher matcher = new MultiKeywordMatcher(List.of("ação", "test"));
+        char[] text = "uma AÇÃO de teste testes".toCharArray();
+
+        MultiKeywordMatcher.Scan scan = matcher.newScan();
+        boolean allMatched = false;
+        for (int i = 0; i < text.length; i++) {
+            allMatched = scan.feed(text, i, 1);
+        }
+
+        assertTrue(allMatched);
+    }
+
+    @Test
+    void testDuplicateKeywordsAreReportedIndependently() {
+        MultiKeywordMatcher matcher = new MultiKeywordMatcher(List.of("linux", "LINUX"));
+
+        MultiKeywordMatcher.Scan scan = scan(matcher, "linux");
+
+        assertTrue(scan.isMatched(0));
+        assertTrue(scan.isMatched(1));
+    }
+
+    private static MultiKeywordMatcher.Scan scan(MultiKeywordMatcher matcher, String text) {
+        MultiKeywordMatcher.Scan scan = matcher.newScan();
+        char[] chars = text.toCharArray();
+        scan.feed(chars, 0, chars.length);
+        return scan;
+    }
+}
@@ -0,0 +1,77 @@
+package com.backend.unit;
+
+import com.backend.service.NearDuplicateIndex;
+import com.backend.util.SimHash;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NearDuplicateIndexTest {
+    private static final String ARTICLE = "Security researchers disclosed a flaw in the way the parser handles nested archives, "
+            + "allowing a crafted file to exhaust memory on any server that unpacks uploads without limits. The maintainers "
+            + "released a patch within a day and recommend that every deployment upgrade before the end of the week.";
+
+    @Test
+    void testTextsDifferingInMarkupPunctuationOrCaseGetSameFingerprint() {
+        assertEquals(fingerprint(ARTICLE), fingerprint(ARTICLE.toUpperCase().replace(",", " ;").replace(". ", "\n\n")));
+    }
+
+    @Test
+    void testNearlyIdenticalTextsGetCloseFingerprints() {
+        String text = randomText(2000, 1);
+        long original = fingerprint(text);
+        long edited = fingerprint(text.replaceFirst("\\w+", "edited") + " printed from the archive");
+
+        assertTrue(SimHash.distance(original, edited) <= NearDuplicateIndex.DEFAULT_MAX_DISTANCE);
+        assertTrue(SimHash.distance(original, fingerprint(randomText(2000, 2))) > NearDuplicateIndex.DEFAULT_MAX_DISTANCE);
+        assertTrue(SimHash.distance(fingerprint(ARTICLE), fingerprint(ARTICLE.replace("memory", "disk space")))
+                < SimHash.distance(fingerprint(ARTICLE), fingerprint(randomText(40, 3))));
+    }
+
+    @Test
+    void testFingerprintDoesNotDependOnHowTextIsSplit() {
+        SimHash chunked = new SimHash();
+        char[] chars = ARTICLE.toCharArray();
+        for (int offset = 0; offset < chars.length; offset += 7) {
+            chunked.feed(chars, offset, Math.min(7, chars.length - offset));
+        }
+
+        assertEquals(fingerprint(ARTICLE), chunked.fingerprint());
+        assertEquals(ARTICLE.split("\\W+").length - SimHash.SHINGLE_WORDS + 1, chunked.getShingleCount());
+    }
+
+    @Test
+    void testFindsFingerprintsWithinMaximumDistance() {
+        NearDuplicateIndex index = new NearDuplicateIndex();
+        long fingerprint = 0x0123456789abcdefL;
+
+        assertTrue(index.addIfNotNearDuplicate(fingerprint));
+        assertFalse(index.addIfNotNearDuplicate(fingerprint));
+        assertFalse(index.addIfNotNearDuplicate(fingerprint ^ 1L ^ (1L << 20) ^ (1L << 40)));
+        assertTrue(index.addIfNotNearDuplicate(fingerprint ^ 1L ^ (1L << 20) ^ (1L << 40) ^ (1L << 60)));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void testRejectsDistancesThePigeonholeIndexCannotFind() {
+        assertThrows(IllegalArgumentException.class, () -> new NearDuplicateIndex(4));
+        assertThrows(IllegalArgumentException.class, () -> new NearDuplicateIndex(-1));
+    }
+
+    private static String randomText(int words, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            text.append("word").append(random.nextInt(500)).append(' ');
+        }
+        return text.toString();
+    }
+
+    private static long fingerprint(String text) {
+        SimHash simHash = new SimHash();
+        simHash.feed(text.toCharArray(), 0, text.length());
+        return simHash.fingerprint();
+    }
+}
@@ -0,0 +1,226 @@
+package com.backend.unit;
+
+import com.backend.service.CachingDependencies;
+import com.backend.service.CrawlService;
+import com.backend.service.PageCache;
+import com.backend.util.BodyScanner;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageCacheTest {
+    private static final int MAX_ENTRIES = 3;
+    private static final long MAX_BYTES = 1024 * 1024;
+    private static final long TTL_MILLIS = 60000;
+
+    @Test
+    void testHitAfterMiss() throws Exception {
+        PageCache cache = new PageCache(MAX_ENTRIES, MAX_BYTES, TTL_MILLIS, PageCache.StorageMode.HEAP);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("body", cache.get("http://example.com/", () -> { loads.incrementAndGet(); return "body"; }));
+        assertEquals("body", cache.get("http://example.com/", () -> { loads.incrementAndGet(); return "other"; }));
+
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    void testLeastRecentlyUsedEviction() throws Exception {
+        PageCache cache = new PageCache(MAX_ENTRIES, MAX_BYTES, TTL_MILLIS, PageCache.StorageMode.HEAP);
+        cache.get("a", () -> "a");
+        cache.get("b", () -> "b");
+        cache.get("c", () -> "c");
+        cache.get("a", () -> "a");
+        cache.get("d", () -> "d");
+
+        assertEquals(MAX_ENTRIES, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals("reloaded", cache.get("b", () -> "reloaded"));
+        assertEquals("a", cache.get("a", () -> "reloaded"));
+    }
+
+    @Test
+    void testByteBudgetEviction() throws Exception {
+        PageCache cache = new PageCache(100, 10, TTL_MILLIS, PageCache.StorageMode.HEAP);
+        cache.get("a", () -> "12345");
+        cache.get("b", () -> "12345");
+        cache.get("c", () -> "12345");
+
+        assertEquals(2, cache.size());
+        assertEquals(10, cache.getStoredBytes());
+    }
+
+    @Test
+    void testExpiredEntryIsReloaded() throws Exception {
+        PageCache cache = new PageCache(MAX_ENTRIES, MAX_BYTES, 100, PageCache.StorageMode.HEAP);
+        cache.get("a", () -> "old");
+        Thread.sleep(200);
+
+        assertEquals("new", cache.get("a", () -> "new"));
+        assertEquals(2, cache.getMissCount());
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    void testCompressedAndOffHeapStorageRoundTrip() throws Exception {
+        String body = "<html>" + "keyword ".repeat(1000) + "çãõ</html>";
+        for (PageCache.StorageMode mode : PageCache.StorageMode.values()) {
+            PageCache cache = new PageCache(MAX_ENTRIES, MAX_BYTES, TTL_MILLIS, mode);
+            cache.get("a", () -> body);
+            assertEquals(body, cache.get("a", () -> "unexpected"), mode.name());
+        }
+
+        PageCache compressed = new PageCache(MAX_ENTRIES, MAX_BYTES, TTL_MILLIS, PageCache.StorageMode.COMPRESSED);
+        compressed.get("a", () -> body);
+        assertTrue(compressed.getStoredBytes() < body.length() / 4);
+    }
+
+    @Test
+    void testConcurrentMissesShareSingleLoad() throws Exception {
+        PageCache cache = new PageCache(MAX_ENTRIES, MAX_BYTES, TTL_MILLIS, PageCache.StorageMode.HEAP);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+
+        List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            futures.add(executor.submit(() -> cache.get("a", () -> {
+                loads.incrementAndGet();
+                awaitQuietly(release);
+                return "body";
+            })));
+        }
+
+        Thread.sleep(200);
+        release.countDown();
+        for (Future<String> future : futures) {
+            assertEquals("body", future.get(5, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(callers - 1, cache.getCoalescedCount() + cache.getHitCount());
+    }
+
+    @Test
+    void testInstantLoadsRacingLookupsAreNotRepeated() throws Exception {
+        int keys = 2000;
+        int callers = 4;
+        PageCache cache = new PageCache(keys, MAX_BYTES, TTL_MILLIS, PageCache.StorageMode.HEAP);
+        AtomicInteger loads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            // Loads finish immediately, so a caller often misses the cache just before another caller
+            // stores the page and leaves the in-flight map.
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int key = 0; key < keys; key++) {
+                        cache.get("page-" + key, () -> {
+                            loads.incrementAndGet();
+                            return "body";
+                        });
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(keys, loads.get());
+        assertEquals(keys, cache.getMissCount());
+    }
+
+    @Test
+    void testFailedLoadIsNotCached() throws Exception {
+        PageCache cache = new PageCache(MAX_ENTRIES, MAX_BYTES, TTL_MILLIS, PageCache.StorageMode.HEAP);
+
+        assertThrows(IOException.class, () -> cache.get("a", () -> { throw new IOException("Simulated failure"); }));
+        assertEquals("body", cache.get("a", () -> "body"));
+        assertEquals(0, cache.getHitCount());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) throws IOException {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+
+    @Test
+    void testQueryVariantsAreCachedApart() throws Exception {
+        PageCache cache = new PageCache(MAX_ENTRIES, MAX_BYTES, TTL_MILLIS, PageCache.StorageMode.HEAP);
+        AtomicInteger loads = new AtomicInteger();
+        CachingDependencies dependencies = new CachingDependencies(cache, new CrawlService.Dependencies() {
+            @Override
+            public String getBodyTextFromUrl(URL url, int timeout) {
+                loads.incrementAndGet();
+                return "results for " + url.getQuery();
+            }
+        });
+
+        assertEquals("results for page=1", dependencies.getBodyTextFromUrl(new URL("http://example.com/list?page=1"), 1000));
+        assertEquals("results for page=2", dependencies.getBodyTextFromUrl(new URL("http://example.com/list?page=2"), 1000));
+        assertEquals("results for page=1", dependencies.getBodyTextFromUrl(new URL("http://EXAMPLE.com/list?page=1#top"), 1000));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testScanStreamsMissesAndOnlyCachesWholeBodies() throws Exception {
+        PageCache cache = new PageCache(MAX_ENTRIES, MAX_BYTES, TTL_MILLIS, PageCache.StorageMode.COMPRESSED);
+        AtomicInteger loads = new AtomicInteger();
+        AtomicInteger chunksSent = new AtomicInteger();
+        CachingDependencies dependencies = new CachingDependencies(cache, new CrawlService.Dependencies() {
+            @Override
+            public void scanBodyFromUrl(URL url, int timeout, BodyScanner scanner) {
+                loads.incrementAndGet();
+                for (String chunk : List.of("<html>", "<body>", "</html>")) {
+                    chunksSent.incrementAndGet();
+                    if (!scanner.onChars(chunk.toCharArray(), 0, chunk.length())) {
+                        return;
+                    }
+                }
+            }
+        });
+        URL url = new URL("http://example.com/page");
+
+        StringBuilder scanned = new StringBuilder();
+        dependencies.scanBodyFromUrl(url, 1000, (chars, offset, length) -> {
+            scanned.append(chars, offset, length);
+            return false;
+        });
+        assertEquals("<html>", scanned.toString());
+        assertEquals(1, chunksSent.get());
+        assertEquals(0, cache.size());
+
+        scanned.setLength(0);
+        dependencies.scanBodyFromUrl(url, 1000, (chars, offset, length) -> {
+            scanned.append(chars, offset, length);
+            return true;
+        });
+        assertEquals("<html><body></html>", scanned.toString());
+        assertEquals(1, cache.size());
+
+        assertEquals("<html><body></html>", dependencies.getBodyTextFromUrl(url, 1000));
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.getHitCount());
+    }
+}
@@ -0,0 +1,137 @@
+package com.backend.unit;
+
+import com.backend.service.CrawlService;
+import com.backend.service.IndexingDependencies;
+import com.backend.service.PageIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageIndexTest {
+    private static final long MAX_AGE_MILLIS = 60000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testSearchVerifiesExactSubstringIgnoringCase() throws Exception {
+        PageIndex index = new PageIndex(directory, 100, MAX_AGE_MILLIS);
+        index.add("http://example.com/a", "<p>Linux kernel news</p>");
+        index.add("http://example.com/b", "<p>linus prefers nuxt</p>");
+        index.add("http://example.com/c", "<p>Windows</p>");
+
+        assertEquals(List.of("http://example.com/a"), index.search("LINUX"));
+        assertEquals(List.of(), index.search("macos"));
+    }
+
+    @Test
+    void testSearchCoversMemoryAndMappedSegments() throws Exception {
+        PageIndex index = new PageIndex(directory, 2, MAX_AGE_MILLIS);
+        index.add("http://example.com/1", "security one");
+        index.add("http://example.com/2", "security two");
+        index.add("http://example.com/3", "security three");
+
+        assertEquals(1, index.getSegmentCount());
+        assertEquals(3, index.search("Security").size());
+        assertEquals("security two", index.getFreshText("http://example.com/2").toString());
+    }
+
+    @Test
+    void testReopenedIndexServesPersistedPages() throws Exception {
+        PageIndex index = new PageIndex(directory, 100, MAX_AGE_MILLIS);
+        index.add("http://example.com/a", "Ação rápida");
+        index.add("http://example.com/b", "nothing here");
+        index.close();
+
+        PageIndex reopened = new PageIndex(directory, 100, MAX_AGE_MILLIS);
+
+        assertEquals(2, reopened.size());
+        assertEquals(List.of("http://example.com/a"), reopened.search("AÇÃO"));
+        StringBuilder scanned = new StringBuilder();
+        assertTrue(reopened.scanFresh("http://example.com/b", (chars, offset, length) -> {
+            scanned.append(chars, offset, length);
+            return true;
+        }));
+        assertEquals("nothing here", scanned.toString());
+    }
+
+    @Test
+    void testReindexedPageSupersedesOldVersion() throws Exception {
+        PageIndex index = new PageIndex(directory, 1, MAX_AGE_MILLIS);
+        index.add("http://example.com/a", "old keyword");
+        index.add("http://example.com/a", "new content");
+
+        assertEquals(List.of(), index.search("keyword"));
+        assertEquals(List.of("http://example.com/a"), index.search("content"));
+        assertEquals(1, index.getSegmentCount());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void testConcurrentAddsAreAllSearchableAcrossSeals() throws Exception {
+        PageIndex index = new PageIndex(directory, 10, MAX_AGE_MILLIS);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> adds = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                int first = thread * 50;
+                adds.add(executor.submit(() -> {
+                    for (int page = first; page < first + 50; page++) {
+                        index.add("http://example.com/" + page, "security page " + page);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> add : adds) {
+                add.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(200, index.search("security").size());
+        assertEquals(20, index.getSegmentCount());
+    }
+
+    @Test
+    void testStalePagesAreReportedMissing() throws Exception {
+        PageIndex index = new PageIndex(directory, 100, 0);
+        index.add("http://example.com/a", "security");
+        Thread.sleep(5);
+
+        assertNull(index.getFreshText("http://example.com/a"));
+        assertFalse(index.scanFresh("http://example.com/a", (chars, offset, length) -> true));
+        assertEquals(List.of(), index.search("security"));
+    }
+
+    @Test
+    void testIndexingDependenciesKeepQueryVariantsApart() throws Exception {
+        PageIndex index = new PageIndex(directory, 100, MAX_AGE_MILLIS);
+        IndexingDependencies dependencies = new IndexingDependencies(index, new CrawlService.Dependencies() {
+            @Override
+            public String getBodyTextFromUrl(URL url, int timeout) {
+                return url.getQuery().equals("lang=en") ? "security advisory" : "avis de securite";
+            }
+        });
+
+        dependencies.getBodyTextFromUrl(new URL("http://example.com/news?lang=en"), 1000);
+        dependencies.getBodyTextFromUrl(new URL("http://example.com/news?lang=fr"), 1000);
+
+        assertEquals(List.of("http://example.com/news?lang=en"), index.search("advisory"));
+        assertEquals("avis de securite", index.getFreshText("http://example.com/news?lang=fr").toString());
+    }
+}
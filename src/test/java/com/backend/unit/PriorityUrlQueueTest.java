@@ -0,0 +1,46 @@
+package com.backend.unit;
+
+import com.backend.service.PriorityUrlQueue;
+import org.junit.jupiter.api.Test;
+
+import java.net.URL;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriorityUrlQueueTest {
+
+    @Test
+    void testHighestPriorityComesOutFirstAndTiesInInsertionOrder() throws Exception {
+        PriorityUrlQueue queue = new PriorityUrlQueue();
+        queue.add(url("low"), 1);
+        queue.add(url("high-1"), 10);
+        queue.add(url("default"));
+        queue.add(url("high-2"), 10);
+        queue.add(url("negative"), Integer.MIN_VALUE);
+
+        assertEquals(5, queue.size());
+        assertEquals(url("high-1"), queue.poll());
+        assertEquals(url("high-2"), queue.poll());
+        assertEquals(url("low"), queue.poll());
+        assertEquals(url("default"), queue.poll());
+        assertEquals(url("negative"), queue.poll());
+        assertNull(queue.poll());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void testCloseDropsQueuedUrls() throws Exception {
+        PriorityUrlQueue queue = new PriorityUrlQueue();
+        queue.add(url("a"), 3);
+        queue.add(url("b"));
+
+        queue.close();
+
+        assertEquals(0, queue.size());
+        assertNull(queue.poll());
+    }
+
+    private static URL url(String path) throws Exception {
+        return new URL("http://example.com/" + path);
+    }
+}
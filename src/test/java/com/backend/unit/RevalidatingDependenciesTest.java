@@ -0,0 +1,137 @@
+package com.backend.unit;
+
+import com.backend.service.CrawlService;
+import com.backend.service.RevalidatingDependencies;
+import com.backend.service.RevalidationStore;
+import com.backend.util.FetchResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RevalidatingDependenciesTest {
+    private static final int TIMEOUT_MS = 5000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testUnchangedPageIsServedFromStoreAfterNotModified() throws Exception {
+        VersionedSite site = new VersionedSite("<html>security <a href=\"/a\">A</a></html>");
+        RevalidatingDependencies dependencies = new RevalidatingDependencies(new RevalidationStore(directory), site);
+        URL url = new URL("https://example.com/page");
+
+        String first = dependencies.getBodyTextFromUrl(url, TIMEOUT_MS);
+        StringBuilder scanned = new StringBuilder();
+        dependencies.scanBodyFromUrl(url, TIMEOUT_MS, (chars, offset, length) -> {
+            scanned.append(chars, offset, length);
+            return true;
+        });
+
+        assertEquals(site.body, first);
+        assertEquals(site.body, scanned.toString());
+        assertEquals(List.of("none", "\"v1\""), site.conditions);
+        assertEquals(1, dependencies.getNotModifiedCount());
+        assertEquals(site.body.length(), dependencies.getTransferredChars());
+        assertEquals(site.body.length(), dependencies.getReusedChars());
+    }
+
+    @Test
+    void testChangedPageIsDownloadedAndStoredAgain() throws Exception {
+        VersionedSite site = new VersionedSite("<html>old</html>");
+        RevalidatingDependencies dependencies = new RevalidatingDependencies(new RevalidationStore(directory), site);
+        URL url = new URL("https://example.com/page");
+
+        dependencies.getBodyTextFromUrl(url, TIMEOUT_MS);
+        site.update("<html>new</html>");
+
+        assertEquals("<html>new</html>", dependencies.getBodyTextFromUrl(url, TIMEOUT_MS));
+        assertEquals("<html>new</html>", dependencies.getBodyTextFromUrl(url, TIMEOUT_MS));
+        assertEquals(List.of("none", "\"v1\"", "\"v2\""), site.conditions);
+        assertEquals(1, dependencies.getNotModifiedCount());
+    }
+
+    @Test
+    void testStoredCopiesSurviveRestart() throws Exception {
+        VersionedSite site = new VersionedSite("<html>security</html>");
+        URL url = new URL("https://example.com/page");
+        new RevalidatingDependencies(new RevalidationStore(directory), site).getBodyTextFromUrl(url, TIMEOUT_MS);
+
+        RevalidatingDependencies restarted = new RevalidatingDependencies(new RevalidationStore(directory), site);
+
+        assertEquals(site.body, restarted.getBodyTextFromUrl(url, TIMEOUT_MS));
+        assertEquals(1, restarted.getNotModifiedCount());
+        assertEquals(0, restarted.getTransferredChars());
+    }
+
+    @Test
+    void testDamagedCopyIsDiscardedAndFetchedUnconditionally() throws Exception {
+        VersionedSite site = new VersionedSite("<html>security</html>");
+        RevalidatingDependencies dependencies = new RevalidatingDependencies(new RevalidationStore(directory), site);
+        URL url = new URL("https://example.com/page");
+        dependencies.getBodyTextFromUrl(url, TIMEOUT_MS);
+
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                Files.write(file, new byte[]{1, 2, 3});
+            }
+        }
+
+        assertEquals(site.body, dependencies.getBodyTextFromUrl(url, TIMEOUT_MS));
+        assertEquals(List.of("none", "none"), site.conditions);
+    }
+
+    @Test
+    void testPagesWithoutValidatorsAreNotStored() throws Exception {
+        VersionedSite site = new VersionedSite("<html>security</html>");
+        site.sendValidators = false;
+        RevalidatingDependencies dependencies = new RevalidatingDependencies(new RevalidationStore(directory), site);
+        URL url = new URL("https://example.com/page");
+
+        dependencies.getBodyTextFromUrl(url, TIMEOUT_MS);
+        dependencies.getBodyTextFromUrl(url, TIMEOUT_MS);
+
+        assertEquals(List.of("none", "none"), site.conditions);
+        try (Stream<Path> files = Files.walk(directory)) {
+            assertEquals(0, files.filter(Files::isRegularFile).count());
+        }
+    }
+
+    /**
+     * A single page whose ETag changes with every update, answering matching conditional requests
+     * with 304 Not Modified.
+     */
+    private static class VersionedSite extends CrawlService.Dependencies {
+        final List<String> conditions = new ArrayList<>();
+        String body;
+        int version = 1;
+        boolean sendValidators = true;
+
+        VersionedSite(String body) {
+            this.body = body;
+        }
+
+        void update(String body) {
+            this.body = body;
+            version++;
+        }
+
+        @Override
+        public FetchResult fetchIfModified(URL url, int timeout, String etag, String lastModified) throws IOException {
+            conditions.add(etag == null ? "none" : etag);
+            String currentEtag = sendValidators ? "\"v" + version + "\"" : null;
+            if (currentEtag != null && currentEtag.equals(etag)) {
+                return FetchResult.notModified(currentEtag, null);
+            }
+            return FetchResult.modified(body, currentEtag, null);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.backend.unit;
+
+import com.backend.model.ISearchOperation;
+import com.backend.model.SearchStatus;
+import com.backend.service.CrawlConfig;
+import com.backend.service.CrawlService;
+import com.backend.service.ICircuitBreaker;
+import com.backend.service.SearchCheckpointLog;
+import com.backend.service.SearchRetention;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class SearchCheckpointLogTest {
+    private static final String BASE_URL = "http://example.com/";
+    private static final int PAGES = 20;
+    private static final String BLOCKED_PATH = "/page-10.html";
+
+    @Test
+    void testInterruptedSearchResumesWithoutFetchingScannedPagesAgain(@TempDir Path directory) throws Exception {
+        CrawlConfig config = new CrawlConfig(BASE_URL, 100, 3, 5000, 1000);
+        Site firstSite = new Site(true);
+        CrawlService first = newService(config, firstSite, directory);
+        String searchId = first.startSearch("security");
+        assertTrue(firstSite.blocked.await(5, TimeUnit.SECONDS));
+
+        first.shutdown();
+
+        assertEquals(SearchStatus.ACTIVE, first.getSearchOperation(searchId).getStatus());
+        // A frame cut short by a crash is ignored, and later frames are written after the last intact one.
+        try (Stream<Path> logs = Files.list(directory)) {
+            Files.write(logs.findFirst().orElseThrow(), new byte[]{0, 0, 1, 0, 7}, StandardOpenOption.APPEND);
+        }
+
+        Site secondSite = new Site(false);
+        CrawlService second = newService(config, secondSite, directory);
+        assertEquals(1, second.resumeSearches());
+        ISearchOperation resumed = awaitCompletion(second, searchId);
+
+        assertEquals(SearchStatus.DONE, resumed.getStatus());
+        assertEquals(PAGES + 1, resumed.getUrls().size());
+        Set<String> fetchedTwice = new HashSet<>(secondSite.fetched);
+        fetchedTwice.retainAll(firstSite.scanned);
+        assertTrue(fetchedTwice.isEmpty(), "Pages fetched again: " + fetchedTwice);
+        assertTrue(secondSite.fetched.contains(BLOCKED_PATH));
+        second.shutdown();
+        try (Stream<Path> logs = Files.list(directory)) {
+            assertEquals(0, logs.count());
+        }
+    }
+
+    @Test
+    void testCoalescedSearchesResumeUnderTheirOriginalIds(@TempDir Path directory) throws Exception {
+        CrawlConfig config = new CrawlConfig(BASE_URL, 100, 3, 5000, 1000, 1, true);
+        Site firstSite = new Site(true);
+        CrawlService first = newService(config, firstSite, directory);
+        String firstId = first.startSearch("security");
+        assertTrue(firstSite.blocked.await(5, TimeUnit.SECONDS));
+        String secondId = first.startSearch("privacy");
+
+        first.shutdown();
+
+        CrawlService second = newService(config, new Site(false), directory);
+        assertEquals(2, second.resumeSearches());
+        ISearchOperation firstSearch = awaitCompletion(second, firstId);
+        ISearchOperation secondSearch = awaitCompletion(second, secondId);
+
+        assertEquals(SearchStatus.DONE, firstSearch.getStatus());
+        assertEquals(SearchStatus.DONE, secondSearch.getStatus());
+        assertEquals(PAGES + 1, firstSearch.getUrls().size());
+        assertEquals(PAGES + 1, secondSearch.getUrls().size());
+        second.shutdown();
+    }
+
+    @Test
+    void testCompletedSearchLeavesNoCheckpoint(@TempDir Path directory) throws Exception {
+        CrawlService service = newService(new CrawlConfig(BASE_URL, 100, 3, 5000, 1000), new Site(false), directory);
+
+        ISearchOperation searchOperation = awaitCompletion(service, service.startSearch("security"));
+        service.shutdown();
+
+        assertEquals(SearchStatus.DONE, searchOperation.getStatus());
+        try (Stream<Path> logs = Files.list(directory)) {
+            assertEquals(0, logs.count());
+        }
+        CrawlService restarted = newService(new CrawlConfig(BASE_URL, 100, 3, 5000, 1000), new Site(false), directory);
+        assertEquals(0, restarted.resumeSearches());
+        restarted.shutdown();
+    }
+
+    private static CrawlService newService(CrawlConfig config, Site site, Path directory) throws IOException {
+        return new CrawlService(Executors.newCachedThreadPool(), config, mock(ICircuitBreaker.class), site,
+                SearchRetention.retainAll(), null, new SearchCheckpointLog(directory, 10));
+    }
+
+    private static ISearchOperation awaitCompletion(CrawlService service, String searchId) throws InterruptedException {
+        ISearchOperation searchOperation = service.getSearchOperation(searchId);
+        assertNotNull(searchOperation);
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (searchOperation.getStatus() == SearchStatus.ACTIVE && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        return searchOperation;
+    }
+
+    /**
+     * A base page linking to {@value #PAGES} pages, all of which match both test keywords. When
+     * blocking, fetches of {@value #BLOCKED_PATH} hang until the crawl is interrupted.
+     */
+    private static class Site extends CrawlService.Dependencies {
+        final Set<String> fetched = ConcurrentHashMap.newKeySet();
+        final Set<String> scanned = ConcurrentHashMap.newKeySet();
+        final CountDownLatch blocked = new CountDownLatch(1);
+        private final boolean blocking;
+
+        Site(boolean blocking) {
+            this.blocking = blocking;
+        }
+
+        @Override
+        public boolean supportsBodyScanning() {
+            return false;
+        }
+
+        @Override
+        public String getBodyTextFromUrl(URL url, int timeout) throws IOException {
+            fetched.add(url.getPath());
+            if (blocking && url.getPath().equals(BLOCKED_PATH)) {
+                blocked.countDown();
+                try {
+                    new CountDownLatch(1).await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted", e);
+                }
+            }
+            scanned.add(url.getPath());
+            StringBuilder page = new StringBuilder("security privacy ");
+            if (url.getPath().equals("/")) {
+                for (int i = 1; i <= PAGES; i++) {
+                    page.append("<a href=\"/page-").append(i).append(".html\">").append(i).append("</a>");
+                }
+            }
+            return page.toString();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.backend.unit;
+
+import com.backend.controller.SearchEventStream;
+import com.backend.model.SearchOperation;
+import com.backend.model.SearchStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletResponse;
+import javax.servlet.WriteListener;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SearchEventStreamTest {
+    private final SearchEventStream eventStream = new SearchEventStream(1, 50, 200);
+
+    @AfterEach
+    void tearDown() {
+        eventStream.shutdown();
+    }
+
+    @Test
+    void testStalledClientIsDroppedWithoutHoldingUpOthers() throws IOException {
+        SearchOperation searchOperation = new SearchOperation("security");
+        TestOutput stalled = new TestOutput(false);
+        TestOutput reading = new TestOutput(true);
+        AsyncContext stalledContext = asyncContext(stalled);
+        AsyncContext readingContext = asyncContext(reading);
+
+        eventStream.subscribe(searchOperation, stalledContext, 0, SearchEventStream.Format.NDJSON);
+        eventStream.subscribe(searchOperation, readingContext, 0, SearchEventStream.Format.NDJSON);
+        searchOperation.tryAddUrl("http://example.com/a", 10);
+        searchOperation.setStatus(SearchStatus.DONE);
+
+        // With a single writer thread, the reading client only completes if the stalled one does not block it.
+        verify(readingContext, timeout(2000)).complete();
+        String events = reading.toString();
+        assertTrue(events.contains("\"url\":\"http://example.com/a\""), events);
+        assertTrue(events.contains("\"status\":\"done\""), events);
+
+        verify(stalledContext, timeout(2000)).complete();
+        assertEquals("", stalled.toString());
+        assertEquals(0, eventStream.getSubscriberCount());
+    }
+
+    @Test
+    void testWritesResumeOnceTheClientCatchesUp() throws IOException {
+        SearchOperation searchOperation = new SearchOperation("security");
+        TestOutput output = new TestOutput(false);
+        AsyncContext asyncContext = asyncContext(output);
+        SearchEventStream patientStream = new SearchEventStream(1, 50, 60_000);
+        try {
+            patientStream.subscribe(searchOperation, asyncContext, 0, SearchEventStream.Format.NDJSON);
+            searchOperation.tryAddUrl("http://example.com/a", 10);
+            searchOperation.setStatus(SearchStatus.DONE);
+
+            output.becomeReady();
+
+            verify(asyncContext, timeout(2000)).complete();
+            assertTrue(output.toString().contains("\"status\":\"done\""), output.toString());
+        } finally {
+            patientStream.shutdown();
+        }
+    }
+
+    private static AsyncContext asyncContext(ServletOutputStream out) throws IOException {
+        ServletResponse response = mock(ServletResponse.class);
+        when(response.getOutputStream()).thenReturn(out);
+        AsyncContext asyncContext = mock(AsyncContext.class);
+        when(asyncContext.getResponse()).thenReturn(response);
+        return asyncContext;
+    }
+
+    /**
+     * Output that is either always ready, or not ready until {@link #becomeReady()} is called, the way
+     * a container reports a client that stopped reading.
+     */
+    private static class TestOutput extends ServletOutputStream {
+        private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+        private volatile boolean ready;
+        private volatile WriteListener listener;
+
+        TestOutput(boolean ready) {
+            this.ready = ready;
+        }
+
+        void becomeReady() throws IOException {
+            ready = true;
+            listener.onWritePossible();
+        }
+
+        @Override
+        public boolean isReady() {
+            return ready;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            listener = writeListener;
+        }
+
+        @Override
+        public synchronized void write(int b) {
+            written.write(b);
+        }
+
+        @Override
+        public synchronized String toString() {
+            return written.toString(StandardCharsets.UTF_8);
+        }
+    }
+}
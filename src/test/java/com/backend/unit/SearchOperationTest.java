@@ -0,0 +1,145 @@
+package com.backend.unit;
+
+import com.backend.model.SearchOperation;
+import com.backend.model.SearchStatus;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchOperationTest {
+    private static final Gson GSON = new Gson();
+
+    @Test
+    void testFullJsonListsUrlsInOrderFound() {
+        SearchOperation searchOperation = new SearchOperation("security");
+        searchOperation.tryAddUrl("http://example.com/a", 10);
+        searchOperation.addUrls(List.of("http://example.com/b", "http://example.com/a", "http://example.com/c"));
+        searchOperation.setStatus(SearchStatus.DONE);
+
+        JsonObject json = GSON.fromJson(searchOperation.toString(), JsonObject.class);
+
+        assertEquals(searchOperation.getId(), json.get("id").getAsString());
+        assertEquals("done", json.get("status").getAsString());
+        assertEquals(urls("http://example.com/a", "http://example.com/b", "http://example.com/c"), json.getAsJsonArray("urls"));
+        assertFalse(json.has("next"));
+    }
+
+    @Test
+    void testPaginationResumesFromNextOffset() {
+        SearchOperation searchOperation = new SearchOperation("security");
+        for (int i = 0; i < 5; i++) {
+            searchOperation.tryAddUrl("http://example.com/" + i, 10);
+        }
+
+        JsonObject firstPage = GSON.fromJson(searchOperation.toJson(0, 2), JsonObject.class);
+        JsonObject secondPage = GSON.fromJson(searchOperation.toJson(firstPage.get("next").getAsInt(), 2), JsonObject.class);
+        JsonObject lastPage = GSON.fromJson(searchOperation.toJson(4, 10), JsonObject.class);
+        JsonObject beyondEnd = GSON.fromJson(searchOperation.toJson(9, 10), JsonObject.class);
+
+        assertEquals(urls("http://example.com/0", "http://example.com/1"), firstPage.getAsJsonArray("urls"));
+        assertEquals(urls("http://example.com/2", "http://example.com/3"), secondPage.getAsJsonArray("urls"));
+        assertEquals(4, secondPage.get("next").getAsInt());
+        assertEquals(urls("http://example.com/4"), lastPage.getAsJsonArray("urls"));
+        assertEquals(5, lastPage.get("next").getAsInt());
+        assertEquals(0, beyondEnd.getAsJsonArray("urls").size());
+        assertEquals(5, beyondEnd.get("next").getAsInt());
+    }
+
+    @Test
+    void testUrlsAreEscaped() {
+        SearchOperation searchOperation = new SearchOperation("security");
+        searchOperation.tryAddUrl("http://example.com/\"quoted\"\\path", 10);
+
+        JsonObject json = GSON.fromJson(searchOperation.toString(), JsonObject.class);
+
+        assertEquals("http://example.com/\"quoted\"\\path", json.getAsJsonArray("urls").get(0).getAsString());
+    }
+
+    @Test
+    void testConcurrentRetriesNeverExceedLimit() throws Exception {
+        SearchOperation searchOperation = new SearchOperation("security");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> workers = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    int retries = 0;
+                    for (int attempt = 0; attempt < 1000; attempt++) {
+                        if (searchOperation.tryIncrementRetryCount(3)) {
+                            retries++;
+                        }
+                    }
+                    return retries;
+                }));
+            }
+            start.countDown();
+
+            int granted = 0;
+            for (Future<Integer> worker : workers) {
+                granted += worker.get(5, TimeUnit.SECONDS);
+            }
+            assertEquals(3, granted);
+            assertEquals(3, searchOperation.getRetryCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testReadersSeeConsistentPrefixWhileResultsAreAdded() throws Exception {
+        SearchOperation searchOperation = new SearchOperation("security");
+        int total = 2000;
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            Future<?> writer = executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < total; i++) {
+                    searchOperation.tryAddUrl("http://example.com/page-" + i, total);
+                }
+                return null;
+            });
+            Future<?> reader = executor.submit(() -> {
+                start.await();
+                int offset = 0;
+                while (offset < total) {
+                    JsonObject page = GSON.fromJson(searchOperation.toJson(offset, 64), JsonObject.class);
+                    JsonArray urls = page.getAsJsonArray("urls");
+                    for (int i = 0; i < urls.size(); i++) {
+                        assertEquals("http://example.com/page-" + (offset + i), urls.get(i).getAsString());
+                    }
+                    offset = page.get("next").getAsInt();
+                }
+                return null;
+            });
+            start.countDown();
+
+            writer.get(10, TimeUnit.SECONDS);
+            reader.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(total, GSON.fromJson(searchOperation.toString(), JsonObject.class).getAsJsonArray("urls").size());
+    }
+
+    private static JsonArray urls(String... urls) {
+        JsonArray array = new JsonArray();
+        for (String url : urls) {
+            array.add(url);
+        }
+        return array;
+    }
+}
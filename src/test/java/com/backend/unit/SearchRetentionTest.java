@@ -0,0 +1,106 @@
+package com.backend.unit;
+
+import com.backend.model.CompletedSearch;
+import com.backend.model.ISearchOperation;
+import com.backend.model.SearchOperation;
+import com.backend.model.SearchStatus;
+import com.backend.service.SearchResultStore;
+import com.backend.service.SearchRetention;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchRetentionTest {
+    private static final long ONE_HOUR = TimeUnit.HOURS.toMillis(1);
+
+    @Test
+    void testCompletedSearchIsCompactedWithSameJson() {
+        SearchRetention retention = new SearchRetention(ONE_HOUR, 10);
+        SearchOperation searchOperation = finishedSearch("security", "http://example.com/a", "http://example.com/\"b\"");
+        retention.register(searchOperation);
+        String json = searchOperation.toString();
+        String page = searchOperation.toJson(1, 5);
+
+        retention.complete(searchOperation);
+
+        ISearchOperation retained = retention.get(searchOperation.getId());
+        assertTrue(retained instanceof CompletedSearch);
+        assertEquals(json, retained.toString());
+        assertEquals(page, retained.toJson(1, 5));
+        assertEquals(0, retained.getVisitedUrls().size());
+        assertThrows(UnsupportedOperationException.class, () -> retained.tryAddUrl("http://example.com/c", 10));
+    }
+
+    @Test
+    void testOldestCompletedSearchesAreEvictedBeyondMaxCount() {
+        SearchRetention retention = new SearchRetention(ONE_HOUR, 2);
+        SearchOperation active = new SearchOperation("active");
+        retention.register(active);
+        List<SearchOperation> completed = List.of(finishedSearch("first"), finishedSearch("second"), finishedSearch("third"));
+        for (SearchOperation searchOperation : completed) {
+            retention.register(searchOperation);
+            retention.complete(searchOperation);
+        }
+
+        assertNull(retention.get(completed.get(0).getId()));
+        assertNotNull(retention.get(completed.get(1).getId()));
+        assertNotNull(retention.get(completed.get(2).getId()));
+        assertSame(active, retention.get(active.getId()));
+        assertEquals(3, retention.size());
+    }
+
+    @Test
+    void testExpiredSearchesAreSpilledAndLoadedOnDemand(@TempDir Path directory) throws Exception {
+        SearchRetention retention = new SearchRetention(0, 10, new SearchResultStore(directory));
+        SearchOperation searchOperation = finishedSearch("security", "http://example.com/a", "http://example.com/b");
+        retention.register(searchOperation);
+        String json = searchOperation.toString();
+
+        retention.complete(searchOperation);
+
+        assertEquals(0, retention.size());
+        assertTrue(Files.exists(directory.resolve(searchOperation.getId() + ".json")));
+        ISearchOperation loaded = retention.get(searchOperation.getId());
+        assertNotNull(loaded);
+        assertEquals(json, loaded.toString());
+        assertEquals("security", loaded.getKeyword());
+        assertEquals(SearchStatus.DONE, loaded.getStatus());
+    }
+
+    @Test
+    void testStoreRejectsIdsThatAreNotFileNames(@TempDir Path directory) throws Exception {
+        Files.writeString(directory.resolve("secret.json"), "{}");
+        SearchResultStore store = new SearchResultStore(directory.resolve("results"));
+
+        assertNull(store.load("../secret"));
+        assertNull(store.load("missing"));
+    }
+
+    @Test
+    void testRetainAllKeepsOriginalOperations() {
+        SearchRetention retention = SearchRetention.retainAll();
+        SearchOperation searchOperation = finishedSearch("security", "http://example.com/a");
+        searchOperation.addVisitedUrl("http://example.com/a");
+        retention.register(searchOperation);
+
+        retention.complete(searchOperation);
+
+        assertSame(searchOperation, retention.get(searchOperation.getId()));
+        assertEquals(1, retention.get(searchOperation.getId()).getVisitedUrls().size());
+    }
+
+    private static SearchOperation finishedSearch(String keyword, String... urls) {
+        SearchOperation searchOperation = new SearchOperation(keyword);
+        for (String url : urls) {
+            searchOperation.tryAddUrl(url, 10);
+        }
+        searchOperation.setStatus(SearchStatus.DONE);
+        return searchOperation;
+    }
+}
@@ -0,0 +1,132 @@
+package com.backend.unit;
+
+import com.backend.util.SitemapParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SitemapParserTest {
+
+    @Test
+    void testReadsPageUrlsFromSitemap() throws IOException {
+        Entries entries = parse(utf8("<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                + "<urlset xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">"
+                + "<url><loc> https://example.com/a.html </loc><lastmod>2024-01-01</lastmod></url>"
+                + "<url><loc>https://example.com/b.html?x=1&amp;y=2</loc></url>"
+                + "<url><loc></loc></url>"
+                + "</urlset>"));
+
+        assertEquals(List.of("https://example.com/a.html", "https://example.com/b.html?x=1&y=2"), entries.pages);
+        assertTrue(entries.sitemaps.isEmpty());
+    }
+
+    @Test
+    void testReadsSitemapUrlsFromGzippedSitemapIndex() throws IOException {
+        Entries entries = parse(gzip("<sitemapindex xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">"
+                + "<sitemap><loc>https://example.com/sitemap-1.xml.gz</loc></sitemap>"
+                + "<sitemap><loc>https://example.com/sitemap-2.xml</loc></sitemap>"
+                + "</sitemapindex>"));
+
+        assertEquals(List.of("https://example.com/sitemap-1.xml.gz", "https://example.com/sitemap-2.xml"), entries.sitemaps);
+        assertTrue(entries.pages.isEmpty());
+    }
+
+    @Test
+    void testReadsItemLinksFromRssAndEntryLinksFromAtom() throws IOException {
+        Entries rss = parse(utf8("<rss version=\"2.0\"><channel><link>https://example.com/</link>"
+                + "<item><title>One</title><link>https://example.com/one.html</link></item>"
+                + "<item><link><![CDATA[https://example.com/two.html]]></link></item>"
+                + "</channel></rss>"));
+        Entries atom = parse(utf8("<feed xmlns=\"http://www.w3.org/2005/Atom\"><link href=\"https://example.com/\"/>"
+                + "<entry><link rel=\"edit\" href=\"https://example.com/edit/1\"/><link href=\"https://example.com/one.html\"/></entry>"
+                + "<entry><link rel=\"alternate\" href=\"/two.html\"/></entry>"
+                + "</feed>"));
+
+        assertEquals(List.of("https://example.com/one.html", "https://example.com/two.html"), rss.pages);
+        assertEquals(List.of("https://example.com/one.html", "/two.html"), atom.pages);
+    }
+
+    @Test
+    void testStopsWhenListenerDeclinesMorePages() throws IOException {
+        StringBuilder sitemap = new StringBuilder("<urlset>");
+        for (int i = 0; i < 100; i++) {
+            sitemap.append("<url><loc>https://example.com/").append(i).append("</loc></url>");
+        }
+        List<String> pages = new ArrayList<>();
+
+        SitemapParser.parse(utf8(sitemap.append("</urlset>").toString()), new SitemapParser.Listener() {
+            @Override
+            public boolean onPage(String url) {
+                pages.add(url);
+                return pages.size() < 3;
+            }
+
+            @Override
+            public void onSitemap(String url) {
+            }
+        });
+
+        assertEquals(3, pages.size());
+    }
+
+    @Test
+    void testRejectsMalformedDocumentsAndDoctypes() {
+        assertThrows(IOException.class, () -> parse(utf8("<urlset><url><loc>https://example.com/</url>")));
+        assertThrows(IOException.class, () -> parse(utf8("<!DOCTYPE urlset [<!ENTITY x SYSTEM \"file:///etc/passwd\">]>"
+                + "<urlset><url><loc>&x;</loc></url></urlset>")));
+    }
+
+    @Test
+    void testReadsSitemapLinesFromRobotsTxt() throws IOException {
+        List<String> sitemaps = SitemapParser.parseRobots(utf8("User-agent: *\nDisallow: /private\n"
+                + "Sitemap: https://example.com/sitemap.xml\n"
+                + "sitemap:/news.rss   # relative\n"
+                + "# Sitemap: https://example.com/commented.xml\n"
+                + "Sitemap:\n"));
+
+        assertEquals(List.of("https://example.com/sitemap.xml", "/news.rss"), sitemaps);
+    }
+
+    private static Entries parse(InputStream in) throws IOException {
+        Entries entries = new Entries();
+        SitemapParser.parse(in, entries);
+        return entries;
+    }
+
+    private static InputStream utf8(String document) {
+        return new ByteArrayInputStream(document.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static InputStream gzip(String document) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(document.getBytes(StandardCharsets.UTF_8));
+        }
+        return new ByteArrayInputStream(compressed.toByteArray());
+    }
+
+    private static class Entries implements SitemapParser.Listener {
+        final List<String> pages = new ArrayList<>();
+        final List<String> sitemaps = new ArrayList<>();
+
+        @Override
+        public boolean onPage(String url) {
+            pages.add(url);
+            return true;
+        }
+
+        @Override
+        public void onSitemap(String url) {
+            sitemaps.add(url);
+        }
+    }
+}
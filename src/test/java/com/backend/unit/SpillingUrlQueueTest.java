@@ -0,0 +1,141 @@
+package com.backend.unit;
+
+import com.backend.service.SpillingUrlQueue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpillingUrlQueueTest {
+    private static final int SEGMENT_BYTES = 1024;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testUrlsComeOutInOrderAcrossMemoryAndDisk() throws Exception {
+        try (SpillingUrlQueue queue = new SpillingUrlQueue(directory, 10, SEGMENT_BYTES)) {
+            for (int i = 0; i < 500; i++) {
+                queue.add(url(i));
+            }
+
+            assertEquals(500, queue.size());
+            assertEquals(490, queue.getSpilledCount());
+            assertTrue(queue.getSegmentCount() > 1);
+            for (int i = 0; i < 500; i++) {
+                assertEquals(url(i), queue.poll());
+            }
+            assertNull(queue.poll());
+            assertEquals(0, queue.size());
+        }
+    }
+
+    @Test
+    void testInterleavedAddsAndPollsStayInOrder() throws Exception {
+        try (SpillingUrlQueue queue = new SpillingUrlQueue(directory, 4, SEGMENT_BYTES)) {
+            int added = 0;
+            int polled = 0;
+            for (int round = 0; round < 200; round++) {
+                for (int i = 0; i < 3; i++) {
+                    queue.add(url(added++));
+                }
+                for (int i = 0; i < 2; i++) {
+                    assertEquals(url(polled++), queue.poll());
+                }
+            }
+            while (polled < added) {
+                assertEquals(url(polled++), queue.poll());
+            }
+            assertNull(queue.poll());
+        }
+    }
+
+    @Test
+    void testDrainedSegmentsAreReused() throws Exception {
+        try (SpillingUrlQueue queue = new SpillingUrlQueue(directory, 1, SEGMENT_BYTES)) {
+            for (int round = 0; round < 100; round++) {
+                for (int i = 0; i < 50; i++) {
+                    queue.add(url(i));
+                }
+                while (queue.poll() != null) {
+                    // drain
+                }
+            }
+
+            assertEquals(100L * 49, queue.getSpilledTotal());
+            assertTrue(queue.getSegmentCount() <= 4, "Segments: " + queue.getSegmentCount());
+        }
+    }
+
+    @Test
+    void testCloseDeletesSegmentFiles() throws Exception {
+        SpillingUrlQueue queue = new SpillingUrlQueue(directory, 1, SEGMENT_BYTES);
+        for (int i = 0; i < 100; i++) {
+            queue.add(url(i));
+        }
+
+        queue.close();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void testConcurrentProducersAndConsumersSeeEveryUrlOnce() throws Exception {
+        int producers = 2;
+        int perProducer = 5000;
+        Set<URL> seen = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(producers + 2);
+        CountDownLatch start = new CountDownLatch(1);
+        try (SpillingUrlQueue queue = new SpillingUrlQueue(directory, 16, SEGMENT_BYTES)) {
+            Future<?>[] futures = new Future<?>[producers + 2];
+            for (int p = 0; p < producers; p++) {
+                int offset = p * perProducer;
+                futures[p] = executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perProducer; i++) {
+                        queue.add(url(offset + i));
+                    }
+                    return null;
+                });
+            }
+            for (int c = producers; c < producers + 2; c++) {
+                futures[c] = executor.submit(() -> {
+                    start.await();
+                    while (seen.size() < producers * perProducer) {
+                        URL url = queue.poll();
+                        if (url != null) {
+                            assertTrue(seen.add(url), "Polled twice: " + url);
+                        }
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+            assertNull(queue.poll());
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(producers * perProducer, seen.size());
+    }
+
+    private static URL url(int i) throws Exception {
+        return new URL("https://example.com/section/page-" + i + ".html?q=" + i);
+    }
+}
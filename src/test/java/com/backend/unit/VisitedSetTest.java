@@ -0,0 +1,111 @@
+package com.backend.unit;
+
+import com.backend.model.BloomVisitedSet;
+import com.backend.model.ExactVisitedSet;
+import com.backend.model.FingerprintVisitedSet;
+import com.backend.model.IVisitedSet;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VisitedSetTest {
+    private static final int URL_COUNT = 200_000;
+
+    private static List<IVisitedSet> allSets() {
+        return List.of(
+                new ExactVisitedSet(),
+                new FingerprintVisitedSet(16),
+                new BloomVisitedSet(16, BloomVisitedSet.DEFAULT_FALSE_POSITIVE_RATE));
+    }
+
+    @Test
+    void testAddIfAbsentReportsFirstAdditionOnly() {
+        for (IVisitedSet visitedSet : allSets()) {
+            assertTrue(visitedSet.addIfAbsent("http://example.com/a"), visitedSet.getClass().getSimpleName());
+            assertFalse(visitedSet.addIfAbsent("http://example.com/a"), visitedSet.getClass().getSimpleName());
+            assertTrue(visitedSet.contains("http://example.com/a"), visitedSet.getClass().getSimpleName());
+            assertFalse(visitedSet.contains("http://example.com/b"), visitedSet.getClass().getSimpleName());
+            assertEquals(1, visitedSet.size(), visitedSet.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    void testAddedUrlsAreNeverReportedAbsentAfterGrowing() {
+        for (IVisitedSet visitedSet : allSets()) {
+            for (int i = 0; i < URL_COUNT; i++) {
+                visitedSet.addIfAbsent("http://example.com/page-" + i);
+            }
+            for (int i = 0; i < URL_COUNT; i++) {
+                assertTrue(visitedSet.contains("http://example.com/page-" + i), visitedSet.getClass().getSimpleName());
+            }
+        }
+    }
+
+    @Test
+    void testBloomFalsePositiveRateStaysBelowBound() {
+        double rate = 1e-3;
+        BloomVisitedSet visitedSet = new BloomVisitedSet(1000, rate);
+        for (int i = 0; i < URL_COUNT; i++) {
+            visitedSet.addIfAbsent("http://example.com/page-" + i);
+        }
+
+        int falsePositives = 0;
+        int probes = URL_COUNT;
+        for (int i = 0; i < probes; i++) {
+            if (visitedSet.contains("http://example.com/other-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < probes * rate, "False positives: " + falsePositives);
+        assertTrue(visitedSet.getMemoryBytes() < URL_COUNT * 8L, "Memory: " + visitedSet.getMemoryBytes());
+    }
+
+    @Test
+    void testConcurrentAddsSucceedExactlyOncePerUrl() throws Exception {
+        int threads = 4;
+        int urls = 20_000;
+        for (IVisitedSet visitedSet : allSets()) {
+            AtomicInteger added = new AtomicInteger();
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            CountDownLatch start = new CountDownLatch(1);
+            try {
+                Future<?>[] futures = new Future<?>[threads];
+                for (int t = 0; t < threads; t++) {
+                    futures[t] = executor.submit(() -> {
+                        start.await();
+                        for (int i = 0; i < urls; i++) {
+                            if (visitedSet.addIfAbsent("http://example.com/page-" + i)) {
+                                added.incrementAndGet();
+                            }
+                        }
+                        return null;
+                    });
+                }
+                start.countDown();
+                for (Future<?> future : futures) {
+                    future.get(30, TimeUnit.SECONDS);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+
+            String name = visitedSet.getClass().getSimpleName();
+            if (visitedSet instanceof BloomVisitedSet) {
+                // A false positive can only make an add fail, never make two succeed.
+                assertTrue(added.get() <= urls && added.get() > urls - 10, name);
+            } else {
+                assertEquals(urls, added.get(), name);
+            }
+            assertEquals(added.get(), visitedSet.size(), name);
+        }
+    }
+}